@@ -0,0 +1,245 @@
+package main.alphabet;
+
+import java.util.Arrays;
+
+/**
+ * Alphabet aus Residuen (z.B. Nukleotide, Aminosaeuren oder Augenzahlen), die von einem Modell emittiert werden.
+ * <p>
+ * Jedes Zeichen wird ueber eine vorberechnete Tabelle mit 256 Eintraegen in O(1) auf seinen Code abgebildet.
+ * Codes 0 bis {@link #size()}-1 sind die Residuen selbst. Optional gibt es mehrdeutige (degenerierte) Zeichen
+ * wie die IUPAC-Codes (z.B. N = A, C, G oder U), die die Codes ab {@link #size()} erhalten und fuer eine Menge von Residuen stehen.
+ * Bei Gross-/Kleinschreibung-Faltung werden Kleinbuchstaben wie die entsprechenden Grossbuchstaben kodiert.
+ * Zeichen ausserhalb von ISO-8859-1 sind nie Teil des Alphabets.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class Alphabet {
+
+    /**
+     * Nukleotide der RNA mit IUPAC-Codes. T wird als U interpretiert.
+     */
+    public static final Alphabet RNA = new Alphabet("ACGU", true,
+            "RYSWKMBDHVNT", new String[]{"AG", "CU", "CG", "AU", "GU", "AC", "CGU", "AGU", "ACU", "ACG", "ACGU", "U"});
+
+    /**
+     * Nukleotide der DNA mit IUPAC-Codes.
+     */
+    public static final Alphabet DNA = new Alphabet("ACGT", true,
+            "RYSWKMBDHVN", new String[]{"AG", "CT", "CG", "AT", "GT", "AC", "CGT", "AGT", "ACT", "ACG", "ACGT"});
+
+    /**
+     * 20 Aminosaeuren mit den mehrdeutigen Codes B (D oder N), Z (E oder Q), J (I oder L) und X (beliebig).
+     */
+    public static final Alphabet PROTEIN = new Alphabet("ACDEFGHIKLMNPQRSTVWY", true,
+            "BZJX", new String[]{"DN", "EQ", "IL", "ACDEFGHIKLMNPQRSTVWY"});
+
+    /**
+     * Augenzahlen eines Wuerfels
+     */
+    public static final Alphabet DICE = new Alphabet("123456", false, "", new String[0]);
+
+    /**
+     * Code fuer Zeichen, die nicht Teil des Alphabets sind
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Residuen (Index = Code)
+     */
+    private final char[] symbols;
+
+    /**
+     * mehrdeutige Zeichen (Index + size() = Code)
+     */
+    private final char[] degenerateSymbols;
+
+    /**
+     * Codes der Residuen je mehrdeutigem Zeichen
+     */
+    private final int[][] components;
+
+    /**
+     * Code je Zeichen (ISO-8859-1) oder {@link #UNKNOWN}
+     */
+    private final int[] codes = new int[256];
+
+    /**
+     * Konstruktor
+     *
+     * @param symbols           Residuen
+     * @param caseFolding       true, falls Kleinbuchstaben wie Grossbuchstaben kodiert werden
+     * @param degenerateSymbols mehrdeutige Zeichen
+     * @param components        Residuen je mehrdeutigem Zeichen
+     * @throws IllegalArgumentException falls Zeichen mehrfach vorkommen, nicht in ISO-8859-1 liegen
+     *                                  oder Komponenten keine Residuen sind
+     */
+    public Alphabet(String symbols, boolean caseFolding, String degenerateSymbols, String[] components) throws IllegalArgumentException {
+        if (symbols == null || symbols.isEmpty())
+            throw new IllegalArgumentException("symbols is empty");
+        if (degenerateSymbols == null || components == null || degenerateSymbols.length() != components.length)
+            throw new IllegalArgumentException("count of degenerate symbols and components differs");
+
+        this.symbols = symbols.toCharArray();
+        this.degenerateSymbols = degenerateSymbols.toCharArray();
+        this.components = new int[components.length][];
+
+        Arrays.fill(codes, UNKNOWN);
+        for (int code = 0; code < this.symbols.length; code++) {
+            register(this.symbols[code], code, caseFolding);
+        }
+        for (int d = 0; d < this.degenerateSymbols.length; d++) {
+            register(this.degenerateSymbols[d], this.symbols.length + d, caseFolding);
+            this.components[d] = new int[components[d].length()];
+            for (int k = 0; k < components[d].length(); k++) {
+                int code = indexOf(components[d].charAt(k));
+                this.components[d][k] = code;
+            }
+        }
+    }
+
+    /**
+     * Erstellt ein Alphabet aus uebergebenen Residuen ohne mehrdeutige Zeichen und ohne Faltung
+     *
+     * @param symbols Residuen
+     * @return Alphabet
+     * @throws IllegalArgumentException falls Zeichen mehrfach vorkommen oder nicht in ISO-8859-1 liegen
+     */
+    public static Alphabet of(char[] symbols) throws IllegalArgumentException {
+        return new Alphabet(String.valueOf(symbols), false, "", new String[0]);
+    }
+
+    /**
+     * Traegt Zeichen (und gegebenenfalls den Kleinbuchstaben) mit uebergebenem Code in die Tabelle ein
+     *
+     * @param symbol      Zeichen
+     * @param code        Code
+     * @param caseFolding true, falls Kleinbuchstabe ebenfalls eingetragen wird
+     * @throws IllegalArgumentException falls Zeichen bereits eingetragen ist oder nicht in ISO-8859-1 liegt
+     */
+    private void register(final char symbol, final int code, final boolean caseFolding) throws IllegalArgumentException {
+        if (symbol > 0xFF)
+            throw new IllegalArgumentException("Character " + symbol + " not supported");
+        if (codes[symbol] != UNKNOWN)
+            throw new IllegalArgumentException("Character " + symbol + " used twice");
+        codes[symbol] = code;
+
+        char lower = Character.toLowerCase(symbol);
+        if (caseFolding && lower != symbol && lower <= 0xFF && codes[lower] == UNKNOWN)
+            codes[lower] = code;
+    }
+
+    /**
+     * Liefert Anzahl Residuen zurueck
+     *
+     * @return Anzahl Residuen
+     */
+    public int size() {
+        return symbols.length;
+    }
+
+    /**
+     * Liefert Anzahl aller Codes (Residuen und mehrdeutige Zeichen) zurueck
+     *
+     * @return Anzahl Codes
+     */
+    public int codeCount() {
+        return symbols.length + degenerateSymbols.length;
+    }
+
+    /**
+     * Liefert Code des uebergebenen Zeichens oder {@link #UNKNOWN} zurueck
+     *
+     * @param symbol Zeichen
+     * @return Code oder {@link #UNKNOWN}
+     */
+    public int code(final char symbol) {
+        return symbol > 0xFF ? UNKNOWN : codes[symbol];
+    }
+
+    /**
+     * Liefert Index des uebergebenen Residuums zurueck
+     *
+     * @param symbol Residuum
+     * @return Index
+     * @throws IllegalArgumentException falls Zeichen kein Residuum ist (auch mehrdeutige Zeichen)
+     */
+    public int indexOf(final char symbol) throws IllegalArgumentException {
+        int code = code(symbol);
+        if (code == UNKNOWN || code >= symbols.length)
+            throw new IllegalArgumentException("Character " + symbol + " not found");
+        return code;
+    }
+
+    /**
+     * Mappt Residuen-Folge auf entsprechende Index-Folge
+     *
+     * @param observations Residuen-Folge
+     * @return Index-Folge
+     * @throws IllegalArgumentException falls Zeichen kein Residuum ist (auch mehrdeutige Zeichen)
+     */
+    public int[] toIndices(final char[] observations) throws IllegalArgumentException {
+        int[] ret = new int[observations.length];
+        for (int i = 0; i < observations.length; i++) {
+            ret[i] = indexOf(observations[i]);
+        }
+        return ret;
+    }
+
+    /**
+     * Mappt Zeichen-Folge auf entsprechende Code-Folge (inklusive mehrdeutiger Zeichen)
+     *
+     * @param observations Zeichen-Folge
+     * @return Code-Folge
+     * @throws IllegalArgumentException falls Zeichen nicht Teil des Alphabets ist
+     */
+    public int[] toCodes(final char[] observations) throws IllegalArgumentException {
+        int[] ret = new int[observations.length];
+        for (int i = 0; i < observations.length; i++) {
+            ret[i] = code(observations[i]);
+            if (ret[i] == UNKNOWN)
+                throw new IllegalArgumentException("Character " + observations[i] + " not found");
+        }
+        return ret;
+    }
+
+    /**
+     * Liefert Zeichen zu uebergebenem Code zurueck
+     *
+     * @param code Code
+     * @return Zeichen
+     */
+    public char symbol(final int code) {
+        return code < symbols.length ? symbols[code] : degenerateSymbols[code - symbols.length];
+    }
+
+    /**
+     * Liefert die Indizes der Residuen zurueck, fuer die uebergebener Code steht
+     *
+     * @param code Code
+     * @return Indizes der Residuen
+     */
+    public int[] components(final int code) {
+        if (code < symbols.length)
+            return new int[]{code};
+        return components[code - symbols.length].clone();
+    }
+
+    /**
+     * Liefert true zurueck, falls das Alphabet mehrdeutige Zeichen besitzt. Ansonsten false.
+     *
+     * @return true, falls mehrdeutige Zeichen vorhanden. Ansonsten false.
+     */
+    public boolean hasDegenerateSymbols() {
+        return degenerateSymbols.length > 0;
+    }
+
+    /**
+     * Liefert Kopie der Residuen zurueck
+     *
+     * @return Residuen
+     */
+    public char[] getSymbols() {
+        return symbols.clone();
+    }
+}
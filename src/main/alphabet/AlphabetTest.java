@@ -0,0 +1,108 @@
+package main.alphabet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test-Klasse fuer {@link Alphabet}.
+ *
+ * @author Soeren Metje
+ */
+public class AlphabetTest {
+
+    /**
+     * Test von {@link Alphabet#code(char)} mit Gross-/Kleinschreibung-Faltung.
+     * Kleinbuchstaben muessen wie Grossbuchstaben kodiert werden, ohne Faltung sind sie unbekannt.
+     */
+    @Test
+    public void testCaseFolding() {
+        for (Alphabet alphabet : new Alphabet[]{Alphabet.RNA, Alphabet.DNA, Alphabet.PROTEIN}) {
+            for (int code = 0; code < alphabet.codeCount(); code++) {
+                char symbol = alphabet.symbol(code);
+                Assert.assertEquals(code, alphabet.code(symbol));
+                Assert.assertEquals(code, alphabet.code(Character.toLowerCase(symbol)));
+            }
+        }
+
+        Alphabet noFolding = Alphabet.of(new char[]{'A', 'C', 'G', 'U'});
+        Assert.assertEquals(0, noFolding.code('A'));
+        Assert.assertEquals(Alphabet.UNKNOWN, noFolding.code('a'));
+        Assert.assertEquals(3, new Alphabet("ACGU", true, "", new String[0]).code('u'));
+    }
+
+    /**
+     * Test von {@link Alphabet#code(char)}, {@link Alphabet#indexOf(char)} und {@link Alphabet#toCodes(char[])} mit ungueltigen Zeichen
+     */
+    @Test
+    public void testInvalidCharacters() {
+        Alphabet alphabet = Alphabet.RNA;
+        for (char symbol : new char[]{'-', '.', '*', ' ', 'X', 'x', 'E', '\u00E9', '\u03A9', '\uFFFF', 0}) {
+            Assert.assertEquals(String.valueOf(symbol), Alphabet.UNKNOWN, alphabet.code(symbol));
+            try {
+                alphabet.indexOf(symbol);
+                Assert.fail("indexOf accepted " + symbol);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            try {
+                alphabet.toCodes(new char[]{'A', symbol});
+                Assert.fail("toCodes accepted " + symbol);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        // degenerate symbols are codes, but no residues
+        Assert.assertEquals(alphabet.size() + "RYSWKMBDHVN".indexOf('N'), alphabet.code('N'));
+        try {
+            alphabet.indexOf('N');
+            Assert.fail("indexOf accepted N");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test der IUPAC-Codes von {@link Alphabet#RNA}. T wird als U interpretiert.
+     */
+    @Test
+    public void testDegenerateSymbols() {
+        Alphabet alphabet = Alphabet.RNA;
+        Assert.assertEquals(4, alphabet.size());
+        Assert.assertEquals(16, alphabet.codeCount());
+        Assert.assertTrue(alphabet.hasDegenerateSymbols());
+        Assert.assertFalse(Alphabet.DICE.hasDegenerateSymbols());
+
+        Assert.assertArrayEquals(new int[]{alphabet.indexOf('U')}, alphabet.components(alphabet.code('T')));
+        Assert.assertArrayEquals(new int[]{alphabet.indexOf('U')}, alphabet.components(alphabet.code('t')));
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 3}, alphabet.components(alphabet.code('n')));
+        Assert.assertArrayEquals(new int[]{alphabet.indexOf('A'), alphabet.indexOf('G')}, alphabet.components(alphabet.code('R')));
+        Assert.assertArrayEquals(new int[]{2}, alphabet.components(2));
+
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 3, 0, 3}, alphabet.toIndices("ACGUau".toCharArray()));
+    }
+
+    /**
+     * Test von {@link Alphabet#Alphabet(String, boolean, String, String[])} mit doppeltem Zeichen
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateSymbol() {
+        new Alphabet("ACGA", false, "", new String[0]);
+    }
+
+    /**
+     * Test von {@link Alphabet#Alphabet(String, boolean, String, String[])} mit Zeichen ausserhalb von ISO-8859-1
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSymbolOutsideLatin1() {
+        new Alphabet("AC\u03A9", false, "", new String[0]);
+    }
+
+    /**
+     * Test von {@link Alphabet#Alphabet(String, boolean, String, String[])} mit Komponente, die kein Residuum ist
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidComponent() {
+        new Alphabet("ACGU", false, "N", new String[]{"ACGX"});
+    }
+}
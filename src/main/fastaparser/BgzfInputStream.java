@@ -0,0 +1,342 @@
+package main.fastaparser;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Eingabestrom, der eine BGZF-Datei (blockweise komprimiertes gzip) entpackt.
+ * <p>
+ * BGZF besteht aus unabhaengigen gzip-Bloecken mit hoechstens 64 KB, deren komprimierte Groesse im Header steht.
+ * Die Bloecke werden stapelweise gelesen und von mehreren Threads {@link ThreadBgzfInflate} gleichzeitig entpackt.
+ * Die Threads werden einmal je Eingabestrom gestartet und fuer alle Stapel wiederverwendet.
+ * Waehrend die Bytes eines Stapels gelesen werden, wird bereits der naechste Stapel entpackt.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class BgzfInputStream extends InputStream {
+
+    /**
+     * Laenge des festen Teils des gzip-Headers in Bytes (inklusive XLEN)
+     */
+    private static final int HEADER_LENGTH = 12;
+
+    /**
+     * Laenge des gzip-Footers (CRC32 und ISIZE) in Bytes
+     */
+    private static final int FOOTER_LENGTH = 8;
+
+    /**
+     * maximale Groesse eines entpackten Blocks in Bytes
+     */
+    private static final int MAX_BLOCK_SIZE = 1 << 16;
+
+    /**
+     * Anzahl Bloecke pro Thread und Stapel
+     */
+    private static final int BLOCKS_PER_THREAD = 8;
+
+    /**
+     * Eingabestrom mit den komprimierten Bloecken
+     */
+    private final DataInputStream in;
+
+    /**
+     * Threads, die die Stapel entpacken (werden fuer alle Stapel wiederverwendet)
+     */
+    private final ThreadBgzfInflate[] workers;
+
+    /**
+     * entpackte Bloecke des aktuellen Stapels
+     */
+    private byte[][] blocks = new byte[0][];
+
+    /**
+     * Index des aktuellen Blocks im Stapel
+     */
+    private int blockIndex = 0;
+
+    /**
+     * Position im aktuellen Block
+     */
+    private int position = 0;
+
+    /**
+     * Anzahl Threads, die den naechsten Stapel entpacken, oder 0, falls das Ende erreicht ist
+     */
+    private int pending = 0;
+
+    /**
+     * Ziel der Threads fuer den naechsten Stapel
+     */
+    private byte[][] pendingBlocks;
+
+    /**
+     * Konstruktor. Beginnt sofort mit dem Entpacken des ersten Stapels.
+     *
+     * @param in          Eingabestrom mit den komprimierten Bloecken
+     * @param threadCount Anzahl Threads
+     * @throws IOException              falls beim Lesen ein Fehler auftritt
+     * @throws IllegalArgumentException falls in == null oder threadCount &lt; 1
+     */
+    public BgzfInputStream(InputStream in, int threadCount) throws IllegalArgumentException, IOException {
+        if (in == null)
+            throw new IllegalArgumentException("in is null");
+        if (threadCount < 1)
+            throw new IllegalArgumentException("threadCount has to be at least 1");
+
+        this.in = new DataInputStream(in);
+        this.workers = new ThreadBgzfInflate[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            workers[i] = new ThreadBgzfInflate();
+            workers[i].start();
+        }
+        try {
+            startBatch();
+        } catch (IOException e) {
+            shutdownWorkers();
+            throw e;
+        }
+    }
+
+    /**
+     * Liefert true zurueck, falls die uebergebenen Bytes mit einem BGZF-Header beginnen
+     * (gzip mit Zusatzfeld, dessen erstes Unterfeld 'BC' ist). Ansonsten false.
+     *
+     * @param header erste Bytes des Eingabestroms
+     * @param length Anzahl gueltiger Bytes
+     * @return true, falls BGZF. Ansonsten false.
+     */
+    static boolean isBgzfHeader(final byte[] header, final int length) {
+        return length >= 16 && CompressedInput.isGzipHeader(header, length)
+                && header[2] == 8 // deflate
+                && (header[3] & 4) != 0 // FEXTRA
+                && header[12] == 'B' && header[13] == 'C'
+                && header[14] == 2 && header[15] == 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextBlock())
+            return -1;
+        return blocks[blockIndex][position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        if (!nextBlock())
+            return -1;
+        byte[] block = blocks[blockIndex];
+        int count = Math.min(len, block.length - position);
+        System.arraycopy(block, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // wait for running threads, failures of unread blocks are irrelevant
+        for (int i = 0; i < pending; i++) {
+            try {
+                workers[i].awaitCompletion();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        pending = 0;
+        shutdownWorkers();
+        in.close();
+    }
+
+    /**
+     * Stellt sicher, dass im aktuellen Block Bytes verfuegbar sind. Wechselt dazu gegebenenfalls zum naechsten Stapel.
+     * Liefert false zurueck, falls das Ende erreicht ist. Ansonsten true.
+     * Tritt ein Fehler auf, werden die Threads beendet.
+     *
+     * @return false, falls das Ende erreicht ist. Ansonsten true.
+     * @throws IOException falls beim Lesen oder Entpacken ein Fehler auftritt
+     */
+    private boolean nextBlock() throws IOException {
+        while (blockIndex >= blocks.length || position >= blocks[blockIndex].length) {
+            if (blockIndex < blocks.length) {
+                blockIndex++;
+                position = 0;
+                continue;
+            }
+            if (pending == 0)
+                return false;
+
+            try {
+                joinPending();
+                blocks = pendingBlocks;
+                blockIndex = 0;
+                position = 0;
+                startBatch();
+            } catch (IOException e) {
+                shutdownWorkers(); // threads are idle, nothing else will be assigned
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Liesst den naechsten Stapel komprimierter Bloecke und vergibt ihn an die Threads, die ihn entpacken.
+     * Setzt pending auf 0 und beendet die Threads, falls keine Bloecke mehr vorhanden sind.
+     *
+     * @throws IOException falls beim Lesen ein Fehler auftritt
+     */
+    private void startBatch() throws IOException {
+        byte[][] compressed = new byte[workers.length * BLOCKS_PER_THREAD][];
+        int count = 0;
+        byte[] block;
+        while (count < compressed.length && (block = readBlock()) != null) {
+            compressed[count++] = block;
+        }
+        if (count == 0) {
+            pending = 0;
+            pendingBlocks = null;
+            shutdownWorkers();
+            return;
+        }
+
+        pendingBlocks = new byte[count][];
+        int usedThreads = Math.min(workers.length, count);
+        for (int i = 0; i < usedThreads; i++) {
+            workers[i].assign(compressed, pendingBlocks, count * i / usedThreads, count * (i + 1) / usedThreads);
+        }
+        pending = usedThreads;
+    }
+
+    /**
+     * Wartet auf die Threads des naechsten Stapels und wirft den ersten aufgetretenen Fehler.
+     * pending muss &gt; 0 sein und wird anschliessend auf 0 gesetzt.
+     *
+     * @throws IOException falls beim Entpacken ein Fehler aufgetreten ist
+     */
+    private void joinPending() throws IOException {
+        int usedThreads = pending;
+        pending = 0;
+        for (int i = 0; i < usedThreads; i++) {
+            try {
+                workers[i].awaitCompletion();
+            } catch (InterruptedException e) {
+                throw new IOException("interrupted while inflating BGZF blocks", e);
+            }
+        }
+        for (int i = 0; i < usedThreads; i++) {
+            if (workers[i].getFailure() != null)
+                throw workers[i].getFailure();
+        }
+    }
+
+    /**
+     * Beendet die Threads (mehrfacher Aufruf ist unbedenklich)
+     */
+    private void shutdownWorkers() {
+        for (ThreadBgzfInflate worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    /**
+     * Liesst den naechsten BGZF-Block und liefert ihn ohne Header (komprimierte Daten, CRC32 und ISIZE) zurueck.
+     * Liefert null zurueck, falls das Ende des Eingabestroms erreicht ist.
+     *
+     * @return Block ohne Header oder null
+     * @throws IOException falls der Block nicht dem BGZF-Format entspricht oder unvollstaendig ist
+     */
+    private byte[] readBlock() throws IOException {
+        int first = in.read();
+        if (first == -1)
+            return null;
+
+        byte[] header = new byte[HEADER_LENGTH];
+        header[0] = (byte) first;
+        in.readFully(header, 1, HEADER_LENGTH - 1);
+        if (!CompressedInput.isGzipHeader(header, HEADER_LENGTH) || header[2] != 8 || (header[3] & 4) == 0)
+            throw new IOException("invalid BGZF block header");
+
+        // extra field
+        int extraLength = (header[10] & 0xFF) | (header[11] & 0xFF) << 8;
+        byte[] extra = new byte[extraLength];
+        in.readFully(extra);
+        int blockSize = -1;
+        for (int i = 0; i + 4 <= extraLength; ) {
+            int subfieldLength = (extra[i + 2] & 0xFF) | (extra[i + 3] & 0xFF) << 8;
+            if (extra[i] == 'B' && extra[i + 1] == 'C' && subfieldLength == 2 && i + 6 <= extraLength)
+                blockSize = ((extra[i + 4] & 0xFF) | (extra[i + 5] & 0xFF) << 8) + 1;
+            i += 4 + subfieldLength;
+        }
+        int remaining = blockSize - HEADER_LENGTH - extraLength;
+        if (blockSize < 0 || remaining < FOOTER_LENGTH)
+            throw new IOException("missing or invalid BGZF block size");
+
+        byte[] block = new byte[remaining];
+        try {
+            in.readFully(block);
+        } catch (EOFException e) {
+            throw new IOException("truncated BGZF block", e);
+        }
+        return block;
+    }
+
+    /**
+     * Entpackt uebergebenen Block (ohne Header) und prueft Groesse und CRC32.
+     *
+     * @param block Block ohne Header (komprimierte Daten, CRC32 und ISIZE)
+     * @return entpackte Bytes
+     * @throws IOException falls der Block fehlerhaft ist
+     */
+    static byte[] inflate(final byte[] block) throws IOException {
+        int dataLength = block.length - FOOTER_LENGTH;
+        long crc = readIntLittleEndian(block, dataLength) & 0xFFFFFFFFL;
+        int size = readIntLittleEndian(block, dataLength + 4);
+        if (size < 0 || size > MAX_BLOCK_SIZE)
+            throw new IOException("invalid BGZF block size " + size);
+
+        byte[] ret = new byte[size];
+        Inflater inflater = new Inflater(true); // raw deflate
+        try {
+            inflater.setInput(block, 0, dataLength);
+            int count = 0;
+            while (count < size && !inflater.finished()) {
+                int inflated = inflater.inflate(ret, count, size - count);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                count += inflated;
+            }
+            if (count != size)
+                throw new IOException("corrupt BGZF block (size mismatch)");
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt BGZF block", e);
+        } finally {
+            inflater.end();
+        }
+
+        CRC32 checksum = new CRC32();
+        checksum.update(ret, 0, size);
+        if (checksum.getValue() != crc)
+            throw new IOException("corrupt BGZF block (CRC mismatch)");
+        return ret;
+    }
+
+    /**
+     * Liesst einen int in Little-Endian an uebergebener Position
+     *
+     * @param bytes  Bytes
+     * @param offset Position
+     * @return int
+     */
+    private static int readIntLittleEndian(final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,254 @@
+package main.fastaparser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Test-Klasse fuer {@link BgzfInputStream} und {@link CompressedInput}.
+ *
+ * @author Soeren Metje
+ */
+public class BgzfInputStreamTest {
+
+    /**
+     * Groesse der unkomprimierten Bloecke in Bytes
+     */
+    private static final int BLOCK_SIZE = 10000;
+
+    /**
+     * Test von {@link CompressedInput#open(InputStream)} mit gewoehnlichem gzip
+     */
+    @Test
+    public void testGzipRoundTrip() throws IOException {
+        byte[] data = randomData(new Random(0), 300000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+
+        try (InputStream in = CompressedInput.open(new ByteArrayInputStream(out.toByteArray()))) {
+            Assert.assertFalse(in instanceof BgzfInputStream);
+            Assert.assertArrayEquals(data, readAll(in));
+        }
+    }
+
+    /**
+     * Test von {@link BgzfInputStream} mit vielen Bloecken (mehrere Stapel) und abschliessendem leeren Block,
+     * direkt mit verschiedenen Anzahlen Threads und ueber {@link CompressedInput#open(InputStream)}
+     */
+    @Test
+    public void testBgzfRoundTrip() throws IOException {
+        byte[] data = randomData(new Random(1), 70 * BLOCK_SIZE + 123);
+        byte[] bgzf = bgzf(data);
+
+        for (int threadCount = 1; threadCount <= 4; threadCount++) {
+            try (InputStream in = new BgzfInputStream(new ByteArrayInputStream(bgzf), threadCount)) {
+                Assert.assertArrayEquals(data, readAll(in));
+                Assert.assertEquals(-1, in.read());
+            }
+        }
+        try (InputStream in = CompressedInput.open(new ByteArrayInputStream(bgzf))) {
+            Assert.assertTrue(in instanceof BgzfInputStream);
+            Assert.assertArrayEquals(data, readAll(in));
+        }
+
+        // byte by byte
+        try (InputStream in = new BgzfInputStream(new ByteArrayInputStream(bgzf), 2)) {
+            for (int i = 0; i < data.length; i++) {
+                Assert.assertEquals(data[i] & 0xFF, in.read());
+            }
+            Assert.assertEquals(-1, in.read());
+        }
+    }
+
+    /**
+     * Test von {@link CompressedInput#open(InputStream)} mit unkomprimierten Eingaben (auch kuerzer als der Header)
+     */
+    @Test
+    public void testUncompressed() throws IOException {
+        byte[][] inputs = {new byte[0], {'>'}, ">seq\nACGU\n".getBytes("ISO-8859-1"), randomData(new Random(2), 100000)};
+        for (byte[] data : inputs) {
+            try (InputStream in = CompressedInput.open(new ByteArrayInputStream(data))) {
+                Assert.assertArrayEquals(data, readAll(in));
+            }
+        }
+    }
+
+    /**
+     * Test von {@link BgzfInputStream} mit abgeschnittener Datei.
+     * Es muss eine {@link IOException} geworfen werden und die Threads muessen sich beenden,
+     * auch ohne dass der Eingabestrom geschlossen wird.
+     */
+    @Test
+    public void testTruncated() throws IOException, InterruptedException {
+        byte[] bgzf = bgzf(randomData(new Random(3), 70 * BLOCK_SIZE));
+
+        // cut inside the first block, inside a later batch and inside a block header
+        int[] lengths = {100, bgzf.length / 2, bgzf.length - 30};
+        for (int length : lengths) {
+            List<Thread> before = inflateThreads();
+            InputStream in = null;
+            try {
+                in = new BgzfInputStream(new ByteArrayInputStream(Arrays.copyOf(bgzf, length)), 2);
+                readAll(in);
+                Assert.fail("truncated BGZF accepted (length " + length + ")");
+            } catch (IOException e) {
+                // expected
+            }
+            assertTerminated(before);
+            if (in != null)
+                in.close();
+        }
+    }
+
+    /**
+     * Test von {@link BgzfInputStream} mit beschaedigtem Block (CRC32 stimmt nicht).
+     * Es muss eine {@link IOException} geworfen werden und die Threads muessen sich beenden.
+     */
+    @Test
+    public void testCorruptBlock() throws IOException, InterruptedException {
+        byte[] bgzf = bgzf(randomData(new Random(4), 70 * BLOCK_SIZE));
+        bgzf[bgzf.length / 2] ^= 0x55;
+
+        List<Thread> before = inflateThreads();
+        try (InputStream in = new BgzfInputStream(new ByteArrayInputStream(bgzf), 2)) {
+            try {
+                readAll(in);
+                Assert.fail("corrupt BGZF accepted");
+            } catch (IOException e) {
+                // expected
+            }
+            assertTerminated(before);
+        }
+    }
+
+    /**
+     * Prueft, ob sich alle neu gestarteten {@link ThreadBgzfInflate} beenden
+     *
+     * @param before zuvor laufende Threads
+     */
+    private static void assertTerminated(List<Thread> before) throws InterruptedException {
+        for (Thread thread : inflateThreads()) {
+            if (!before.contains(thread)) {
+                thread.join(10000);
+                Assert.assertFalse("inflate thread still running", thread.isAlive());
+            }
+        }
+    }
+
+    /**
+     * Liefert alle laufenden {@link ThreadBgzfInflate} zurueck
+     *
+     * @return Threads
+     */
+    private static List<Thread> inflateThreads() {
+        List<Thread> ret = new ArrayList<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread instanceof ThreadBgzfInflate)
+                ret.add(thread);
+        }
+        return ret;
+    }
+
+    /**
+     * Komprimiert die Bytes im BGZF-Format (Bloecke mit {@link #BLOCK_SIZE} Bytes und abschliessender leerer Block)
+     *
+     * @param data unkomprimierte Bytes
+     * @return BGZF-Bytes
+     */
+    private static byte[] bgzf(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < data.length; offset += BLOCK_SIZE) {
+            writeBlock(out, data, offset, Math.min(BLOCK_SIZE, data.length - offset));
+        }
+        writeBlock(out, data, 0, 0); // end of file
+        return out.toByteArray();
+    }
+
+    /**
+     * Schreibt einen BGZF-Block
+     *
+     * @param out    Ziel
+     * @param data   unkomprimierte Bytes
+     * @param offset Anfang des Blocks
+     * @param length Laenge des Blocks
+     */
+    private static void writeBlock(ByteArrayOutputStream out, byte[] data, int offset, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true); // raw deflate
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+        byte[] compressed = new byte[length + 1024];
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        deflater.end();
+
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        int blockSize = 18 + compressedLength + 8;
+
+        out.write(new byte[]{0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF, 6, 0, 'B', 'C', 2, 0}, 0, 16);
+        writeLittleEndian(out, blockSize - 1, 2);
+        out.write(compressed, 0, compressedLength);
+        writeLittleEndian(out, crc.getValue(), 4);
+        writeLittleEndian(out, length, 4);
+    }
+
+    /**
+     * Schreibt einen Wert in Little-Endian
+     *
+     * @param out   Ziel
+     * @param value Wert
+     * @param bytes Anzahl Bytes
+     */
+    private static void writeLittleEndian(ByteArrayOutputStream out, long value, int bytes) {
+        for (int i = 0; i < bytes; i++) {
+            out.write((int) (value >>> (8 * i)) & 0xFF);
+        }
+    }
+
+    /**
+     * Liefert zufaellige, komprimierbare Bytes zurueck
+     *
+     * @param random Zufallszahlen-Generator
+     * @param length Anzahl Bytes
+     * @return Bytes
+     */
+    private static byte[] randomData(Random random, int length) {
+        byte[] alphabet = {'A', 'C', 'G', 'U', '\n'};
+        byte[] ret = new byte[length];
+        for (int i = 0; i < length; i++) {
+            ret[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        return ret;
+    }
+
+    /**
+     * Liesst alle Bytes des Eingabestroms
+     *
+     * @param in Eingabestrom
+     * @return Bytes
+     */
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,91 @@
+package main.fastaparser;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Erkennt anhand der ersten Bytes, ob ein Eingabestrom mit gzip komprimiert ist, und entpackt ihn gegebenenfalls beim Lesen.
+ * <p>
+ * BGZF (blockweise komprimiertes gzip, z.B. von bgzip erzeugt) wird mittels {@link BgzfInputStream} parallelisiert entpackt,
+ * gewoehnliches gzip mittels {@link GZIPInputStream}. Unkomprimierte Eingaben werden unveraendert durchgereicht.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class CompressedInput {
+
+    /**
+     * Puffergroesse in Bytes
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Anzahl Bytes, die zur Erkennung des Formats betrachtet werden
+     */
+    private static final int HEADER_LENGTH = 16;
+
+    /**
+     * Liefert einen Eingabestrom zurueck, der die entpackten Bytes des uebergebenen Eingabestroms liefert.
+     * Wird der zurueckgelieferte Strom geschlossen, wird auch der uebergebene Strom geschlossen.
+     *
+     * @param inputStream (eventuell komprimierter) Eingabestrom
+     * @return Eingabestrom mit entpackten Bytes
+     * @throws IOException              falls beim Lesen ein Fehler auftritt
+     * @throws IllegalArgumentException falls uebergebener Eingabestrom == null
+     */
+    public static InputStream open(InputStream inputStream) throws IllegalArgumentException, IOException {
+        if (inputStream == null)
+            throw new IllegalArgumentException("inputStream is null");
+
+        BufferedInputStream in = new BufferedInputStream(inputStream, BUFFER_SIZE);
+
+        // peek header
+        byte[] header = new byte[HEADER_LENGTH];
+        in.mark(HEADER_LENGTH);
+        int length = 0, read;
+        while (length < HEADER_LENGTH && (read = in.read(header, length, HEADER_LENGTH - length)) != -1) {
+            length += read;
+        }
+        in.reset();
+
+        if (BgzfInputStream.isBgzfHeader(header, length))
+            return new BgzfInputStream(in, Runtime.getRuntime().availableProcessors());
+        if (isGzipHeader(header, length))
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        return in;
+    }
+
+    /**
+     * Liefert true zurueck, falls die Datei am uebergebenen Dateipfad mit gzip (oder BGZF) komprimiert ist. Ansonsten false.
+     *
+     * @param filePath Dateipfad
+     * @return true, falls komprimiert. Ansonsten false.
+     * @throws FileNotFoundException falls Dateipfad ungueltig
+     * @throws IOException           falls beim Lesen ein Fehler auftritt
+     */
+    public static boolean isCompressed(String filePath) throws FileNotFoundException, IOException {
+        byte[] header = new byte[2];
+        int length = 0, read;
+        try (InputStream in = new FileInputStream(filePath)) {
+            while (length < header.length && (read = in.read(header, length, header.length - length)) != -1) {
+                length += read;
+            }
+        }
+        return isGzipHeader(header, length);
+    }
+
+    /**
+     * Liefert true zurueck, falls die uebergebenen Bytes mit der gzip Kennung beginnen. Ansonsten false.
+     *
+     * @param header erste Bytes des Eingabestroms
+     * @param length Anzahl gueltiger Bytes
+     * @return true, falls gzip. Ansonsten false.
+     */
+    static boolean isGzipHeader(final byte[] header, final int length) {
+        return length >= 2 && (header[0] & 0xFF) == 0x1F && (header[1] & 0xFF) == 0x8B;
+    }
+}
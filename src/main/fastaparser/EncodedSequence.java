@@ -0,0 +1,309 @@
+package main.fastaparser;
+
+import main.alphabet.Alphabet;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Kompakt kodierte Nukleotid-Sequenz.
+ * <p>
+ * Besteht die Sequenz (fast) nur aus den Nukleotiden A, C, G und U, werden je Nukleotid 2 Bit gespeichert
+ * (32 Nukleotide pro long). Alle anderen Zeichen (z.B. Gaps oder N) werden in einer nach Position sortierten
+ * Ausnahme-Liste gehalten. Enthaelt die Sequenz zu viele andere Zeichen, wird je Zeichen ein Byte (ISO-8859-1) gespeichert.
+ * </p>
+ * Die Kodierung erfolgt einmalig beim Einlesen. Modelle bilden die Sequenz mittels {@link #toCodes(Alphabet)}
+ * ueber eine Tabelle auf ihre Beobachtungs-Indizes ab, ohne die Sequenz als String zu dekodieren.
+ *
+ * @author Soeren Metje
+ */
+public class EncodedSequence {
+
+    /**
+     * Nukleotide, die mit 2 Bit kodiert werden (Code = Index)
+     */
+    static final char[] NUCLEOTIDES = {'A', 'C', 'G', 'U'};
+
+    /**
+     * Anzahl Nukleotide pro long
+     */
+    private static final int CODES_PER_WORD = Long.SIZE / 2;
+
+    /**
+     * hoechstens jedes wievielte Zeichen darf bei 2-Bit-Kodierung eine Ausnahme sein
+     */
+    private static final int EXCEPTION_RATIO = 8;
+
+    /**
+     * Code je Zeichen (ISO-8859-1) oder -1, falls kein Nukleotid
+     */
+    private static final byte[] CODES = new byte[256];
+
+    static {
+        Arrays.fill(CODES, (byte) -1);
+        for (int i = 0; i < NUCLEOTIDES.length; i++) {
+            CODES[NUCLEOTIDES[i]] = (byte) i;
+        }
+    }
+
+    /**
+     * Laenge der Sequenz
+     */
+    private final int length;
+
+    /**
+     * 2-Bit-Codes oder null, falls byteweise kodiert
+     */
+    private final long[] packed;
+
+    /**
+     * Positionen der Ausnahmen (aufsteigend) bei 2-Bit-Kodierung
+     */
+    private final int[] exceptionPositions;
+
+    /**
+     * Zeichen der Ausnahmen bei 2-Bit-Kodierung
+     */
+    private final char[] exceptionSymbols;
+
+    /**
+     * Zeichen (ISO-8859-1) oder null, falls 2-Bit-kodiert
+     */
+    private final byte[] bytes;
+
+    /**
+     * Konstruktor fuer 2-Bit-Kodierung
+     *
+     * @param length             Laenge
+     * @param packed             2-Bit-Codes
+     * @param exceptionPositions Positionen der Ausnahmen
+     * @param exceptionSymbols   Zeichen der Ausnahmen
+     */
+    private EncodedSequence(int length, long[] packed, int[] exceptionPositions, char[] exceptionSymbols) {
+        this.length = length;
+        this.packed = packed;
+        this.exceptionPositions = exceptionPositions;
+        this.exceptionSymbols = exceptionSymbols;
+        this.bytes = null;
+    }
+
+    /**
+     * Konstruktor fuer byteweise Kodierung
+     *
+     * @param bytes Zeichen (ISO-8859-1)
+     */
+    private EncodedSequence(byte[] bytes) {
+        this.length = bytes.length;
+        this.packed = null;
+        this.exceptionPositions = null;
+        this.exceptionSymbols = null;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Kodiert uebergebene Zeichenfolge
+     *
+     * @param symbols Zeichenfolge
+     * @return kodierte Sequenz
+     * @throws IllegalArgumentException falls uebergebene Zeichenfolge == null
+     */
+    public static EncodedSequence encode(final CharSequence symbols) throws IllegalArgumentException {
+        if (symbols == null)
+            throw new IllegalArgumentException("symbols is null");
+        return encode(symbols.length(), symbols::charAt);
+    }
+
+    /**
+     * Kodiert die Nukleotid-Sequenz des uebergebenen Eintrags direkt aus der abgebildeten Datei
+     *
+     * @param record Eintrag
+     * @return kodierte Sequenz
+     */
+    static EncodedSequence encode(final FastaRecord record) {
+        return encode(record.getSequenceLength(), index -> (char) (record.byteAt(index) & 0xFF));
+    }
+
+    /**
+     * Kodiert die Zeichenfolge, deren Zeichen ueber uebergebenen Zugriff gelesen werden
+     *
+     * @param length   Laenge der Zeichenfolge
+     * @param symbolAt Zugriff auf das Zeichen an einer Position (0 &lt;= Position &lt; Laenge)
+     * @return kodierte Sequenz
+     */
+    private static EncodedSequence encode(final int length, final IntUnaryOperator symbolAt) {
+        int exceptionCount = 0;
+        boolean latin1 = true;
+        for (int i = 0; i < length; i++) {
+            char c = (char) symbolAt.applyAsInt(i);
+            if (c > 0xFF) {
+                latin1 = false;
+                exceptionCount++;
+            } else if (CODES[c] < 0) {
+                exceptionCount++;
+            }
+        }
+
+        // too many exceptions -> one byte per symbol
+        if (latin1 && exceptionCount > length / EXCEPTION_RATIO) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) symbolAt.applyAsInt(i);
+            }
+            return new EncodedSequence(bytes);
+        }
+
+        long[] packed = new long[(length + CODES_PER_WORD - 1) / CODES_PER_WORD];
+        int[] exceptionPositions = new int[exceptionCount];
+        char[] exceptionSymbols = new char[exceptionCount];
+        for (int i = 0, e = 0; i < length; i++) {
+            char c = (char) symbolAt.applyAsInt(i);
+            int code = c > 0xFF ? -1 : CODES[c];
+            if (code < 0) {
+                exceptionPositions[e] = i;
+                exceptionSymbols[e] = c;
+                e++;
+            } else {
+                packed[i / CODES_PER_WORD] |= (long) code << (2 * (i % CODES_PER_WORD));
+            }
+        }
+        return new EncodedSequence(length, packed, exceptionPositions, exceptionSymbols);
+    }
+
+    /**
+     * Liefert Laenge der Sequenz zurueck
+     *
+     * @return Laenge
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Liefert true zurueck, falls die Sequenz mit 2 Bit je Nukleotid kodiert ist. Ansonsten false.
+     *
+     * @return true, falls 2-Bit-kodiert. Ansonsten false.
+     */
+    public boolean isPacked() {
+        return packed != null;
+    }
+
+    /**
+     * Liefert Zeichen an uebergebener Position zurueck
+     *
+     * @param index Position
+     * @return Zeichen
+     * @throws IndexOutOfBoundsException falls Position ausserhalb der Sequenz
+     */
+    public char charAt(final int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("index " + index + " length " + length);
+        if (bytes != null)
+            return (char) (bytes[index] & 0xFF);
+
+        int e = Arrays.binarySearch(exceptionPositions, index);
+        if (e >= 0)
+            return exceptionSymbols[e];
+        return NUCLEOTIDES[code(index)];
+    }
+
+    /**
+     * Bildet die Sequenz auf die Codes des uebergebenen Alphabets ab (inklusive mehrdeutiger Zeichen).
+     * Die Nukleotide werden dabei ueber eine Tabelle mit einem Eintrag je 2-Bit-Code abgebildet.
+     *
+     * @param alphabet Alphabet
+     * @return Code-Folge
+     * @throws IllegalArgumentException falls Zeichen nicht Teil des Alphabets ist
+     */
+    public int[] toCodes(final Alphabet alphabet) throws IllegalArgumentException {
+        int[] ret = new int[length];
+
+        if (bytes != null) {
+            for (int i = 0; i < length; i++) {
+                ret[i] = alphabet.code((char) (bytes[i] & 0xFF));
+                if (ret[i] == Alphabet.UNKNOWN)
+                    throw new IllegalArgumentException("Character " + (char) (bytes[i] & 0xFF) + " not found");
+            }
+            return ret;
+        }
+
+        int[] table = new int[NUCLEOTIDES.length];
+        for (int code = 0; code < NUCLEOTIDES.length; code++) {
+            table[code] = alphabet.code(NUCLEOTIDES[code]);
+        }
+        for (int i = 0, e = 0; i < length; i++) {
+            if (e < exceptionPositions.length && exceptionPositions[e] == i) {
+                ret[i] = alphabet.code(exceptionSymbols[e]);
+                e++;
+            } else {
+                ret[i] = table[code(i)];
+            }
+            if (ret[i] == Alphabet.UNKNOWN)
+                throw new IllegalArgumentException("Character " + charAt(i) + " not found");
+        }
+        return ret;
+    }
+
+    /**
+     * Dekodiert die Sequenz und liefert sie als String zurueck
+     *
+     * @return Sequenz als String
+     */
+    @Override
+    public String toString() {
+        char[] ret = new char[length];
+        if (bytes != null) {
+            for (int i = 0; i < length; i++) {
+                ret[i] = (char) (bytes[i] & 0xFF);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                ret[i] = NUCLEOTIDES[code(i)];
+            }
+            for (int e = 0; e < exceptionPositions.length; e++) {
+                ret[exceptionPositions[e]] = exceptionSymbols[e];
+            }
+        }
+        return new String(ret);
+    }
+
+    /**
+     * Vergleicht die Zeichen dieser mit denen der uebergebenen Sequenz.
+     * Da die Kodierung nur von den Zeichen abhaengt, genuegt der Vergleich der kodierten Felder.
+     *
+     * @param o zu vergleichendes Objekt
+     * @return true, falls beide Sequenzen dieselben Zeichen besitzen. Ansonsten false.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof EncodedSequence))
+            return false;
+        EncodedSequence other = (EncodedSequence) o;
+        return length == other.length
+                && Arrays.equals(bytes, other.bytes)
+                && Arrays.equals(packed, other.packed)
+                && Arrays.equals(exceptionPositions, other.exceptionPositions)
+                && Arrays.equals(exceptionSymbols, other.exceptionSymbols);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = length;
+        hash = 31 * hash + Arrays.hashCode(bytes);
+        hash = 31 * hash + Arrays.hashCode(packed);
+        hash = 31 * hash + Arrays.hashCode(exceptionPositions);
+        hash = 31 * hash + Arrays.hashCode(exceptionSymbols);
+        return hash;
+    }
+
+    /**
+     * Liefert 2-Bit-Code an uebergebener Position zurueck (ohne Beruecksichtigung der Ausnahmen)
+     *
+     * @param index Position
+     * @return Code
+     */
+    private int code(final int index) {
+        return (int) (packed[index / CODES_PER_WORD] >>> (2 * (index % CODES_PER_WORD))) & 3;
+    }
+}
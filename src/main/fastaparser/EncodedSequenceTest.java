@@ -0,0 +1,183 @@
+package main.fastaparser;
+
+import main.alphabet.Alphabet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test-Klasse fuer {@link EncodedSequence}.
+ *
+ * @author Soeren Metje
+ */
+public class EncodedSequenceTest {
+
+    /**
+     * Zeichen, die nicht mit 2 Bit kodiert werden (Kleinbuchstaben, IUPAC-Codes, Gaps, Nicht-ASCII)
+     */
+    private static final char[] EXCEPTIONS = {'a', 'c', 'g', 'u', 'N', 'R', 'Y', 'n', 'T', '-', '.', '*', '\u00E9', '\u03A9'};
+
+    /**
+     * Test von {@link EncodedSequence#encode(CharSequence)} mit festen Sequenzen.
+     * Dekodiert muss die Sequenz unveraendert sein, die Art der Kodierung haengt vom Anteil der Ausnahmen ab.
+     */
+    @Test
+    public void testRoundTrip() {
+        assertRoundTrip("", true);
+        assertRoundTrip("ACGU", true);
+        assertRoundTrip(repeat("ACGU", 16) + "A", true); // word boundaries at 32 and 64
+        assertRoundTrip("ACGUACGUNACGUACG", true); // 1 of 16 is an exception
+        assertRoundTrip("ACGU-ACGU.ACGUNNACGU", false); // 4 of 20 are exceptions
+        assertRoundTrip("acgu", false);
+        assertRoundTrip("ACGUTacguRYSWKMBDHVN-.", false);
+        assertRoundTrip("\u03A9\u03A9ACGU", true); // outside ISO-8859-1 -> exceptions only
+        assertRoundTrip("N", false);
+    }
+
+    /**
+     * Test von {@link EncodedSequence#encode(CharSequence)} mit zufaelligen Sequenzen unterschiedlicher Laenge
+     * und unterschiedlichem Anteil an Ausnahmen
+     */
+    @Test
+    public void testRandomRoundTrip() {
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            String symbols = randomSymbols(random, random.nextInt(200), random.nextInt(4) * 0.05);
+            EncodedSequence encoded = EncodedSequence.encode(symbols);
+            Assert.assertEquals(symbols, encoded.toString());
+            Assert.assertEquals(symbols.length(), encoded.length());
+            for (int k = 0; k < symbols.length(); k++) {
+                Assert.assertEquals(symbols.charAt(k), encoded.charAt(k));
+            }
+            Assert.assertEquals(encoded, EncodedSequence.encode(symbols));
+            Assert.assertEquals(encoded.hashCode(), EncodedSequence.encode(symbols).hashCode());
+        }
+    }
+
+    /**
+     * Test von {@link EncodedSequence#toCodes(Alphabet)}.
+     * Die Codes muessen denen von {@link Alphabet#toCodes(char[])} entsprechen, auch bei Kleinbuchstaben und IUPAC-Codes.
+     */
+    @Test
+    public void testToCodes() {
+        Random random = new Random(1);
+        String valid = "ACGUTacgutRYSWKMBDHVNn";
+        for (int i = 0; i < 500; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(100);
+            double exceptionRate = random.nextInt(3) * 0.1;
+            for (int k = 0; k < length; k++) {
+                builder.append(random.nextDouble() < exceptionRate
+                        ? valid.charAt(random.nextInt(valid.length()))
+                        : EncodedSequence.NUCLEOTIDES[random.nextInt(EncodedSequence.NUCLEOTIDES.length)]);
+            }
+            String symbols = builder.toString();
+            Assert.assertArrayEquals(symbols, Alphabet.RNA.toCodes(symbols.toCharArray()),
+                    EncodedSequence.encode(symbols).toCodes(Alphabet.RNA));
+        }
+    }
+
+    /**
+     * Test von {@link EncodedSequence#toCodes(Alphabet)} mit Gap (nicht Teil des Alphabets), 2-Bit- und byteweise kodiert
+     */
+    @Test
+    public void testToCodesUnknown() {
+        for (String symbols : new String[]{repeat("ACGU", 10) + "-", "AC-GU-"}) {
+            try {
+                EncodedSequence.encode(symbols).toCodes(Alphabet.RNA);
+                Assert.fail("gap accepted in " + symbols);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Test der Kodierung direkt aus der abgebildeten Datei ({@link FastaRecord#toSequence()}).
+     * Sie muss dieselbe kodierte Sequenz liefern wie die Kodierung des Strings.
+     */
+    @Test
+    public void testEncodeRecord() throws IOException, FastaParserException {
+        Random random = new Random(2);
+        StringBuilder content = new StringBuilder();
+        String[] symbols = new String[50];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = randomSymbols(random, random.nextInt(100), random.nextInt(4) * 0.05).replace('\u03A9', 'X');
+            content.append(">seq").append(i).append('\n').append(symbols[i].isEmpty() ? "-" : symbols[i]).append('\n');
+        }
+        File file = File.createTempFile("encoded", ".fasta");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        List<FastaRecord> records = MappedFastaParser.parseFile(file.getPath());
+        Assert.assertEquals(symbols.length, records.size());
+        for (int i = 0; i < symbols.length; i++) {
+            String expected = symbols[i].isEmpty() ? "-" : symbols[i];
+            Assert.assertEquals(EncodedSequence.encode(expected), records.get(i).toSequence().getEncodedSequence());
+            Assert.assertEquals(expected, records.get(i).toSequence().getNucleotideSequence());
+        }
+    }
+
+    /**
+     * Prueft, ob die Sequenz unveraendert dekodiert wird und wie erwartet kodiert ist
+     *
+     * @param symbols Sequenz
+     * @param packed  true, falls 2-Bit-Kodierung erwartet wird
+     */
+    private static void assertRoundTrip(String symbols, boolean packed) {
+        EncodedSequence encoded = EncodedSequence.encode(symbols);
+        Assert.assertEquals(symbols, encoded.toString());
+        Assert.assertEquals(symbols.length(), encoded.length());
+        Assert.assertEquals(symbols, packed, encoded.isPacked());
+        for (int i = 0; i < symbols.length(); i++) {
+            Assert.assertEquals(symbols.charAt(i), encoded.charAt(i));
+        }
+        try {
+            encoded.charAt(symbols.length());
+            Assert.fail("index " + symbols.length() + " accepted");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Liefert zufaellige Sequenz aus Nukleotiden und Ausnahmen zurueck
+     *
+     * @param random        Zufallszahlen-Generator
+     * @param length        Laenge
+     * @param exceptionRate Anteil der Ausnahmen
+     * @return Sequenz
+     */
+    private static String randomSymbols(Random random, int length, double exceptionRate) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int k = 0; k < length; k++) {
+            builder.append(random.nextDouble() < exceptionRate
+                    ? EXCEPTIONS[random.nextInt(EXCEPTIONS.length)]
+                    : EncodedSequence.NUCLEOTIDES[random.nextInt(EncodedSequence.NUCLEOTIDES.length)]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Liefert uebergebene Zeichenfolge mehrfach hintereinander zurueck
+     *
+     * @param symbols Zeichenfolge
+     * @param count   Anzahl
+     * @return Zeichenfolge
+     */
+    private static String repeat(String symbols, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(symbols);
+        }
+        return builder.toString();
+    }
+}
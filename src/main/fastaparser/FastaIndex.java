@@ -0,0 +1,215 @@
+package main.fastaparser;
+
+import main.logger.Log;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index einer .fasta Datei im .fai Format (samtools), der den Namen jedes Eintrags auf die Position
+ * der Nukleotid-Sequenz abbildet. Damit koennen einzelne Eintraege mittels
+ * {@link FastaParser#parseRecords(String, FastaIndex, List)} gelesen werden, ohne die gesamte Datei zu parsen.
+ * <p>
+ * Jede Zeile enthaelt durch Tabulator getrennt: Name, Laenge, Position, Nukleotide pro Zeile, Bytes pro Zeile
+ * und (zusaetzlich zum samtools Format) die Position des Eintrags, um Beschreibung und Kommentar lesen zu koennen.
+ * Dateien ohne die sechste Spalte werden ebenfalls gelesen. Die Datei wird wie die .fasta Datei byteweise
+ * als ISO-8859-1 gelesen und geschrieben, damit die Namen denen von {@link FastaParser#parseFile(String)} entsprechen.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class FastaIndex {
+
+    /**
+     * Dateiendung des Index
+     */
+    public static final String EXTENSION = ".fai";
+
+    /**
+     * Eintraege nach Name (in der Reihenfolge der Datei)
+     */
+    private final Map<String, FastaIndexEntry> entries;
+
+    /**
+     * Konstruktor
+     *
+     * @param entries Eintraege nach Name
+     */
+    private FastaIndex(Map<String, FastaIndexEntry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Erstellt den Index der .fasta Datei am uebergebenen Dateipfad mittels {@link MappedFastaParser}.
+     *
+     * @param filePath Dateipfad der .fasta Datei
+     * @return Index
+     * @throws FileNotFoundException    falls Dateipfad ungueltig
+     * @throws IOException              falls beim Lesen ein Fehler auftritt oder die Datei komprimiert ist
+     * @throws FastaParserException     falls der Inhalt nicht dem fasta Format entspricht oder ein Name mehrfach vorkommt
+     * @throws IllegalArgumentException falls uebergebener Dateipfad == null
+     */
+    public static FastaIndex build(String filePath) throws IllegalArgumentException, FileNotFoundException, IOException, FastaParserException {
+        if (filePath == null)
+            throw new IllegalArgumentException("filePath is null");
+        if (CompressedInput.isCompressed(filePath))
+            throw new IOException("compressed file " + filePath + " can not be indexed");
+        MappedFastaFile file = new MappedFastaFile(filePath);
+
+        Map<String, FastaIndexEntry> entries = new LinkedHashMap<>();
+        for (FastaRecord record : MappedFastaParser.parse(file, 0, file.size(), true)) {
+            String name = nameOf(record.getDescription());
+            long sequenceOffset = record.getSequenceOffset();
+            int length = record.getSequenceLength();
+
+            // bytes of line break
+            long end = sequenceOffset + length;
+            int lineWidth = length + (end < file.size() && file.byteAt(end) == '\r' ? 2 : 1);
+
+            if (entries.put(name, new FastaIndexEntry(name, length, sequenceOffset, length, lineWidth, record.getRecordOffset())) != null)
+                throw new FastaParserException("Duplicate name '" + name + "'!");
+        }
+        return new FastaIndex(entries);
+    }
+
+    /**
+     * Liesst den Index am uebergebenen Dateipfad ein
+     *
+     * @param indexPath Dateipfad des Index
+     * @return Index
+     * @throws FileNotFoundException    falls Dateipfad ungueltig
+     * @throws IOException              falls beim Lesen ein Fehler auftritt oder eine Zeile fehlerhaft ist
+     * @throws IllegalArgumentException falls uebergebener Dateipfad == null
+     */
+    public static FastaIndex read(String indexPath) throws IllegalArgumentException, FileNotFoundException, IOException {
+        if (indexPath == null)
+            throw new IllegalArgumentException("indexPath is null");
+
+        Map<String, FastaIndexEntry> entries = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexPath), StandardCharsets.ISO_8859_1))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty())
+                    continue;
+                String[] columns = line.split("\t");
+                if (columns.length < 5)
+                    throw new IOException("invalid index line " + lineNumber + " in " + indexPath);
+                try {
+                    long recordOffset = columns.length > 5 ? Long.parseLong(columns[5]) : -1;
+                    entries.put(columns[0], new FastaIndexEntry(columns[0], Integer.parseInt(columns[1]), Long.parseLong(columns[2]),
+                            Integer.parseInt(columns[3]), Integer.parseInt(columns[4]), recordOffset));
+                } catch (NumberFormatException e) {
+                    throw new IOException("invalid index line " + lineNumber + " in " + indexPath, e);
+                }
+            }
+        }
+        return new FastaIndex(entries);
+    }
+
+    /**
+     * Liefert den Index der .fasta Datei am uebergebenen Dateipfad zurueck.
+     * Existiert neben der Datei ein aktueller Index (Dateipfad + {@link #EXTENSION}), wird dieser eingelesen.
+     * Ansonsten wird der Index erstellt und dort gespeichert.
+     *
+     * @param filePath Dateipfad der .fasta Datei
+     * @return Index
+     * @throws FileNotFoundException    falls Dateipfad ungueltig
+     * @throws IOException              falls beim Lesen ein Fehler auftritt
+     * @throws FastaParserException     falls der Inhalt nicht dem fasta Format entspricht
+     * @throws IllegalArgumentException falls uebergebener Dateipfad == null
+     */
+    public static FastaIndex load(String filePath) throws IllegalArgumentException, FileNotFoundException, IOException, FastaParserException {
+        if (filePath == null)
+            throw new IllegalArgumentException("filePath is null");
+
+        File file = new File(filePath);
+        File indexFile = new File(filePath + EXTENSION);
+        if (indexFile.isFile() && indexFile.lastModified() >= file.lastModified()) {
+            Log.dLine("reading index " + indexFile);
+            return read(indexFile.getPath());
+        }
+
+        Log.iLine("building index " + indexFile);
+        FastaIndex index = build(filePath);
+        try {
+            index.write(indexFile.getPath());
+        } catch (IOException e) {
+            Log.dLine("could not write index " + indexFile + ": " + e.getMessage());
+        }
+        return index;
+    }
+
+    /**
+     * Schreibt den Index in die Datei am uebergebenen Dateipfad
+     *
+     * @param indexPath Dateipfad des Index
+     * @throws IOException falls beim Schreiben ein Fehler auftritt
+     */
+    public void write(String indexPath) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(indexPath), StandardCharsets.ISO_8859_1))) {
+            for (FastaIndexEntry entry : entries.values()) {
+                writer.write(entry.getName() + '\t' + entry.getLength() + '\t' + entry.getSequenceOffset() + '\t'
+                        + entry.getLineBases() + '\t' + entry.getLineWidth() + '\t' + entry.getRecordOffset() + '\n');
+            }
+        }
+    }
+
+    /**
+     * Liefert den Namen eines Eintrags zurueck (Beschreibung bis zum ersten Leerzeichen)
+     *
+     * @param description Beschreibung
+     * @return Name
+     */
+    public static String nameOf(final String description) {
+        String trimmed = description.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            if (Character.isWhitespace(trimmed.charAt(i)))
+                return trimmed.substring(0, i);
+        }
+        return trimmed;
+    }
+
+    /**
+     * Liefert Eintrag mit uebergebenem Namen oder null zurueck
+     *
+     * @param name Name
+     * @return Eintrag oder null
+     */
+    public FastaIndexEntry getEntry(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Liefert true zurueck, falls ein Eintrag mit uebergebenem Namen vorhanden ist. Ansonsten false.
+     *
+     * @param name Name
+     * @return true, falls Eintrag vorhanden. Ansonsten false.
+     */
+    public boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * Liefert Namen aller Eintraege in der Reihenfolge der Datei zurueck
+     *
+     * @return Namen
+     */
+    public List<String> getNames() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * Liefert Anzahl der Eintraege zurueck
+     *
+     * @return Anzahl der Eintraege
+     */
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,104 @@
+package main.fastaparser;
+
+/**
+ * Eintrag eines {@link FastaIndex} im .fai Format (samtools):
+ * Name, Laenge der Nukleotid-Sequenz, Position der Nukleotid-Sequenz, Nukleotide pro Zeile und Bytes pro Zeile.
+ * Zusaetzlich wird die Position des Eintrags (Zeichen &gt;) gehalten, damit Beschreibung und Kommentar gelesen werden koennen.
+ *
+ * @author Soeren Metje
+ */
+public class FastaIndexEntry {
+
+    /**
+     * Name (Beschreibung bis zum ersten Leerzeichen)
+     */
+    private final String name;
+
+    /**
+     * Laenge der Nukleotid-Sequenz
+     */
+    private final int length;
+
+    /**
+     * Position der Nukleotid-Sequenz in der Datei
+     */
+    private final long sequenceOffset;
+
+    /**
+     * Nukleotide pro Zeile
+     */
+    private final int lineBases;
+
+    /**
+     * Bytes pro Zeile (inklusive Zeilenumbruch)
+     */
+    private final int lineWidth;
+
+    /**
+     * Position des Eintrags (Zeichen &gt;) in der Datei oder -1, falls unbekannt
+     */
+    private final long recordOffset;
+
+    /**
+     * Konstruktor
+     *
+     * @param name           Name
+     * @param length         Laenge der Nukleotid-Sequenz
+     * @param sequenceOffset Position der Nukleotid-Sequenz
+     * @param lineBases      Nukleotide pro Zeile
+     * @param lineWidth      Bytes pro Zeile
+     * @param recordOffset   Position des Eintrags oder -1
+     */
+    public FastaIndexEntry(String name, int length, long sequenceOffset, int lineBases, int lineWidth, long recordOffset) {
+        this.name = name;
+        this.length = length;
+        this.sequenceOffset = sequenceOffset;
+        this.lineBases = lineBases;
+        this.lineWidth = lineWidth;
+        this.recordOffset = recordOffset;
+    }
+
+    /**
+     * Liefert Anzahl Bytes zurueck, die die Nukleotid-Sequenz (inklusive innerer Zeilenumbrueche) in der Datei belegt
+     *
+     * @return Anzahl Bytes
+     */
+    public long getSequenceByteLength() {
+        if (length == 0 || lineBases <= 0)
+            return length;
+        return (long) ((length - 1) / lineBases) * lineWidth + (length - 1) % lineBases + 1;
+    }
+
+    /**
+     * Liefert true zurueck, falls die Position des Eintrags bekannt ist. Ansonsten false.
+     *
+     * @return true, falls Position des Eintrags bekannt. Ansonsten false.
+     */
+    public boolean hasRecordOffset() {
+        return recordOffset >= 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public long getSequenceOffset() {
+        return sequenceOffset;
+    }
+
+    public int getLineBases() {
+        return lineBases;
+    }
+
+    public int getLineWidth() {
+        return lineWidth;
+    }
+
+    public long getRecordOffset() {
+        return recordOffset;
+    }
+}
@@ -0,0 +1,263 @@
+package main.fastaparser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Test-Klasse fuer {@link FastaIndex} und {@link FastaParser#parseRecords(String, FastaIndex, List)}.
+ *
+ * @author Soeren Metje
+ */
+public class FastaIndexTest {
+
+    /**
+     * Test von {@link FastaIndex#build(String)}, {@link FastaIndex#write(String)} und {@link FastaIndex#read(String)}.
+     * Der eingelesene Index muss dieselben Eintraege in derselben Reihenfolge enthalten wie der erstellte.
+     */
+    @Test
+    public void testBuildReadRoundTrip() throws IOException, FastaParserException {
+        String filePath = createFile(content(), ".fasta");
+        FastaIndex built = FastaIndex.build(filePath);
+        Assert.assertEquals(6, built.size());
+        Assert.assertEquals(names(FastaParser.parseFile(filePath)), built.getNames());
+
+        String indexPath = createFile(new byte[0], FastaIndex.EXTENSION);
+        built.write(indexPath);
+        FastaIndex read = FastaIndex.read(indexPath);
+
+        Assert.assertEquals(built.getNames(), read.getNames());
+        for (String name : built.getNames()) {
+            FastaIndexEntry expected = built.getEntry(name);
+            FastaIndexEntry actual = read.getEntry(name);
+            Assert.assertEquals(expected.getName(), actual.getName());
+            Assert.assertEquals(expected.getLength(), actual.getLength());
+            Assert.assertEquals(expected.getSequenceOffset(), actual.getSequenceOffset());
+            Assert.assertEquals(expected.getLineBases(), actual.getLineBases());
+            Assert.assertEquals(expected.getLineWidth(), actual.getLineWidth());
+            Assert.assertEquals(expected.getRecordOffset(), actual.getRecordOffset());
+        }
+        Assert.assertFalse(read.contains("missing"));
+        Assert.assertNull(read.getEntry("missing"));
+    }
+
+    /**
+     * Test von {@link FastaParser#parseRecords(String, FastaIndex, List)}.
+     * Jeder gelesene Eintrag muss dem von {@link FastaParser#parseFile(String)} geparseten entsprechen,
+     * in der Reihenfolge der uebergebenen Namen (auch mehrfach und unsortiert).
+     */
+    @Test
+    public void testReadRecordSameAsParsed() throws IOException, FastaParserException {
+        String filePath = createFile(content(), ".fasta");
+        List<Sequence> expected = FastaParser.parseFile(filePath);
+        FastaIndex index = FastaIndex.load(filePath);
+
+        assertSameSequences(expected, FastaParser.parseRecords(filePath, index, names(expected)));
+
+        Random random = new Random(0);
+        for (int i = 0; i < 20; i++) {
+            List<Integer> order = new ArrayList<>();
+            for (int k = 0; k < expected.size(); k++) {
+                order.add(k);
+            }
+            Collections.shuffle(order, random);
+            order.add(order.get(0)); // same record twice
+            order = order.subList(random.nextInt(3), order.size());
+
+            List<String> names = new ArrayList<>();
+            List<Sequence> expectedSubset = new ArrayList<>();
+            for (int k : order) {
+                names.add(FastaIndex.nameOf(expected.get(k).getDescription()));
+                expectedSubset.add(expected.get(k));
+            }
+            assertSameSequences(expectedSubset, FastaParser.parseRecords(filePath, index, names));
+        }
+    }
+
+    /**
+     * Test von {@link FastaIndex#load(String)}.
+     * Beim ersten Aufruf muss der Index neben der Datei gespeichert, beim zweiten von dort eingelesen werden.
+     */
+    @Test
+    public void testLoadWritesIndex() throws IOException, FastaParserException {
+        String filePath = createFile(content(), ".fasta");
+        File indexFile = new File(filePath + FastaIndex.EXTENSION);
+        indexFile.deleteOnExit();
+        Assert.assertFalse(indexFile.exists());
+
+        FastaIndex built = FastaIndex.load(filePath);
+        Assert.assertTrue(indexFile.isFile());
+
+        // records of the index file are used, not rebuilt from the fasta file
+        List<String> names = built.getNames();
+        try (FileOutputStream out = new FileOutputStream(indexFile, true)) {
+            out.write("extra\t1\t0\t1\t2\n".getBytes(StandardCharsets.ISO_8859_1));
+        }
+        Assert.assertTrue(indexFile.setLastModified(new File(filePath).lastModified() + 1000));
+        FastaIndex loaded = FastaIndex.load(filePath);
+        Assert.assertEquals(names.size() + 1, loaded.size());
+        Assert.assertTrue(loaded.contains("extra"));
+        Assert.assertEquals(names, loaded.getNames().subList(0, names.size()));
+    }
+
+    /**
+     * Test von {@link FastaParser#parseRecords(String, FastaIndex, List)} mit Index im samtools Format (fuenf Spalten).
+     * Die Nukleotid-Sequenz muss gelesen, der Name als Beschreibung verwendet werden.
+     */
+    @Test
+    public void testSamtoolsIndex() throws IOException, FastaParserException {
+        String filePath = createFile(content(), ".fasta");
+        FastaIndex built = FastaIndex.build(filePath);
+        StringBuilder samtools = new StringBuilder();
+        for (String name : built.getNames()) {
+            FastaIndexEntry entry = built.getEntry(name);
+            samtools.append(name).append('\t').append(entry.getLength()).append('\t').append(entry.getSequenceOffset())
+                    .append('\t').append(entry.getLineBases()).append('\t').append(entry.getLineWidth()).append('\n');
+        }
+        FastaIndex index = FastaIndex.read(createFile(samtools.toString().getBytes(StandardCharsets.ISO_8859_1), FastaIndex.EXTENSION));
+
+        List<Sequence> expected = FastaParser.parseFile(filePath);
+        List<Sequence> actual = FastaParser.parseRecords(filePath, index, index.getNames());
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertFalse(index.getEntry(index.getNames().get(i)).hasRecordOffset());
+            Assert.assertEquals(FastaIndex.nameOf(expected.get(i).getDescription()), actual.get(i).getDescription());
+            Assert.assertNull(actual.get(i).getComments());
+            Assert.assertEquals(expected.get(i).getNucleotideSequence(), actual.get(i).getNucleotideSequence());
+        }
+    }
+
+    /**
+     * Test von {@link FastaParser#parseRecords(String, FastaIndex, List)} mit Index einer anderen Datei
+     * (derselbe Inhalt mit zusaetzlichem Eintrag am Anfang, sodass die Positionen verschoben sind)
+     */
+    @Test
+    public void testIndexDoesNotMatchFile() throws IOException, FastaParserException {
+        String filePath = createFile(content(), ".fasta");
+        FastaIndex index = FastaIndex.build(filePath);
+
+        ByteArrayOutputStream shifted = new ByteArrayOutputStream();
+        shifted.write(">seq0\nAC\n".getBytes(StandardCharsets.ISO_8859_1));
+        shifted.write(content());
+        String other = createFile(shifted.toByteArray(), ".fasta");
+        for (String name : index.getNames()) {
+            try {
+                FastaParser.parseRecords(other, index, Collections.singletonList(name));
+                Assert.fail("index accepted at record " + name);
+            } catch (FastaParserException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Test von {@link FastaParser#parseRecords(String, FastaIndex, List)} mit unbekanntem Namen
+     */
+    @Test(expected = FastaParserException.class)
+    public void testUnknownName() throws IOException, FastaParserException {
+        String filePath = createFile(content(), ".fasta");
+        FastaParser.parseRecords(filePath, FastaIndex.build(filePath), Collections.singletonList("missing"));
+    }
+
+    /**
+     * Test von {@link FastaIndex#build(String)} mit doppeltem Namen
+     */
+    @Test(expected = FastaParserException.class)
+    public void testDuplicateName() throws IOException, FastaParserException {
+        FastaIndex.build(createFile(">seq1 a\nACGU\n>seq1 b\nGGCC\n".getBytes(StandardCharsets.ISO_8859_1), ".fasta"));
+    }
+
+    /**
+     * Test von {@link FastaIndex#build(String)} mit komprimierter Datei
+     */
+    @Test(expected = IOException.class)
+    public void testCompressedFile() throws IOException, FastaParserException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content());
+        }
+        FastaIndex.build(createFile(out.toByteArray(), ".fasta.gz"));
+    }
+
+    /**
+     * Test von {@link FastaIndex#read(String)} mit fehlerhafter Zeile
+     */
+    @Test(expected = IOException.class)
+    public void testInvalidIndexLine() throws IOException {
+        FastaIndex.read(createFile("seq1\t4\tx\t4\t5\n".getBytes(StandardCharsets.ISO_8859_1), FastaIndex.EXTENSION));
+    }
+
+    /**
+     * Liefert den Inhalt der Test-Datei zurueck (Kommentare, CRLF, Leerzeilen, Einrueckung,
+     * Nicht-ASCII-Bytes in der Beschreibung und leere letzte Zeile)
+     *
+     * @return Inhalt
+     */
+    private static byte[] content() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(">seq1 first\n;comment one\n;comment two\nACGUACGU\n".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(">seq2 crlf\r\n;crlf comment\r\nGGCCAAUU\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        out.write("\n>seq3 caf".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(new byte[]{(byte) 0xE9, ' ', (byte) 0xC3, (byte) 0xA9});
+        out.write("\n  ACGU\n\n".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(">seq4\nU\n".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(">seq5\tlast\n;c\nACGUACGUACGUACGUACGU\n".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(">seq6 no line break at end\nGGGG".getBytes(StandardCharsets.ISO_8859_1));
+        return out.toByteArray();
+    }
+
+    /**
+     * Liefert die Namen der Sequenzen zurueck
+     *
+     * @param sequences Sequenzen
+     * @return Namen
+     */
+    private static List<String> names(List<Sequence> sequences) {
+        List<String> ret = new ArrayList<>(sequences.size());
+        for (Sequence sequence : sequences) {
+            ret.add(FastaIndex.nameOf(sequence.getDescription()));
+        }
+        return ret;
+    }
+
+    /**
+     * Prueft, ob die Sequenzen in Beschreibung, Kommentaren und Nukleotid-Sequenz uebereinstimmen
+     *
+     * @param expected erwartete Sequenzen
+     * @param actual   Sequenzen
+     */
+    private static void assertSameSequences(List<Sequence> expected, List<Sequence> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getDescription(), actual.get(i).getDescription());
+            Assert.assertEquals(expected.get(i).getComments(), actual.get(i).getComments());
+            Assert.assertEquals(expected.get(i).getNucleotideSequence(), actual.get(i).getNucleotideSequence());
+        }
+    }
+
+    /**
+     * Schreibt den Inhalt in eine temporaere Datei
+     *
+     * @param content Inhalt
+     * @param suffix  Dateiendung
+     * @return Dateipfad
+     */
+    private static String createFile(byte[] content, String suffix) throws IOException {
+        File file = File.createTempFile("fasta", suffix);
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        return file.getPath();
+    }
+}
@@ -1,9 +1,13 @@
 package main.fastaparser;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Parser fuer das .fasta Dateiformat.
@@ -14,6 +18,9 @@ public class FastaParser {
     /**
      * Liesst die Datei am uebergebenen Dateipfad ein und parset sie anschliessend.
      * Liefert eine Liste mit den geparseten {@link Sequence} zurueck.
+     * <p>
+     * Mit gzip komprimierte Dateien werden erkannt und beim Einlesen entpackt (siehe {@link CompressedInput}),
+     * sodass sie nicht vorher auf die Festplatte entpackt werden muessen.
      *
      * @param filePath Dateipfad
      * @return Liste mit den geparseten {@link Sequence}
@@ -26,47 +33,265 @@ public class FastaParser {
         if (filePath == null)
             throw new IllegalArgumentException("filePath is null");
 
-        File file = new File(filePath);
+        try (FileInputStream fileInputStream = new FileInputStream(new File(filePath)); // closed even if open fails
+             InputStream inputStream = CompressedInput.open(fileInputStream)) {
+            return parse(new InputStreamReader(inputStream, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    /**
+     * Parset die Zeichen des uebergebenen Readers.
+     * Liefert eine Liste mit den geparseten {@link Sequence} zurueck. Der Reader wird nicht geschlossen.
+     *
+     * @param reader Reader
+     * @return Liste mit den geparseten {@link Sequence}
+     * @throws IOException              falls beim einlesen Fehler auftritt
+     * @throws FastaParserException     falls der Inhalt nicht dem fasta Format entspricht
+     * @throws IllegalArgumentException falls uebergebener Reader == null
+     */
+    public static List<Sequence> parse(Reader reader) throws IllegalArgumentException, IOException, FastaParserException {
+        if (reader == null)
+            throw new IllegalArgumentException("reader is null");
 
         List<Sequence> ret = new LinkedList<>();
 
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(file))) { // closes reader
-            String line;
-            String description = null, comment = null;
-            while ((line = bufferedReader.readLine()) != null) {
-                line = line.trim();
-                char firstChar = line.charAt(0);
-
-                // Description -----------------------------------------------
-                if (firstChar == '>') {
-                    if (description == null)
-                        description = line.substring(1);
-                    else
-                        throw new FastaParserException("Missing sequence!");
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        Sequence sequence;
+        while ((sequence = nextSequence(bufferedReader)) != null) {
+            ret.add(sequence);
+        }
+
+        ret = new ArrayList<>(ret);
+
+        return ret;
+    }
+
+    /**
+     * Liesst Zeilen des uebergebenen Readers bis zum Ende des naechsten Eintrags und liefert diesen zurueck.
+     * Liefert null zurueck, falls das Ende erreicht ist (eine Beschreibung ohne Sequenz am Ende wird ignoriert).
+     * Leere Zeilen werden wie in {@link MappedFastaParser} uebersprungen.
+     *
+     * @param bufferedReader Reader
+     * @return naechste Sequenz oder null
+     * @throws IOException          falls beim einlesen Fehler auftritt
+     * @throws FastaParserException falls der Inhalt nicht dem fasta Format entspricht
+     */
+    private static Sequence nextSequence(final BufferedReader bufferedReader) throws IOException, FastaParserException {
+        String line;
+        String description = null, comment = null;
+        while ((line = bufferedReader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty())
+                continue; // empty line
+            char firstChar = line.charAt(0);
+
+            // Description -----------------------------------------------
+            if (firstChar == '>') {
+                if (description == null)
+                    description = line.substring(1);
+                else
+                    throw new FastaParserException("Missing sequence!");
+            }
+            // Comment -----------------------------------------------
+            else if (firstChar == ';') {
+                if (description == null)
+                    throw new FastaParserException("Comment at wrong position or missing description!");
+                if (comment == null)
+                    comment = line.substring(1); // create comment
+                else
+                    comment += '\n' + line.substring(1); // add comment line
+            }
+            // Sequence -----------------------------------------------
+            else {
+                if (description == null) {
+                    throw new FastaParserException("Missing description! (line starting with >)");
                 }
-                // Comment -----------------------------------------------
-                else if (firstChar == ';') {
-                    if (description == null)
-                        throw new FastaParserException("Comment at wrong position or missing description!");
-                    if (comment == null)
-                        comment = line.substring(1); // create comment
-                    else
-                        comment += '\n' + line.substring(1); // add comment line
+                return new Sequence(description, comment, line);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Liefert einen Stream ueber die Sequenzen der Datei am uebergebenen Dateipfad zurueck.
+     * Die Sequenzen werden erst beim Durchlaufen geparset, sodass der Speicherbedarf unabhaengig von der Dateigroesse ist.
+     * <p>
+     * Unkomprimierte Dateien werden mittels {@link MappedFastaParser#stream(String)} abgebildet und koennen
+     * an Beschreibungen aufgeteilt parallel verarbeitet werden. Komprimierte Dateien werden mittels {@link #stream(Reader)} gelesen.
+     * Der Stream sollte geschlossen werden (try-with-resources). Fehler im fasta Format werden als {@link UncheckedFastaParserException} geworfen.
+     *
+     * @param filePath Dateipfad
+     * @return Stream ueber die Sequenzen
+     * @throws FileNotFoundException    falls Dateipfad ungueltig
+     * @throws IOException              falls beim einlesen Fehler auftritt
+     * @throws IllegalArgumentException falls uebergebener Dateipfad == null
+     */
+    public static Stream<Sequence> stream(String filePath) throws IllegalArgumentException, FileNotFoundException, IOException {
+        if (filePath == null)
+            throw new IllegalArgumentException("filePath is null");
+
+        if (CompressedInput.isCompressed(filePath)) {
+            FileInputStream fileInputStream = new FileInputStream(new File(filePath));
+            Reader reader;
+            try {
+                reader = new InputStreamReader(CompressedInput.open(fileInputStream), StandardCharsets.ISO_8859_1);
+            } catch (IOException | RuntimeException e) {
+                fileInputStream.close();
+                throw e;
+            }
+            return stream(reader).onClose(() -> {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-                // Sequence -----------------------------------------------
-                else {
-                    if (description == null) {
-                        throw new FastaParserException("Missing description! (line starting with >)");
-                    }
-                    ret.add(new Sequence(description, comment, line));
-                    description = null;
-                    comment = null;
+            });
+        }
+        return MappedFastaParser.stream(filePath);
+    }
+
+    /**
+     * Liefert einen Stream ueber die Sequenzen des uebergebenen Readers zurueck, die erst beim Durchlaufen geparset werden.
+     * Der Reader wird nicht geschlossen. Bei parallelen Streams werden Sequenzen stapelweise an die Threads verteilt.
+     * Fehler im fasta Format werden als {@link UncheckedFastaParserException}, Fehler beim Lesen als {@link UncheckedIOException} geworfen.
+     *
+     * @param reader Reader
+     * @return Stream ueber die Sequenzen
+     * @throws IllegalArgumentException falls uebergebener Reader == null
+     */
+    public static Stream<Sequence> stream(Reader reader) throws IllegalArgumentException {
+        if (reader == null)
+            throw new IllegalArgumentException("reader is null");
+
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        Spliterator<Sequence> spliterator = new Spliterators.AbstractSpliterator<Sequence>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Sequence> action) {
+                Sequence sequence;
+                try {
+                    sequence = nextSequence(bufferedReader);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (FastaParserException e) {
+                    throw new UncheckedFastaParserException(e);
                 }
+                if (sequence == null)
+                    return false;
+                action.accept(sequence);
+                return true;
             }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Liesst die Eintraege mit uebergebenen Namen mittels uebergebenem {@link FastaIndex} aus der Datei am uebergebenen Dateipfad,
+     * ohne die gesamte Datei zu parsen. Dazu wird je Eintrag nur dessen Bereich der Datei gelesen (in aufsteigender Position).
+     * Liefert eine Liste mit den {@link Sequence} in der Reihenfolge der uebergebenen Namen zurueck.
+     * <p>
+     * Besitzt der Index keine Position der Eintraege (fuenf Spalten wie bei samtools), wird der Name als Beschreibung verwendet.
+     *
+     * @param filePath Dateipfad
+     * @param index    Index der Datei
+     * @param names    Namen der zu lesenden Eintraege
+     * @return Liste mit den gelesenen {@link Sequence}
+     * @throws FileNotFoundException    falls Dateipfad ungueltig
+     * @throws IOException              falls beim einlesen Fehler auftritt
+     * @throws FastaParserException     falls ein Name nicht im Index enthalten ist oder der Index nicht zur Datei passt
+     * @throws IllegalArgumentException falls uebergebener Parameter == null
+     */
+    public static List<Sequence> parseRecords(String filePath, FastaIndex index, List<String> names) throws IllegalArgumentException, FileNotFoundException, IOException, FastaParserException {
+        if (filePath == null)
+            throw new IllegalArgumentException("filePath is null");
+        if (index == null)
+            throw new IllegalArgumentException("index is null");
+        if (names == null)
+            throw new IllegalArgumentException("names is null");
+
+        FastaIndexEntry[] entries = new FastaIndexEntry[names.size()];
+        Integer[] order = new Integer[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = index.getEntry(names.get(i));
+            if (entries[i] == null)
+                throw new FastaParserException("Name '" + names.get(i) + "' not found in index!");
+            order[i] = i;
         }
+        // read in order of position
+        Arrays.sort(order, Comparator.comparingLong(i -> entries[i].getSequenceOffset()));
 
-        ret = new ArrayList<>(ret);
+        Sequence[] ret = new Sequence[entries.length];
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r"); FileChannel channel = file.getChannel()) {
+            for (int i : order) {
+                ret[i] = readRecord(channel, entries[i]);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(ret));
+    }
 
-        return ret;
+    /**
+     * Liesst den Eintrag des uebergebenen Index-Eintrags mittels positioniertem Lesen
+     *
+     * @param channel Kanal der Datei
+     * @param entry   Index-Eintrag
+     * @return Sequenz
+     * @throws IOException          falls beim einlesen Fehler auftritt
+     * @throws FastaParserException falls der Index nicht zur Datei passt
+     */
+    private static Sequence readRecord(final FileChannel channel, final FastaIndexEntry entry) throws IOException, FastaParserException {
+        // Sequence (without line breaks) -----------------------------------------------
+        byte[] bytes = readFully(channel, entry.getSequenceOffset(), entry.getSequenceByteLength());
+        char[] residues = new char[entry.getLength()];
+        int length = 0;
+        for (byte b : bytes) {
+            if (b != '\n' && b != '\r' && length < residues.length)
+                residues[length++] = (char) (b & 0xFF);
+        }
+        if (length != residues.length || (length > 0 && (residues[0] == '>' || residues[0] == ';')))
+            throw new FastaParserException("Index does not match file at record '" + entry.getName() + "'!");
+        String nucleotideSequence = new String(residues);
+
+        if (!entry.hasRecordOffset())
+            return new Sequence(entry.getName(), null, nucleotideSequence);
+
+        // Description and Comment -----------------------------------------------
+        String header = new String(readFully(channel, entry.getRecordOffset(), entry.getSequenceOffset() - entry.getRecordOffset()), StandardCharsets.ISO_8859_1);
+        String description = null, comment = null;
+        for (String line : header.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+            if (description == null) {
+                if (line.charAt(0) != '>')
+                    throw new FastaParserException("Index does not match file at record '" + entry.getName() + "'!");
+                description = line.substring(1);
+            } else if (line.charAt(0) == ';') {
+                comment = comment == null ? line.substring(1) : comment + '\n' + line.substring(1);
+            } else {
+                throw new FastaParserException("Index does not match file at record '" + entry.getName() + "'!");
+            }
+        }
+        if (description == null)
+            throw new FastaParserException("Index does not match file at record '" + entry.getName() + "'!");
+        return new Sequence(description, comment, nucleotideSequence);
+    }
+
+    /**
+     * Liesst uebergebene Anzahl Bytes ab uebergebener Position
+     *
+     * @param channel  Kanal der Datei
+     * @param position Position
+     * @param length   Anzahl Bytes
+     * @return gelesene Bytes
+     * @throws IOException falls beim einlesen Fehler auftritt oder das Dateiende erreicht wird
+     */
+    private static byte[] readFully(final FileChannel channel, final long position, final long length) throws IOException {
+        if (length < 0 || length > Integer.MAX_VALUE)
+            throw new IOException("invalid length " + length + " at position " + position);
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new EOFException("end of file at position " + (position + buffer.position()));
+        }
+        return buffer.array();
     }
 }
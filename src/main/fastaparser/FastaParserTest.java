@@ -0,0 +1,167 @@
+package main.fastaparser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Test-Klasse fuer die Streams des {@link FastaParser}.
+ *
+ * @author Soeren Metje
+ */
+public class FastaParserTest {
+
+    /**
+     * Anzahl Eintraege der Test-Datei
+     */
+    private static final int RECORD_COUNT = 3000;
+
+    /**
+     * Test von {@link FastaParser#stream(String)} mit unkomprimierter und mit gzip komprimierter Datei.
+     * Der Stream muss sequentiell und parallel dieselben Eintraege in derselben Reihenfolge liefern wie {@link FastaParser#parseFile(String)}.
+     */
+    @Test
+    public void testStreamSameAsParseFile() throws IOException, FastaParserException {
+        byte[] content = content(new Random(0));
+        String filePath = createFile(content, ".fasta");
+        String compressedPath = createFile(gzip(content), ".fasta.gz");
+        List<Sequence> expected = FastaParser.parseFile(filePath);
+        Assert.assertEquals(RECORD_COUNT, expected.size());
+        assertSameSequences(expected, FastaParser.parseFile(compressedPath));
+
+        for (String path : new String[]{filePath, compressedPath}) {
+            try (Stream<Sequence> stream = FastaParser.stream(path)) {
+                assertSameSequences(expected, stream.collect(Collectors.toList()));
+            }
+            try (Stream<Sequence> stream = FastaParser.stream(path)) {
+                assertSameSequences(expected, stream.parallel().collect(Collectors.toList()));
+            }
+            try (Stream<Sequence> stream = FastaParser.stream(path)) {
+                Assert.assertEquals(expected.stream().mapToLong(Sequence::getLength).sum(),
+                        stream.parallel().mapToLong(Sequence::getLength).sum());
+            }
+        }
+    }
+
+    /**
+     * Test von {@link FastaParser#stream(java.io.Reader)}.
+     * Der Stream muss sequentiell und parallel dieselben Eintraege liefern wie {@link FastaParser#parse(java.io.Reader)}.
+     */
+    @Test
+    public void testReaderStreamSameAsParse() throws IOException, FastaParserException {
+        String content = new String(content(new Random(1)), StandardCharsets.ISO_8859_1);
+        List<Sequence> expected = FastaParser.parse(new StringReader(content));
+
+        assertSameSequences(expected, FastaParser.stream(new StringReader(content)).collect(Collectors.toList()));
+        assertSameSequences(expected, FastaParser.stream(new StringReader(content)).parallel().collect(Collectors.toList()));
+        assertSameSequences(expected.subList(0, 10), FastaParser.stream(new StringReader(content)).limit(10).collect(Collectors.toList()));
+    }
+
+    /**
+     * Test von {@link FastaParser#stream(String)} mit Fehler im fasta Format.
+     * Eintraege vor dem Fehler muessen geliefert werden, der Fehler erst beim Erreichen als {@link UncheckedFastaParserException}.
+     */
+    @Test
+    public void testStreamFormatError() throws IOException {
+        byte[] content = ">seq1\nACGU\n>seq2\nGGCC\n>seq3\n>seq4\nACGU\n".getBytes(StandardCharsets.ISO_8859_1);
+        String expected = null;
+        try {
+            FastaParser.parseFile(createFile(content, ".fasta"));
+            Assert.fail("missing sequence accepted");
+        } catch (FastaParserException e) {
+            expected = e.getMessage();
+        }
+
+        for (String path : new String[]{createFile(content, ".fasta"), createFile(gzip(content), ".fasta.gz")}) {
+            try (Stream<Sequence> stream = FastaParser.stream(path)) {
+                Assert.assertEquals(2, stream.limit(2).count());
+            }
+            try (Stream<Sequence> stream = FastaParser.stream(path)) {
+                stream.forEach(sequence -> Assert.assertFalse("seq4".equals(sequence.getDescription())));
+                Assert.fail("missing sequence accepted in " + path);
+            } catch (UncheckedFastaParserException e) {
+                Assert.assertEquals(expected, e.getCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * Liefert den Inhalt einer Test-Datei mit zufaelligen Eintraegen zurueck (teilweise mit Kommentaren, CRLF und Leerzeilen)
+     *
+     * @param random Zufallszahlen-Generator
+     * @return Inhalt
+     */
+    private static byte[] content(Random random) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            String lineBreak = random.nextInt(10) == 0 ? "\r\n" : "\n";
+            builder.append(">seq").append(i).append(" record ").append(random.nextInt()).append(lineBreak);
+            if (random.nextInt(5) == 0)
+                builder.append(";comment ").append(i).append(lineBreak);
+            int length = 1 + random.nextInt(200);
+            for (int k = 0; k < length; k++) {
+                builder.append("ACGU".charAt(random.nextInt(4)));
+            }
+            builder.append(lineBreak);
+            if (random.nextInt(20) == 0)
+                builder.append(lineBreak);
+        }
+        return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Komprimiert den Inhalt mittels gzip
+     *
+     * @param content Inhalt
+     * @return komprimierter Inhalt
+     */
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Prueft, ob die Sequenzen in Beschreibung, Kommentaren und Nukleotid-Sequenz uebereinstimmen
+     *
+     * @param expected erwartete Sequenzen
+     * @param actual   Sequenzen
+     */
+    private static void assertSameSequences(List<Sequence> expected, List<Sequence> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getDescription(), actual.get(i).getDescription());
+            Assert.assertEquals(expected.get(i).getComments(), actual.get(i).getComments());
+            Assert.assertEquals(expected.get(i).getNucleotideSequence(), actual.get(i).getNucleotideSequence());
+        }
+    }
+
+    /**
+     * Schreibt den Inhalt in eine temporaere Datei
+     *
+     * @param content Inhalt
+     * @param suffix  Dateiendung
+     * @return Dateipfad
+     */
+    private static String createFile(byte[] content, String suffix) throws IOException {
+        File file = File.createTempFile("fasta", suffix);
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        return file.getPath();
+    }
+}
@@ -0,0 +1,169 @@
+package main.fastaparser;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Leichtgewichtige Sicht auf einen Eintrag einer {@link MappedFastaFile}, erstellt durch {@link MappedFastaParser}.
+ * <p>
+ * Haelt nur Positionen und Laengen von Beschreibung, Kommentar und Nukleotid-Sequenz innerhalb der abgebildeten Datei.
+ * Strings werden erst bei Bedarf erstellt.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class FastaRecord {
+
+    /**
+     * abgebildete Datei
+     */
+    private final MappedFastaFile file;
+
+    /**
+     * Position der Beschreibung (ohne &gt;)
+     */
+    private final long descriptionOffset;
+
+    /**
+     * Laenge der Beschreibung
+     */
+    private final int descriptionLength;
+
+    /**
+     * Position des Kommentars (erste Zeile mit ;) oder -1, falls kein Kommentar vorhanden ist
+     */
+    private final long commentOffset;
+
+    /**
+     * Laenge des Kommentars (ueber alle Kommentar-Zeilen)
+     */
+    private final int commentLength;
+
+    /**
+     * Position der Nukleotid-Sequenz
+     */
+    private final long sequenceOffset;
+
+    /**
+     * Laenge der Nukleotid-Sequenz
+     */
+    private final int sequenceLength;
+
+    /**
+     * Konstruktor
+     *
+     * @param file              abgebildete Datei
+     * @param descriptionOffset Position der Beschreibung
+     * @param descriptionLength Laenge der Beschreibung
+     * @param commentOffset     Position des Kommentars oder -1
+     * @param commentLength     Laenge des Kommentars
+     * @param sequenceOffset    Position der Nukleotid-Sequenz
+     * @param sequenceLength    Laenge der Nukleotid-Sequenz
+     */
+    FastaRecord(MappedFastaFile file, long descriptionOffset, int descriptionLength, long commentOffset, int commentLength,
+                long sequenceOffset, int sequenceLength) {
+        this.file = file;
+        this.descriptionOffset = descriptionOffset;
+        this.descriptionLength = descriptionLength;
+        this.commentOffset = commentOffset;
+        this.commentLength = commentLength;
+        this.sequenceOffset = sequenceOffset;
+        this.sequenceLength = sequenceLength;
+    }
+
+    /**
+     * Liefert Beschreibung zurueck (byteweise als ISO-8859-1 dekodiert wie durch {@link FastaParser})
+     *
+     * @return Beschreibung
+     */
+    public String getDescription() {
+        return file.decode(descriptionOffset, descriptionLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Liefert Kommentar zurueck oder null, falls kein Kommentar vorhanden ist.
+     * Mehrere Kommentar-Zeilen werden wie durch {@link FastaParser} mit Zeilenumbruch verbunden.
+     *
+     * @return Kommentar oder null
+     */
+    public String getComments() {
+        if (!hasComments())
+            return null;
+        StringBuilder comments = new StringBuilder();
+        for (String line : file.decode(commentOffset, commentLength, StandardCharsets.ISO_8859_1).split("\n")) {
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+            if (comments.length() > 0)
+                comments.append('\n');
+            comments.append(line, 1, line.length()); // without ;
+        }
+        return comments.toString();
+    }
+
+    /**
+     * Liefert true zurueck, falls Kommentar vorhanden ist. Ansonsten false
+     *
+     * @return true, falls Kommentar vorhanden ist. Ansonsten false
+     */
+    public boolean hasComments() {
+        return commentOffset >= 0;
+    }
+
+    /**
+     * Liefert Laenge der Nukleotid-Sequenz zurueck
+     *
+     * @return Laenge der Nukleotid-Sequenz
+     */
+    public int getSequenceLength() {
+        return sequenceLength;
+    }
+
+    /**
+     * Liefert Nukleotid an uebergebener Position der Nukleotid-Sequenz zurueck
+     *
+     * @param index Position in der Nukleotid-Sequenz
+     * @return Nukleotid als Byte
+     * @throws IndexOutOfBoundsException falls Position ausserhalb der Nukleotid-Sequenz
+     */
+    public byte byteAt(final int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= sequenceLength)
+            throw new IndexOutOfBoundsException("index " + index + " length " + sequenceLength);
+        return file.byteAt(sequenceOffset + index);
+    }
+
+    /**
+     * Liefert Nukleotid-Sequenz als String zurueck
+     *
+     * @return Nukleotid-Sequenz
+     */
+    public String getNucleotideSequence() {
+        return file.decode(sequenceOffset, sequenceLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Erstellt eine {@link Sequence} aus diesem Eintrag. Die Nukleotid-Sequenz wird direkt aus der Datei kodiert.
+     *
+     * @return Sequenz
+     */
+    public Sequence toSequence() {
+        return new Sequence(getDescription(), getComments(), EncodedSequence.encode(this));
+    }
+
+    /**
+     * Liefert Position des Eintrags (Zeichen &gt; der Beschreibung) in der Datei zurueck
+     *
+     * @return Position in der Datei
+     */
+    public long getRecordOffset() {
+        return descriptionOffset - 1;
+    }
+
+    /**
+     * Liefert Position der Nukleotid-Sequenz in der Datei zurueck
+     *
+     * @return Position in der Datei
+     */
+    public long getSequenceOffset() {
+        return sequenceOffset;
+    }
+}
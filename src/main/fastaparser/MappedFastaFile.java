@@ -0,0 +1,126 @@
+package main.fastaparser;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * In den Speicher abgebildete (memory-mapped) Datei.
+ * <p>
+ * Da ein {@link MappedByteBuffer} hoechstens 2 GB umfassen kann, wird die Datei in Segmente aufgeteilt.
+ * Der Zugriff erfolgt ueber absolute Positionen (long), sodass auch Dateien groesser als 2 GB gelesen werden koennen.
+ * Die Abbildung bleibt nach dem Schliessen des Kanals gueltig, bis keine Referenz mehr auf die Datei besteht.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class MappedFastaFile {
+
+    /**
+     * Bits der Position innerhalb eines Segments (Segmente zu 1 GB)
+     */
+    private static final int SEGMENT_SHIFT = 30;
+
+    /**
+     * Maske der Position innerhalb eines Segments
+     */
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    /**
+     * Dateipfad
+     */
+    private final String filePath;
+
+    /**
+     * Segmente der abgebildeten Datei
+     */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Groesse der Datei in Bytes
+     */
+    private final long size;
+
+    /**
+     * Konstruktor. Bildet die Datei am uebergebenen Dateipfad in den Speicher ab.
+     *
+     * @param filePath Dateipfad
+     * @throws FileNotFoundException    falls Dateipfad ungueltig
+     * @throws IOException              falls beim Abbilden ein Fehler auftritt
+     * @throws IllegalArgumentException falls uebergebener Dateipfad == null
+     */
+    public MappedFastaFile(String filePath) throws IllegalArgumentException, FileNotFoundException, IOException {
+        if (filePath == null)
+            throw new IllegalArgumentException("filePath is null");
+        this.filePath = filePath;
+
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r"); FileChannel channel = file.getChannel()) { // mapping stays valid
+            size = channel.size();
+            int segmentCount = (int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long position = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_MASK + 1, size - position));
+            }
+        }
+    }
+
+    /**
+     * Liefert das Byte an uebergebener Position zurueck
+     *
+     * @param position Position in der Datei
+     * @return Byte
+     */
+    public byte byteAt(final long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+    }
+
+    /**
+     * Kopiert uebergebenen Bereich der Datei in uebergebenes Feld
+     *
+     * @param position    Position in der Datei
+     * @param destination Ziel-Feld
+     * @param offset      Position im Ziel-Feld
+     * @param length      Anzahl Bytes
+     */
+    public void copy(final long position, final byte[] destination, final int offset, final int length) {
+        for (int i = 0; i < length; i++) {
+            destination[offset + i] = byteAt(position + i);
+        }
+    }
+
+    /**
+     * Dekodiert uebergebenen Bereich der Datei zu einem String
+     *
+     * @param position Position in der Datei
+     * @param length   Anzahl Bytes
+     * @param charset  Zeichensatz
+     * @return dekodierter String
+     */
+    public String decode(final long position, final int length, final Charset charset) {
+        byte[] bytes = new byte[length];
+        copy(position, bytes, 0, length);
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Liefert Groesse der Datei in Bytes zurueck
+     *
+     * @return Groesse in Bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Liefert Dateipfad zurueck
+     *
+     * @return Dateipfad
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+}
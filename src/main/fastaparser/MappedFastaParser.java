@@ -0,0 +1,270 @@
+package main.fastaparser;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parser fuer das .fasta Dateiformat mittels in den Speicher abgebildeter Datei ({@link MappedFastaFile}).
+ * <p>
+ * Im Gegensatz zu {@link FastaParser} werden die Bytes der Datei direkt durchsucht, ohne Zeilen als Strings zu erstellen.
+ * Die Eintraege werden als {@link FastaRecord} zurueck geliefert, die nur Positionen in der Datei halten.
+ * Es gelten dieselben Regeln und Fehlermeldungen wie in {@link FastaParser}. Leere Zeilen werden uebersprungen.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class MappedFastaParser {
+
+    /**
+     * minimale Groesse eines Bereichs beim parallelisierten Parsen in Bytes
+     */
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Bildet die Datei am uebergebenen Dateipfad in den Speicher ab und parset sie anschliessend.
+     * Liefert eine Liste mit den geparseten {@link FastaRecord} zurueck.
+     *
+     * @param filePath Dateipfad
+     * @return Liste mit den geparseten {@link FastaRecord}
+     * @throws FileNotFoundException    falls Dateipfad ungueltig
+     * @throws IOException              falls beim Abbilden Fehler auftritt
+     * @throws FastaParserException     falls der Inhalt der Datei nicht dem fasta Format entspricht
+     * @throws IllegalArgumentException falls uebergebener Dateipfad == null
+     */
+    public static List<FastaRecord> parseFile(String filePath) throws IllegalArgumentException, FileNotFoundException, IOException, FastaParserException {
+        MappedFastaFile file = new MappedFastaFile(filePath);
+        return parse(file, 0, file.size(), true);
+    }
+
+    /**
+     * Bildet die Datei am uebergebenen Dateipfad in den Speicher ab und liefert einen Stream ueber ihre Eintraege zurueck.
+     * Die Eintraege werden erst beim Durchlaufen geparset (siehe {@link MappedFastaSpliterator}).
+     * Der Stream kann mittels {@link Stream#parallel()} parallelisiert werden, er wird dabei an Beschreibungen aufgeteilt.
+     * Fehler im fasta Format werden als {@link UncheckedFastaParserException} geworfen.
+     *
+     * @param filePath Dateipfad
+     * @return Stream ueber die Sequenzen
+     * @throws FileNotFoundException    falls Dateipfad ungueltig
+     * @throws IOException              falls beim Abbilden Fehler auftritt
+     * @throws IllegalArgumentException falls uebergebener Dateipfad == null
+     */
+    public static Stream<Sequence> stream(String filePath) throws IllegalArgumentException, FileNotFoundException, IOException {
+        MappedFastaFile file = new MappedFastaFile(filePath);
+        return StreamSupport.stream(new MappedFastaSpliterator(file, 0, file.size()), false);
+    }
+
+    /**
+     * Bildet die Datei am uebergebenen Dateipfad in den Speicher ab und parset sie parallelisiert.
+     * Liefert eine Liste mit den geparseten {@link FastaRecord} in der Reihenfolge der Datei zurueck.
+     * <p>
+     * Die Datei wird in so viele Bereiche aufgeteilt, wie logische Kerne der JVM zur verfuegung stehen.
+     * Jeder Bereich beginnt an einer Beschreibung (Zeile beginnend mit &gt;) und wird von einem eigenen Thread geparset.
+     * Tritt in mehreren Bereichen ein Fehler auf, wird der Fehler des vordersten Bereichs geworfen,
+     * also derselbe wie beim sequentiellen Parsen.
+     *
+     * @param filePath Dateipfad
+     * @return Liste mit den geparseten {@link FastaRecord}
+     * @throws FileNotFoundException    falls Dateipfad ungueltig
+     * @throws IOException              falls beim Abbilden Fehler auftritt
+     * @throws FastaParserException     falls der Inhalt der Datei nicht dem fasta Format entspricht
+     * @throws IllegalArgumentException falls uebergebener Dateipfad == null
+     */
+    public static List<FastaRecord> parseFileParallelized(String filePath) throws IllegalArgumentException, FileNotFoundException, IOException, FastaParserException {
+        MappedFastaFile file = new MappedFastaFile(filePath);
+        long size = file.size();
+        int chunkCount = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), size / MIN_CHUNK_SIZE));
+
+        // split at descriptions
+        long[] bounds = splitAtDescriptions(file, 0, size, chunkCount);
+
+        List<ThreadFastaChunk> threads = new ArrayList<>(bounds.length - 1);
+        for (int i = 0; i < bounds.length - 1; i++) {
+            ThreadFastaChunk thread = new ThreadFastaChunk(file, bounds[i], bounds[i + 1], bounds[i + 1] == size);
+            threads.add(thread);
+            thread.start();
+        }
+
+        // Waiting for threads to finish and merge in order
+        List<List<FastaRecord>> chunks = new ArrayList<>(threads.size());
+        int recordCount = 0;
+        for (ThreadFastaChunk thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new IOException("interrupted while parsing " + filePath, e);
+            }
+            if (thread.getFailure() != null)
+                rethrow(thread.getFailure()); // first failing chunk
+            chunks.add(thread.getRecords());
+            recordCount += thread.getRecords().size();
+        }
+
+        List<FastaRecord> ret = new ArrayList<>(recordCount);
+        for (List<FastaRecord> chunk : chunks) {
+            ret.addAll(chunk);
+        }
+        return ret;
+    }
+
+    /**
+     * Wirft den in einem Thread aufgetretenen Fehler im aufrufenden Thread erneut
+     *
+     * @param failure Fehler
+     * @throws FastaParserException falls der Inhalt nicht dem fasta Format entspricht
+     */
+    private static void rethrow(final Throwable failure) throws FastaParserException {
+        if (failure instanceof FastaParserException)
+            throw (FastaParserException) failure;
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+        throw new IllegalStateException("unexpected failure while parsing", failure);
+    }
+
+    /**
+     * Teilt uebergebenen Bereich der abgebildeten Datei in hoechstens chunkCount Bereiche auf.
+     * Jeder Bereich (ausser dem ersten) beginnt an einer Zeile, die mit &gt; beginnt.
+     * Liefert die Grenzen der Bereiche (inklusive Anfang und Ende) aufsteigend zurueck.
+     *
+     * @param file       abgebildete Datei
+     * @param from       Anfang des Bereichs
+     * @param to         Ende des Bereichs (exklusiv)
+     * @param chunkCount maximale Anzahl Bereiche
+     * @return Grenzen der Bereiche
+     */
+    static long[] splitAtDescriptions(final MappedFastaFile file, final long from, final long to, final int chunkCount) {
+        long[] bounds = new long[chunkCount + 1];
+        int count = 0;
+        bounds[count++] = from;
+        for (int i = 1; i < chunkCount; i++) {
+            long bound = nextDescription(file, Math.max(from + (to - from) * i / chunkCount, bounds[count - 1] + 1), to);
+            if (bound < to && bound > bounds[count - 1])
+                bounds[count++] = bound;
+        }
+        bounds[count++] = to;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Liefert den Anfang der ersten Zeile ab (nach) uebergebener Position zurueck, die mit &gt; beginnt
+     * (fuehrende Leerzeichen werden wie in {@link String#trim()} ignoriert), oder das Ende des Bereichs.
+     *
+     * @param file     abgebildete Datei
+     * @param position Position, ab der gesucht wird. Liegt sie nicht am Zeilenanfang, wird ab der naechsten Zeile gesucht.
+     * @param to       Ende des Bereichs (exklusiv)
+     * @return Anfang der Zeile oder Ende des Bereichs
+     */
+    static long nextDescription(final MappedFastaFile file, long position, final long to) {
+        // move to start of line
+        if (position > 0) {
+            while (position < to && file.byteAt(position - 1) != '\n') {
+                position++;
+            }
+        }
+        while (position < to) {
+            long lineStart = position;
+            while (position < to && file.byteAt(position) != '\n' && isWhitespace(file.byteAt(position))) {
+                position++;
+            }
+            if (position < to && file.byteAt(position) == '>')
+                return lineStart;
+            // next line
+            while (position < to && file.byteAt(position) != '\n') {
+                position++;
+            }
+            position++;
+        }
+        return to;
+    }
+
+    /**
+     * Parset die Zeilen der abgebildeten Datei, die im uebergebenen Bereich beginnen.
+     *
+     * @param file abgebildete Datei
+     * @param from Anfang des Bereichs (Anfang einer Zeile)
+     * @param to   Ende des Bereichs (exklusiv, Anfang einer Zeile oder Dateiende)
+     * @param last true, falls der Bereich bis zum Dateiende reicht.
+     *             Ansonsten fuehrt eine Beschreibung ohne Sequenz am Ende des Bereichs zu einem Fehler,
+     *             da der naechste Bereich mit einer Beschreibung beginnt.
+     * @return Liste mit den geparseten {@link FastaRecord}
+     * @throws FastaParserException falls der Inhalt der Datei nicht dem fasta Format entspricht
+     */
+    static List<FastaRecord> parse(final MappedFastaFile file, final long from, final long to, final boolean last) throws FastaParserException {
+        List<FastaRecord> ret = new ArrayList<>();
+        final long size = file.size();
+
+        long descriptionOffset = -1, commentOffset = -1, commentEnd = -1;
+        int descriptionLength = 0;
+
+        long position = from;
+        while (position < to) {
+            // find line
+            long lineStart = position;
+            long lineEnd = lineStart;
+            while (lineEnd < size && file.byteAt(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            position = lineEnd + 1;
+
+            // trim (like String.trim)
+            while (lineStart < lineEnd && isWhitespace(file.byteAt(lineStart))) {
+                lineStart++;
+            }
+            while (lineEnd > lineStart && isWhitespace(file.byteAt(lineEnd - 1))) {
+                lineEnd--;
+            }
+            if (lineStart == lineEnd)
+                continue; // empty line
+
+            byte firstChar = file.byteAt(lineStart);
+
+            // Description -----------------------------------------------
+            if (firstChar == '>') {
+                if (descriptionOffset < 0) {
+                    descriptionOffset = lineStart + 1;
+                    descriptionLength = (int) (lineEnd - descriptionOffset);
+                } else
+                    throw new FastaParserException("Missing sequence!");
+            }
+            // Comment -----------------------------------------------
+            else if (firstChar == ';') {
+                if (descriptionOffset < 0)
+                    throw new FastaParserException("Comment at wrong position or missing description!");
+                if (commentOffset < 0)
+                    commentOffset = lineStart; // create comment
+                commentEnd = lineEnd; // add comment line
+            }
+            // Sequence -----------------------------------------------
+            else {
+                if (descriptionOffset < 0) {
+                    throw new FastaParserException("Missing description! (line starting with >)");
+                }
+                ret.add(new FastaRecord(file, descriptionOffset, descriptionLength,
+                        commentOffset, (int) (commentEnd - commentOffset), lineStart, (int) (lineEnd - lineStart)));
+                descriptionOffset = -1;
+                commentOffset = -1;
+            }
+        }
+
+        if (!last && descriptionOffset >= 0)
+            throw new FastaParserException("Missing sequence!");
+
+        return ret;
+    }
+
+    /**
+     * Liefert true zurueck, falls uebergebenes Byte ein Leerzeichen im Sinne von {@link String#trim()} ist. Ansonsten false.
+     *
+     * @param b Byte
+     * @return true, falls Leerzeichen. Ansonsten false.
+     */
+    static boolean isWhitespace(final byte b) {
+        return (b & 0xFF) <= ' ';
+    }
+}
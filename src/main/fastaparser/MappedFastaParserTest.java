@@ -0,0 +1,193 @@
+package main.fastaparser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Test-Klasse fuer {@link MappedFastaParser}.
+ *
+ * @author Soeren Metje
+ */
+public class MappedFastaParserTest {
+
+    /**
+     * Test von {@link MappedFastaParser#parseFile(String)}, {@link MappedFastaParser#parseFileParallelized(String)}
+     * und {@link MappedFastaParser#stream(String)}.
+     * Alle muessen dieselben Eintraege wie {@link FastaParser#parseFile(String)} liefern, auch bei Kommentaren,
+     * CRLF-Zeilenenden, Leerzeilen, leerer letzter Zeile und Nicht-ASCII-Zeichen in der Beschreibung.
+     */
+    @Test
+    public void testSameAsFastaParser() throws IOException, FastaParserException {
+        String filePath = createFile(content());
+        List<Sequence> expected = FastaParser.parseFile(filePath);
+        Assert.assertEquals(5, expected.size());
+
+        assertSameRecords(expected, MappedFastaParser.parseFile(filePath));
+        assertSameRecords(expected, MappedFastaParser.parseFileParallelized(filePath));
+        assertSameSequences(expected, MappedFastaParser.stream(filePath).collect(Collectors.toList()));
+        assertSameSequences(expected, MappedFastaParser.stream(filePath).parallel().collect(Collectors.toList()));
+        assertSameSequences(expected, FastaParser.stream(filePath).collect(Collectors.toList()));
+    }
+
+    /**
+     * Test von {@link ThreadFastaChunk} mit zwei Bereichen.
+     * Fuer jede Byte-Position als Grenze (auch mitten in einem Eintrag) muessen die an der naechsten Beschreibung
+     * aufgeteilten Bereiche zusammen dieselben Eintraege liefern wie {@link FastaParser#parseFile(String)}.
+     */
+    @Test
+    public void testChunkBoundaryInsideRecord() throws IOException, FastaParserException, InterruptedException {
+        String filePath = createFile(content());
+        List<Sequence> expected = FastaParser.parseFile(filePath);
+        MappedFastaFile file = new MappedFastaFile(filePath);
+        long size = file.size();
+
+        for (long position = 0; position <= size; position++) {
+            long bound = MappedFastaParser.nextDescription(file, position, size);
+            Assert.assertTrue(bound >= position && bound <= size);
+            Assert.assertTrue(bound == size || file.byteAt(bound) == '>');
+            assertSameRecords(expected, parseChunks(file, new long[]{0, bound, size}));
+        }
+    }
+
+    /**
+     * Test von {@link MappedFastaParser#splitAtDescriptions(MappedFastaFile, long, long, int)}.
+     * Die Bereiche muessen zusammen dieselben Eintraege wie {@link FastaParser#parseFile(String)} liefern,
+     * auch bei mehr Bereichen als Eintraegen.
+     */
+    @Test
+    public void testSplitAtDescriptions() throws IOException, FastaParserException, InterruptedException {
+        String filePath = createFile(content());
+        List<Sequence> expected = FastaParser.parseFile(filePath);
+        MappedFastaFile file = new MappedFastaFile(filePath);
+
+        for (int chunkCount = 1; chunkCount <= 10; chunkCount++) {
+            long[] bounds = MappedFastaParser.splitAtDescriptions(file, 0, file.size(), chunkCount);
+            Assert.assertEquals(0, bounds[0]);
+            Assert.assertEquals(file.size(), bounds[bounds.length - 1]);
+            assertSameRecords(expected, parseChunks(file, bounds));
+        }
+    }
+
+    /**
+     * Test von {@link MappedFastaParser#parseFile(String)} mit einer ueber mehrere Zeilen verteilten Sequenz.
+     * Das Format erlaubt nur eine Sequenz-Zeile je Eintrag, beide Parser muessen denselben Fehler melden.
+     */
+    @Test
+    public void testMultiLineSequence() throws IOException {
+        String filePath = createFile(">seq1\nACGU\nACGU\n>seq2\nGGCC\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        String expected = null;
+        try {
+            FastaParser.parseFile(filePath);
+            Assert.fail("multi-line sequence accepted by FastaParser");
+        } catch (FastaParserException e) {
+            expected = e.getMessage();
+        }
+        try {
+            MappedFastaParser.parseFile(filePath);
+            Assert.fail("multi-line sequence accepted by MappedFastaParser");
+        } catch (FastaParserException e) {
+            Assert.assertEquals(expected, e.getMessage());
+        }
+        try {
+            MappedFastaParser.parseFileParallelized(filePath);
+            Assert.fail("multi-line sequence accepted by MappedFastaParser");
+        } catch (FastaParserException e) {
+            Assert.assertEquals(expected, e.getMessage());
+        }
+    }
+
+    /**
+     * Liefert den Inhalt der Test-Datei zurueck (Kommentare, CRLF, Leerzeilen, Einrueckung,
+     * Nicht-ASCII-Bytes in der Beschreibung und leere letzte Zeile)
+     *
+     * @return Inhalt
+     */
+    private static byte[] content() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(">seq1 first\n;comment one\n;comment two\nACGUACGU\n".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(">seq2 crlf\r\n;crlf comment\r\nGGCCAAUU\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        out.write("\n>seq3 caf".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(new byte[]{(byte) 0xE9, ' ', (byte) 0xC3, (byte) 0xA9});
+        out.write("\n  ACGU  \n\n".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(">seq4\nU\n".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(">seq5 last\n;c\nACGUACGUACGUACGUACGU\n\n".getBytes(StandardCharsets.ISO_8859_1));
+        return out.toByteArray();
+    }
+
+    /**
+     * Parset die Bereiche zwischen den uebergebenen Grenzen mit je einem {@link ThreadFastaChunk}
+     *
+     * @param file   abgebildete Datei
+     * @param bounds Grenzen der Bereiche
+     * @return Eintraege aller Bereiche in Reihenfolge
+     */
+    private static List<FastaRecord> parseChunks(MappedFastaFile file, long[] bounds) throws InterruptedException {
+        List<ThreadFastaChunk> threads = new ArrayList<>();
+        for (int i = 0; i < bounds.length - 1; i++) {
+            ThreadFastaChunk thread = new ThreadFastaChunk(file, bounds[i], bounds[i + 1], i == bounds.length - 2);
+            threads.add(thread);
+            thread.start();
+        }
+        List<FastaRecord> ret = new ArrayList<>();
+        for (ThreadFastaChunk thread : threads) {
+            thread.join();
+            Assert.assertNull(thread.getFailure());
+            ret.addAll(thread.getRecords());
+        }
+        return ret;
+    }
+
+    /**
+     * Prueft, ob die Eintraege dieselben Sequenzen enthalten
+     *
+     * @param expected erwartete Sequenzen
+     * @param actual   Eintraege
+     */
+    private static void assertSameRecords(List<Sequence> expected, List<FastaRecord> actual) {
+        List<Sequence> sequences = new ArrayList<>(actual.size());
+        for (FastaRecord record : actual) {
+            sequences.add(record.toSequence());
+        }
+        assertSameSequences(expected, sequences);
+    }
+
+    /**
+     * Prueft, ob die Sequenzen in Beschreibung, Kommentaren und Nukleotid-Sequenz uebereinstimmen
+     *
+     * @param expected erwartete Sequenzen
+     * @param actual   Sequenzen
+     */
+    private static void assertSameSequences(List<Sequence> expected, List<Sequence> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getDescription(), actual.get(i).getDescription());
+            Assert.assertEquals(expected.get(i).getComments(), actual.get(i).getComments());
+            Assert.assertEquals(expected.get(i).getNucleotideSequence(), actual.get(i).getNucleotideSequence());
+        }
+    }
+
+    /**
+     * Schreibt den Inhalt in eine temporaere Datei
+     *
+     * @param content Inhalt
+     * @return Dateipfad
+     */
+    private static String createFile(byte[] content) throws IOException {
+        File file = File.createTempFile("fasta", ".fasta");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        return file.getPath();
+    }
+}
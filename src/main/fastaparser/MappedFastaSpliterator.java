@@ -0,0 +1,98 @@
+package main.fastaparser;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * {@link Spliterator} ueber die Eintraege eines Bereichs einer {@link MappedFastaFile}.
+ * <p>
+ * Die Eintraege werden erst beim Durchlaufen einzeln geparset, sodass der Speicherbedarf unabhaengig von der Dateigroesse ist.
+ * Beim Aufteilen ({@link #trySplit()}) wird der Bereich in der Mitte an der naechsten Beschreibung (Zeile beginnend mit &gt;) geteilt,
+ * sodass parallele Streams die Datei ohne Abstimmung zwischen den Threads parsen koennen.
+ * Fehler im fasta Format werden als {@link UncheckedFastaParserException} geworfen.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+class MappedFastaSpliterator implements Spliterator<Sequence> {
+
+    /**
+     * minimale Groesse eines Bereichs in Bytes, ab der aufgeteilt wird
+     */
+    private static final long MIN_SPLIT_SIZE = 1 << 16;
+
+    /**
+     * abgebildete Datei
+     */
+    private final MappedFastaFile file;
+
+    /**
+     * aktuelle Position
+     */
+    private long position;
+
+    /**
+     * Ende des Bereichs (exklusiv)
+     */
+    private final long end;
+
+    /**
+     * Konstruktor
+     *
+     * @param file  abgebildete Datei
+     * @param from  Anfang des Bereichs (Dateianfang oder Anfang einer Beschreibung)
+     * @param end   Ende des Bereichs (exklusiv, Dateiende oder Anfang einer Beschreibung)
+     */
+    MappedFastaSpliterator(MappedFastaFile file, long from, long end) {
+        this.file = file;
+        this.position = from;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Sequence> action) {
+        while (position < end) {
+            // range of next record
+            long recordEnd = MappedFastaParser.nextDescription(file, position + 1, end);
+            try {
+                for (FastaRecord record : MappedFastaParser.parse(file, position, recordEnd, recordEnd == file.size())) {
+                    position = recordEnd;
+                    action.accept(record.toSequence());
+                    return true;
+                }
+            } catch (FastaParserException e) {
+                position = end;
+                throw new UncheckedFastaParserException(e);
+            }
+            position = recordEnd; // only blank lines
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<Sequence> trySplit() {
+        if (end - position < MIN_SPLIT_SIZE)
+            return null;
+        long split = MappedFastaParser.nextDescription(file, position + (end - position) / 2, end);
+        if (split <= position || split >= end)
+            return null;
+        Spliterator<Sequence> prefix = new MappedFastaSpliterator(file, position, split);
+        position = split;
+        return prefix;
+    }
+
+    /**
+     * Liefert Anzahl verbleibender Bytes als obere Schranke der Anzahl Eintraege zurueck
+     *
+     * @return verbleibende Bytes
+     */
+    @Override
+    public long estimateSize() {
+        return end - position;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
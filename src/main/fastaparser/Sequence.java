@@ -10,6 +10,8 @@ package main.fastaparser;
  * - Kommentar (optional, wenn in Datei angegeben), durch ; kenntlich gemacht
  * <p>
  * - Nukleotid-Sequenz, folgende Zeile ohne initiierende Zeichen
+ * <p>
+ * Die Nukleotid-Sequenz wird kompakt als {@link EncodedSequence} gehalten und nur bei Bedarf als String dekodiert.
  *
  * @author Soeren Metje
  */
@@ -26,9 +28,9 @@ public class Sequence {
     private final String comments;
 
     /**
-     * Nukleotid-Sequenz, folgende Zeile ohne initiierende Zeichen
+     * kodierte Nukleotid-Sequenz, folgende Zeile ohne initiierende Zeichen
      */
-    private final String nucleotideSequence;
+    private final EncodedSequence encodedSequence;
 
     /**
      * Konstruktor
@@ -36,11 +38,26 @@ public class Sequence {
      * @param description        Beschreibung
      * @param comments           Kommentar
      * @param nucleotideSequence Nukleotid-Sequenz
+     * @throws IllegalArgumentException falls uebergebene Nukleotid-Sequenz == null
      */
-    public Sequence(String description, String comments, String nucleotideSequence) {
+    public Sequence(String description, String comments, String nucleotideSequence) throws IllegalArgumentException {
+        this(description, comments, EncodedSequence.encode(nucleotideSequence));
+    }
+
+    /**
+     * Konstruktor
+     *
+     * @param description     Beschreibung
+     * @param comments        Kommentar
+     * @param encodedSequence kodierte Nukleotid-Sequenz
+     * @throws IllegalArgumentException falls uebergebene kodierte Nukleotid-Sequenz == null
+     */
+    public Sequence(String description, String comments, EncodedSequence encodedSequence) throws IllegalArgumentException {
+        if (encodedSequence == null)
+            throw new IllegalArgumentException("encodedSequence is null");
         this.description = description;
         this.comments = comments;
-        this.nucleotideSequence = nucleotideSequence;
+        this.encodedSequence = encodedSequence;
     }
 
     /**
@@ -62,12 +79,31 @@ public class Sequence {
     }
 
     /**
-     * liefert Nukleotid-Sequence zurueck
+     * liefert Nukleotid-Sequence zurueck. Diese wird bei jedem Aufruf dekodiert und sollte daher nicht wiederholt
+     * fuer dieselbe Sequenz abgefragt werden. Zur Bewertung {@link #getEncodedSequence()} verwenden.
      *
      * @return Nukleotid-Sequence
      */
     public String getNucleotideSequence() {
-        return nucleotideSequence;
+        return encodedSequence.toString();
+    }
+
+    /**
+     * liefert kodierte Nukleotid-Sequence zurueck
+     *
+     * @return kodierte Nukleotid-Sequence
+     */
+    public EncodedSequence getEncodedSequence() {
+        return encodedSequence;
+    }
+
+    /**
+     * liefert Laenge der Nukleotid-Sequence zurueck
+     *
+     * @return Laenge der Nukleotid-Sequence
+     */
+    public int getLength() {
+        return encodedSequence.length();
     }
 
     /**
@@ -0,0 +1,146 @@
+package main.fastaparser;
+
+import java.io.IOException;
+
+/**
+ * Thread {@link Thread}, der fuer einen {@link BgzfInputStream} nacheinander je Stapel einen Teil der gelesenen BGZF-Bloecke entpackt.
+ * Der Thread wird einmal je Eingabestrom gestartet und wartet zwischen den Stapeln auf den naechsten Auftrag,
+ * bis er beendet wird. Ein aufgetretener Fehler wird gehalten, bis die Bloecke gelesen werden.
+ *
+ * @author Soeren Metje
+ */
+class ThreadBgzfInflate extends Thread {
+
+    /**
+     * komprimierte Bloecke (ohne Header) des aktuellen Auftrags
+     */
+    private byte[][] compressed;
+
+    /**
+     * Ziel fuer die entpackten Bloecke des aktuellen Auftrags
+     */
+    private byte[][] inflated;
+
+    /**
+     * erster zu entpackender Block des aktuellen Auftrags
+     */
+    private int from;
+
+    /**
+     * Ende der zu entpackenden Bloecke des aktuellen Auftrags (exklusiv)
+     */
+    private int to;
+
+    /**
+     * true, solange ein Auftrag vergeben und nicht abgeschlossen ist
+     */
+    private boolean assigned = false;
+
+    /**
+     * true, falls der Thread beendet werden soll
+     */
+    private boolean shutdown = false;
+
+    /**
+     * aufgetretener Fehler des letzten Auftrags oder null
+     */
+    private IOException failure;
+
+    /**
+     * Konstruktor. Der Thread laeuft als Daemon, damit ein nicht geschlossener Eingabestrom das Beenden der JVM nicht verhindert.
+     */
+    ThreadBgzfInflate() {
+        setDaemon(true);
+    }
+
+    /**
+     * Vergibt den naechsten Auftrag. Der vorherige Auftrag muss abgeschlossen sein (siehe {@link #awaitCompletion()}).
+     *
+     * @param compressed komprimierte Bloecke (ohne Header)
+     * @param inflated   Ziel fuer die entpackten Bloecke
+     * @param from       erster zu entpackender Block
+     * @param to         Ende der zu entpackenden Bloecke (exklusiv)
+     */
+    synchronized void assign(byte[][] compressed, byte[][] inflated, int from, int to) {
+        this.compressed = compressed;
+        this.inflated = inflated;
+        this.from = from;
+        this.to = to;
+        this.failure = null;
+        this.assigned = true;
+        notifyAll();
+    }
+
+    /**
+     * Wartet, bis der aktuelle Auftrag abgeschlossen ist
+     *
+     * @throws InterruptedException falls der wartende Thread unterbrochen wird
+     */
+    synchronized void awaitCompletion() throws InterruptedException {
+        while (assigned) {
+            wait();
+        }
+    }
+
+    /**
+     * Beendet den Thread, sobald der aktuelle Auftrag abgeschlossen ist
+     */
+    synchronized void shutdown() {
+        shutdown = true;
+        notifyAll();
+    }
+
+    /**
+     * Entpackt die Bloecke der vergebenen Auftraege, bis der Thread beendet wird
+     */
+    @Override
+    public void run() {
+        while (true) {
+            byte[][] compressed, inflated;
+            int from, to;
+            synchronized (this) {
+                try {
+                    while (!assigned && !shutdown) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (!assigned)
+                    return;
+                compressed = this.compressed;
+                inflated = this.inflated;
+                from = this.from;
+                to = this.to;
+            }
+
+            IOException failure = null;
+            try {
+                for (int i = from; i < to; i++) {
+                    inflated[i] = BgzfInputStream.inflate(compressed[i]);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (Throwable e) { // keep the reader from waiting forever
+                failure = new IOException("failed to inflate BGZF blocks", e);
+            }
+
+            synchronized (this) {
+                this.failure = failure;
+                this.compressed = null;
+                this.inflated = null;
+                assigned = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Liefert aufgetretenen Fehler des letzten Auftrags zurueck (erst nach {@link #awaitCompletion()} verwenden)
+     *
+     * @return Fehler oder null
+     */
+    synchronized IOException getFailure() {
+        return failure;
+    }
+}
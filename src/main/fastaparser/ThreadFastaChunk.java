@@ -0,0 +1,87 @@
+package main.fastaparser;
+
+import java.util.List;
+
+/**
+ * Thread {@link Thread}, der einen Bereich einer {@link MappedFastaFile} mittels {@link MappedFastaParser} parset.
+ * Das Ergebnis bzw. ein aufgetretener Fehler (auch unerwartete Laufzeitfehler) wird bis zum Zusammenfuehren gehalten.
+ *
+ * @author Soeren Metje
+ */
+class ThreadFastaChunk extends Thread {
+
+    /**
+     * abgebildete Datei
+     */
+    private final MappedFastaFile file;
+
+    /**
+     * Anfang des Bereichs
+     */
+    private final long from;
+
+    /**
+     * Ende des Bereichs (exklusiv)
+     */
+    private final long to;
+
+    /**
+     * true, falls der Bereich bis zum Dateiende reicht
+     */
+    private final boolean last;
+
+    /**
+     * geparsete Eintraege oder null
+     */
+    private List<FastaRecord> records;
+
+    /**
+     * aufgetretener Fehler oder null
+     */
+    private Throwable failure;
+
+    /**
+     * Konstruktor
+     *
+     * @param file abgebildete Datei
+     * @param from Anfang des Bereichs
+     * @param to   Ende des Bereichs (exklusiv)
+     * @param last true, falls der Bereich bis zum Dateiende reicht
+     */
+    ThreadFastaChunk(MappedFastaFile file, long from, long to, boolean last) {
+        this.file = file;
+        this.from = from;
+        this.to = to;
+        this.last = last;
+    }
+
+    /**
+     * Parset den Bereich
+     */
+    @Override
+    public void run() {
+        try {
+            records = MappedFastaParser.parse(file, from, to, last);
+        } catch (Throwable e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Liefert geparsete Eintraege zurueck
+     *
+     * @return geparsete Eintraege oder null, falls ein Fehler aufgetreten ist
+     */
+    List<FastaRecord> getRecords() {
+        return records;
+    }
+
+    /**
+     * Liefert aufgetretenen Fehler zurueck
+     *
+     * @return Fehler oder null
+     */
+    Throwable getFailure() {
+        return failure;
+    }
+}
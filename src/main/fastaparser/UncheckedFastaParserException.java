@@ -0,0 +1,29 @@
+package main.fastaparser;
+
+/**
+ * Unchecked exception, die eine {@link FastaParserException} umhuellt.
+ * Wird von den Streams des {@link FastaParser} bzw. {@link MappedFastaParser} ausgeloesst, da diese keine checked exceptions werfen koennen.
+ *
+ * @author Soeren Metje
+ */
+public class UncheckedFastaParserException extends RuntimeException {
+
+    /**
+     * erstellt exception
+     *
+     * @param cause grund
+     */
+    public UncheckedFastaParserException(FastaParserException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    /**
+     * liefert umhuellte {@link FastaParserException} zurueck
+     *
+     * @return grund
+     */
+    @Override
+    public FastaParserException getCause() {
+        return (FastaParserException) super.getCause();
+    }
+}
@@ -44,36 +44,20 @@ public class HMMFunc {
     }
 
     /**
-     * Mappt Beaobachtung-Folge auf entsprechende Index-Folge
+     * Addiert zwei logarithmierte Wahrscheinlichkeiten, ohne den logarithmischen Raum zu verlassen.
+     * Liefert also log(exp(a) + exp(b)) zurueck.
      *
-     * @param space        Feld aller Beobachtungen
-     * @param observations Beobachtungs-Folge
-     * @return entsprechende Index-Folge
-     * @throws IllegalArgumentException falls Beobachtung nicht im Feld gefunden wird
+     * @param a logarithmierte Wahrscheinlichkeit
+     * @param b logarithmierte Wahrscheinlichkeit
+     * @return logarithmierte Summe
      */
-    public static int[] charsToIndices(final char[] space, final char[] observations) throws IllegalArgumentException {
-        int length = observations.length;
-        int[] ret = new int[length];
-
-        for (int i = 0; i < length; i++) {
-            ret[i] = charToIndex(space, observations[i]);
-        }
-        return ret;
-    }
-
-    /**
-     * Mappt Beaobachtung auf entsprechenden Index
-     *
-     * @param space       Feld aller Beobachtungen
-     * @param observation Beobachtung
-     * @return entsprechender Index
-     * @throws IllegalArgumentException falls Beobachtung nicht im Feld gefunden wird
-     */
-    public static int charToIndex(final char[] space, final char observation) throws IllegalArgumentException {
-        for (int i = 0, basesLength = space.length; i < basesLength; i++) {
-            if (space[i] == observation)
-                return i;
-        }
-        throw new IllegalArgumentException("Character " + observation + " not found");
+    public static double logSum(final double a, final double b) {
+        if (a == Double.NEGATIVE_INFINITY)
+            return b;
+        if (b == Double.NEGATIVE_INFINITY)
+            return a;
+        if (a > b)
+            return a + Math.log1p(Math.exp(b - a));
+        return b + Math.log1p(Math.exp(a - b));
     }
 }
@@ -0,0 +1,80 @@
+package main.hmm.casino;
+
+import main.logger.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Viterbi-Algorithmus fuer viele (kurze) Beobachtungsfolgen eines {@link HMM}.
+ * <p>
+ * Die Folgen werden blockweise auf so viele Threads verteilt, wie logische Kerne der JVM zur Verfuegung stehen.
+ * Jeder Thread verwendet einen eigenen, wiederverwendeten {@link ViterbiWorkspace},
+ * sodass je Folge nur der Zustands-Pfad neu angelegt wird. Die Zustands-Pfade sind identisch zu {@link HMM#viterbi(char[])}.
+ * Der Durchsatz in Beobachtungen pro Sekunde wird ausgegeben.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class BatchViterbi {
+
+    /**
+     * Berechnet die Zustands-Pfade aller uebergebenen Beobachtungsfolgen
+     *
+     * @param model     Modell
+     * @param sequences Beobachtungsfolgen
+     * @return Zustands-Pfade in Reihenfolge der Folgen (leer fuer leere Folgen)
+     * @throws IllegalArgumentException falls eine Folge == null ist oder Beobachtung nicht im Alphabet gefunden wird
+     */
+    public static List<char[]> viterbi(final HMM model, final List<char[]> sequences) throws IllegalArgumentException {
+        int sequenceCount = sequences.size();
+        long observationCount = 0;
+        for (char[] observations : sequences) {
+            if (observations == null)
+                throw new IllegalArgumentException("observations is null");
+            observationCount += observations.length;
+        }
+
+        long millis = System.currentTimeMillis(); // measure calc time
+        char[][] statePaths = new char[sequenceCount][];
+        if (model.stateCount > Byte.MAX_VALUE) {
+            for (int i = 0; i < sequenceCount; i++) {
+                statePaths[i] = sequences.get(i).length == 0 ? new char[0] : model.viterbi(sequences.get(i));
+            }
+        } else {
+            int coreCount = Runtime.getRuntime().availableProcessors(); // returns count of logical cores available to JVM
+            int threadCount = Math.max(Math.min(coreCount, sequenceCount), 1);
+            int[] nextIndex = new int[1];
+
+            List<ThreadBatchViterbi> threads = new ArrayList<>(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                ThreadBatchViterbi thread = new ThreadBatchViterbi(model, sequences, nextIndex, statePaths);
+                threads.add(thread);
+                thread.start();
+            }
+
+            // Waiting for threads to finish
+            IllegalArgumentException failure = null;
+            for (ThreadBatchViterbi thread : threads) {
+                try {
+                    thread.join();
+                    Log.dLine(thread.getName() + " finished");
+                } catch (InterruptedException e) {
+                    Log.eLine("ERROR: " + thread.getName() + " got interrupted");
+                }
+                if (failure == null)
+                    failure = thread.getFailure();
+            }
+            if (failure != null)
+                throw failure;
+        }
+        millis = System.currentTimeMillis() - millis;
+
+        float time = (float) millis / 1000; // in sec
+        Log.iLine(String.format("(%.2fsec) decoded %d sequences with %d observations (%.0f observations/sec)",
+                time, sequenceCount, observationCount, observationCount / Math.max(time, 1e-3f)));
+
+        return new ArrayList<>(Arrays.asList(statePaths));
+    }
+}
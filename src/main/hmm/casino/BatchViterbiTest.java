@@ -0,0 +1,122 @@
+package main.hmm.casino;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.runners.Parameterized.Parameter;
+import static org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Test-Klasse fuer {@link BatchViterbi}.
+ *
+ * @author Soeren Metje
+ */
+@RunWith(Parameterized.class)
+public class BatchViterbiTest {
+
+    /**
+     * Beobachtungen
+     */
+    private static final char[] OBSERVATION_SPACE = {'1', '2', '3'};
+
+    /**
+     * Anzahl Zustaende
+     */
+    @Parameter(0)
+    public int stateCount;
+
+    /**
+     * true, falls alle Wahrscheinlichkeiten gleich sind (nur gleich wahrscheinliche Pfade)
+     */
+    @Parameter(1)
+    public boolean ties;
+
+    /**
+     * Liefert List mit Parametern der Testfaelle zurueck
+     *
+     * @return List mit Parametern der Testfaelle
+     */
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][]{
+                {2, false}, {3, false}, {4, false}, {5, false},
+                {2, true}, {3, true}, {4, true}, {5, true}};
+        return Arrays.asList(data);
+    }
+
+    /**
+     * Test von {@link BatchViterbi#viterbi(HMM, List)}.
+     * Die Zustands-Pfade muessen identisch zu {@link HMM#viterbi(char[])} sein, auch bei gleich wahrscheinlichen Pfaden.
+     */
+    @Test
+    public void testSameAsViterbi() {
+        Random random = new Random(stateCount);
+        HMM model = createModel(random);
+
+        List<char[]> sequences = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            char[] observations = new char[random.nextInt(60)];
+            for (int k = 0; k < observations.length; k++) {
+                observations[k] = OBSERVATION_SPACE[random.nextInt(OBSERVATION_SPACE.length)];
+            }
+            sequences.add(observations);
+        }
+
+        List<char[]> statePaths = BatchViterbi.viterbi(model, sequences);
+        Assert.assertEquals(sequences.size(), statePaths.size());
+        for (int i = 0; i < sequences.size(); i++) {
+            char[] observations = sequences.get(i);
+            char[] expected = observations.length == 0 ? new char[0] : model.viterbi(observations);
+            Assert.assertEquals(String.valueOf(observations), String.valueOf(expected), String.valueOf(statePaths.get(i)));
+        }
+    }
+
+    /**
+     * Erstellt ein Modell mit zufaelligen oder (bei ties) gleichen Wahrscheinlichkeiten
+     *
+     * @param random Zufallszahlen-Generator
+     * @return Modell
+     */
+    private HMM createModel(Random random) {
+        char[] stateChar = new char[stateCount];
+        for (int i = 0; i < stateCount; i++) {
+            stateChar[i] = (char) ('A' + i);
+        }
+        double[] initProbabilities = distribution(random, stateCount);
+        double[][] transitionMatrix = new double[stateCount][];
+        double[][] emissionMatrix = new double[stateCount][];
+        for (int i = 0; i < stateCount; i++) {
+            transitionMatrix[i] = distribution(random, stateCount);
+            emissionMatrix[i] = distribution(random, OBSERVATION_SPACE.length);
+        }
+        return new HMM(OBSERVATION_SPACE, stateChar, initProbabilities, transitionMatrix, emissionMatrix);
+    }
+
+    /**
+     * Liefert eine zufaellige oder (bei ties) gleichverteilte Wahrscheinlichkeitsverteilung zurueck
+     *
+     * @param random Zufallszahlen-Generator
+     * @param size   Anzahl Werte
+     * @return Wahrscheinlichkeiten
+     */
+    private double[] distribution(Random random, int size) {
+        double[] ret = new double[size];
+        double sum = 0d;
+        for (int i = 0; i < size; i++) {
+            ret[i] = ties ? 1d : 0.1 + random.nextDouble();
+            sum += ret[i];
+        }
+        for (int i = 0; i < size; i++) {
+            ret[i] /= sum;
+        }
+        return ret;
+    }
+}
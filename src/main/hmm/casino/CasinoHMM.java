@@ -1,5 +1,7 @@
 package main.hmm.casino;
 
+import main.alphabet.Alphabet;
+
 /**
  * <p>
  * Hidden Markov Model fuer ein unehrliches Casino. F = Fair, L = Loaded.
@@ -13,7 +15,7 @@ public class CasinoHMM extends HMM {
     /**
      * beobachtbare Ereignisse
      */
-    private static final char[] OBSERVATION_SPACE = {'1', '2', '3', '4', '5', '6'};
+    private static final Alphabet OBSERVATION_SPACE = Alphabet.DICE;
 
     /**
      * Zustaende in denen sich das Modell befindet
@@ -37,9 +39,24 @@ public class CasinoHMM extends HMM {
 
     /**
      * Konstruktor.
-     * Konvertiert die Matrizen fuer die Uebergangswahrscheinlichen und Beobachtungswahrscheinlichketen in den logarithmischen Raum
+     * Konvertiert Kopien der Matrizen fuer die Uebergangswahrscheinlichen und Beobachtungswahrscheinlichketen in den logarithmischen Raum,
+     * da {@link HMM} die uebergebenen Felder veraendert und sonst jedes weitere Modell falsche Wahrscheinlichkeiten haette.
      */
     public CasinoHMM() {
-        super(OBSERVATION_SPACE, STATE_CHAR, INIT_PROBABILITIES, TRANSITION_MATRIX, EMISSION_MATRIX);
+        super(OBSERVATION_SPACE, STATE_CHAR, INIT_PROBABILITIES.clone(), copy(TRANSITION_MATRIX), copy(EMISSION_MATRIX));
+    }
+
+    /**
+     * Liefert eine tiefe Kopie der uebergebenen Matrix zurueck
+     *
+     * @param matrix Matrix
+     * @return Kopie
+     */
+    private static double[][] copy(final double[][] matrix) {
+        double[][] ret = new double[matrix.length][];
+        for (int i = 0; i < matrix.length; i++) {
+            ret[i] = matrix[i].clone();
+        }
+        return ret;
     }
 }
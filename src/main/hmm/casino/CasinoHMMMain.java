@@ -2,11 +2,14 @@ package main.hmm.casino;
 
 import main.argparser.ArgumentParser;
 import main.argparser.ArgumentParserException;
+import main.argparser.Flag;
 import main.argparser.ParameterSet;
 import main.argparser.Setting;
+import main.fastaparser.CompressedInput;
 import main.logger.Log;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 /**
@@ -17,6 +20,12 @@ import java.util.Arrays;
  * <p>
  * Generiert anhand der eingelesenen beobachteten Sequenz einen Zustands-Pfad mittels des Viterbi-Algorithmus in {@link CasinoHMM}
  * und gibt diesen aus. F = Fair, L = Loaded.
+ * Mit -lag &lt;Anzahl&gt; wird der Zustands-Pfad mittels {@link OnlineViterbi} mit entsprechender maximaler Verzoegerung ermittelt,
+ * mit --parallel abschnittsweise parallelisiert mittels {@link ParallelViterbi}.
+ * Mit --posterior wird zusaetzlich der Pfad der Posterior-Dekodierung ({@link HMM#posteriorDecoding(char[])}) ausgegeben,
+ * mit --train werden die Wahrscheinlichkeiten vorher mittels {@link HMMBaumWelch} anhand der Wuerfe geschaetzt.
+ * Mit --stream werden beliebig viele Eintraege (Wuerfe, optional gefolgt von den tatsaechlichen Zustaenden)
+ * mittels {@link StreamViterbi} dekodiert und die Ergebnisse in die Datei -out &lt;Path&gt; bzw. auf die Standardausgabe geschrieben.
  * </p>
  *
  * <p>
@@ -29,6 +38,11 @@ import java.util.Arrays;
  */
 public class CasinoHMMMain {
 
+    /**
+     * Laenge der Abschnitte, in die die Wuerfe fuer den Baum-Welch-Algorithmus aufgeteilt werden
+     */
+    private static final int TRAIN_CHUNK_LENGTH = 10000;
+
     /**
      * ausfuehrbare Methode
      *
@@ -40,6 +54,18 @@ public class CasinoHMMMain {
         ParameterSet parameterSet = new ParameterSet();
         Setting filePath = new Setting("file", true);
         parameterSet.addSetting(filePath);
+        Setting paramLag = new Setting("lag", false);
+        parameterSet.addSetting(paramLag);
+        Flag paramParallel = new Flag("parallel", false);
+        parameterSet.addFlag(paramParallel);
+        Flag paramPosterior = new Flag("posterior", false);
+        parameterSet.addFlag(paramPosterior);
+        Flag paramTrain = new Flag("train", false);
+        parameterSet.addFlag(paramTrain);
+        Flag paramStream = new Flag("stream", false);
+        parameterSet.addFlag(paramStream);
+        Setting paramOut = new Setting("out", false);
+        parameterSet.addSetting(paramOut);
 
         try {
             ArgumentParser parser = new ArgumentParser(parameterSet);
@@ -49,6 +75,21 @@ public class CasinoHMMMain {
             System.exit(1);
         }
 
+        int lag = -1;
+        if (paramLag.isSet()) {
+            try {
+                lag = Integer.parseInt(paramLag.getValue());
+            } catch (NumberFormatException e) {
+                Log.eLine("ERROR: invalid lag " + paramLag.getValue());
+                System.exit(1);
+            }
+        }
+
+        if (paramStream.isSet()) {
+            decodeStream(filePath.getValue(), paramOut.isSet() ? paramOut.getValue() : null);
+            return;
+        }
+
         // reading file
         File file = new File(filePath.getValue());
         BufferedReader bufferedReader = null;
@@ -86,16 +127,33 @@ public class CasinoHMMMain {
         Log.iLine(inSeqViterbi);
 
 
-        CasinoHMM model = new CasinoHMM();
+        HMM model = new CasinoHMM();
+        char[] observations = inSeqRolls.toCharArray();
+
+        // estimate probabilities
+        if (paramTrain.isSet()) {
+            try {
+                model = HMMBaumWelch.train(model, HMMBaumWelch.split(observations, TRAIN_CHUNK_LENGTH));
+            } catch (IllegalArgumentException e) {
+                Log.eLine("ERROR: Baum-Welch Casino failed! " + e.getMessage());
+                System.exit(1);
+            }
+            Log.iLine("Transition-Matrix = " + Arrays.deepToString(model.getTransitionMatrix()));
+            Log.iLine("Emission-Matrix = " + Arrays.deepToString(model.getEmissionMatrix()));
+        }
 
         // generate state-path with viterbi
-        char[] observations = inSeqRolls.toCharArray();
 
         Log.iLine("Generated Viterbi Path: ");
 
         char[] statePath = null;
         try {
-            statePath = model.viterbi(observations);
+            if (paramLag.isSet())
+                statePath = viterbiOnline(model, observations, lag);
+            else if (paramParallel.isSet())
+                statePath = ParallelViterbi.viterbi(model, observations);
+            else
+                statePath = model.viterbi(observations);
         } catch (IllegalArgumentException e) {
             Log.eLine("ERROR: Viterbi Casino failed! " + e.getMessage());
             System.exit(1);
@@ -108,5 +166,74 @@ public class CasinoHMMMain {
             Log.iLine(out);
         else
             Log.eLine(out);
+
+        if (paramPosterior.isSet()) {
+            char[] posteriorPath = null;
+            try {
+                posteriorPath = model.posteriorDecoding(observations);
+            } catch (IllegalArgumentException e) {
+                Log.eLine("ERROR: Posterior-Decoding Casino failed! " + e.getMessage());
+                System.exit(1);
+            }
+            Log.iLine("Generated Posterior Path: ");
+            Log.iLine(String.valueOf(posteriorPath));
+
+            int correct = 0;
+            int compareLength = Math.min(posteriorPath.length, inSeqDice.length());
+            for (int i = 0; i < compareLength; i++) {
+                if (posteriorPath[i] == inSeqDice.charAt(i))
+                    correct++;
+            }
+            Log.iLine(String.format("Posterior Path matches %d of %d dice", correct, inSeqDice.length()));
+        }
+    }
+
+    /**
+     * Ermittelt den Zustands-Pfad, indem die Beobachtungen einzeln an {@link OnlineViterbi} uebergeben werden
+     *
+     * @param model        Modell
+     * @param observations Beobachtungsfolge
+     * @param lag          maximale Verzoegerung
+     * @return Zustands-Pfad
+     * @throws IllegalArgumentException falls lag &lt; 0 oder Beobachtung nicht im Alphabet gefunden wird
+     */
+    private static char[] viterbiOnline(final HMM model, final char[] observations, final int lag) throws IllegalArgumentException {
+        OnlineViterbi decoder = new OnlineViterbi(model, lag);
+        StringBuilder statePath = new StringBuilder(observations.length);
+        int maxPending = 0;
+        for (char observation : observations) {
+            statePath.append(decoder.push(observation));
+            maxPending = Math.max(maxPending, decoder.getPending());
+        }
+        statePath.append(decoder.flush());
+        Log.dLine("max pending observations = " + maxPending);
+        return statePath.toString().toCharArray();
+    }
+
+    /**
+     * Dekodiert alle Eintraege der Datei (auch komprimiert) mittels {@link StreamViterbi}
+     *
+     * @param filePath Pfad der Datei
+     * @param outPath  Pfad der Ausgabe-Datei oder null fuer Standardausgabe
+     */
+    private static void decodeStream(final String filePath, final String outPath) {
+        Log.iLine("streaming " + filePath);
+        try (FileInputStream fileInputStream = new FileInputStream(filePath); // closed even if open fails
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                     CompressedInput.open(fileInputStream), StandardCharsets.ISO_8859_1));
+             Writer writer = new BufferedWriter(outPath == null
+                     ? new OutputStreamWriter(System.out, StandardCharsets.ISO_8859_1)
+                     : new OutputStreamWriter(new FileOutputStream(outPath), StandardCharsets.ISO_8859_1))) {
+            StreamViterbi.decode(new CasinoHMM(), reader, writer, StreamViterbi.DEFAULT_BATCH_SIZE);
+        } catch (FileNotFoundException e) {
+            Log.eLine("ERROR: file " + e.getMessage() + " not found");
+            System.exit(1);
+        } catch (IOException e) {
+            Log.eLine("ERROR: while streaming file " + filePath + ": " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            Log.eLine("ERROR: Viterbi Casino failed! " + e.getMessage());
+            System.exit(1);
+        }
     }
 }
@@ -1,7 +1,10 @@
 package main.hmm.casino;
 
+import main.alphabet.Alphabet;
 import main.hmm.HMMFunc;
 
+import java.util.List;
+
 /**
  * <p>
  * Hidden Markov Model.
@@ -10,6 +13,9 @@ import main.hmm.HMMFunc;
  * <p>
  * Enthaelt die Implementation des Viterbi-Algorithmus.
  * Dieser generiert aus einer uebergebenen Sequenz einen Zustands-Pfad.
+ * Zudem werden mittels skaliertem Forward-Backward-Algorithmus ({@link ScaledForwardBackward}) Log-Likelihood,
+ * A-posteriori-Wahrscheinlichkeiten der Zustaende und die Posterior-Dekodierung berechnet.
+ * Die Wahrscheinlichkeiten koennen mittels {@link HMMBaumWelch} geschaetzt werden.
  * </p>
  *
  * @author Soeren Metje
@@ -19,7 +25,7 @@ public class HMM {
     /**
      * beobachtbare Ereignisse
      */
-    protected final char[] observationSpace;
+    protected final Alphabet observationSpace;
 
     /**
      * Zustaende in denen sich das Modell befindet
@@ -46,6 +52,21 @@ public class HMM {
      */
     protected final double[][] emissionMatrix;
 
+    /**
+     * nicht logarithmierte Startwahrscheinlichkeiten (Forward-Backward)
+     */
+    final double[] initProbabilitiesLinear;
+
+    /**
+     * nicht logarithmierte Uebergangswahrscheinlichkeiten (Forward-Backward)
+     */
+    final double[][] transitionMatrixLinear;
+
+    /**
+     * nicht logarithmierte Beobachtungswahrscheinlichkeiten (Forward-Backward)
+     */
+    final double[][] emissionMatrixLinear;
+
     /**
      * Konstruktor.
      * Konvertiert die Matrizen fuer die Uebergangswahrscheinlichen und Beobachtungswahrscheinlichketen in den logarithmischen Raum
@@ -57,12 +78,29 @@ public class HMM {
      * @param emissionMatrix
      */
     public HMM(char[] observationSpace, char[] stateChar, double[] initProbabilities, double[][] transitionMatrix, double[][] emissionMatrix) {
+        this(Alphabet.of(observationSpace), stateChar, initProbabilities, transitionMatrix, emissionMatrix);
+    }
+
+    /**
+     * Konstruktor.
+     * Konvertiert die Matrizen fuer die Uebergangswahrscheinlichen und Beobachtungswahrscheinlichketen in den logarithmischen Raum
+     *
+     * @param observationSpace  Alphabet der beobachtbaren Ereignisse
+     * @param stateChar         Zustaende
+     * @param initProbabilities Uebergangswahrscheinlichen aus dem Startzustand
+     * @param transitionMatrix  Uebergangswahrscheinlichen zwischen den Zustaenden
+     * @param emissionMatrix    Beobachtungswahrscheinlichketen (Spalten in der Reihenfolge des Alphabets)
+     */
+    public HMM(Alphabet observationSpace, char[] stateChar, double[] initProbabilities, double[][] transitionMatrix, double[][] emissionMatrix) {
         this.observationSpace = observationSpace;
         this.stateChar = stateChar;
         this.stateCount = stateChar.length;
         this.initProbabilities = initProbabilities;
         this.transitionMatrix = transitionMatrix;
         this.emissionMatrix = emissionMatrix;
+        this.initProbabilitiesLinear = initProbabilities.clone();
+        this.transitionMatrixLinear = copy(transitionMatrix);
+        this.emissionMatrixLinear = copy(emissionMatrix);
 
         // calc log for each element in all matrices (can be done before Viterbi-Algo is running)
         HMMFunc.logspace(initProbabilities);
@@ -151,6 +189,145 @@ public class HMM {
         return x;
     }
 
+    /**
+     * Berechnet die Zustands-Pfade vieler Beobachtungsfolgen parallelisiert mit wiederverwendetem Arbeitsspeicher
+     * (siehe {@link BatchViterbi}).
+     *
+     * @param sequences Beobachtungsfolgen
+     * @return Zustands-Pfade in Reihenfolge der Folgen
+     * @throws IllegalArgumentException falls eine Folge == null ist oder Beobachtung nicht im Feld gefunden wird
+     */
+    public List<char[]> viterbiBatch(final List<char[]> sequences) throws IllegalArgumentException {
+        return BatchViterbi.viterbi(this, sequences);
+    }
+
+    /**
+     * Liefert die Log-Likelihood der Beobachtungsfolge (skalierter Forward-Algorithmus) zurueck
+     *
+     * @param observations Beobachtungsfolge
+     * @return Log-Likelihood (0 bei leerer Folge)
+     * @throws IllegalArgumentException falls uebergebenes Feld == null oder
+     *                                  Beobachtung nicht im Feld gefunden wird
+     */
+    public double logLikelihood(final char[] observations) throws IllegalArgumentException {
+        if (observations == null)
+            throw new IllegalArgumentException("observations is null");
+        if (observations.length == 0)
+            return 0d;
+        return new ScaledForwardBackward(this, observationsToIndices(observations)).logLikelihood;
+    }
+
+    /**
+     * Liefert die A-posteriori-Wahrscheinlichkeiten der Zustaende an jeder Position zurueck (skalierter Forward-Backward-Algorithmus)
+     *
+     * @param observations Beobachtungsfolge
+     * @return A-posteriori-Wahrscheinlichkeiten [Zustand][Position]
+     * @throws IllegalArgumentException falls uebergebenes Feld == null,
+     *                                  Beobachtung nicht im Feld gefunden wird oder die Folge unmoeglich ist
+     */
+    public double[][] posteriorProbabilities(final char[] observations) throws IllegalArgumentException {
+        if (observations == null)
+            throw new IllegalArgumentException("observations is null");
+
+        int length = observations.length;
+        double[][] posterior = new double[stateCount][length];
+        if (length == 0)
+            return posterior;
+
+        ScaledForwardBackward forwardBackward = new ScaledForwardBackward(this, observationsToIndices(observations));
+        if (forwardBackward.logLikelihood == Double.NEGATIVE_INFINITY)
+            throw new IllegalArgumentException("observations can not be generated by model");
+        for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+            for (int i = 0; i < length; i++) {
+                posterior[stateIndex][i] = forwardBackward.posterior(stateIndex, i);
+            }
+        }
+        return posterior;
+    }
+
+    /**
+     * Posterior-Dekodierung. Liefert an jeder Position den Zustand mit der groessten A-posteriori-Wahrscheinlichkeit zurueck
+     * (bei Gleichheit den ersten). Der Pfad muss nicht zwingend moeglich sein.
+     *
+     * @param observations Beobachtungsfolge
+     * @return Zustands-Pfad
+     * @throws IllegalArgumentException falls uebergebenes Feld == null,
+     *                                  Beobachtung nicht im Feld gefunden wird oder die Folge unmoeglich ist
+     */
+    public char[] posteriorDecoding(final char[] observations) throws IllegalArgumentException {
+        double[][] posterior = posteriorProbabilities(observations);
+
+        char[] x = new char[observations.length];
+        for (int i = 0; i < x.length; i++) {
+            int best = 0;
+            for (int stateIndex = 1; stateIndex < stateCount; stateIndex++) {
+                if (posterior[stateIndex][i] > posterior[best][i])
+                    best = stateIndex;
+            }
+            x[i] = stateChar[best];
+        }
+        return x;
+    }
+
+    /**
+     * Liefert Alphabet der beobachtbaren Ereignisse zurueck
+     *
+     * @return Alphabet
+     */
+    public Alphabet getObservationSpace() {
+        return observationSpace;
+    }
+
+    /**
+     * Liefert Zustaende zurueck
+     *
+     * @return Zustaende
+     */
+    public char[] getStateChar() {
+        return stateChar.clone();
+    }
+
+    /**
+     * Liefert nicht logarithmierte Startwahrscheinlichkeiten zurueck
+     *
+     * @return Startwahrscheinlichkeiten
+     */
+    public double[] getInitProbabilities() {
+        return initProbabilitiesLinear.clone();
+    }
+
+    /**
+     * Liefert nicht logarithmierte Uebergangswahrscheinlichkeiten zurueck
+     *
+     * @return Uebergangswahrscheinlichkeiten
+     */
+    public double[][] getTransitionMatrix() {
+        return copy(transitionMatrixLinear);
+    }
+
+    /**
+     * Liefert nicht logarithmierte Beobachtungswahrscheinlichkeiten zurueck
+     *
+     * @return Beobachtungswahrscheinlichkeiten
+     */
+    public double[][] getEmissionMatrix() {
+        return copy(emissionMatrixLinear);
+    }
+
+    /**
+     * Liefert tiefe Kopie der uebergebenen Matrix zurueck
+     *
+     * @param matrix Matrix
+     * @return Kopie
+     */
+    private static double[][] copy(final double[][] matrix) {
+        double[][] ret = new double[matrix.length][];
+        for (int i = 0; i < matrix.length; i++) {
+            ret[i] = matrix[i].clone();
+        }
+        return ret;
+    }
+
     /**
      * mappt Beaobachtung-Folge auf entsprechende Index-Folge
      *
@@ -158,7 +335,7 @@ public class HMM {
      * @return entsprechende Index-Folge
      */
     private int[] observationsToIndices(final char[] observations) {
-        return HMMFunc.charsToIndices(observationSpace, observations);
+        return observationSpace.toIndices(observations);
     }
 
     /**
@@ -168,6 +345,6 @@ public class HMM {
      * @return entsprechender Index
      */
     private int obesrvationToIndex(final char observation) {
-        return HMMFunc.charToIndex(observationSpace, observation);
+        return observationSpace.indexOf(observation);
     }
 }
@@ -0,0 +1,196 @@
+package main.hmm.casino;
+
+import main.logger.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Enthaelt die Implementation des Baum-Welch-Algorithmus (Expectation-Maximization) fuer {@link HMM}.
+ * <p>
+ * Ausgehend von einem Modell werden Start-, Uebergangs- und Beobachtungswahrscheinlichkeiten anhand von
+ * Beobachtungsfolgen iterativ neu geschaetzt. Der E-Schritt wird mittels {@link ScaledForwardBackward} parallelisiert
+ * ausgefuehrt. Jeder Thread summiert die erwarteten Haeufigkeiten in einem eigenen Akkumulator auf,
+ * die anschliessend zusammengefuehrt werden.
+ * Eine sehr lange Folge kann mittels {@link #split(char[], int)} in Abschnitte aufgeteilt werden,
+ * die dann als unabhaengige Folgen behandelt werden.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class HMMBaumWelch {
+
+    /**
+     * Standardwert fuer die maximale Anzahl an Iterationen
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    /**
+     * Standardwert fuer die relative Verbesserung der Log-Likelihood, ab der abgebrochen wird
+     */
+    public static final double DEFAULT_EPSILON = 1e-6;
+
+    /**
+     * Trainiert uebergebenes Modell mittels Baum-Welch-Algorithmus und Standardwerten fuer Abbruchkriterien.
+     *
+     * @param model     Ausgangsmodell
+     * @param sequences Beobachtungsfolgen
+     * @return trainiertes Modell
+     * @throws IllegalArgumentException falls eine Beobachtung nicht im Alphabet gefunden wird
+     */
+    public static HMM train(final HMM model, final List<char[]> sequences) throws IllegalArgumentException {
+        return train(model, sequences, DEFAULT_MAX_ITERATIONS, DEFAULT_EPSILON);
+    }
+
+    /**
+     * Trainiert uebergebenes Modell mittels Baum-Welch-Algorithmus.
+     * Bricht ab, falls die maximale Anzahl an Iterationen erreicht ist
+     * oder sich die Log-Likelihood relativ um weniger als epsilon verbessert.
+     * Das uebergebene Modell bleibt unveraendert.
+     *
+     * @param model         Ausgangsmodell
+     * @param sequences     Beobachtungsfolgen
+     * @param maxIterations maximale Anzahl an Iterationen
+     * @param epsilon       relative Verbesserung der Log-Likelihood, ab der abgebrochen wird
+     * @return trainiertes Modell
+     * @throws IllegalArgumentException falls Modell oder Folgen == null, Folgen leer,
+     *                                  maxIterations &lt; 1 oder eine Beobachtung nicht im Alphabet gefunden wird
+     */
+    public static HMM train(HMM model, final List<char[]> sequences, final int maxIterations, final double epsilon) throws IllegalArgumentException {
+        if (model == null)
+            throw new IllegalArgumentException("model is null");
+        if (sequences == null)
+            throw new IllegalArgumentException("sequences is null");
+        if (sequences.isEmpty())
+            throw new IllegalArgumentException("sequences is empty");
+        if (maxIterations < 1)
+            throw new IllegalArgumentException("maxIterations has to be at least 1");
+
+        Log.iLine("Baum-Welch training HMM -----------------------------");
+        Log.iLine("Sequence count = " + sequences.size());
+
+        double lastLogLikelihood = Double.NEGATIVE_INFINITY;
+        for (int iteration = 1; iteration <= maxIterations; iteration++) {
+            long millis = System.currentTimeMillis(); // measure calc time
+            HMMExpectedCounts counts = expectationParallelized(model, sequences);
+            model = maximization(model, counts);
+            millis = System.currentTimeMillis() - millis;
+
+            double logLikelihood = counts.logLikelihood;
+            Log.iLine(String.format("(%.2fsec) Iteration %d: log-likelihood = %.4f", (float) millis / 1000, iteration, logLikelihood));
+
+            double improvement = logLikelihood - lastLogLikelihood;
+            lastLogLikelihood = logLikelihood;
+            if (improvement < epsilon * Math.abs(logLikelihood)) {
+                Log.iLine("converged after " + iteration + " iterations");
+                break;
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Teilt eine Beobachtungsfolge in Abschnitte der uebergebenen Laenge auf (der letzte Abschnitt kann kuerzer sein)
+     *
+     * @param observations Beobachtungsfolge
+     * @param chunkLength  Laenge der Abschnitte
+     * @return Abschnitte
+     * @throws IllegalArgumentException falls chunkLength &lt; 1
+     */
+    public static List<char[]> split(final char[] observations, final int chunkLength) throws IllegalArgumentException {
+        if (chunkLength < 1)
+            throw new IllegalArgumentException("chunkLength has to be at least 1");
+
+        List<char[]> chunks = new ArrayList<>(observations.length / chunkLength + 1);
+        for (int from = 0; from < observations.length; from += chunkLength) {
+            chunks.add(Arrays.copyOfRange(observations, from, Math.min(from + chunkLength, observations.length)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Fuehrt den E-Schritt parallelisiert aus und liefert die zusammengefuehrten erwarteten Haeufigkeiten zurueck.
+     * <p>
+     * Es werden so viele Threads erstellt, wie logische Kerne der JVM zur verfuegung stehen.
+     *
+     * @param model     Modell
+     * @param sequences Beobachtungsfolgen
+     * @return zusammengefuehrte erwartete Haeufigkeiten
+     * @throws IllegalArgumentException falls eine Beobachtung nicht im Alphabet gefunden wird
+     */
+    private static HMMExpectedCounts expectationParallelized(final HMM model, final List<char[]> sequences) throws IllegalArgumentException {
+        Queue<char[]> sequenceQueue = new LinkedList<>(sequences); // synchronisation in ThreadHMMBaumWelch
+        int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), sequenceQueue.size());
+
+        List<ThreadHMMBaumWelch> threads = new LinkedList<>();
+        for (int i = 0; i < threadCount; i++) {
+            ThreadHMMBaumWelch thread = new ThreadHMMBaumWelch(model, sequenceQueue);
+            threads.add(thread);
+            thread.start();
+        }
+
+        // Waiting for threads to finish and reduce counts
+        HMMExpectedCounts counts = new HMMExpectedCounts(model);
+        IllegalArgumentException failure = null;
+        for (ThreadHMMBaumWelch thread : threads) {
+            try {
+                thread.join();
+                Log.dLine(thread.getName() + " finished");
+            } catch (InterruptedException e) {
+                Log.eLine("ERROR: " + thread.getName() + " got interrupted");
+            }
+            if (thread.getFailure() != null) {
+                failure = thread.getFailure();
+            }
+            counts.add(thread.getCounts());
+        }
+        if (failure != null)
+            throw failure;
+
+        return counts;
+    }
+
+    /**
+     * M-Schritt: Erstellt ein neues Modell mit den aus den erwarteten Haeufigkeiten geschaetzten Wahrscheinlichkeiten.
+     * Zeilen ohne erwartete Haeufigkeiten werden aus dem bisherigen Modell uebernommen.
+     *
+     * @param model  bisheriges Modell
+     * @param counts erwartete Haeufigkeiten
+     * @return neues Modell
+     */
+    private static HMM maximization(final HMM model, final HMMExpectedCounts counts) {
+        double[] initProbabilities = normalize(counts.init, model.initProbabilitiesLinear);
+        double[][] transitionMatrix = new double[model.stateCount][];
+        double[][] emissionMatrix = new double[model.stateCount][];
+        for (int j = 0; j < model.stateCount; j++) {
+            transitionMatrix[j] = normalize(counts.transition[j], model.transitionMatrixLinear[j]);
+            emissionMatrix[j] = normalize(counts.emission[j], model.emissionMatrixLinear[j]);
+        }
+        return new HMM(model.observationSpace, model.stateChar, initProbabilities, transitionMatrix, emissionMatrix);
+    }
+
+    /**
+     * Normiert uebergebene Haeufigkeiten auf die Summe 1
+     *
+     * @param counts   Haeufigkeiten
+     * @param fallback Wahrscheinlichkeiten, falls die Summe der Haeufigkeiten 0 ist
+     * @return neues Feld mit Wahrscheinlichkeiten
+     */
+    private static double[] normalize(final double[] counts, final double[] fallback) {
+        double sum = 0d;
+        for (double count : counts) {
+            sum += count;
+        }
+        if (sum <= 0d)
+            return fallback.clone();
+
+        double[] ret = new double[counts.length];
+        for (int k = 0; k < counts.length; k++) {
+            ret[k] = counts[k] / sum;
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,233 @@
+package main.hmm.casino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test-Klasse fuer {@link HMMBaumWelch} und {@link ScaledForwardBackward}.
+ *
+ * @author Soeren Metje
+ */
+public class HMMBaumWelchTest {
+
+    /**
+     * Beobachtungen
+     */
+    private static final char[] OBSERVATION_SPACE = {'1', '2', '3'};
+
+    /**
+     * zulaessiger relativer Rundungsfehler
+     */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Test von {@link HMM#logLikelihood(char[])}.
+     * Der skalierte Forward-Algorithmus muss bei kurzen Folgen dieselbe Log-Likelihood liefern wie der unskalierte.
+     */
+    @Test
+    public void testScaledEqualsUnscaledForward() {
+        Random random = new Random(0);
+        for (int stateCount = 1; stateCount <= 4; stateCount++) {
+            double[] init = distribution(random, stateCount);
+            double[][] transition = new double[stateCount][];
+            double[][] emission = new double[stateCount][];
+            for (int i = 0; i < stateCount; i++) {
+                transition[i] = distribution(random, stateCount);
+                emission[i] = distribution(random, OBSERVATION_SPACE.length);
+            }
+            HMM model = createModel(init, transition, emission);
+
+            for (int length = 1; length <= 30; length++) {
+                char[] observations = randomObservations(random, length);
+                double expected = Math.log(unscaledForward(init, transition, emission, observations));
+                Assert.assertEquals(expected, model.logLikelihood(observations), EPSILON * Math.abs(expected));
+            }
+        }
+    }
+
+    /**
+     * Test von {@link HMM#posteriorProbabilities(char[])}.
+     * Die A-posteriori-Wahrscheinlichkeiten muessen sich an jeder Position zu 1 summieren.
+     */
+    @Test
+    public void testPosteriorSumsToOne() {
+        Random random = new Random(1);
+        HMM[] models = {new CasinoHMM(), createModel(random, 3)};
+        for (HMM model : models) {
+            char[] observationSpace = model.getObservationSpace().getSymbols();
+            char[] observations = new char[5000];
+            for (int k = 0; k < observations.length; k++) {
+                observations[k] = observationSpace[random.nextInt(observationSpace.length)];
+            }
+
+            double[][] posterior = model.posteriorProbabilities(observations);
+            for (int i = 0; i < observations.length; i++) {
+                double sum = 0d;
+                for (double[] statePosterior : posterior) {
+                    Assert.assertTrue(statePosterior[i] >= 0d);
+                    sum += statePosterior[i];
+                }
+                Assert.assertEquals("position " + i, 1d, sum, EPSILON);
+            }
+            Assert.assertEquals(observations.length, model.posteriorDecoding(observations).length);
+        }
+    }
+
+    /**
+     * Test von {@link HMMBaumWelch#train(HMM, List, int, double)}.
+     * Die Log-Likelihood der Folgen darf in keiner Iteration sinken.
+     */
+    @Test
+    public void testLogLikelihoodNonDecreasing() {
+        Random random = new Random(2);
+        List<char[]> sequences = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            sequences.add(randomObservations(random, 200));
+        }
+        HMM start = createModel(random, 2);
+
+        double lastLogLikelihood = logLikelihood(start, sequences);
+        for (int iterations = 1; iterations <= 15; iterations++) {
+            HMM trained = HMMBaumWelch.train(start, sequences, iterations, -1d);
+            double logLikelihood = logLikelihood(trained, sequences);
+            Assert.assertTrue("iteration " + iterations + ": " + logLikelihood + " < " + lastLogLikelihood,
+                    logLikelihood >= lastLogLikelihood - EPSILON * Math.abs(logLikelihood));
+            lastLogLikelihood = logLikelihood;
+        }
+        Assert.assertTrue(lastLogLikelihood > logLikelihood(start, sequences));
+    }
+
+    /**
+     * Liefert die Summe der Log-Likelihoods der uebergebenen Folgen zurueck
+     *
+     * @param model     Modell
+     * @param sequences Beobachtungsfolgen
+     * @return Summe der Log-Likelihoods
+     */
+    private static double logLikelihood(HMM model, List<char[]> sequences) {
+        double sum = 0d;
+        for (char[] observations : sequences) {
+            sum += model.logLikelihood(observations);
+        }
+        return sum;
+    }
+
+    /**
+     * Unskalierter Forward-Algorithmus mit nicht logarithmierten Wahrscheinlichkeiten
+     *
+     * @param init         Startwahrscheinlichkeiten
+     * @param transition   Uebergangswahrscheinlichkeiten
+     * @param emission     Beobachtungswahrscheinlichkeiten
+     * @param observations Beobachtungsfolge
+     * @return Wahrscheinlichkeit der Folge
+     */
+    private static double unscaledForward(double[] init, double[][] transition, double[][] emission, char[] observations) {
+        int stateCount = init.length;
+        double[] forward = new double[stateCount];
+        for (int j = 0; j < stateCount; j++) {
+            forward[j] = init[j] * emission[j][indexOf(observations[0])];
+        }
+        for (int i = 1; i < observations.length; i++) {
+            double[] next = new double[stateCount];
+            for (int j = 0; j < stateCount; j++) {
+                for (int s = 0; s < stateCount; s++) {
+                    next[j] += forward[s] * transition[s][j];
+                }
+                next[j] *= emission[j][indexOf(observations[i])];
+            }
+            forward = next;
+        }
+        double sum = 0d;
+        for (double value : forward) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * Liefert Index der Beobachtung zurueck
+     *
+     * @param observation Beobachtung
+     * @return Index
+     */
+    private static int indexOf(char observation) {
+        return String.valueOf(OBSERVATION_SPACE).indexOf(observation);
+    }
+
+    /**
+     * Erstellt ein Modell aus Kopien der uebergebenen Wahrscheinlichkeiten ({@link HMM} logarithmiert die Felder)
+     *
+     * @param init       Startwahrscheinlichkeiten
+     * @param transition Uebergangswahrscheinlichkeiten
+     * @param emission   Beobachtungswahrscheinlichkeiten
+     * @return Modell
+     */
+    private static HMM createModel(double[] init, double[][] transition, double[][] emission) {
+        int stateCount = init.length;
+        char[] stateChar = new char[stateCount];
+        double[][] transitionCopy = new double[stateCount][];
+        double[][] emissionCopy = new double[stateCount][];
+        for (int i = 0; i < stateCount; i++) {
+            stateChar[i] = (char) ('A' + i);
+            transitionCopy[i] = transition[i].clone();
+            emissionCopy[i] = emission[i].clone();
+        }
+        return new HMM(OBSERVATION_SPACE, stateChar, init.clone(), transitionCopy, emissionCopy);
+    }
+
+    /**
+     * Erstellt ein Modell mit zufaelligen Wahrscheinlichkeiten
+     *
+     * @param random     Zufallszahlen-Generator
+     * @param stateCount Anzahl Zustaende
+     * @return Modell
+     */
+    private static HMM createModel(Random random, int stateCount) {
+        double[][] transition = new double[stateCount][];
+        double[][] emission = new double[stateCount][];
+        for (int i = 0; i < stateCount; i++) {
+            transition[i] = distribution(random, stateCount);
+            emission[i] = distribution(random, OBSERVATION_SPACE.length);
+        }
+        return createModel(distribution(random, stateCount), transition, emission);
+    }
+
+    /**
+     * Liefert zufaellige Beobachtungsfolge zurueck
+     *
+     * @param random Zufallszahlen-Generator
+     * @param length Laenge
+     * @return Beobachtungsfolge
+     */
+    private static char[] randomObservations(Random random, int length) {
+        char[] observations = new char[length];
+        for (int k = 0; k < length; k++) {
+            observations[k] = OBSERVATION_SPACE[random.nextInt(OBSERVATION_SPACE.length)];
+        }
+        return observations;
+    }
+
+    /**
+     * Liefert eine zufaellige Wahrscheinlichkeitsverteilung zurueck
+     *
+     * @param random Zufallszahlen-Generator
+     * @param size   Anzahl Werte
+     * @return Wahrscheinlichkeiten
+     */
+    private static double[] distribution(Random random, int size) {
+        double[] ret = new double[size];
+        double sum = 0d;
+        for (int i = 0; i < size; i++) {
+            ret[i] = 0.1 + random.nextDouble();
+            sum += ret[i];
+        }
+        for (int i = 0; i < size; i++) {
+            ret[i] /= sum;
+        }
+        return ret;
+    }
+}
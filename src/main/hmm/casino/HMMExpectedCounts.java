@@ -0,0 +1,65 @@
+package main.hmm.casino;
+
+/**
+ * Akkumulator fuer die erwarteten Haeufigkeiten des E-Schritts im Baum-Welch-Algorithmus fuer {@link HMM}.
+ * Jeder Thread besitzt einen eigenen Akkumulator, die abschliessend mittels {@link #add(HMMExpectedCounts)} zusammengefuehrt werden.
+ *
+ * @author Soeren Metje
+ */
+class HMMExpectedCounts {
+
+    /**
+     * erwartete Haeufigkeiten der Zustaende an erster Position
+     */
+    final double[] init;
+
+    /**
+     * erwartete Haeufigkeiten der Uebergaenge zwischen den Zustaenden
+     */
+    final double[][] transition;
+
+    /**
+     * erwartete Haeufigkeiten der Ereignisse in den jeweiligen Zustaenden
+     */
+    final double[][] emission;
+
+    /**
+     * Summe der Log-Likelihoods aller bearbeiteten Folgen
+     */
+    double logLikelihood;
+
+    /**
+     * Anzahl der bearbeiteten Folgen
+     */
+    int sequenceCount;
+
+    /**
+     * Konstruktor. Erstellt leeren Akkumulator passend zu uebergebenem Modell.
+     *
+     * @param model Hidden Markov Model
+     */
+    HMMExpectedCounts(HMM model) {
+        init = new double[model.stateCount];
+        transition = new double[model.stateCount][model.stateCount];
+        emission = new double[model.stateCount][model.observationSpace.size()];
+    }
+
+    /**
+     * Addiert die Haeufigkeiten des uebergebenen Akkumulators (Reduktion).
+     *
+     * @param other zu addierender Akkumulator
+     */
+    void add(HMMExpectedCounts other) {
+        for (int j = 0; j < init.length; j++) {
+            init[j] += other.init[j];
+            for (int s = 0; s < transition[j].length; s++) {
+                transition[j][s] += other.transition[j][s];
+            }
+            for (int k = 0; k < emission[j].length; k++) {
+                emission[j][k] += other.emission[j][k];
+            }
+        }
+        logLikelihood += other.logLikelihood;
+        sequenceCount += other.sequenceCount;
+    }
+}
@@ -0,0 +1,266 @@
+package main.hmm.casino;
+
+/**
+ * <p>
+ * Online-Variante des Viterbi-Algorithmus fuer ein {@link HMM}.
+ * Beobachtungen werden einzeln uebergeben ({@link #push(char)}), Zustaende werden ausgegeben, sobald sie feststehen.
+ * </p>
+ * <p>
+ * Ein Zustand steht fest, sobald die Zustands-Pfade aller aktuell moeglichen Endzustaende an seiner Position zusammenlaufen.
+ * Er stimmt dann mit dem Zustands-Pfad von {@link HMM#viterbi(char[])} ueber die gesamte Folge ueberein.
+ * Ausnahme sind Folgen, deren Viterbi-Werte betragsmaessig 1e9 uebersteigen (mehrere hundert Millionen Beobachtungen):
+ * Ab dann werden die Werte renormiert und koennen bei nahezu gleich wahrscheinlichen Pfaden anders gerundet entscheiden.
+ * Liegt ein Zustand mehr als die maximale Verzoegerung (lag) zurueck, ohne dass die Pfade zusammengelaufen sind,
+ * wird er anhand des aktuell wahrscheinlichsten Pfads festgelegt. Nur in diesem Fall kann die Ausgabe vom Viterbi-Pfad abweichen.
+ * </p>
+ * <p>
+ * Es werden nur die Rueckverweise der noch nicht ausgegebenen Positionen gehalten (Ringpuffer der Groesse lag + 1),
+ * der Speicherbedarf ist damit unabhaengig von der Laenge der Folge.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class OnlineViterbi {
+
+    /**
+     * Ab diesem Betrag des groessten Viterbi-Werts werden die Werte renormiert, um Genauigkeit bei sehr langen Folgen zu erhalten.
+     * Erst so spaet, dass bis dahin exakt wie in {@link HMM#viterbi(char[])} gerechnet wird (renormierte Werte werden anders gerundet).
+     */
+    private static final double RENORMALIZE_THRESHOLD = 1e9;
+
+    /**
+     * leere Ausgabe
+     */
+    private static final char[] EMPTY = new char[0];
+
+    /**
+     * Modell
+     */
+    private final HMM model;
+
+    /**
+     * maximale Verzoegerung in Beobachtungen
+     */
+    private final int lag;
+
+    /**
+     * Viterbi-Werte der aktuellen Position je Zustand
+     */
+    private double[] viterbiVar;
+
+    /**
+     * Viterbi-Werte der naechsten Position je Zustand
+     */
+    private double[] viterbiVarNext;
+
+    /**
+     * Ringpuffer der Rueckverweise [Position % (lag + 1)][Zustand]
+     */
+    private final int[][] viterbiArg;
+
+    /**
+     * Zustaende beim Zurueckverfolgen je Endzustand
+     */
+    private final int[] trace;
+
+    /**
+     * Anzahl bisher uebergebener Beobachtungen
+     */
+    private long position = 0;
+
+    /**
+     * Anzahl bisher ausgegebener Zustaende
+     */
+    private long emitted = 0;
+
+    /**
+     * Konstruktor
+     *
+     * @param model Modell
+     * @param lag   maximale Verzoegerung in Beobachtungen, nach der ein Zustand spaetestens ausgegeben wird
+     * @throws IllegalArgumentException falls model == null oder lag &lt; 0
+     */
+    public OnlineViterbi(final HMM model, final int lag) throws IllegalArgumentException {
+        if (model == null)
+            throw new IllegalArgumentException("model is null");
+        if (lag < 0)
+            throw new IllegalArgumentException("lag has to be at least 0");
+
+        this.model = model;
+        this.lag = lag;
+        this.viterbiVar = new double[model.stateCount];
+        this.viterbiVarNext = new double[model.stateCount];
+        this.viterbiArg = new int[lag + 1][model.stateCount];
+        this.trace = new int[model.stateCount];
+    }
+
+    /**
+     * Uebergibt die naechste Beobachtung und liefert die dadurch feststehenden Zustaende zurueck
+     *
+     * @param observation Beobachtung
+     * @return feststehende Zustaende in Reihenfolge der Positionen (evtl. leer)
+     * @throws IllegalArgumentException falls Beobachtung nicht im Alphabet gefunden wird
+     */
+    public char[] push(final char observation) throws IllegalArgumentException {
+        int observationIndex = model.observationSpace.indexOf(observation);
+        int stateCount = model.stateCount;
+        int[] arg = viterbiArg[(int) (position % viterbiArg.length)];
+
+        if (position == 0) {
+            for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+                viterbiVar[stateIndex] = model.initProbabilities[stateIndex] + model.emissionMatrix[stateIndex][observationIndex]; // log-space
+                arg[stateIndex] = -1;
+            }
+        } else {
+            double best = Double.NEGATIVE_INFINITY;
+            for (int j = 0; j < stateCount; j++) {
+                //find max
+                double maxProb = Double.NEGATIVE_INFINITY;
+                int maxArg = -1; // maximizing argument
+
+                for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+                    double prob = viterbiVar[stateIndex] + model.transitionMatrix[stateIndex][j] + model.emissionMatrix[j][observationIndex]; // log-space
+                    if (prob > maxProb) {
+                        maxProb = prob;
+                        maxArg = stateIndex;
+                    }
+                }
+
+                viterbiVarNext[j] = maxProb;
+                arg[j] = maxArg;
+                best = Math.max(best, maxProb);
+            }
+
+            // only differences between states matter -> keep values near 0 on long streams
+            if (best < -RENORMALIZE_THRESHOLD) {
+                for (int j = 0; j < stateCount; j++) {
+                    viterbiVarNext[j] -= best;
+                }
+            }
+
+            double[] swap = viterbiVar;
+            viterbiVar = viterbiVarNext;
+            viterbiVarNext = swap;
+        }
+        position++;
+
+        // find last position at which the paths of all end states agree
+        long agreed = -1;
+        for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+            trace[stateIndex] = stateIndex;
+        }
+        for (long p = position - 1; p >= emitted; p--) {
+            if (allEqual(trace)) {
+                agreed = p;
+                break;
+            }
+            if (p == emitted)
+                break;
+            int[] argP = viterbiArg[(int) (p % viterbiArg.length)];
+            for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+                trace[stateIndex] = argP[trace[stateIndex]];
+            }
+        }
+
+        if (agreed >= 0)
+            return emitUntil(agreed, trace[0]);
+        if (position - emitted > lag)
+            return emitUntil(emitted, stateAt(emitted, bestState()));
+        return EMPTY;
+    }
+
+    /**
+     * Beendet die Folge und liefert alle noch nicht ausgegebenen Zustaende anhand des wahrscheinlichsten Pfads zurueck.
+     * Anschliessend kann eine neue Folge uebergeben werden.
+     *
+     * @return restliche Zustaende in Reihenfolge der Positionen (evtl. leer)
+     */
+    public char[] flush() {
+        char[] rest = position > emitted ? emitUntil(position - 1, bestState()) : EMPTY;
+        position = 0;
+        emitted = 0;
+        return rest;
+    }
+
+    /**
+     * Liefert Anzahl uebergebener, aber noch nicht ausgegebener Beobachtungen zurueck
+     *
+     * @return Anzahl offener Positionen
+     */
+    public int getPending() {
+        return (int) (position - emitted);
+    }
+
+    /**
+     * Liefert maximale Verzoegerung zurueck
+     *
+     * @return maximale Verzoegerung in Beobachtungen
+     */
+    public int getLag() {
+        return lag;
+    }
+
+    /**
+     * Gibt alle Zustaende von der ersten offenen Position bis einschliesslich der uebergebenen Position aus
+     *
+     * @param last       letzte auszugebende Position
+     * @param stateIndex Zustand an der letzten Position
+     * @return Zustaende in Reihenfolge der Positionen
+     */
+    private char[] emitUntil(final long last, int stateIndex) {
+        char[] states = new char[(int) (last - emitted + 1)];
+        for (long p = last; ; p--) {
+            states[(int) (p - emitted)] = model.stateChar[stateIndex];
+            if (p == emitted)
+                break;
+            stateIndex = viterbiArg[(int) (p % viterbiArg.length)][stateIndex];
+        }
+        emitted = last + 1;
+        return states;
+    }
+
+    /**
+     * Verfolgt den Pfad vom uebergebenen Zustand an der aktuellen Position bis zur uebergebenen Position zurueck
+     *
+     * @param target     Position
+     * @param stateIndex Zustand an der aktuellen Position
+     * @return Zustand an der Position
+     */
+    private int stateAt(final long target, int stateIndex) {
+        for (long p = position - 1; p > target; p--) {
+            stateIndex = viterbiArg[(int) (p % viterbiArg.length)][stateIndex];
+        }
+        return stateIndex;
+    }
+
+    /**
+     * Liefert den Zustand mit dem groessten Viterbi-Wert an der aktuellen Position zurueck (bei Gleichheit den ersten)
+     *
+     * @return Zustand
+     */
+    private int bestState() {
+        int best = -1;
+        double bestProb = Double.NEGATIVE_INFINITY;
+        for (int stateIndex = 0; stateIndex < model.stateCount; stateIndex++) {
+            if (viterbiVar[stateIndex] > bestProb) {
+                best = stateIndex;
+                bestProb = viterbiVar[stateIndex];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Liefert true zurueck, falls alle Elemente gleich sind. Ansonsten false
+     *
+     * @param values Feld
+     * @return true, falls alle Elemente gleich sind. Ansonsten false
+     */
+    private static boolean allEqual(final int[] values) {
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] != values[0])
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,144 @@
+package main.hmm.casino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Test-Klasse fuer {@link OnlineViterbi}.
+ *
+ * @author Soeren Metje
+ */
+public class OnlineViterbiTest {
+
+    /**
+     * Beobachtungen
+     */
+    private static final char[] OBSERVATION_SPACE = {'1', '2', '3', '4', '5', '6'};
+
+    /**
+     * Test von {@link OnlineViterbi#push(char)} und {@link OnlineViterbi#flush()} mit lag &gt;= Laenge der Folge.
+     * Die ausgegebenen Zustaende muessen identisch zu {@link HMM#viterbi(char[])} sein,
+     * auch bei Wiederverwendung nach {@link OnlineViterbi#flush()}.
+     */
+    @Test
+    public void testSameAsViterbi() {
+        Random random = new Random(0);
+        HMM[] models = {new CasinoHMM(), createModel(random, 2), createModel(random, 3), createModel(random, 4)};
+        for (HMM model : models) {
+            int maxLength = 2000;
+            OnlineViterbi online = new OnlineViterbi(model, maxLength);
+            for (int i = 0; i < 10; i++) {
+                char[] observations = randomObservations(random, 1 + random.nextInt(maxLength));
+                Assert.assertEquals(String.valueOf(model.viterbi(observations)), run(online, observations));
+            }
+        }
+    }
+
+    /**
+     * Test von {@link OnlineViterbi#push(char)} mit kleinem lag.
+     * Nach jeder Beobachtung sind hoechstens lag Beobachtungen offen und jede Position wird genau einmal ausgegeben.
+     */
+    @Test
+    public void testPendingAtMostLag() {
+        Random random = new Random(1);
+        HMM model = new CasinoHMM();
+        for (int lag : new int[]{0, 1, 2, 5, 20}) {
+            OnlineViterbi online = new OnlineViterbi(model, lag);
+            Assert.assertEquals(lag, online.getLag());
+            char[] observations = randomObservations(random, 1000);
+
+            int emitted = 0;
+            for (int k = 0; k < observations.length; k++) {
+                emitted += online.push(observations[k]).length;
+                Assert.assertTrue("lag " + lag + ": " + online.getPending() + " pending", online.getPending() <= lag);
+                Assert.assertEquals(k + 1, emitted + online.getPending());
+            }
+            emitted += online.flush().length;
+            Assert.assertEquals(observations.length, emitted);
+            Assert.assertEquals(0, online.getPending());
+        }
+    }
+
+    /**
+     * Test von {@link OnlineViterbi#OnlineViterbi(HMM, int)} mit negativem lag
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeLag() {
+        new OnlineViterbi(new CasinoHMM(), -1);
+    }
+
+    /**
+     * Uebergibt alle Beobachtungen einzeln, beendet die Folge und liefert alle ausgegebenen Zustaende zurueck
+     *
+     * @param online       Online-Viterbi
+     * @param observations Beobachtungsfolge
+     * @return Zustands-Pfad
+     */
+    private static String run(OnlineViterbi online, char[] observations) {
+        StringBuilder statePath = new StringBuilder(observations.length);
+        for (char observation : observations) {
+            statePath.append(online.push(observation));
+        }
+        statePath.append(online.flush());
+        return statePath.toString();
+    }
+
+    /**
+     * Liefert zufaellige Beobachtungsfolge zurueck
+     *
+     * @param random Zufallszahlen-Generator
+     * @param length Laenge
+     * @return Beobachtungsfolge
+     */
+    private static char[] randomObservations(Random random, int length) {
+        char[] observations = new char[length];
+        for (int k = 0; k < length; k++) {
+            observations[k] = OBSERVATION_SPACE[random.nextInt(OBSERVATION_SPACE.length)];
+        }
+        return observations;
+    }
+
+    /**
+     * Erstellt ein Modell mit zufaelligen Wahrscheinlichkeiten
+     *
+     * @param random     Zufallszahlen-Generator
+     * @param stateCount Anzahl Zustaende
+     * @return Modell
+     */
+    private static HMM createModel(Random random, int stateCount) {
+        char[] stateChar = new char[stateCount];
+        for (int i = 0; i < stateCount; i++) {
+            stateChar[i] = (char) ('A' + i);
+        }
+        double[] initProbabilities = distribution(random, stateCount);
+        double[][] transitionMatrix = new double[stateCount][];
+        double[][] emissionMatrix = new double[stateCount][];
+        for (int i = 0; i < stateCount; i++) {
+            transitionMatrix[i] = distribution(random, stateCount);
+            emissionMatrix[i] = distribution(random, OBSERVATION_SPACE.length);
+        }
+        return new HMM(OBSERVATION_SPACE, stateChar, initProbabilities, transitionMatrix, emissionMatrix);
+    }
+
+    /**
+     * Liefert eine zufaellige Wahrscheinlichkeitsverteilung zurueck
+     *
+     * @param random Zufallszahlen-Generator
+     * @param size   Anzahl Werte
+     * @return Wahrscheinlichkeiten
+     */
+    private static double[] distribution(Random random, int size) {
+        double[] ret = new double[size];
+        double sum = 0d;
+        for (int i = 0; i < size; i++) {
+            ret[i] = 0.1 + random.nextDouble();
+            sum += ret[i];
+        }
+        for (int i = 0; i < size; i++) {
+            ret[i] /= sum;
+        }
+        return ret;
+    }
+}
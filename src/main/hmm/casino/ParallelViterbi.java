@@ -0,0 +1,291 @@
+package main.hmm.casino;
+
+import main.logger.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Parallelisierter Viterbi-Algorithmus fuer sehr lange Beobachtungsfolgen eines {@link HMM}.
+ * </p>
+ * <p>
+ * Die Folge wird in zusammenhaengende Abschnitte ({@link ViterbiChunk}) aufgeteilt.
+ * <ol>
+ * <li>Parallel: Der erste Abschnitt wird direkt berechnet, fuer alle weiteren wird die Max-Plus-Uebergangsmatrix
+ * (Zustaende x Zustaende) bestimmt.</li>
+ * <li>Die Uebergangsmatrizen werden der Reihe nach mit den Viterbi-Werten am Ende des vorherigen Abschnitts verknuepft,
+ * wodurch die Viterbi-Werte an allen Abschnittsgrenzen bekannt sind.</li>
+ * <li>Parallel: Jeder weitere Abschnitt wird ab seinen Werten am Anfang berechnet. Dabei wird je Endzustand vermerkt,
+ * bei welchem Zustand vor dem Abschnitt die Rueckverfolgung ankommt.</li>
+ * <li>Vom wahrscheinlichsten Endzustand aus werden damit die Zustaende an allen Abschnittsgrenzen bestimmt.</li>
+ * <li>Parallel: Jeder Abschnitt verfolgt seinen Zustands-Pfad ab dem bekannten Endzustand zurueck.</li>
+ * <li>Passiert der Pfad einen Beinahe-Gleichstand (siehe unten), werden die Abschnitte bis dorthin der Reihe nach
+ * ab exakten Werten erneut berechnet und zurueckverfolgt.</li>
+ * </ol>
+ * <p>
+ * Je Position wird wie in {@link HMM#viterbi(char[])} gerechnet, bei gleichen Werten wird der erste Zustand gewaehlt.
+ * Da die Werte an den Abschnittsgrenzen ueber die Uebergangsmatrizen in anderer Reihenfolge summiert werden,
+ * koennen sie sich in den letzten Bits unterscheiden. Jeder berechnete Wert weicht jedoch hoechstens um die Schranke
+ * des Rundungsfehlers einer Summe von Pfad-Laenge vielen nicht-positiven Summanden vom exakten Wert ab.
+ * Unterscheiden sich bei einer Entscheidung die zwei besten Vorgaenger um mehr als die doppelte Schranke,
+ * trifft {@link HMM#viterbi(char[])} dieselbe Entscheidung. Andernfalls (Beinahe-Gleichstand, auch bei gleichen Werten)
+ * werden alle Abschnitte bis einschliesslich des letzten, dessen Pfad einen solchen passiert, der Reihe nach ab den
+ * Werten am Ende des vorherigen Abschnitts erneut berechnet. Bei einem Beinahe-Gleichstand des Endzustands werden alle
+ * Abschnitte erneut berechnet. Der erste und zweite Abschnitt rechnen bereits exakt wie {@link HMM#viterbi(char[])}.
+ * Der Zustands-Pfad ist daher immer identisch zu {@link HMM#viterbi(char[])}, bei vielen gleich wahrscheinlichen Pfaden
+ * aber nicht schneller.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class ParallelViterbi {
+
+    /**
+     * minimale Laenge eines Abschnitts bei automatischer Aufteilung
+     */
+    public static final int MIN_CHUNK_LENGTH = 1 << 16;
+
+    /**
+     * relativer Rundungsfehler einer Addition (halber Abstand von 1 zur naechsten double-Zahl)
+     */
+    private static final double UNIT_ROUNDOFF = Math.ulp(1d) / 2;
+
+    /**
+     * Fuehrt den Viterbi-Algorithmus mit so vielen Abschnitten aus, wie logische Kerne der JVM zur Verfuegung stehen,
+     * wobei jeder Abschnitt mindestens {@link #MIN_CHUNK_LENGTH} Beobachtungen lang ist.
+     *
+     * @param model        Modell
+     * @param observations Beobachtungsfolge
+     * @return Zustands-Pfad
+     * @throws IllegalArgumentException falls uebergebenes Feld == null oder Beobachtung nicht im Alphabet gefunden wird
+     */
+    public static char[] viterbi(final HMM model, final char[] observations) throws IllegalArgumentException {
+        if (observations == null)
+            throw new IllegalArgumentException("observations is null");
+
+        int coreCount = Runtime.getRuntime().availableProcessors(); // returns count of logical cores available to JVM
+        int chunkCount = Math.max(Math.min(coreCount, observations.length / MIN_CHUNK_LENGTH), 1);
+        return viterbi(model, observations, chunkCount);
+    }
+
+    /**
+     * Fuehrt den Viterbi-Algorithmus mit der uebergebenen Anzahl Abschnitte aus.
+     * Bei nur einem Abschnitt, leerer Folge oder mehr als {@link Byte#MAX_VALUE} Zustaenden wird {@link HMM#viterbi(char[])} verwendet.
+     *
+     * @param model        Modell
+     * @param observations Beobachtungsfolge
+     * @param chunkCount   Anzahl Abschnitte (hoechstens Laenge der Folge)
+     * @return Zustands-Pfad
+     * @throws IllegalArgumentException falls uebergebenes Feld == null, chunkCount &lt; 1
+     *                                  oder Beobachtung nicht im Alphabet gefunden wird
+     */
+    public static char[] viterbi(final HMM model, final char[] observations, int chunkCount) throws IllegalArgumentException {
+        if (observations == null)
+            throw new IllegalArgumentException("observations is null");
+        if (chunkCount < 1)
+            throw new IllegalArgumentException("chunkCount has to be at least 1");
+
+        int length = observations.length;
+        chunkCount = Math.min(chunkCount, length);
+        if (chunkCount <= 1 || model.stateCount > Byte.MAX_VALUE)
+            return model.viterbi(observations);
+
+        Log.dLine("Parallel Viterbi with " + chunkCount + " chunks for " + length + " observations");
+        double tolerance = tolerance(length, chunkCount);
+        List<ViterbiChunk> chunks = new ArrayList<>(chunkCount);
+        for (int c = 0; c < chunkCount; c++) {
+            int from = (int) ((long) length * c / chunkCount);
+            int to = (int) ((long) length * (c + 1) / chunkCount);
+            chunks.add(new ViterbiChunk(model, observations, from, to, tolerance));
+        }
+
+        // phase 1: first chunk directly, transfer matrices of the others
+        List<ThreadViterbiChunk> threads = new ArrayList<>(chunkCount);
+        threads.add(new ThreadViterbiChunk(chunks.get(0), ThreadViterbiChunk.PHASE_FORWARD, null, -1, null));
+        for (int c = 1; c < chunkCount; c++) {
+            threads.add(new ThreadViterbiChunk(chunks.get(c), ThreadViterbiChunk.PHASE_TRANSFER, null, -1, null));
+        }
+        runAll(threads);
+
+        // phase 2: viterbi values at chunk boundaries
+        double[][] viterbiVarStart = new double[chunkCount][];
+        viterbiVarStart[1] = chunks.get(0).getViterbiVarEnd();
+        for (int c = 1; c < chunkCount - 1; c++) {
+            viterbiVarStart[c + 1] = multiply(viterbiVarStart[c], threads.get(c).getTransferMatrix());
+        }
+
+        // phase 3: forward pass of the other chunks from their start values
+        threads.clear();
+        for (int c = 1; c < chunkCount; c++) {
+            threads.add(new ThreadViterbiChunk(chunks.get(c), ThreadViterbiChunk.PHASE_FORWARD, viterbiVarStart[c], -1, null));
+        }
+        runAll(threads);
+
+        // phase 4: most probable end state (exact values of all chunks on a near-tie)
+        int exactChunkCount = 2; // first and second chunk compute like HMM.viterbi
+        if (hasNearTie(chunks.get(chunkCount - 1).getViterbiVarEnd(), tolerance))
+            exactChunkCount = rerun(chunks, exactChunkCount, chunkCount);
+        int[] endState = new int[chunkCount];
+        {
+            double[] viterbiVarEnd = chunks.get(chunkCount - 1).getViterbiVarEnd();
+            int zLast = -1;
+            double probLast = Double.NEGATIVE_INFINITY;
+            for (int stateIndex = 0; stateIndex < model.stateCount; stateIndex++) {
+                double prob = viterbiVarEnd[stateIndex];
+                if (prob > probLast) {
+                    zLast = stateIndex;
+                    probLast = prob;
+                }
+            }
+            endState[chunkCount - 1] = zLast;
+        }
+
+        // phase 5: states at chunk boundaries and backtrace of all chunks
+        char[] statePath = new char[length];
+        int nearTieChunk = backtrace(chunks, chunkCount, exactChunkCount, endState, statePath);
+
+        // phase 6: path passes a near-tie, re-run up to this chunk and backtrace again (later chunks are unchanged)
+        if (nearTieChunk >= exactChunkCount) {
+            exactChunkCount = rerun(chunks, exactChunkCount, nearTieChunk + 1);
+            backtrace(chunks, exactChunkCount, exactChunkCount, endState, statePath);
+        }
+
+        return statePath;
+    }
+
+    /**
+     * Fuehrt den Viterbi-Durchlauf der uebergebenen Abschnitte der Reihe nach ab den Werten am Ende des jeweils
+     * vorherigen Abschnitts erneut aus. Ist dieser exakt, rechnet damit auch der Abschnitt wie {@link HMM#viterbi(char[])}.
+     *
+     * @param chunks Abschnitte
+     * @param from   erster erneut zu berechnender Abschnitt (alle vorherigen sind exakt)
+     * @param to     Ende der erneut zu berechnenden Abschnitte (exklusiv)
+     * @return Anzahl exakter Abschnitte (to)
+     * @throws IllegalArgumentException falls Beobachtung nicht im Alphabet gefunden wird
+     */
+    private static int rerun(final List<ViterbiChunk> chunks, final int from, final int to) throws IllegalArgumentException {
+        Log.dLine("Parallel Viterbi re-runs chunks " + (from + 1) + " to " + to + " sequentially because of near-ties");
+        for (int c = from; c < to; c++) {
+            chunks.get(c).forward(chunks.get(c - 1).getViterbiVarEnd());
+        }
+        return to;
+    }
+
+    /**
+     * Bestimmt ab dem Endzustand des letzten uebergebenen Abschnitts die Zustaende an den Abschnittsgrenzen
+     * und verfolgt die Zustands-Pfade der Abschnitte parallel zurueck.
+     *
+     * @param chunks          Abschnitte
+     * @param count           Anzahl zurueckzuverfolgender Abschnitte (ab dem ersten)
+     * @param exactChunkCount Anzahl exakter Abschnitte (Beinahe-Gleichstaende werden ignoriert)
+     * @param endState        Zustaende an den Abschnittsenden (Element count - 1 muss gesetzt sein)
+     * @param statePath       Zustands-Pfad der gesamten Folge
+     * @return letzter nicht exakter Abschnitt, dessen Pfad einen Beinahe-Gleichstand passiert, oder -1
+     * @throws IllegalArgumentException falls in einem Thread ein Fehler aufgetreten ist
+     */
+    private static int backtrace(final List<ViterbiChunk> chunks, final int count, final int exactChunkCount,
+                                 final int[] endState, final char[] statePath) throws IllegalArgumentException {
+        for (int c = count - 1; c > 0; c--) {
+            endState[c - 1] = chunks.get(c).getOrigin(endState[c]);
+        }
+
+        List<ThreadViterbiChunk> threads = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            threads.add(new ThreadViterbiChunk(chunks.get(c), ThreadViterbiChunk.PHASE_BACKTRACE, null, endState[c], statePath));
+        }
+        runAll(threads);
+
+        int nearTieChunk = -1;
+        for (int c = exactChunkCount; c < count; c++) {
+            if (threads.get(c).hasNearTie())
+                nearTieChunk = c;
+        }
+        return nearTieChunk;
+    }
+
+    /**
+     * Liefert die relative Schranke fuer Beinahe-Gleichstaende zurueck. Jeder Wert ist eine in beliebiger Reihenfolge
+     * gerundete Summe von hoechstens n = 2 * Laenge + Anzahl Abschnitte nicht-positiven Summanden und weicht damit
+     * hoechstens um gamma(n) * |Wert| vom exakten Wert ab. Zwei Vorgaenger koennen in {@link HMM#viterbi(char[])}
+     * nur anders sortiert sein, falls sie sich um hoechstens 2 * gamma(n) / (1 - gamma(n)) mal die Summe ihrer Betraege
+     * unterscheiden. Zur Sicherheit wird das Doppelte verwendet.
+     *
+     * @param length     Laenge der Folge
+     * @param chunkCount Anzahl Abschnitte
+     * @return relative Schranke
+     */
+    private static double tolerance(final int length, final int chunkCount) {
+        double n = 2d * length + chunkCount + 2; // summands along a path (with transfer matrix starts)
+        double gamma = n * UNIT_ROUNDOFF / (1 - n * UNIT_ROUNDOFF);
+        return 4 * gamma;
+    }
+
+    /**
+     * Liefert true zurueck, falls sich der groesste und der zweitgroesste der uebergebenen Werte
+     * um hoechstens die relative Schranke unterscheiden
+     *
+     * @param values    Werte (log-space)
+     * @param tolerance relative Schranke des Rundungsfehlers
+     * @return true, falls Beinahe-Gleichstand
+     */
+    private static boolean hasNearTie(final double[] values, final double tolerance) {
+        double maxProb = Double.NEGATIVE_INFINITY;
+        double secondProb = Double.NEGATIVE_INFINITY;
+        for (double prob : values) {
+            if (prob > maxProb) {
+                secondProb = maxProb;
+                maxProb = prob;
+            } else if (prob > secondProb) {
+                secondProb = prob;
+            }
+        }
+        return ViterbiChunk.isNearTie(maxProb, secondProb, tolerance);
+    }
+
+    /**
+     * Max-Plus-Produkt eines Vektors mit einer Matrix (bei gleichen Werten zaehlt der erste Zustand)
+     *
+     * @param vector Vektor
+     * @param matrix Matrix
+     * @return Produkt
+     */
+    private static double[] multiply(final double[] vector, final double[][] matrix) {
+        int stateCount = vector.length;
+        double[] product = new double[stateCount];
+        for (int j = 0; j < stateCount; j++) {
+            double maxProb = Double.NEGATIVE_INFINITY;
+            for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+                double prob = vector[stateIndex] + matrix[stateIndex][j]; // log-space
+                if (prob > maxProb)
+                    maxProb = prob;
+            }
+            product[j] = maxProb;
+        }
+        return product;
+    }
+
+    /**
+     * Startet die uebergebenen Threads, wartet auf diese und wirft den ersten aufgetretenen Fehler
+     *
+     * @param threads Threads
+     * @throws IllegalArgumentException falls in einem Thread ein Fehler aufgetreten ist
+     */
+    private static void runAll(final List<ThreadViterbiChunk> threads) throws IllegalArgumentException {
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        // Waiting for threads to finish
+        for (ThreadViterbiChunk thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("interrupted while waiting for " + thread.getName(), e);
+            }
+        }
+        for (ThreadViterbiChunk thread : threads) {
+            if (thread.getFailure() != null)
+                throw thread.getFailure(); // first failing chunk
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package main.hmm.casino;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import static org.junit.runners.Parameterized.Parameter;
+import static org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Test-Klasse fuer {@link ParallelViterbi}.
+ *
+ * @author Soeren Metje
+ */
+@RunWith(Parameterized.class)
+public class ParallelViterbiTest {
+
+    /**
+     * Beobachtungen
+     */
+    private static final char[] OBSERVATION_SPACE = {'1', '2', '3', '4', '5', '6'};
+
+    /**
+     * Anzahl Abschnitte
+     */
+    @Parameter(0)
+    public int chunkCount;
+
+    /**
+     * Anzahl Zustaende
+     */
+    @Parameter(1)
+    public int stateCount;
+
+    /**
+     * true, falls alle Wahrscheinlichkeiten gleich sind (nur gleich wahrscheinliche Pfade)
+     */
+    @Parameter(2)
+    public boolean ties;
+
+    /**
+     * Liefert List mit Parametern der Testfaelle zurueck
+     *
+     * @return List mit Parametern der Testfaelle
+     */
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][]{
+                {2, 2, false}, {3, 2, false}, {4, 3, false}, {7, 4, false}, {16, 2, false},
+                {2, 2, true}, {3, 2, true}, {4, 3, true}, {7, 4, true}, {16, 2, true}};
+        return Arrays.asList(data);
+    }
+
+    /**
+     * Test von {@link ParallelViterbi#viterbi(HMM, char[], int)}.
+     * Die Zustands-Pfade muessen identisch zu {@link HMM#viterbi(char[])} sein, auch bei gleich wahrscheinlichen Pfaden
+     * und bei Folgen, die kuerzer als die Anzahl Abschnitte sind.
+     */
+    @Test
+    public void testSameAsViterbi() {
+        Random random = new Random(chunkCount * 31 + stateCount);
+        HMM model = createModel(random);
+
+        for (int i = 0; i < 30; i++) {
+            int length = i == 0 ? 5000 : 1 + random.nextInt(i < 5 ? chunkCount : 400);
+            char[] observations = new char[length];
+            for (int k = 0; k < observations.length; k++) {
+                observations[k] = OBSERVATION_SPACE[random.nextInt(OBSERVATION_SPACE.length)];
+            }
+
+            char[] expected = model.viterbi(observations);
+            char[] statePath = ParallelViterbi.viterbi(model, observations, chunkCount);
+            Assert.assertEquals("length " + length, String.valueOf(expected), String.valueOf(statePath));
+        }
+    }
+
+    /**
+     * Test von {@link ParallelViterbi#viterbi(HMM, char[], int)} mit Beinahe-Gleichstand nur beim Endzustand.
+     * Die Zustaende wechseln nie und beobachten gespiegelt, bei gleich vielen Beobachtungen beider Art sind beide
+     * Pfade exakt gleich wahrscheinlich und unterscheiden sich nur durch Rundung.
+     */
+    @Test
+    public void testEndStateNearTie() {
+        char[] observationSpace = {'1', '2'};
+        HMM model = new HMM(observationSpace, new char[]{'A', 'B'}, new double[]{0.5, 0.5},
+                new double[][]{{1d, 0d}, {0d, 1d}}, new double[][]{{0.3, 0.7}, {0.7, 0.3}});
+
+        Random random = new Random(chunkCount);
+        for (int i = 0; i < 30; i++) {
+            char[] observations = new char[2 * (chunkCount + random.nextInt(200))];
+            for (int k = 0; k < observations.length; k++) {
+                observations[k] = observationSpace[k % 2];
+            }
+            for (int k = observations.length - 1; k > 0; k--) {
+                int swap = random.nextInt(k + 1);
+                char observation = observations[k];
+                observations[k] = observations[swap];
+                observations[swap] = observation;
+            }
+
+            char[] expected = model.viterbi(observations);
+            char[] statePath = ParallelViterbi.viterbi(model, observations, chunkCount);
+            Assert.assertEquals(String.valueOf(observations), String.valueOf(expected), String.valueOf(statePath));
+        }
+    }
+
+    /**
+     * Test von {@link ParallelViterbi#viterbi(HMM, char[], int)} mit ungueltiger Anzahl Abschnitte
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidChunkCount() {
+        ParallelViterbi.viterbi(createModel(new Random(0)), new char[]{'1'}, 0);
+    }
+
+    /**
+     * Erstellt ein Modell mit zufaelligen oder (bei ties) gleichen Wahrscheinlichkeiten
+     *
+     * @param random Zufallszahlen-Generator
+     * @return Modell
+     */
+    private HMM createModel(Random random) {
+        char[] stateChar = new char[stateCount];
+        for (int i = 0; i < stateCount; i++) {
+            stateChar[i] = (char) ('A' + i);
+        }
+        double[] initProbabilities = distribution(random, stateCount);
+        double[][] transitionMatrix = new double[stateCount][];
+        double[][] emissionMatrix = new double[stateCount][];
+        for (int i = 0; i < stateCount; i++) {
+            transitionMatrix[i] = distribution(random, stateCount);
+            emissionMatrix[i] = distribution(random, OBSERVATION_SPACE.length);
+        }
+        return new HMM(OBSERVATION_SPACE, stateChar, initProbabilities, transitionMatrix, emissionMatrix);
+    }
+
+    /**
+     * Liefert eine zufaellige oder (bei ties) gleichverteilte Wahrscheinlichkeitsverteilung zurueck
+     *
+     * @param random Zufallszahlen-Generator
+     * @param size   Anzahl Werte
+     * @return Wahrscheinlichkeiten
+     */
+    private double[] distribution(Random random, int size) {
+        double[] ret = new double[size];
+        double sum = 0d;
+        for (int i = 0; i < size; i++) {
+            ret[i] = ties ? 1d : 0.1 + random.nextDouble();
+            sum += ret[i];
+        }
+        for (int i = 0; i < size; i++) {
+            ret[i] /= sum;
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,147 @@
+package main.hmm.casino;
+
+/**
+ * Enthaelt die Implementation des skalierten Forward-Backward-Algorithmus fuer {@link HMM}.
+ * <p>
+ * Gerechnet wird mit nicht logarithmierten Wahrscheinlichkeiten. Die Forward-Variablen werden je Position auf die Summe 1
+ * normiert, die Backward-Variablen mit denselben Faktoren skaliert. Die Log-Likelihood ergibt sich als Summe der
+ * logarithmierten Normierungsfaktoren. Dadurch bleiben die Werte auch fuer lange Folgen im darstellbaren Bereich.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+class ScaledForwardBackward {
+
+    /**
+     * skalierte Forward-Variablen [Zustand][Position]
+     */
+    final double[][] forward;
+
+    /**
+     * skalierte Backward-Variablen [Zustand][Position]
+     */
+    final double[][] backward;
+
+    /**
+     * Normierungsfaktoren je Position
+     */
+    final double[] scale;
+
+    /**
+     * Log-Likelihood der Beobachtungsfolge
+     */
+    final double logLikelihood;
+
+    /**
+     * Berechnet Forward- und Backward-Variablen fuer uebergebene Beobachtungsfolge
+     *
+     * @param model              Modell
+     * @param observationIndices Beobachtungsfolge als Index-Folge (nicht leer)
+     */
+    ScaledForwardBackward(final HMM model, final int[] observationIndices) {
+        final int length = observationIndices.length;
+        final int stateCount = model.stateCount;
+        final double[] init = model.initProbabilitiesLinear;
+        final double[][] transition = model.transitionMatrixLinear;
+        final double[][] emission = model.emissionMatrixLinear;
+
+        forward = new double[stateCount][length];
+        backward = new double[stateCount][length];
+        scale = new double[length];
+
+        // FORWARD ----------------------------------------------------------------------------------
+        double logLikelihood = 0d;
+        for (int i = 0; i < length; i++) {
+            double sum = 0d;
+            for (int j = 0; j < stateCount; j++) {
+                double value;
+                if (i == 0) {
+                    value = init[j];
+                } else {
+                    value = 0d;
+                    for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+                        value += forward[stateIndex][i - 1] * transition[stateIndex][j];
+                    }
+                }
+                value *= emission[j][observationIndices[i]];
+                forward[j][i] = value;
+                sum += value;
+            }
+            scale[i] = sum;
+            if (sum == 0d) {
+                logLikelihood = Double.NEGATIVE_INFINITY; // sequence can not be generated by model
+                break;
+            }
+            for (int j = 0; j < stateCount; j++) {
+                forward[j][i] /= sum;
+            }
+            logLikelihood += Math.log(sum);
+        }
+        this.logLikelihood = logLikelihood;
+        if (logLikelihood == Double.NEGATIVE_INFINITY)
+            return;
+
+        // BACKWARD ---------------------------------------------------------------------------------
+        for (int j = 0; j < stateCount; j++) {
+            backward[j][length - 1] = 1d;
+        }
+        for (int i = length - 2; i >= 0; i--) {
+            int observationIndex = observationIndices[i + 1];
+            for (int j = 0; j < stateCount; j++) {
+                double value = 0d;
+                for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+                    value += transition[j][stateIndex] * emission[stateIndex][observationIndex] * backward[stateIndex][i + 1];
+                }
+                backward[j][i] = value / scale[i + 1];
+            }
+        }
+    }
+
+    /**
+     * Liefert die A-posteriori-Wahrscheinlichkeit des Zustands an der Position zurueck
+     *
+     * @param stateIndex Zustand
+     * @param i          Position
+     * @return A-posteriori-Wahrscheinlichkeit
+     */
+    double posterior(final int stateIndex, final int i) {
+        return forward[stateIndex][i] * backward[stateIndex][i];
+    }
+
+    /**
+     * Addiert die erwarteten Haeufigkeiten der Start-Zustaende, Uebergaenge und Emissionen zum uebergebenen Akkumulator
+     *
+     * @param model              Modell
+     * @param observationIndices Beobachtungsfolge als Index-Folge
+     * @param counts             Akkumulator
+     */
+    void accumulate(final HMM model, final int[] observationIndices, final HMMExpectedCounts counts) {
+        counts.sequenceCount++;
+        if (logLikelihood == Double.NEGATIVE_INFINITY)
+            return; // no contribution
+        counts.logLikelihood += logLikelihood;
+
+        final int length = observationIndices.length;
+        final int stateCount = model.stateCount;
+        final double[][] transition = model.transitionMatrixLinear;
+        final double[][] emission = model.emissionMatrixLinear;
+
+        for (int j = 0; j < stateCount; j++) {
+            counts.init[j] += posterior(j, 0);
+        }
+        for (int i = 0; i < length; i++) {
+            int observationIndex = observationIndices[i];
+            for (int j = 0; j < stateCount; j++) {
+                counts.emission[j][observationIndex] += posterior(j, i);
+            }
+            if (i > 0) {
+                for (int from = 0; from < stateCount; from++) {
+                    double forwardFrom = forward[from][i - 1] / scale[i];
+                    for (int to = 0; to < stateCount; to++) {
+                        counts.transition[from][to] += forwardFrom * transition[from][to] * emission[to][observationIndex] * backward[to][i];
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package main.hmm.casino;
+
+import main.alphabet.Alphabet;
+import main.logger.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Dekodiert beliebig viele Wurf-Eintraege eines {@link HMM} aus einem Zeichenstrom, ohne die Datei vollstaendig einzulesen.
+ * </p>
+ * <p>
+ * Ein Eintrag besteht aus einer Zeile mit Beobachtungen (Wuerfen), optional gefolgt von einer Zeile mit den tatsaechlichen
+ * Zustaenden. Eine Zeile gilt als Zustands-Zeile, falls ihr erstes Zeichen keine Beobachtung ist. Weitere Zustands-Zeilen
+ * eines Eintrags (z.B. der erwartete Viterbi-Pfad) werden ignoriert, ebenso leere Zeilen und Zeilen beginnend mit #.
+ * </p>
+ * <p>
+ * Die Eintraege werden blockweise gelesen. Waehrend ein Block parallel mittels {@link ThreadBatchViterbi} dekodiert wird,
+ * wird bereits der naechste gelesen. Die Ergebnisse werden je Block in Reihenfolge geschrieben,
+ * eine Zeile je Eintrag (durch Tabulator getrennt): Nummer, Zustands-Pfad, Anzahl korrekter Zustaende und Laenge
+ * (beide - falls keine Zustands-Zeile vorhanden ist). Der Speicherbedarf ist durch zwei Bloecke beschraenkt.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class StreamViterbi {
+
+    /**
+     * Standardwert fuer die Anzahl Eintraege je Block
+     */
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    /**
+     * Dekodiert alle Eintraege des Readers und schreibt die Ergebnisse in den Writer
+     *
+     * @param model     Modell
+     * @param reader    Eingabe
+     * @param writer    Ausgabe
+     * @param batchSize Anzahl Eintraege je Block
+     * @return Anzahl dekodierter Eintraege
+     * @throws IOException              falls beim Lesen oder Schreiben ein Fehler auftritt
+     * @throws IllegalArgumentException falls batchSize &lt; 1 oder Beobachtung nicht im Alphabet gefunden wird
+     */
+    public static long decode(final HMM model, final BufferedReader reader, final Writer writer, final int batchSize)
+            throws IOException, IllegalArgumentException {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize has to be at least 1");
+        if (model.stateCount > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("too many states " + model.stateCount);
+
+        int coreCount = Runtime.getRuntime().availableProcessors(); // returns count of logical cores available to JVM
+        ViterbiWorkspace[] workspaces = new ViterbiWorkspace[coreCount];
+        for (int i = 0; i < coreCount; i++) {
+            workspaces[i] = new ViterbiWorkspace(model);
+        }
+
+        long millis = System.currentTimeMillis(); // measure calc time
+        long recordCount = 0, observationCount = 0, correctCount = 0, comparedCount = 0;
+        String[] pendingLine = new String[1];
+
+        List<char[]> rolls = new ArrayList<>(batchSize), truths = new ArrayList<>(batchSize);
+        readBatch(model, reader, batchSize, rolls, truths, pendingLine);
+        while (!rolls.isEmpty()) {
+            // decode current batch
+            char[][] statePaths = new char[rolls.size()][];
+            int[] nextIndex = new int[1];
+            List<ThreadBatchViterbi> threads = new ArrayList<>(coreCount);
+            for (int i = 0; i < Math.min(coreCount, rolls.size()); i++) {
+                ThreadBatchViterbi thread = new ThreadBatchViterbi(workspaces[i], rolls, nextIndex, statePaths);
+                threads.add(thread);
+                thread.start();
+            }
+
+            // read next batch meanwhile
+            List<char[]> nextRolls = new ArrayList<>(batchSize), nextTruths = new ArrayList<>(batchSize);
+            IOException readFailure = null;
+            try {
+                readBatch(model, reader, batchSize, nextRolls, nextTruths, pendingLine);
+            } catch (IOException e) {
+                readFailure = e;
+            }
+
+            // Waiting for threads to finish
+            IllegalArgumentException failure = null;
+            for (ThreadBatchViterbi thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Log.eLine("ERROR: " + thread.getName() + " got interrupted");
+                }
+                if (failure == null)
+                    failure = thread.getFailure();
+            }
+            if (failure != null)
+                throw new IllegalArgumentException("Record after " + recordCount + " records: " + failure.getMessage(), failure);
+            if (readFailure != null)
+                throw readFailure;
+
+            // write results in order
+            StringBuilder out = new StringBuilder();
+            for (int k = 0; k < statePaths.length; k++) {
+                recordCount++;
+                char[] statePath = statePaths[k];
+                char[] truth = truths.get(k);
+                observationCount += statePath.length;
+
+                out.append(recordCount).append('\t').append(statePath).append('\t');
+                if (truth == null) {
+                    out.append("-\t-");
+                } else {
+                    int correct = 0;
+                    int compareLength = Math.min(statePath.length, truth.length);
+                    for (int i = 0; i < compareLength; i++) {
+                        if (statePath[i] == truth[i])
+                            correct++;
+                    }
+                    out.append(correct).append('\t').append(statePath.length);
+                    correctCount += correct;
+                    comparedCount += statePath.length;
+                }
+                out.append('\n');
+            }
+            writer.write(out.toString());
+            writer.flush();
+
+            rolls = nextRolls;
+            truths = nextTruths;
+        }
+        millis = System.currentTimeMillis() - millis;
+
+        float time = (float) millis / 1000; // in sec
+        Log.iLine(String.format("(%.2fsec) decoded %d records with %d observations (%.0f observations/sec)",
+                time, recordCount, observationCount, observationCount / Math.max(time, 1e-3f)));
+        if (comparedCount > 0)
+            Log.iLine(String.format("accuracy = %.4f (%d of %d states)", (double) correctCount / comparedCount, correctCount, comparedCount));
+        return recordCount;
+    }
+
+    /**
+     * Liest bis zu batchSize Eintraege
+     *
+     * @param model       Modell
+     * @param reader      Eingabe
+     * @param batchSize   maximale Anzahl Eintraege
+     * @param rolls       Liste fuer Beobachtungen je Eintrag
+     * @param truths      Liste fuer Zustaende je Eintrag (null, falls nicht vorhanden)
+     * @param pendingLine bereits gelesene, noch nicht verarbeitete Zeile (Element 0, evtl. null)
+     * @throws IOException falls beim Lesen ein Fehler auftritt
+     */
+    private static void readBatch(final HMM model, final BufferedReader reader, final int batchSize,
+                                  final List<char[]> rolls, final List<char[]> truths, final String[] pendingLine) throws IOException {
+        boolean hasTruth = false;
+        while (true) {
+            String line = pendingLine[0] != null ? pendingLine[0] : reader.readLine();
+            pendingLine[0] = null;
+            if (line == null)
+                break;
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#')
+                continue;
+
+            if (model.observationSpace.code(line.charAt(0)) == Alphabet.UNKNOWN) {
+                // state line
+                if (!rolls.isEmpty() && !hasTruth) {
+                    truths.set(truths.size() - 1, line.toCharArray());
+                    hasTruth = true;
+                }
+                continue;
+            }
+
+            if (rolls.size() == batchSize) {
+                pendingLine[0] = line; // first record of next batch
+                break;
+            }
+            rolls.add(line.toCharArray());
+            truths.add(null);
+            hasTruth = false;
+        }
+    }
+}
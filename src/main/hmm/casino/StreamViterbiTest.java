@@ -0,0 +1,115 @@
+package main.hmm.casino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test-Klasse fuer {@link StreamViterbi}.
+ *
+ * @author Soeren Metje
+ */
+public class StreamViterbiTest {
+
+    /**
+     * Anzahl Eintraege der Eingabe
+     */
+    private static final int RECORD_COUNT = 500;
+
+    /**
+     * Test von {@link StreamViterbi#decode(HMM, BufferedReader, java.io.Writer, int)}.
+     * Fuer jede Blockgroesse muss jede Ausgabe-Zeile dem Zustands-Pfad von {@link HMM#viterbi(char[])} des jeweiligen Eintrags
+     * und der Anzahl uebereinstimmender Zustaende mit der ersten Zustands-Zeile entsprechen, in Reihenfolge der Eingabe.
+     */
+    @Test
+    public void testSameAsViterbi() throws IOException {
+        HMM model = new CasinoHMM();
+        Random random = new Random(0);
+        StringBuilder input = new StringBuilder("# casino rolls\n");
+        List<String> expected = new ArrayList<>(RECORD_COUNT);
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            char[] rolls = new char[1 + random.nextInt(300)];
+            char[] states = new char[rolls.length];
+            for (int k = 0; k < rolls.length; k++) {
+                rolls[k] = (char) ('1' + random.nextInt(6));
+                states[k] = random.nextBoolean() ? 'F' : 'L';
+            }
+            input.append(rolls).append('\n');
+            if (random.nextInt(10) == 0)
+                input.append('\n');
+
+            char[] statePath = model.viterbi(rolls);
+            StringBuilder line = new StringBuilder().append(i + 1).append('\t').append(statePath).append('\t');
+            if (random.nextBoolean()) {
+                input.append(states).append('\n');
+                if (random.nextInt(4) == 0)
+                    input.append(statePath).append('\n'); // further state lines are ignored
+                int correct = 0;
+                for (int k = 0; k < states.length; k++) {
+                    if (states[k] == statePath[k])
+                        correct++;
+                }
+                line.append(correct).append('\t').append(statePath.length);
+            } else {
+                line.append("-\t-");
+            }
+            expected.add(line.toString());
+            if (random.nextInt(50) == 0)
+                input.append("# comment\n");
+        }
+
+        for (int batchSize : new int[]{1, 3, 64, RECORD_COUNT - 1, RECORD_COUNT, StreamViterbi.DEFAULT_BATCH_SIZE}) {
+            StringWriter writer = new StringWriter();
+            long count = StreamViterbi.decode(model, new BufferedReader(new StringReader(input.toString())), writer, batchSize);
+            Assert.assertEquals(RECORD_COUNT, count);
+
+            String[] lines = writer.toString().split("\n");
+            Assert.assertEquals(RECORD_COUNT, lines.length);
+            for (int i = 0; i < RECORD_COUNT; i++) {
+                Assert.assertEquals("batch size " + batchSize, expected.get(i), lines[i]);
+            }
+        }
+    }
+
+    /**
+     * Test von {@link StreamViterbi#decode(HMM, BufferedReader, java.io.Writer, int)} ohne Eintraege
+     */
+    @Test
+    public void testEmptyInput() throws IOException {
+        StringWriter writer = new StringWriter();
+        Assert.assertEquals(0, StreamViterbi.decode(new CasinoHMM(), new BufferedReader(new StringReader("# nothing\n\n")), writer, 8));
+        Assert.assertEquals("", writer.toString());
+    }
+
+    /**
+     * Test von {@link StreamViterbi#decode(HMM, BufferedReader, java.io.Writer, int)} mit ungueltiger Beobachtung in einem spaeteren Block.
+     * Die Ergebnisse der vorherigen Bloecke muessen geschrieben sein.
+     */
+    @Test
+    public void testInvalidObservation() throws IOException {
+        String input = "1234\n5656\n6666\n12x4\n";
+        StringWriter writer = new StringWriter();
+        try {
+            StreamViterbi.decode(new CasinoHMM(), new BufferedReader(new StringReader(input)), writer, 2);
+            Assert.fail("invalid observation accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        Assert.assertEquals(2, writer.toString().split("\n").length);
+    }
+
+    /**
+     * Test von {@link StreamViterbi#decode(HMM, BufferedReader, java.io.Writer, int)} mit Blockgroesse &lt; 1
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBatchSize() throws IOException {
+        StreamViterbi.decode(new CasinoHMM(), new BufferedReader(new StringReader("1234\n")), new StringWriter(), 0);
+    }
+}
@@ -0,0 +1,112 @@
+package main.hmm.casino;
+
+import java.util.List;
+
+/**
+ * Thread {@link Thread}, der Bloecke von Beobachtungsfolgen aus uebergebener Liste abarbeitet.
+ * Dabei wird fuer jede Folge mittels eigenem {@link ViterbiWorkspace} der Zustands-Pfad berechnet
+ * und an entsprechender Position im Ergebnis-Feld gespeichert.
+ *
+ * @author Soeren Metje
+ */
+class ThreadBatchViterbi extends Thread {
+
+    /**
+     * Anzahl Folgen, die je Entnahme reserviert werden
+     */
+    private static final int BLOCK_SIZE = 256;
+
+    /**
+     * Monitor, um die Bestimmung des naechsten Blocks zu synchronisieren
+     */
+    private static final Object indexPollMonitor = new Object();
+
+    /**
+     * Arbeitsspeicher dieses Threads
+     */
+    private final ViterbiWorkspace workspace;
+
+    /**
+     * Beobachtungsfolgen
+     */
+    private final List<char[]> sequences;
+
+    /**
+     * naechster freier Index (von allen Threads gemeinsam verwendet, Zugriff synchronisiert ueber indexPollMonitor)
+     */
+    private final int[] nextIndex;
+
+    /**
+     * Ergebnis-Feld (Index wie sequences)
+     */
+    private final char[][] statePaths;
+
+    /**
+     * Fehler, der beim Abarbeiten aufgetreten ist oder null
+     */
+    private IllegalArgumentException failure;
+
+    /**
+     * Konstruktor
+     *
+     * @param model      zu verwendenes Modell
+     * @param sequences  Beobachtungsfolgen
+     * @param nextIndex  gemeinsamer Zaehler des naechsten freien Index (zu Beginn 0)
+     * @param statePaths Ergebnis-Feld
+     */
+    ThreadBatchViterbi(HMM model, List<char[]> sequences, int[] nextIndex, char[][] statePaths) {
+        this(new ViterbiWorkspace(model), sequences, nextIndex, statePaths);
+    }
+
+    /**
+     * Konstruktor mit bereits vorhandenem Arbeitsspeicher (z.B. aus vorherigem Block eines Streams)
+     *
+     * @param workspace  Arbeitsspeicher (nur von diesem Thread verwendet)
+     * @param sequences  Beobachtungsfolgen
+     * @param nextIndex  gemeinsamer Zaehler des naechsten freien Index (zu Beginn 0)
+     * @param statePaths Ergebnis-Feld
+     */
+    ThreadBatchViterbi(ViterbiWorkspace workspace, List<char[]> sequences, int[] nextIndex, char[][] statePaths) {
+        this.workspace = workspace;
+        this.sequences = sequences;
+        this.nextIndex = nextIndex;
+        this.statePaths = statePaths;
+    }
+
+    /**
+     * Arbeitet Bloecke von Beobachtungsfolgen ab
+     */
+    @Override
+    public void run() {
+        int size = sequences.size();
+        while (true) {
+            int from;
+            synchronized (indexPollMonitor) {
+                from = nextIndex[0];
+                nextIndex[0] = Math.min(from + BLOCK_SIZE, size);
+            }
+            if (from >= size)
+                break;
+
+            int to = Math.min(from + BLOCK_SIZE, size);
+            for (int i = from; i < to; i++) {
+                char[] observations = sequences.get(i);
+                try {
+                    statePaths[i] = workspace.viterbi(observations);
+                } catch (IllegalArgumentException e) {
+                    failure = new IllegalArgumentException("Sequence " + i + ": " + e.getMessage(), e);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Liefert den beim Abarbeiten aufgetretenen Fehler zurueck oder null, falls keiner aufgetreten ist
+     *
+     * @return Fehler oder null
+     */
+    IllegalArgumentException getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,97 @@
+package main.hmm.casino;
+
+import main.logger.Log;
+
+import java.util.Queue;
+
+/**
+ * Thread {@link Thread}, der Beobachtungsfolgen aus uebergebener Schlange abarbeitet.
+ * Dabei werden fuer jede Folge mittels des skalierten Forward-Backward-Algorithmus die erwarteten Haeufigkeiten berechnet
+ * und im eigenen Akkumulator {@link HMMExpectedCounts} aufsummiert (E-Schritt des Baum-Welch-Algorithmus).
+ *
+ * @author Soeren Metje
+ */
+class ThreadHMMBaumWelch extends Thread {
+
+    /**
+     * Monitor, um das Entnehmen der naechsten Folge zu synchronisieren
+     */
+    private static final Object pollMonitor = new Object();
+
+    /**
+     * Modell, welches zur Berechnung verwendet wird
+     */
+    private final HMM model;
+
+    /**
+     * Schlange abzuarbeitender Beobachtungsfolgen
+     */
+    private final Queue<char[]> sequenceQueue;
+
+    /**
+     * Akkumulator dieses Threads
+     */
+    private final HMMExpectedCounts counts;
+
+    /**
+     * Fehler, der beim Abarbeiten aufgetreten ist oder null
+     */
+    private IllegalArgumentException failure;
+
+    /**
+     * Konstruktor
+     *
+     * @param model         zu verwendenes Modell
+     * @param sequenceQueue abzuarbeitende Beobachtungsfolgen
+     */
+    ThreadHMMBaumWelch(HMM model, Queue<char[]> sequenceQueue) {
+        this.model = model;
+        this.sequenceQueue = sequenceQueue;
+        this.counts = new HMMExpectedCounts(model);
+    }
+
+    /**
+     * Arbeitet Beobachtungsfolgen aus uebergebener Schlange ab
+     * und summiert die erwarteten Haeufigkeiten im Akkumulator des Threads auf.
+     */
+    @Override
+    public void run() {
+        Log.dLine(getName() + " started");
+        while (true) {
+            char[] observations;
+            synchronized (pollMonitor) {
+                observations = sequenceQueue.poll();
+            }
+            if (observations == null)
+                break;
+            if (observations.length == 0)
+                continue;
+
+            try {
+                int[] observationIndices = model.observationSpace.toIndices(observations);
+                new ScaledForwardBackward(model, observationIndices).accumulate(model, observationIndices, counts);
+            } catch (IllegalArgumentException e) {
+                failure = e;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Liefert Akkumulator dieses Threads zurueck
+     *
+     * @return Akkumulator
+     */
+    HMMExpectedCounts getCounts() {
+        return counts;
+    }
+
+    /**
+     * Liefert den beim Abarbeiten aufgetretenen Fehler zurueck oder null, falls keiner aufgetreten ist
+     *
+     * @return Fehler oder null
+     */
+    IllegalArgumentException getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,133 @@
+package main.hmm.casino;
+
+/**
+ * Thread {@link Thread}, der eine Phase von {@link ParallelViterbi} fuer einen {@link ViterbiChunk} ausfuehrt.
+ * Ein aufgetretener Fehler wird bis zum Zusammenfuehren gehalten.
+ *
+ * @author Soeren Metje
+ */
+class ThreadViterbiChunk extends Thread {
+
+    /**
+     * Phase: Uebergangsmatrix berechnen
+     */
+    static final int PHASE_TRANSFER = 0;
+
+    /**
+     * Phase: Viterbi-Durchlauf ab bekannten Werten am Abschnittsanfang
+     */
+    static final int PHASE_FORWARD = 1;
+
+    /**
+     * Phase: Rueckverfolgung ab bekanntem Endzustand
+     */
+    static final int PHASE_BACKTRACE = 2;
+
+    /**
+     * Abschnitt
+     */
+    private final ViterbiChunk chunk;
+
+    /**
+     * auszufuehrende Phase
+     */
+    private final int phase;
+
+    /**
+     * Viterbi-Werte am Abschnittsanfang (nur {@link #PHASE_FORWARD})
+     */
+    private final double[] viterbiVarStart;
+
+    /**
+     * Endzustand (nur {@link #PHASE_BACKTRACE})
+     */
+    private final int endState;
+
+    /**
+     * Zustands-Pfad der gesamten Folge (nur {@link #PHASE_BACKTRACE})
+     */
+    private final char[] statePath;
+
+    /**
+     * berechnete Uebergangsmatrix (nur {@link #PHASE_TRANSFER}) oder null
+     */
+    private double[][] transferMatrix;
+
+    /**
+     * true, falls der zurueckverfolgte Pfad einen Beinahe-Gleichstand passiert (nur {@link #PHASE_BACKTRACE})
+     */
+    private boolean nearTie;
+
+    /**
+     * aufgetretener Fehler oder null
+     */
+    private IllegalArgumentException failure;
+
+    /**
+     * Konstruktor
+     *
+     * @param chunk           Abschnitt
+     * @param phase           auszufuehrende Phase
+     * @param viterbiVarStart Viterbi-Werte am Abschnittsanfang (nur {@link #PHASE_FORWARD})
+     * @param endState        Endzustand (nur {@link #PHASE_BACKTRACE})
+     * @param statePath       Zustands-Pfad der gesamten Folge (nur {@link #PHASE_BACKTRACE})
+     */
+    ThreadViterbiChunk(ViterbiChunk chunk, int phase, double[] viterbiVarStart, int endState, char[] statePath) {
+        this.chunk = chunk;
+        this.phase = phase;
+        this.viterbiVarStart = viterbiVarStart;
+        this.endState = endState;
+        this.statePath = statePath;
+    }
+
+    /**
+     * Fuehrt die Phase aus
+     */
+    @Override
+    public void run() {
+        try {
+            switch (phase) {
+                case PHASE_TRANSFER:
+                    transferMatrix = chunk.transferMatrix();
+                    break;
+                case PHASE_FORWARD:
+                    chunk.forward(viterbiVarStart);
+                    break;
+                case PHASE_BACKTRACE:
+                    nearTie = chunk.backtrace(endState, statePath);
+                    break;
+                default:
+                    throw new RuntimeException("no valid phase");
+            }
+        } catch (IllegalArgumentException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Liefert berechnete Uebergangsmatrix zurueck
+     *
+     * @return Uebergangsmatrix oder null
+     */
+    double[][] getTransferMatrix() {
+        return transferMatrix;
+    }
+
+    /**
+     * Liefert zurueck, ob der zurueckverfolgte Pfad einen Beinahe-Gleichstand passiert
+     *
+     * @return true, falls Beinahe-Gleichstand auf dem Pfad
+     */
+    boolean hasNearTie() {
+        return nearTie;
+    }
+
+    /**
+     * Liefert aufgetretenen Fehler zurueck
+     *
+     * @return Fehler oder null
+     */
+    IllegalArgumentException getFailure() {
+        return failure;
+    }
+}
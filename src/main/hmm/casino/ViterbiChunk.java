@@ -0,0 +1,245 @@
+package main.hmm.casino;
+
+import java.util.BitSet;
+
+/**
+ * Zusammenhaengender Abschnitt einer Beobachtungsfolge fuer {@link ParallelViterbi}.
+ * <p>
+ * Berechnet die Max-Plus-Uebergangsmatrix des Abschnitts, den Viterbi-Durchlauf ab bekannten Werten am Abschnittsanfang
+ * sowie die Rueckverfolgung ab bekanntem Endzustand. Die Berechnung je Position entspricht der in {@link HMM#viterbi(char[])},
+ * auch bei gleichen Werten wird der erste maximierende Zustand gewaehlt.
+ * Beim Viterbi-Durchlauf werden Entscheidungen vermerkt, bei denen sich die zwei besten Vorgaenger um hoechstens
+ * den Rundungsfehler unterscheiden (Beinahe-Gleichstand). Die Rueckverfolgung meldet, ob der Pfad eine solche passiert.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+class ViterbiChunk {
+
+    /**
+     * Modell
+     */
+    private final HMM model;
+
+    /**
+     * gesamte Beobachtungsfolge
+     */
+    private final char[] observations;
+
+    /**
+     * Anfang des Abschnitts
+     */
+    private final int from;
+
+    /**
+     * Ende des Abschnitts (exklusiv)
+     */
+    private final int to;
+
+    /**
+     * relative Schranke des Rundungsfehlers fuer Beinahe-Gleichstaende
+     */
+    private final double tolerance;
+
+    /**
+     * maximierende Vorgaenger-Zustaende [Zustand][Position - from]
+     */
+    private byte[][] viterbiArg;
+
+    /**
+     * Viterbi-Werte am Ende des Abschnitts
+     */
+    private double[] viterbiVarEnd;
+
+    /**
+     * Zustand vor dem Abschnitt, bei dem die Rueckverfolgung je Endzustand ankommt
+     */
+    private int[] origin;
+
+    /**
+     * Positionen (Position - from) mit Beinahe-Gleichstand je Zustand im letzten Viterbi-Durchlauf
+     */
+    private BitSet[] nearTies;
+
+    /**
+     * Konstruktor
+     *
+     * @param model        Modell (hoechstens {@link Byte#MAX_VALUE} Zustaende)
+     * @param observations gesamte Beobachtungsfolge
+     * @param from         Anfang des Abschnitts
+     * @param to           Ende des Abschnitts (exklusiv)
+     * @param tolerance    relative Schranke des Rundungsfehlers fuer Beinahe-Gleichstaende
+     */
+    ViterbiChunk(HMM model, char[] observations, int from, int to, double tolerance) {
+        this.model = model;
+        this.observations = observations;
+        this.from = from;
+        this.to = to;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Liefert true zurueck, falls sich der groesste und der zweitgroesste Wert um hoechstens
+     * die relative Schranke des Rundungsfehlers unterscheiden (gleiche Werte eingeschlossen)
+     *
+     * @param maxProb    groesster Wert (log-space)
+     * @param secondProb zweitgroesster Wert (log-space)
+     * @param tolerance  relative Schranke des Rundungsfehlers
+     * @return true, falls Beinahe-Gleichstand
+     */
+    static boolean isNearTie(final double maxProb, final double secondProb, final double tolerance) {
+        return secondProb > Double.NEGATIVE_INFINITY
+                && maxProb - secondProb <= tolerance * (Math.abs(maxProb) + Math.abs(secondProb));
+    }
+
+    /**
+     * Berechnet die Max-Plus-Uebergangsmatrix des Abschnitts.
+     * Element [a][b] ist der groesste Score eines Pfads von Zustand a an Position from - 1 zu Zustand b an Position to - 1.
+     *
+     * @return Uebergangsmatrix
+     * @throws IllegalArgumentException falls Beobachtung nicht im Alphabet gefunden wird
+     */
+    double[][] transferMatrix() throws IllegalArgumentException {
+        int stateCount = model.stateCount;
+        double[][] matrix = new double[stateCount][];
+        for (int a = 0; a < stateCount; a++) {
+            double[] viterbiVar = new double[stateCount];
+            for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+                viterbiVar[stateIndex] = Double.NEGATIVE_INFINITY;
+            }
+            viterbiVar[a] = 0d; // log-space
+            matrix[a] = run(viterbiVar, null);
+        }
+        return matrix;
+    }
+
+    /**
+     * Fuehrt den Viterbi-Algorithmus fuer den Abschnitt aus und speichert die maximierenden Vorgaenger-Zustaende.
+     * Beginnt der Abschnitt am Anfang der Folge, werden die Startwahrscheinlichkeiten verwendet,
+     * ansonsten die uebergebenen Viterbi-Werte an Position from - 1.
+     *
+     * @param viterbiVarStart Viterbi-Werte an Position from - 1 (ignoriert, falls from == 0)
+     * @throws IllegalArgumentException falls Beobachtung nicht im Alphabet gefunden wird
+     */
+    void forward(final double[] viterbiVarStart) throws IllegalArgumentException {
+        viterbiArg = new byte[model.stateCount][to - from];
+        nearTies = new BitSet[model.stateCount];
+        for (int stateIndex = 0; stateIndex < nearTies.length; stateIndex++) {
+            nearTies[stateIndex] = new BitSet();
+        }
+        viterbiVarEnd = run(viterbiVarStart, viterbiArg);
+    }
+
+    /**
+     * Liefert die Viterbi-Werte am Ende des Abschnitts zurueck (nach {@link #forward(double[])})
+     *
+     * @return Viterbi-Werte an Position to - 1
+     */
+    double[] getViterbiVarEnd() {
+        return viterbiVarEnd;
+    }
+
+    /**
+     * Liefert den Zustand an Position from - 1 zurueck, bei dem die Rueckverfolgung vom uebergebenen Endzustand ankommt
+     * (nach {@link #forward(double[])}, nur falls from &gt; 0)
+     *
+     * @param endState Zustand an Position to - 1
+     * @return Zustand an Position from - 1
+     */
+    int getOrigin(final int endState) {
+        return origin[endState];
+    }
+
+    /**
+     * Verfolgt den Zustands-Pfad vom uebergebenen Endzustand zurueck (nach {@link #forward(double[])})
+     * und schreibt ihn in den entsprechenden Bereich des uebergebenen Felds.
+     *
+     * @param endState  Zustand an Position to - 1
+     * @param statePath Zustands-Pfad der gesamten Folge
+     * @return true, falls der Pfad (einschliesslich des Schritts nach Position from - 1) einen Beinahe-Gleichstand passiert
+     */
+    boolean backtrace(final int endState, final char[] statePath) {
+        boolean nearTie = false;
+        int stateIndex = endState;
+        for (int i = to - 1; i > from; i--) {
+            statePath[i] = model.stateChar[stateIndex];
+            if (nearTies[stateIndex].get(i - from))
+                nearTie = true;
+            stateIndex = viterbiArg[stateIndex][i - from];
+        }
+        statePath[from] = model.stateChar[stateIndex];
+        return nearTie || nearTies[stateIndex].get(0);
+    }
+
+    /**
+     * Viterbi-Durchlauf ueber den Abschnitt
+     *
+     * @param viterbiVarStart Viterbi-Werte an Position from - 1 (ignoriert, falls from == 0)
+     * @param arg             Feld fuer maximierende Vorgaenger-Zustaende oder null
+     * @return Viterbi-Werte an Position to - 1
+     * @throws IllegalArgumentException falls Beobachtung nicht im Alphabet gefunden wird
+     */
+    private double[] run(final double[] viterbiVarStart, final byte[][] arg) throws IllegalArgumentException {
+        int stateCount = model.stateCount;
+        double[] viterbiVar = new double[stateCount];
+        double[] viterbiVarNext = new double[stateCount];
+        int[] originNext = new int[stateCount];
+        int[] originVar = null;
+
+        int start = from;
+        if (from == 0) {
+            int observationIndex = model.observationSpace.indexOf(observations[0]);
+            for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+                viterbiVar[stateIndex] = model.initProbabilities[stateIndex] + model.emissionMatrix[stateIndex][observationIndex]; // log-space
+            }
+            start = 1;
+        } else {
+            System.arraycopy(viterbiVarStart, 0, viterbiVar, 0, stateCount);
+            if (arg != null)
+                originVar = new int[stateCount];
+        }
+
+        for (int i = start; i < to; i++) {
+            int observationIndex = model.observationSpace.indexOf(observations[i]);
+            for (int j = 0; j < stateCount; j++) {
+                //find max
+                double maxProb = Double.NEGATIVE_INFINITY;
+                double secondProb = Double.NEGATIVE_INFINITY;
+                int maxArg = -1; // maximizing argument
+
+                for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+                    double prob = viterbiVar[stateIndex] + model.transitionMatrix[stateIndex][j] + model.emissionMatrix[j][observationIndex]; // log-space
+                    if (prob > maxProb) {
+                        secondProb = maxProb;
+                        maxProb = prob;
+                        maxArg = stateIndex;
+                    } else if (prob > secondProb) {
+                        secondProb = prob;
+                    }
+                }
+
+                viterbiVarNext[j] = maxProb;
+                if (arg != null) {
+                    arg[j][i - from] = (byte) maxArg;
+                    if (isNearTie(maxProb, secondProb, tolerance))
+                        nearTies[j].set(i - from);
+                    if (originVar != null)
+                        originNext[j] = i == from || maxArg < 0 ? maxArg : originVar[maxArg];
+                }
+            }
+
+            double[] swap = viterbiVar;
+            viterbiVar = viterbiVarNext;
+            viterbiVarNext = swap;
+            if (originVar != null) {
+                int[] swapOrigin = originVar;
+                originVar = originNext;
+                originNext = swapOrigin;
+            }
+        }
+
+        if (arg != null)
+            origin = originVar;
+        return viterbiVar;
+    }
+}
@@ -0,0 +1,489 @@
+package main.hmm.casino;
+
+/**
+ * Wiederverwendbarer Arbeitsspeicher fuer den Viterbi-Algorithmus vieler kurzer Beobachtungsfolgen eines {@link HMM}.
+ * <p>
+ * Die Felder werden nur vergroessert, falls eine Folge laenger als alle vorherigen ist.
+ * Fuer 2 bis 4 Zustaende (z.B. {@link CasinoHMM}) werden ausgerollte Varianten verwendet, die die Viterbi-Werte
+ * in lokalen Variablen halten. Die Berechnung entspricht dabei genau der in {@link HMM#viterbi(char[])},
+ * auch bei gleichen Werten wird der erste maximierende Zustand gewaehlt.
+ * Nicht threadsicher, jeder Thread benoetigt einen eigenen Arbeitsspeicher.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+class ViterbiWorkspace {
+
+    /**
+     * Modell (hoechstens {@link Byte#MAX_VALUE} Zustaende)
+     */
+    private final HMM model;
+
+    /**
+     * Anzahl der Zustaende
+     */
+    private final int stateCount;
+
+    /**
+     * Index-Folge der aktuellen Beobachtungen
+     */
+    private int[] observationIndices = new int[0];
+
+    /**
+     * maximierende Vorgaenger-Zustaende [Position * Anzahl Zustaende + Zustand]
+     */
+    private byte[] viterbiArg = new byte[0];
+
+    /**
+     * Viterbi-Werte der aktuellen Position (allgemeine Variante)
+     */
+    private final double[] viterbiVar;
+
+    /**
+     * Viterbi-Werte der naechsten Position (allgemeine Variante)
+     */
+    private final double[] viterbiVarNext;
+
+    /**
+     * Konstruktor
+     *
+     * @param model Modell (hoechstens {@link Byte#MAX_VALUE} Zustaende)
+     */
+    ViterbiWorkspace(HMM model) {
+        this.model = model;
+        this.stateCount = model.stateCount;
+        this.viterbiVar = new double[stateCount];
+        this.viterbiVarNext = new double[stateCount];
+    }
+
+    /**
+     * Implementation des Viterbi-Algorithmus fuer bereits logarithmierte Werte.
+     * Liefert den wahrscheinlichsten Zustands-Pfad bei uebergebenen Beobachtungen zurueck.
+     *
+     * @param observations Beobachtungsfolge
+     * @return Zustands-Pfad (leer bei leerer Folge)
+     * @throws IllegalArgumentException falls Beobachtung nicht im Alphabet gefunden wird
+     */
+    char[] viterbi(final char[] observations) throws IllegalArgumentException {
+        int length = observations.length;
+        if (length == 0)
+            return new char[0];
+
+        if (observationIndices.length < length) {
+            observationIndices = new int[Math.max(length, observationIndices.length * 2)];
+            viterbiArg = new byte[observationIndices.length * stateCount];
+        }
+        for (int i = 0; i < length; i++) {
+            observationIndices[i] = model.observationSpace.indexOf(observations[i]);
+        }
+
+        int zLast;
+        switch (stateCount) {
+            case 2:
+                zLast = forward2(length);
+                break;
+            case 3:
+                zLast = forward3(length);
+                break;
+            case 4:
+                zLast = forward4(length);
+                break;
+            default:
+                zLast = forward(length);
+        }
+
+        // backtrace
+        char[] x = new char[length]; // statePath
+        int z = zLast;
+        x[length - 1] = model.stateChar[z];
+        for (int i = length - 1; i > 0; i--) {
+            z = viterbiArg[i * stateCount + z];
+            x[i - 1] = model.stateChar[z];
+        }
+        return x;
+    }
+
+    /**
+     * Allgemeine Variante fuer beliebig viele Zustaende
+     *
+     * @param length Laenge der Folge
+     * @return wahrscheinlichster Endzustand
+     */
+    private int forward(final int length) {
+        double[] var = viterbiVar;
+        double[] varNext = viterbiVarNext;
+        double[][] emission = model.emissionMatrix;
+        double[][] transition = model.transitionMatrix;
+
+        for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+            var[stateIndex] = model.initProbabilities[stateIndex] + emission[stateIndex][observationIndices[0]]; // log-space
+        }
+        for (int i = 1; i < length; i++) {
+            int o = observationIndices[i];
+            int offset = i * stateCount;
+            for (int j = 0; j < stateCount; j++) {
+                double maxProb = Double.NEGATIVE_INFINITY;
+                int maxArg = -1; // maximizing argument
+                for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+                    double prob = var[stateIndex] + transition[stateIndex][j] + emission[j][o]; // log-space
+                    if (prob > maxProb) {
+                        maxProb = prob;
+                        maxArg = stateIndex;
+                    }
+                }
+                varNext[j] = maxProb;
+                viterbiArg[offset + j] = (byte) maxArg;
+            }
+            double[] swap = var;
+            var = varNext;
+            varNext = swap;
+        }
+
+        int zLast = -1;
+        double probLast = Double.NEGATIVE_INFINITY;
+        for (int stateIndex = 0; stateIndex < stateCount; stateIndex++) {
+            if (var[stateIndex] > probLast) {
+                zLast = stateIndex;
+                probLast = var[stateIndex];
+            }
+        }
+        return zLast;
+    }
+
+    /**
+     * Ausgerollte Variante fuer 2 Zustaende
+     *
+     * @param length Laenge der Folge
+     * @return wahrscheinlichster Endzustand
+     */
+    private int forward2(final int length) {
+        final double[] e0 = model.emissionMatrix[0], e1 = model.emissionMatrix[1];
+        final double t00 = model.transitionMatrix[0][0], t01 = model.transitionMatrix[0][1];
+        final double t10 = model.transitionMatrix[1][0], t11 = model.transitionMatrix[1][1];
+        final byte[] arg = viterbiArg;
+        final int[] obs = observationIndices;
+
+        double v0 = model.initProbabilities[0] + e0[obs[0]]; // log-space
+        double v1 = model.initProbabilities[1] + e1[obs[0]];
+        for (int i = 1, offset = 2; i < length; i++, offset += 2) {
+            int o = obs[i];
+            double m, p;
+            int a;
+
+            // state 0
+            double em = e0[o];
+            m = Double.NEGATIVE_INFINITY;
+            a = -1;
+            p = v0 + t00 + em;
+            if (p > m) {
+                m = p;
+                a = 0;
+            }
+            p = v1 + t10 + em;
+            if (p > m) {
+                m = p;
+                a = 1;
+            }
+            double n0 = m;
+            arg[offset] = (byte) a;
+
+            // state 1
+            em = e1[o];
+            m = Double.NEGATIVE_INFINITY;
+            a = -1;
+            p = v0 + t01 + em;
+            if (p > m) {
+                m = p;
+                a = 0;
+            }
+            p = v1 + t11 + em;
+            if (p > m) {
+                m = p;
+                a = 1;
+            }
+            arg[offset + 1] = (byte) a;
+
+            v0 = n0;
+            v1 = m;
+        }
+
+        int zLast = -1;
+        double probLast = Double.NEGATIVE_INFINITY;
+        if (v0 > probLast) {
+            probLast = v0;
+            zLast = 0;
+        }
+        if (v1 > probLast) {
+            zLast = 1;
+        }
+        return zLast;
+    }
+
+    /**
+     * Ausgerollte Variante fuer 3 Zustaende
+     *
+     * @param length Laenge der Folge
+     * @return wahrscheinlichster Endzustand
+     */
+    private int forward3(final int length) {
+        final double[] e0 = model.emissionMatrix[0], e1 = model.emissionMatrix[1], e2 = model.emissionMatrix[2];
+        final double[][] t = model.transitionMatrix;
+        final double t00 = t[0][0], t01 = t[0][1], t02 = t[0][2];
+        final double t10 = t[1][0], t11 = t[1][1], t12 = t[1][2];
+        final double t20 = t[2][0], t21 = t[2][1], t22 = t[2][2];
+        final byte[] arg = viterbiArg;
+        final int[] obs = observationIndices;
+
+        double v0 = model.initProbabilities[0] + e0[obs[0]]; // log-space
+        double v1 = model.initProbabilities[1] + e1[obs[0]];
+        double v2 = model.initProbabilities[2] + e2[obs[0]];
+        for (int i = 1, offset = 3; i < length; i++, offset += 3) {
+            int o = obs[i];
+            double m, p, em;
+            int a;
+
+            // state 0
+            em = e0[o];
+            m = Double.NEGATIVE_INFINITY;
+            a = -1;
+            p = v0 + t00 + em;
+            if (p > m) {
+                m = p;
+                a = 0;
+            }
+            p = v1 + t10 + em;
+            if (p > m) {
+                m = p;
+                a = 1;
+            }
+            p = v2 + t20 + em;
+            if (p > m) {
+                m = p;
+                a = 2;
+            }
+            double n0 = m;
+            arg[offset] = (byte) a;
+
+            // state 1
+            em = e1[o];
+            m = Double.NEGATIVE_INFINITY;
+            a = -1;
+            p = v0 + t01 + em;
+            if (p > m) {
+                m = p;
+                a = 0;
+            }
+            p = v1 + t11 + em;
+            if (p > m) {
+                m = p;
+                a = 1;
+            }
+            p = v2 + t21 + em;
+            if (p > m) {
+                m = p;
+                a = 2;
+            }
+            double n1 = m;
+            arg[offset + 1] = (byte) a;
+
+            // state 2
+            em = e2[o];
+            m = Double.NEGATIVE_INFINITY;
+            a = -1;
+            p = v0 + t02 + em;
+            if (p > m) {
+                m = p;
+                a = 0;
+            }
+            p = v1 + t12 + em;
+            if (p > m) {
+                m = p;
+                a = 1;
+            }
+            p = v2 + t22 + em;
+            if (p > m) {
+                m = p;
+                a = 2;
+            }
+            arg[offset + 2] = (byte) a;
+
+            v0 = n0;
+            v1 = n1;
+            v2 = m;
+        }
+
+        int zLast = -1;
+        double probLast = Double.NEGATIVE_INFINITY;
+        if (v0 > probLast) {
+            probLast = v0;
+            zLast = 0;
+        }
+        if (v1 > probLast) {
+            probLast = v1;
+            zLast = 1;
+        }
+        if (v2 > probLast) {
+            zLast = 2;
+        }
+        return zLast;
+    }
+
+    /**
+     * Ausgerollte Variante fuer 4 Zustaende
+     *
+     * @param length Laenge der Folge
+     * @return wahrscheinlichster Endzustand
+     */
+    private int forward4(final int length) {
+        final double[] e0 = model.emissionMatrix[0], e1 = model.emissionMatrix[1];
+        final double[] e2 = model.emissionMatrix[2], e3 = model.emissionMatrix[3];
+        final double[][] t = model.transitionMatrix;
+        final double t00 = t[0][0], t01 = t[0][1], t02 = t[0][2], t03 = t[0][3];
+        final double t10 = t[1][0], t11 = t[1][1], t12 = t[1][2], t13 = t[1][3];
+        final double t20 = t[2][0], t21 = t[2][1], t22 = t[2][2], t23 = t[2][3];
+        final double t30 = t[3][0], t31 = t[3][1], t32 = t[3][2], t33 = t[3][3];
+        final byte[] arg = viterbiArg;
+        final int[] obs = observationIndices;
+
+        double v0 = model.initProbabilities[0] + e0[obs[0]]; // log-space
+        double v1 = model.initProbabilities[1] + e1[obs[0]];
+        double v2 = model.initProbabilities[2] + e2[obs[0]];
+        double v3 = model.initProbabilities[3] + e3[obs[0]];
+        for (int i = 1, offset = 4; i < length; i++, offset += 4) {
+            int o = obs[i];
+            double m, p, em;
+            int a;
+
+            // state 0
+            em = e0[o];
+            m = Double.NEGATIVE_INFINITY;
+            a = -1;
+            p = v0 + t00 + em;
+            if (p > m) {
+                m = p;
+                a = 0;
+            }
+            p = v1 + t10 + em;
+            if (p > m) {
+                m = p;
+                a = 1;
+            }
+            p = v2 + t20 + em;
+            if (p > m) {
+                m = p;
+                a = 2;
+            }
+            p = v3 + t30 + em;
+            if (p > m) {
+                m = p;
+                a = 3;
+            }
+            double n0 = m;
+            arg[offset] = (byte) a;
+
+            // state 1
+            em = e1[o];
+            m = Double.NEGATIVE_INFINITY;
+            a = -1;
+            p = v0 + t01 + em;
+            if (p > m) {
+                m = p;
+                a = 0;
+            }
+            p = v1 + t11 + em;
+            if (p > m) {
+                m = p;
+                a = 1;
+            }
+            p = v2 + t21 + em;
+            if (p > m) {
+                m = p;
+                a = 2;
+            }
+            p = v3 + t31 + em;
+            if (p > m) {
+                m = p;
+                a = 3;
+            }
+            double n1 = m;
+            arg[offset + 1] = (byte) a;
+
+            // state 2
+            em = e2[o];
+            m = Double.NEGATIVE_INFINITY;
+            a = -1;
+            p = v0 + t02 + em;
+            if (p > m) {
+                m = p;
+                a = 0;
+            }
+            p = v1 + t12 + em;
+            if (p > m) {
+                m = p;
+                a = 1;
+            }
+            p = v2 + t22 + em;
+            if (p > m) {
+                m = p;
+                a = 2;
+            }
+            p = v3 + t32 + em;
+            if (p > m) {
+                m = p;
+                a = 3;
+            }
+            double n2 = m;
+            arg[offset + 2] = (byte) a;
+
+            // state 3
+            em = e3[o];
+            m = Double.NEGATIVE_INFINITY;
+            a = -1;
+            p = v0 + t03 + em;
+            if (p > m) {
+                m = p;
+                a = 0;
+            }
+            p = v1 + t13 + em;
+            if (p > m) {
+                m = p;
+                a = 1;
+            }
+            p = v2 + t23 + em;
+            if (p > m) {
+                m = p;
+                a = 2;
+            }
+            p = v3 + t33 + em;
+            if (p > m) {
+                m = p;
+                a = 3;
+            }
+            arg[offset + 3] = (byte) a;
+
+            v0 = n0;
+            v1 = n1;
+            v2 = n2;
+            v3 = m;
+        }
+
+        int zLast = -1;
+        double probLast = Double.NEGATIVE_INFINITY;
+        if (v0 > probLast) {
+            probLast = v0;
+            zLast = 0;
+        }
+        if (v1 > probLast) {
+            probLast = v1;
+            zLast = 1;
+        }
+        if (v2 > probLast) {
+            probLast = v2;
+            zLast = 2;
+        }
+        if (v3 > probLast) {
+            zLast = 3;
+        }
+        return zLast;
+    }
+}
@@ -0,0 +1,146 @@
+package main.hmm.profil;
+
+import main.alphabet.Alphabet;
+import main.fastaparser.Sequence;
+import main.hmm.HMMFunc;
+import main.hmm.profil.viterbi.ViterbiPath;
+
+/**
+ * <p>
+ * Hintergrund-Modell (Null-Modell) zur Bewertung von Zustands-Pfaden eines {@link ProfilHMM} als Log-Odds-Score in Bit.
+ * </p>
+ * <p>
+ * Das Null-Modell erzeugt unabhaengige Residuen mit festen Hintergrund-Wahrscheinlichkeiten. Die Laenge L wird
+ * geometrisch mit Fortsetzungs-Wahrscheinlichkeit L / (L + 1) modelliert, sodass der Erwartungswert der Laenge
+ * der Sequenz entspricht. Der Bit-Score ist die Differenz der Scores von Modell und Null-Modell, geteilt durch ln 2.
+ * Er haengt nur von der einzelnen Sequenz ab, wodurch jede Sequenz unabhaengig von allen anderen klassifiziert werden kann.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class NullModel {
+
+    /**
+     * Alphabet
+     */
+    private final Alphabet alphabet;
+
+    /**
+     * logarithmierte Hintergrund-Wahrscheinlichkeiten je Code des Alphabets
+     * (Spalten ab {@link Alphabet#size()} fuer mehrdeutige Zeichen)
+     */
+    private final double[] logFrequencies;
+
+    /**
+     * Konstruktor
+     *
+     * @param alphabet    Alphabet
+     * @param frequencies (nicht logarithmierte) Hintergrund-Wahrscheinlichkeiten je Residuum, werden auf die Summe 1 normiert
+     * @throws IllegalArgumentException falls Alphabet oder Wahrscheinlichkeiten == null, Anzahl nicht der Groesse des Alphabets entspricht
+     *                                  oder Wahrscheinlichkeiten negativ sind bzw. ihre Summe 0 ist
+     */
+    public NullModel(final Alphabet alphabet, final double[] frequencies) throws IllegalArgumentException {
+        if (alphabet == null)
+            throw new IllegalArgumentException("alphabet is null");
+        if (frequencies == null)
+            throw new IllegalArgumentException("frequencies is null");
+        if (frequencies.length != alphabet.size())
+            throw new IllegalArgumentException("frequencies length " + frequencies.length + " does not match alphabet size " + alphabet.size());
+
+        double sum = 0d;
+        for (double frequency : frequencies) {
+            if (!(frequency >= 0d))
+                throw new IllegalArgumentException("frequency " + frequency + " is negative");
+            sum += frequency;
+        }
+        if (!(sum > 0d))
+            throw new IllegalArgumentException("frequencies sum up to 0");
+
+        this.alphabet = alphabet;
+        logFrequencies = new double[alphabet.codeCount()];
+        for (int code = 0; code < alphabet.size(); code++) {
+            logFrequencies[code] = Math.log(frequencies[code] / sum);
+        }
+        for (int code = alphabet.size(); code < logFrequencies.length; code++) {
+            int[] components = alphabet.components(code);
+            double logSum = Double.NEGATIVE_INFINITY;
+            for (int component : components) {
+                logSum = HMMFunc.logSum(logSum, logFrequencies[component]);
+            }
+            logFrequencies[code] = logSum - Math.log(components.length);
+        }
+    }
+
+    /**
+     * Erstellt das Null-Modell eines {@link ProfilHMM}.
+     * Die Hintergrund-Wahrscheinlichkeiten sind die gemittelten Beobachtungswahrscheinlichkeiten der Insert-Zustaende.
+     *
+     * @param model Modell
+     * @return Null-Modell
+     * @throws IllegalArgumentException falls Modell == null
+     */
+    public static NullModel of(final ProfilHMM model) throws IllegalArgumentException {
+        if (model == null)
+            throw new IllegalArgumentException("model is null");
+
+        Alphabet alphabet = model.getAlphabet();
+        double[] frequencies = new double[alphabet.size()];
+        for (double[] emissionProb : model.getEmissionProbInsert()) {
+            for (int k = 0; k < frequencies.length; k++) {
+                frequencies[k] += Math.exp(emissionProb[k]);
+            }
+        }
+        return new NullModel(alphabet, frequencies);
+    }
+
+    /**
+     * Liefert den (natuerlich logarithmierten) Score der uebergebenen Sequenz im Null-Modell inkl. Laengen-Verteilung zurueck
+     *
+     * @param sequence Sequenz
+     * @return logarithmierte Wahrscheinlichkeit der Sequenz im Null-Modell
+     * @throws IllegalArgumentException falls ein Zeichen der Sequenz nicht im Alphabet gefunden wird
+     */
+    public double score(final Sequence sequence) throws IllegalArgumentException {
+        int[] codes = sequence.getEncodedSequence().toCodes(alphabet);
+        int length = codes.length;
+
+        double score = 0d;
+        for (int code : codes) {
+            score += logFrequencies[code];
+        }
+        // geometric length distribution with mean length: p1 = L / (L + 1)
+        if (length > 0)
+            score += length * Math.log((double) length / (length + 1));
+        score -= Math.log(length + 1);
+        return score;
+    }
+
+    /**
+     * Liefert den Log-Odds-Score des uebergebenen Zustands-Pfads gegenueber dem Null-Modell in Bit zurueck
+     *
+     * @param path Zustands-Pfad
+     * @return Bit-Score
+     * @throws IllegalArgumentException falls ein Zeichen der Sequenz nicht im Alphabet gefunden wird
+     */
+    public double bitScore(final ViterbiPath path) throws IllegalArgumentException {
+        return (path.getScore() - score(path.getSequence())) / Math.log(2);
+    }
+
+    /**
+     * Liefert logarithmierte Hintergrund-Wahrscheinlichkeiten je Code des Alphabets zurueck
+     *
+     * @return logarithmierte Hintergrund-Wahrscheinlichkeiten
+     */
+    public double[] getLogFrequencies() {
+        return logFrequencies.clone();
+    }
+
+    /**
+     * Liefert Alphabet zurueck, dessen Codes die Hintergrund-Wahrscheinlichkeiten zugeordnet sind
+     *
+     * @return Alphabet
+     */
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+}
@@ -0,0 +1,126 @@
+package main.hmm.profil;
+
+import main.alphabet.Alphabet;
+import main.fastaparser.Sequence;
+import main.hmm.profil.viterbi.ViterbiPath;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test-Klasse fuer {@link NullModel}.
+ *
+ * @author Soeren Metje
+ */
+public class NullModelTest {
+
+    /**
+     * Trainings-Sequenzen (Alignment)
+     */
+    private static final String[] SEQ_TRAIN = {"UACAAUCAAGG", "UA-AAUCAAGG", "U--AAUCAAGG", "U-CAAUCAAGG", "U--AAUCAAGG",
+            "U--AAUCAAGG", "UACAAUCAAGG", "U--AAUCAAGG", "U--AAUCAAGG", "UACAAUCAAGG"};
+
+    /**
+     * zulaessiger Rundungsfehler
+     */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Test von {@link NullModel#score(Sequence)} und {@link NullModel#bitScore(ViterbiPath)}.
+     * Die Scores muessen der geschlossenen Form mit geometrischer Laengen-Verteilung (p1 = L / (L + 1)) entsprechen:
+     * sum(ln f) + L * ln p1 + ln(1 - p1), der Bit-Score ist (Score Modell - Score Null-Modell) / ln 2.
+     */
+    @Test
+    public void testClosedForm() {
+        double[] frequencies = {1d, 2d, 3d, 4d}; // A, C, G, U -> 0.1, 0.2, 0.3, 0.4
+        NullModel nullModel = new NullModel(Alphabet.RNA, frequencies);
+
+        Random random = new Random(0);
+        for (int i = 0; i < 200; i++) {
+            int length = i < 3 ? i : random.nextInt(300);
+            StringBuilder builder = new StringBuilder();
+            double expected = 0d;
+            for (int k = 0; k < length; k++) {
+                int index = random.nextInt(4);
+                builder.append("ACGU".charAt(index));
+                expected += Math.log((index + 1) / 10d);
+            }
+            double p1 = (double) length / (length + 1);
+            expected += length == 0 ? 0d : length * Math.log(p1);
+            expected += Math.log(1d - p1);
+
+            Sequence sequence = new Sequence("seq" + i, null, builder.toString());
+            Assert.assertEquals("length " + length, expected, nullModel.score(sequence), EPSILON * Math.max(1d, Math.abs(expected)));
+
+            double modelScore = -3.25 * length - 1d;
+            Assert.assertEquals((modelScore - expected) / Math.log(2), nullModel.bitScore(new ViterbiPath(sequence, modelScore)),
+                    EPSILON * Math.max(1d, Math.abs(expected)));
+        }
+
+        // empty sequence: length distribution only, p(L = 0) = 1
+        Assert.assertEquals(0d, nullModel.score(new Sequence("empty", null, "")), 0d);
+    }
+
+    /**
+     * Test von {@link NullModel#score(Sequence)} mit Kleinbuchstaben und mehrdeutigen Zeichen.
+     * Ein mehrdeutiges Zeichen hat den Mittelwert der Wahrscheinlichkeiten seiner Residuen.
+     */
+    @Test
+    public void testDegenerateSymbols() {
+        NullModel nullModel = new NullModel(Alphabet.RNA, new double[]{0.1, 0.2, 0.3, 0.4});
+        double lengthTerm = 2 * Math.log(2d / 3d) + Math.log(1d / 3d);
+
+        Assert.assertEquals(nullModel.score(new Sequence("a", null, "AC")), nullModel.score(new Sequence("b", null, "ac")), 0d);
+        Assert.assertEquals(Math.log(0.1) + Math.log(0.25) + lengthTerm, nullModel.score(new Sequence("n", null, "AN")), EPSILON);
+        Assert.assertEquals(Math.log(0.1) + Math.log((0.1 + 0.3) / 2) + lengthTerm, nullModel.score(new Sequence("r", null, "AR")), EPSILON);
+        Assert.assertEquals(Math.log(0.1) + Math.log(0.4) + lengthTerm, nullModel.score(new Sequence("t", null, "AT")), EPSILON);
+    }
+
+    /**
+     * Test von {@link NullModel#of(ProfilHMM)}.
+     * Die Hintergrund-Wahrscheinlichkeiten sind die gemittelten Beobachtungswahrscheinlichkeiten der Insert-Zustaende.
+     */
+    @Test
+    public void testOfModel() {
+        List<Sequence> sequences = new ArrayList<>(SEQ_TRAIN.length);
+        for (int i = 0; i < SEQ_TRAIN.length; i++) {
+            sequences.add(new Sequence(String.valueOf(i), null, SEQ_TRAIN[i]));
+        }
+        ProfilHMM model = new RNAProfilHMM(sequences);
+        NullModel nullModel = NullModel.of(model);
+        Assert.assertSame(model.getAlphabet(), nullModel.getAlphabet());
+
+        double[][] emissionProbInsert = model.getEmissionProbInsert();
+        double[] logFrequencies = nullModel.getLogFrequencies();
+        double sum = 0d;
+        for (int k = 0; k < model.getAlphabet().size(); k++) {
+            double mean = 0d;
+            for (double[] emission : emissionProbInsert) {
+                mean += Math.exp(emission[k]);
+            }
+            mean /= emissionProbInsert.length;
+            Assert.assertEquals(Math.log(mean), logFrequencies[k], EPSILON);
+            sum += Math.exp(logFrequencies[k]);
+        }
+        Assert.assertEquals(1d, sum, EPSILON);
+    }
+
+    /**
+     * Test von {@link NullModel#NullModel(Alphabet, double[])} mit negativer Wahrscheinlichkeit
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeFrequency() {
+        new NullModel(Alphabet.RNA, new double[]{0.5, 0.5, 0.5, -0.1});
+    }
+
+    /**
+     * Test von {@link NullModel#NullModel(Alphabet, double[])} mit falscher Anzahl Wahrscheinlichkeiten
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFrequencyCount() {
+        new NullModel(Alphabet.RNA, new double[]{1d, 1d, 1d});
+    }
+}
@@ -1,10 +1,14 @@
 package main.hmm.profil;
 
+import main.alphabet.Alphabet;
 import main.fastaparser.Sequence;
 import main.hmm.HMMFunc;
+import main.hmm.profil.calibration.Gumbel;
 import main.logger.Log;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>
@@ -66,6 +70,16 @@ public abstract class ProfilHMM {
      */
     public static final int STATE_COUNT = STATES.length;
 
+    /**
+     * Zustaende als {@link Alphabet} zur Abbildung auf ihren Index
+     */
+    private static final Alphabet STATE_ALPHABET = Alphabet.of(STATES);
+
+    /**
+     * Zaehler fuer die Kennungen der Wahrscheinlichkeiten
+     */
+    private static final AtomicLong ID_COUNTER = new AtomicLong();
+
     /**
      * Index des Match-Zustand
      */
@@ -104,9 +118,9 @@ public abstract class ProfilHMM {
     private final char gap;
 
     /**
-     * Zeichen fuer Nukleotide
+     * Alphabet der Nukleotide
      */
-    private final char[] bases;
+    private final Alphabet alphabet;
 
     /**
      * Beobachtungswahrscheinlichketen der Nukleotide im Match-Zustand an Position im Modell
@@ -118,6 +132,30 @@ public abstract class ProfilHMM {
      */
     private double[][] emissionProbInsert;
 
+    /**
+     * Beobachtungswahrscheinlichketen im Match-Zustand je Code des Alphabets (inklusive mehrdeutiger Zeichen).
+     * Identisch mit emissionProbMatch, falls das Alphabet keine mehrdeutigen Zeichen besitzt.
+     */
+    private double[][] emissionCodeMatch;
+
+    /**
+     * Beobachtungswahrscheinlichketen im Insert-Zustand je Code des Alphabets (inklusive mehrdeutiger Zeichen).
+     * Identisch mit emissionProbInsert, falls das Alphabet keine mehrdeutigen Zeichen besitzt.
+     */
+    private double[][] emissionCodeInsert;
+
+    /**
+     * Kennung der aktuellen Wahrscheinlichkeiten. Wird bei jeder Aenderung der Wahrscheinlichkeiten neu vergeben,
+     * sodass Ergebnisse (z.B. in {@link main.hmm.profil.viterbi.ViterbiCache}) eindeutig einem Stand des Modells zugeordnet werden koennen.
+     */
+    private volatile long id;
+
+    /**
+     * Parameter der Score-Verteilung zufaelliger Sequenzen fuer E-Werte (siehe {@link main.hmm.profil.calibration.Calibration})
+     * oder null, falls nicht kalibriert. Wird bei jeder Aenderung der Wahrscheinlichkeiten verworfen.
+     */
+    private volatile Gumbel gumbel;
+
     /**
      * Uebergangswahrscheinlichen zwischen den Zustaenden an Position im Modell
      */
@@ -129,35 +167,157 @@ public abstract class ProfilHMM {
      */
     private int lengthModel; // interpreting beginning-state als match-state
 
+    /**
+     * Laenge des Trainings-Alignments (Anzahl der Spalten)
+     */
+    private int lengthAlignment;
+
+    /**
+     * Anzahl der Trainings-Sequenzen, aus denen die Haeufigkeiten stammen
+     */
+    private int sequenceCount;
+
+    /**
+     * Haeufigkeiten der Gaps je Spalte des Trainings-Alignments
+     */
+    private int[] gapCounts;
+
+    /**
+     * Haeufigkeiten der Nukleotide je Spalte des Trainings-Alignments
+     */
+    private int[][] baseCounts;
+
+    /**
+     * Gibt je Spalte des Trainings-Alignments an, ob sie einem Match-Zustand zugeordnet ist
+     */
+    private boolean[] matchState;
+
+    /**
+     * Haeufigkeiten der Uebergaenge zwischen den Zustaenden an Position im Modell
+     */
+    private int[][][] transitionCount;
+
     /**
      * Konstruktor. Erstellt Modell und fuehrt die Methode buildModel aus.
      * Anschliessend werden die logarithmierten Wahrscheinlichkeiten berechnet.
      *
      * @param sequencesTrain        Trainings-Sequenzen
      * @param gap                   Zeichen fuer Gap
-     * @param bases                 Zeichen fuer Nukleotide
+     * @param alphabet              Alphabet der Nukleotide
      * @param pseudoCountEmission   Pseudo-Count fuer Berechnung der Emissions-Wahrscheinlichkeiten
      * @param pseudoCountTransition Pseudo-Count fuer Berechnung der Uebergangs-Wahrscheinlichkeiten
      * @param thresholdMatchState   Anteil and Nukleotiden (also keine gaps), ab dem die Spalte als Match-State gezaehlt wird
      * @throws IllegalArgumentException falls in buildModel ein Fehler auftritt
      */
-    public ProfilHMM(List<Sequence> sequencesTrain, char gap, char[] bases, int pseudoCountEmission, int pseudoCountTransition, double thresholdMatchState) throws IllegalArgumentException {
+    public ProfilHMM(List<Sequence> sequencesTrain, char gap, Alphabet alphabet, int pseudoCountEmission, int pseudoCountTransition, double thresholdMatchState) throws IllegalArgumentException {
         this.gap = gap;
-        this.bases = bases;
+        this.alphabet = alphabet;
         this.pseudoCountEmission = pseudoCountEmission;
         this.pseudoCountTransition = pseudoCountTransition;
         this.thresholdMatchState = thresholdMatchState;
         buildModel(sequencesTrain);
-        // calc log for each element in all matrices (can be done before Viterbi-Algo is running)
-        HMMFunc.logspace(transitionProb);
-        HMMFunc.logspace(emissionProbMatch);
-        HMMFunc.logspace(emissionProbInsert);
+    }
+
+    /**
+     * Konstruktor. Leitet ein Modell mit anderen Parametern aus den beibehaltenen Haeufigkeiten des uebergebenen Modells ab,
+     * ohne die Spalten der Trainings-Sequenzen erneut zu zaehlen.
+     * Ergibt sich aus dem Schwellwert dieselbe Zuordnung der Spalten zu Match-Zustaenden, werden auch die Haeufigkeiten
+     * der Uebergaenge uebernommen. Ansonsten werden nur diese anhand der Trainings-Sequenzen neu gezaehlt.
+     * Anschliessend werden die logarithmierten Wahrscheinlichkeiten berechnet.
+     *
+     * @param source                Modell, dessen Haeufigkeiten verwendet werden
+     * @param sequencesTrain        Trainings-Sequenzen des uebergebenen Modells
+     * @param pseudoCountEmission   Pseudo-Count fuer Berechnung der Emissions-Wahrscheinlichkeiten
+     * @param pseudoCountTransition Pseudo-Count fuer Berechnung der Uebergangs-Wahrscheinlichkeiten
+     * @param thresholdMatchState   Anteil and Nukleotiden (also keine gaps), ab dem die Spalte als Match-State gezaehlt wird
+     * @throws IllegalArgumentException falls Modell == null oder die Trainings-Sequenzen nicht zum Modell passen
+     */
+    protected ProfilHMM(ProfilHMM source, List<Sequence> sequencesTrain, int pseudoCountEmission, int pseudoCountTransition, double thresholdMatchState) throws IllegalArgumentException {
+        if (source == null)
+            throw new IllegalArgumentException("source is null");
+        if (!source.hasCounts())
+            throw new IllegalArgumentException("source has no retained counts");
+        this.gap = source.gap;
+        this.alphabet = source.alphabet;
+        this.pseudoCountEmission = pseudoCountEmission;
+        this.pseudoCountTransition = pseudoCountTransition;
+        this.thresholdMatchState = thresholdMatchState;
+
+        lengthAlignment = source.lengthAlignment;
+        sequenceCount = source.sequenceCount;
+        gapCounts = source.gapCounts.clone();
+        baseCounts = new int[lengthAlignment][];
+        for (int i = 0; i < lengthAlignment; i++) {
+            baseCounts[i] = source.baseCounts[i].clone();
+        }
+
+        matchState = findMatchStates(gapCounts, sequenceCount, thresholdMatchState);
+        lengthModel = 1; // start-state is first match-state
+        for (boolean match : matchState) {
+            if (match)
+                lengthModel++;
+        }
+
+        transitionCount = new int[STATE_COUNT][STATE_COUNT][];
+        if (Arrays.equals(matchState, source.matchState)) {
+            for (int j = 0; j < STATE_COUNT; j++) {
+                for (int s = 0; s < STATE_COUNT; s++) {
+                    transitionCount[j][s] = source.transitionCount[j][s].clone();
+                }
+            }
+        } else {
+            if (sequencesTrain == null)
+                throw new IllegalArgumentException("sequencesTrain is null");
+            if (sequencesTrain.size() != sequenceCount)
+                throw new IllegalArgumentException("sequencesTrain do not match counts of source model");
+            checkLength(sequencesTrain, lengthAlignment);
+
+            transitionCount = new int[STATE_COUNT][STATE_COUNT][lengthModel];
+            for (Sequence sequence : sequencesTrain) {
+                countTransitions(sequence.getNucleotideSequence(), 1, null);
+            }
+        }
+        Log.dLine("Derived ProfilHMM (Model length = " + lengthModel + ")");
+
+        updateProbabilitiesFromCounts(false);
+    }
+
+    /**
+     * Konstruktor. Erstellt Modell aus bereits berechneten logarithmierten Wahrscheinlichkeiten,
+     * z.B. beim Laden aus einer Datei mittels {@link ProfilHMMFile}.
+     * Das Modell besitzt keine Haeufigkeiten und kann daher nicht mittels {@link #addSequences(List)} aktualisiert werden.
+     *
+     * @param gap                   Zeichen fuer Gap
+     * @param alphabet              Alphabet der Nukleotide
+     * @param pseudoCountEmission   Pseudo-Count fuer Berechnung der Emissions-Wahrscheinlichkeiten
+     * @param pseudoCountTransition Pseudo-Count fuer Berechnung der Uebergangs-Wahrscheinlichkeiten
+     * @param thresholdMatchState   Anteil and Nukleotiden (also keine gaps), ab dem die Spalte als Match-State gezaehlt wird
+     * @param emissionProbMatch     logarithmierte Beobachtungswahrscheinlichketen im Match-Zustand
+     * @param emissionProbInsert    logarithmierte Beobachtungswahrscheinlichketen im Insert-Zustand
+     * @param transitionProb        logarithmierte Uebergangswahrscheinlichen
+     * @throws IllegalArgumentException falls die Dimensionen der Felder nicht zusammen passen
+     */
+    protected ProfilHMM(char gap, Alphabet alphabet, int pseudoCountEmission, int pseudoCountTransition, double thresholdMatchState,
+                        double[][] emissionProbMatch, double[][] emissionProbInsert, double[][][] transitionProb) throws IllegalArgumentException {
+        this.gap = gap;
+        this.alphabet = alphabet;
+        this.pseudoCountEmission = pseudoCountEmission;
+        this.pseudoCountTransition = pseudoCountTransition;
+        this.thresholdMatchState = thresholdMatchState;
+
+        lengthModel = emissionProbMatch.length;
+        if (lengthModel < 1 || emissionProbInsert.length != lengthModel
+                || transitionProb.length != STATE_COUNT || transitionProb[0].length != STATE_COUNT || transitionProb[0][0].length != lengthModel)
+            throw new IllegalArgumentException("tables do not match model length " + lengthModel);
+        setProbabilities(emissionProbMatch, emissionProbInsert, transitionProb);
     }
 
     /**
      * Extrahiert Daten fuer das RNAProfilHMM aus Trainings-Sequenzen.
      * Setzt Laenge des Modells.
-     * Erstellt Felder fuer Beobachtungswahrscheinlichketen und Uebergangswahrscheinlichen zwischen den Zustaenden.
+     * Die Haeufigkeiten der Nukleotide, Gaps und Uebergaenge bleiben im Modell erhalten,
+     * sodass spaeter mittels {@link #addSequences(List)} und {@link #removeSequences(List)} aktualisiert werden kann.
+     * Erstellt Felder fuer (logarithmierte) Beobachtungswahrscheinlichketen und Uebergangswahrscheinlichen zwischen den Zustaenden.
      *
      * @param sequencesTrain Trainings-Sequenzen
      * @throws IllegalArgumentException falls uebergebenes Feld == null
@@ -177,45 +337,29 @@ public abstract class ProfilHMM {
             throw new IllegalArgumentException("sequencesTrain is empty");
         }
 
-        int length = sequencesTrain.get(0).getNucleotideSequence().length();
-        for (Sequence s : sequencesTrain) {
-            int sLength = s.getNucleotideSequence().length();
-            if (sLength != length) {
-                throw new IllegalArgumentException("Sequence '" + s.getDescription()
-                        + "' has different lenght (" + sLength + ") then the first Sequence (" + length + ")");
-            }
-        }
+        int length = sequencesTrain.get(0).getLength();
+        checkLength(sequencesTrain, length);
 
         Log.iLine("Sequence count = " + seqenceCount);
         Log.iLine("Sequence length = " + length);
 
         // find Match or Insertion-States and Model length --------------------------------------------------------
         // also count nucleotides and gaps ------------------------------------------------------------------------
-        int[] gapCounts = new int[length];
-        int[][] baseCounts = new int[length][bases.length];
-
-        for (Sequence seq : sequencesTrain) {
-            for (int i = 0; i < length; i++) {
-                char base = seq.getNucleotideSequence().charAt(i);
-                if (base == gap) {
-                    gapCounts[i]++;
-                } else {
-                    baseCounts[i][observationToIndex(base)]++;
-                }
-            }
+        lengthAlignment = length;
+        sequenceCount = seqenceCount;
+        gapCounts = new int[length];
+        baseCounts = new int[length][alphabet.size()];
+
+        String[] decoded = decode(sequencesTrain); // decode once for columns and transitions
+        for (String seq : decoded) {
+            countColumns(seq, 1);
         }
 
-        boolean[] matchState = new boolean[length];
+        matchState = findMatchStates(gapCounts, sequenceCount, thresholdMatchState);
         lengthModel = 1; // start-state is first match-state
-
-        {
-            int countThreshold = (int) (seqenceCount * (1d - this.thresholdMatchState));
-            for (int i = 0; i < gapCounts.length; i++) {
-                if (gapCounts[i] <= countThreshold) {
-                    lengthModel++;
-                    matchState[i] = true;
-                }
-            }
+        for (boolean match : matchState) {
+            if (match)
+                lengthModel++;
         }
 
         Log.iLine("Model length = " + lengthModel + " (interpreting start-state als match-state)");
@@ -245,98 +389,6 @@ public abstract class ProfilHMM {
             Log.dLine(out.toString());
         }
 
-
-        // calc Emission Prob ---------------------------------------------------------------------------
-
-        emissionProbMatch = new double[lengthModel][bases.length]; // emission-probabilities for match-states
-        emissionProbInsert = new double[lengthModel][bases.length]; // emission-probabilities for insert-states
-
-
-        int[] baseCountsInsert = new int[bases.length];
-        for (int i = 0, iModel = 1; i < length + 1; i++) {
-
-            boolean end = i >= length;
-
-            if (end || matchState[i]) {
-                // set Insert-State Prob
-                {
-                    double[] emissionProbVector = emissionProbInsert[iModel - 1];
-
-                    int sumEmissionCount = 0;
-
-                    for (int baseCount : baseCountsInsert) {
-                        sumEmissionCount += baseCount + pseudoCountEmission;
-                    }
-
-                    for (int j = 0; j < emissionProbVector.length; j++) {
-                        emissionProbVector[j] = ((double) (pseudoCountEmission + baseCountsInsert[j])) / sumEmissionCount;
-                    }
-                }
-
-            }
-
-            if (!end) {
-                if (matchState[i]) {
-                    // set Match-State Prob
-                    {
-                        double[] emissionProbVector = emissionProbMatch[iModel];
-                        int[] baseCountVector = baseCounts[i];
-
-                        int sumEmissionCount = 0;
-
-                        for (int baseCount : baseCountVector) {
-                            sumEmissionCount += baseCount + pseudoCountEmission;
-                        }
-
-                        for (int j = 0; j < emissionProbVector.length; j++) {
-                            emissionProbVector[j] = ((double) (pseudoCountEmission + baseCountVector[j])) / sumEmissionCount;
-                        }
-                    }
-
-                    // reset Inset-State-Counts
-                    for (int j = 0; j < baseCountsInsert.length; j++) {
-                        baseCountsInsert[j] = 0;
-                    }
-
-                    iModel++;
-                }
-                // Insert-State
-                else {
-                    for (int j = 0; j < baseCountsInsert.length; j++) {
-                        baseCountsInsert[j] += baseCounts[i][j];
-                    }
-                }
-            }
-        }
-
-
-        // output Emission-Prob
-        {
-            StringBuilder outEimissionProb = new StringBuilder("\n");
-            outEimissionProb.append("Emission Prob Match: (Pseudo-Count = " + pseudoCountEmission + ")\n");
-            for (int i = 0; i < emissionProbMatch[0].length; i++) {
-                outEimissionProb.append(String.format("%c:  ", bases[i]));
-                for (int j = 0; j < emissionProbMatch.length; j++) {
-                    outEimissionProb.append(String.format("%.2f ", emissionProbMatch[j][i]));
-                }
-                outEimissionProb.append('\n');
-            }
-            Log.iLine(outEimissionProb.toString());
-
-            if (Log.isPrintDebug()) {
-                outEimissionProb = new StringBuilder();
-                outEimissionProb.append("Emission Prob Insert: (Pseudo-Count = " + pseudoCountEmission + ")\n");
-                for (int i = 0; i < emissionProbInsert[0].length; i++) {
-                    outEimissionProb.append(String.format("%c:  ", bases[i]));
-                    for (int j = 0; j < emissionProbInsert.length; j++) {
-                        outEimissionProb.append(String.format("%.2f ", emissionProbInsert[j][i]));
-                    }
-                    outEimissionProb.append('\n');
-                }
-                Log.dLine(outEimissionProb.toString());
-            }
-        }
-
         // calc Transition Count ----------------------------------------------------------------------
 
         if (Log.isPrintDebug()) {
@@ -349,14 +401,15 @@ public abstract class ProfilHMM {
             Log.d(out.toString());
         }
 
-        int[][][] transitionCount = new int[STATES.length][STATES.length][lengthModel];
+        transitionCount = new int[STATES.length][STATES.length][lengthModel];
         {
             StringBuilder out = null;
             if (Log.isPrintDebug()) {
                 out = new StringBuilder();
             }
-            for (Sequence sequence : sequencesTrain) {
-                String sequenceString = sequence.getNucleotideSequence();
+            for (int s = 0; s < decoded.length; s++) {
+                Sequence sequence = sequencesTrain.get(s);
+                String sequenceString = decoded[s];
 
                 // output sequence
                 if (out != null) {
@@ -368,44 +421,7 @@ public abstract class ProfilHMM {
                     out.append("\u001B[0m\n");
                 }
 
-
-                // get States and Transitions
-                char lastState = STATE_MATCH; // interpreting Start-state as Match-state
-                int insertCount = 0;
-
-                if (out != null) {
-                    out.append("    ");
-                }
-                for (int i = 0, iModel = 0; i < length + 1; i++) {
-                    char state = getState(sequenceString, matchState, i);
-                    if (state != STATE_IGNORE) {
-
-                        if (state == STATE_INSERT && lastState == STATE_INSERT) {
-                            insertCount++;
-                        }
-                        // no Insert-Insert (interpreting start and End as Match-state)
-                        else {
-                            transitionCount[stateToIndex(lastState)][stateToIndex(state)][iModel]++;
-
-                            if (state != STATE_INSERT) {
-                                if (lastState == STATE_INSERT) { // last Insert-Insert has ended
-                                    transitionCount[stateToIndex(STATE_INSERT)][stateToIndex(lastState)][iModel] += insertCount;
-                                    insertCount = 0;
-                                }
-                                iModel++;
-                            }
-                        }
-
-
-                        lastState = state;
-                    }
-                    if (out != null) {
-                        out.append("  ").append(state);
-                    }
-                }
-                if (out != null) {
-                    out.append('\n');
-                }
+                countTransitions(sequenceString, 1, out);
             }
             if (out != null) {
                 Log.dLine(out.toString());
@@ -428,22 +444,488 @@ public abstract class ProfilHMM {
             Log.dLine(outTransCounts.toString());
         }
 
+        // calc Emission and Transition Prob ---------------------------------------------------------------
+        updateProbabilitiesFromCounts(true);
+    }
+
+    /**
+     * Fuegt dem Modell weitere (am Trainings-Alignment ausgerichtete) Sequenzen hinzu.
+     * Dabei werden nur die beibehaltenen Haeufigkeiten um die neuen Sequenzen ergaenzt
+     * und die Wahrscheinlichkeiten anschliessend daraus neu berechnet.
+     * Der Aufwand ist also nur von der Anzahl der neuen Sequenzen und der Laenge des Alignments abhaengig.
+     * <p>
+     * Die Zuordnung der Spalten zu Match-Zustaenden (und damit die Laenge des Modells) bleibt unveraendert.
+     * Eine vorherige Verfeinerung mittels {@link main.hmm.profil.baumwelch.BaumWelch} wird verworfen.
+     *
+     * @param sequences hinzuzufuegende Sequenzen
+     * @throws IllegalArgumentException falls uebergebenes Feld == null,
+     *                                  Sequenzen nicht so lang wie das Trainings-Alignment sind
+     *                                  oder Beobachtung nicht im Feld gefunden wird
+     * @throws IllegalStateException    falls das Modell keine Haeufigkeiten besitzt (aus Datei geladen)
+     */
+    public void addSequences(List<Sequence> sequences) throws IllegalArgumentException, IllegalStateException {
+        if (sequences == null)
+            throw new IllegalArgumentException("sequences is null");
+        if (!hasCounts())
+            throw new IllegalStateException("model has no retained counts");
+        checkLength(sequences, lengthAlignment);
+        String[] decoded = decode(sequences);
+        checkObservations(decoded);
+
+        for (String seq : decoded) {
+            countSequence(seq, 1);
+        }
+        Log.iLine("Added " + sequences.size() + " Sequences to ProfilHMM (Sequence count = " + sequenceCount + ")");
+        checkMatchStates();
+        updateProbabilitiesFromCounts(false);
+    }
+
+    /**
+     * Entfernt (am Trainings-Alignment ausgerichtete) Sequenzen aus dem Modell.
+     * Dabei werden nur die beibehaltenen Haeufigkeiten um die Sequenzen verringert
+     * und die Wahrscheinlichkeiten anschliessend daraus neu berechnet.
+     * <p>
+     * Die Zuordnung der Spalten zu Match-Zustaenden (und damit die Laenge des Modells) bleibt unveraendert.
+     * Eine vorherige Verfeinerung mittels {@link main.hmm.profil.baumwelch.BaumWelch} wird verworfen.
+     * <p>
+     * Es wird nicht gespeichert, welche Sequenzen hinzugefuegt wurden. Die Sequenzen werden daher nicht einzeln
+     * auf Zugehoerigkeit geprueft. Sequenzen, die nie hinzugefuegt wurden, werden nur erkannt, falls eine Haeufigkeit
+     * dadurch negativ wuerde. Ansonsten werden die Haeufigkeiten verringert, als waeren sie Teil der Trainings-Sequenzen.
+     *
+     * @param sequences zu entfernende Sequenzen
+     * @throws IllegalArgumentException falls uebergebenes Feld == null,
+     *                                  Sequenzen nicht so lang wie das Trainings-Alignment sind,
+     *                                  Beobachtung nicht im Feld gefunden wird,
+     *                                  alle Trainings-Sequenzen entfernt wuerden
+     *                                  oder eine Haeufigkeit durch das Entfernen negativ wuerde
+     * @throws IllegalStateException    falls das Modell keine Haeufigkeiten besitzt (aus Datei geladen)
+     */
+    public void removeSequences(List<Sequence> sequences) throws IllegalArgumentException, IllegalStateException {
+        if (sequences == null)
+            throw new IllegalArgumentException("sequences is null");
+        if (!hasCounts())
+            throw new IllegalStateException("model has no retained counts");
+        if (sequences.size() >= sequenceCount)
+            throw new IllegalArgumentException("can not remove all training sequences");
+        checkLength(sequences, lengthAlignment);
+        String[] decoded = decode(sequences);
+        checkObservations(decoded);
+
+        for (String seq : decoded) {
+            countSequence(seq, -1);
+        }
+        if (hasNegativeCounts()) {
+            // roll back
+            for (String seq : decoded) {
+                countSequence(seq, 1);
+            }
+            throw new IllegalArgumentException("Sequences were not part of the training sequences (counts would become negative)");
+        }
+        Log.iLine("Removed " + sequences.size() + " Sequences from ProfilHMM (Sequence count = " + sequenceCount + ")");
+        checkMatchStates();
+        updateProbabilitiesFromCounts(false);
+    }
+
+    /**
+     * Prueft, ob alle uebergebenen Sequenzen die uebergebene Laenge besitzen.
+     *
+     * @param sequences Sequenzen
+     * @param length    erwartete Laenge
+     * @throws IllegalArgumentException falls Sequenz eine andere Laenge besitzt
+     */
+    private static void checkLength(List<Sequence> sequences, int length) throws IllegalArgumentException {
+        for (Sequence s : sequences) {
+            int sLength = s.getLength();
+            if (sLength != length) {
+                throw new IllegalArgumentException("Sequence '" + s.getDescription()
+                        + "' has different lenght (" + sLength + ") then the first Sequence (" + length + ")");
+            }
+        }
+    }
+
+    /**
+     * Dekodiert die Nukleotid-Sequenzen der uebergebenen Sequenzen, damit jede Sequenz je Aktualisierung nur einmal dekodiert wird.
+     *
+     * @param sequences Sequenzen
+     * @return Nukleotid-Sequenzen in Reihenfolge der Sequenzen
+     */
+    private static String[] decode(List<Sequence> sequences) {
+        String[] ret = new String[sequences.size()];
+        int i = 0;
+        for (Sequence sequence : sequences) {
+            ret[i++] = sequence.getNucleotideSequence();
+        }
+        return ret;
+    }
+
+    /**
+     * Prueft, ob alle Zeichen der uebergebenen Nukleotid-Sequenzen Gaps oder Nukleotide sind,
+     * damit beim Zaehlen keine halb aktualisierten Haeufigkeiten entstehen.
+     *
+     * @param sequences Nukleotid-Sequenzen
+     * @throws IllegalArgumentException falls Beobachtung nicht im Feld gefunden wird
+     */
+    private void checkObservations(String[] sequences) throws IllegalArgumentException {
+        for (String seq : sequences) {
+            for (int i = 0; i < seq.length(); i++) {
+                char base = seq.charAt(i);
+                if (base != gap)
+                    observationToIndex(base);
+            }
+        }
+    }
+
+    /**
+     * Zaehlt Nukleotide, Gaps und Uebergaenge der uebergebenen Sequenz mit uebergebenem Gewicht
+     * (1 = hinzufuegen, -1 = entfernen) zu den beibehaltenen Haeufigkeiten.
+     *
+     * @param seq   Sequenz
+     * @param delta Gewicht
+     */
+    private void countSequence(final String seq, final int delta) {
+        countColumns(seq, delta);
+        countTransitions(seq, delta, null);
+        sequenceCount += delta;
+    }
+
+    /**
+     * Zaehlt Nukleotide und Gaps je Spalte der uebergebenen Sequenz mit uebergebenem Gewicht.
+     *
+     * @param seq   Sequenz
+     * @param delta Gewicht
+     * @throws IllegalArgumentException falls Beobachtung nicht im Feld gefunden wird
+     */
+    private void countColumns(final String seq, final int delta) throws IllegalArgumentException {
+        for (int i = 0; i < lengthAlignment; i++) {
+            char base = seq.charAt(i);
+            if (base == gap) {
+                gapCounts[i] += delta;
+            } else {
+                baseCounts[i][observationToIndex(base)] += delta;
+            }
+        }
+    }
+
+    /**
+     * Zaehlt Uebergaenge zwischen den Zustaenden der uebergebenen Sequenz mit uebergebenem Gewicht.
+     * Falls uebergebener StringBuilder != null, werden die Zustaende fuer die Debug-Ausgabe angehaengt.
+     *
+     * @param seq   Sequenz
+     * @param delta Gewicht
+     * @param out   StringBuilder fuer Debug-Ausgabe oder null
+     */
+    private void countTransitions(final String seq, final int delta, final StringBuilder out) {
+        // get States and Transitions
+        char lastState = STATE_MATCH; // interpreting Start-state as Match-state
+        int insertCount = 0;
+
+        if (out != null) {
+            out.append("    ");
+        }
+        for (int i = 0, iModel = 0; i < lengthAlignment + 1; i++) {
+            char state = getState(seq, matchState, i);
+            if (state != STATE_IGNORE) {
+
+                if (state == STATE_INSERT && lastState == STATE_INSERT) {
+                    insertCount++;
+                }
+                // no Insert-Insert (interpreting start and End as Match-state)
+                else {
+                    transitionCount[stateToIndex(lastState)][stateToIndex(state)][iModel] += delta;
+
+                    if (state != STATE_INSERT) {
+                        if (lastState == STATE_INSERT) { // last Insert-Insert has ended
+                            transitionCount[STATE_INSERT_INDEX][STATE_INSERT_INDEX][iModel] += delta * insertCount;
+                            insertCount = 0;
+                        }
+                        iModel++;
+                    }
+                }
+
+
+                lastState = state;
+            }
+            if (out != null) {
+                out.append("  ").append(state);
+            }
+        }
+        if (out != null) {
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Liefert true zurueck, falls eine der beibehaltenen Haeufigkeiten negativ ist. Ansonsten false.
+     *
+     * @return true, falls eine Haeufigkeit negativ ist. Ansonsten false.
+     */
+    private boolean hasNegativeCounts() {
+        for (int i = 0; i < lengthAlignment; i++) {
+            if (gapCounts[i] < 0)
+                return true;
+            for (int count : baseCounts[i]) {
+                if (count < 0)
+                    return true;
+            }
+        }
+        for (int[][] transCountMatrix : transitionCount) {
+            for (int[] transCountVector : transCountMatrix) {
+                for (int count : transCountVector) {
+                    if (count < 0)
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gibt einen Hinweis aus, falls die Zuordnung der Spalten zu Match-Zustaenden nach aktuellen Haeufigkeiten
+     * von der Struktur des Modells abweicht. In diesem Fall muss das Modell neu erstellt werden, um die Struktur anzupassen.
+     */
+    private void checkMatchStates() {
+        boolean[] currentMatchState = findMatchStates(gapCounts, sequenceCount, thresholdMatchState);
+        for (int i = 0; i < lengthAlignment; i++) {
+            if (currentMatchState[i] != matchState[i]) {
+                Log.iLine("Match-state assignment of column " + i + " changed. Model structure is kept, rebuild model to apply.");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Bestimmt anhand der Haeufigkeiten der Gaps, welche Spalten des Trainings-Alignments Match-Zustaenden zugeordnet werden.
+     *
+     * @param gapCounts           Haeufigkeiten der Gaps je Spalte
+     * @param sequenceCount       Anzahl der Sequenzen
+     * @param thresholdMatchState Anteil and Nukleotiden (also keine gaps), ab dem die Spalte als Match-State gezaehlt wird
+     * @return je Spalte true, falls Match-Zustand. Ansonsten false.
+     */
+    public static boolean[] findMatchStates(final int[] gapCounts, final int sequenceCount, final double thresholdMatchState) {
+        boolean[] matchState = new boolean[gapCounts.length];
+        int countThreshold = (int) (sequenceCount * (1d - thresholdMatchState));
+        for (int i = 0; i < gapCounts.length; i++) {
+            if (gapCounts[i] <= countThreshold) {
+                matchState[i] = true;
+            }
+        }
+        return matchState;
+    }
+
+    /**
+     * Berechnet die Wahrscheinlichkeiten aus den beibehaltenen Haeufigkeiten der Spalten und Uebergaenge.
+     * Die Haeufigkeiten der Insert-Spalten zwischen zwei Match-Zustaenden werden dabei zusammengefasst.
+     *
+     * @param output true, falls die Wahrscheinlichkeiten ausgegeben werden sollen
+     */
+    private void updateProbabilitiesFromCounts(final boolean output) {
+        double[][] emissionCountMatch = new double[lengthModel][alphabet.size()];
+        double[][] emissionCountInsert = new double[lengthModel][alphabet.size()];
+        for (int i = 0, iModel = 1; i < lengthAlignment; i++) {
+            if (matchState[i]) {
+                for (int j = 0; j < alphabet.size(); j++) {
+                    emissionCountMatch[iModel][j] = baseCounts[i][j];
+                }
+                iModel++;
+            }
+            // Insert-State
+            else {
+                for (int j = 0; j < alphabet.size(); j++) {
+                    emissionCountInsert[iModel - 1][j] += baseCounts[i][j];
+                }
+            }
+        }
+
+        double[][][] transitionCountDouble = new double[STATE_COUNT][STATE_COUNT][lengthModel];
+        for (int j = 0; j < STATE_COUNT; j++) {
+            for (int s = 0; s < STATE_COUNT; s++) {
+                for (int i = 0; i < lengthModel; i++) {
+                    transitionCountDouble[j][s][i] = transitionCount[j][s][i];
+                }
+            }
+        }
+
+        updateProbabilities(emissionCountMatch, emissionCountInsert, transitionCountDouble, output);
+    }
+
+    /**
+     * Schaetzt die Wahrscheinlichkeiten des Modells anhand uebergebener (erwarteter) Haeufigkeiten neu.
+     * Verwendet dabei die Pseudo-Counts des Modells, analog zu buildModel.
+     * Anschliessend werden die logarithmierten Wahrscheinlichkeiten berechnet.
+     * <p>
+     * Wird vom Baum-Welch-Algorithmus ({@link main.hmm.profil.baumwelch.BaumWelch}) fuer den M-Schritt verwendet.
+     * Die Struktur des Modells (Laenge) und die beibehaltenen Haeufigkeiten bleiben dabei unveraendert.
+     *
+     * @param emissionCountMatch  Haeufigkeiten der Nukleotide im Match-Zustand an Position im Modell
+     * @param emissionCountInsert Haeufigkeiten der Nukleotide im Insert-Zustand an Position im Modell
+     * @param transitionCount     Haeufigkeiten der Uebergaenge zwischen den Zustaenden an Position im Modell
+     * @throws IllegalArgumentException falls die Dimensionen der Felder nicht zum Modell passen
+     */
+    public void reestimate(final double[][] emissionCountMatch, final double[][] emissionCountInsert, final double[][][] transitionCount) throws IllegalArgumentException {
+        if (emissionCountMatch.length != lengthModel || emissionCountInsert.length != lengthModel
+                || transitionCount.length != STATE_COUNT || transitionCount[0][0].length != lengthModel)
+            throw new IllegalArgumentException("counts do not match model length " + lengthModel);
+
+        updateProbabilities(emissionCountMatch, emissionCountInsert, transitionCount, false);
+    }
+
+    /**
+     * Liefert den logarithmierten Dirichlet-Prior der Pseudo-Counts zurueck (bis auf eine Konstante), d.h. Pseudo-Count
+     * mal Summe der logarithmierten Wahrscheinlichkeiten, die durch {@link #reestimate(double[][], double[][], double[][][])}
+     * geschaetzt werden (Match-Emissionen ohne Start-Zustand, Insert-Emissionen und Uebergaenge).
+     * Die Neuschaetzung maximiert die Log-Likelihood plus diesen Wert (Log-Posterior).
+     * Bei Pseudo-Count 0 traegt der jeweilige Teil nichts bei.
+     *
+     * @return logarithmierter Prior
+     */
+    public double logPrior() {
+        double sumEmission = 0d;
+        double sumTransition = 0d;
+        for (int i = 0; i < lengthModel; i++) {
+            for (int k = 0; k < alphabet.size(); k++) {
+                // start-state does not emit
+                if (i > 0)
+                    sumEmission += emissionProbMatch[i][k];
+                sumEmission += emissionProbInsert[i][k];
+            }
+            for (int j = 0; j < STATE_COUNT; j++) {
+                for (int s = 0; s < STATE_COUNT; s++) {
+                    sumTransition += transitionProb[j][s][i];
+                }
+            }
+        }
+        return (pseudoCountEmission == 0 ? 0d : pseudoCountEmission * sumEmission)
+                + (pseudoCountTransition == 0 ? 0d : pseudoCountTransition * sumTransition);
+    }
+
+    /**
+     * Berechnet die Wahrscheinlichkeiten aus uebergebenen Haeufigkeiten an Position im Modell und den Pseudo-Counts.
+     * Anschliessend werden die logarithmierten Wahrscheinlichkeiten berechnet und erst dann im Modell ersetzt.
+     *
+     * @param emissionCountMatch  Haeufigkeiten der Nukleotide im Match-Zustand an Position im Modell
+     * @param emissionCountInsert Haeufigkeiten der Nukleotide im Insert-Zustand an Position im Modell
+     * @param transitionCount     Haeufigkeiten der Uebergaenge zwischen den Zustaenden an Position im Modell
+     * @param output              true, falls die Wahrscheinlichkeiten ausgegeben werden sollen
+     */
+    private void updateProbabilities(final double[][] emissionCountMatch, final double[][] emissionCountInsert, final double[][][] transitionCount, final boolean output) {
+        // calc Emission Prob ---------------------------------------------------------------------------
+        double[][] emissionProbMatch = new double[lengthModel][alphabet.size()]; // emission-probabilities for match-states
+        double[][] emissionProbInsert = new double[lengthModel][alphabet.size()]; // emission-probabilities for insert-states
+        for (int i = 0; i < lengthModel; i++) {
+            // start-state does not emit
+            if (i > 0) {
+                normalize(emissionCountMatch[i], pseudoCountEmission, emissionProbMatch[i]);
+            }
+            normalize(emissionCountInsert[i], pseudoCountEmission, emissionProbInsert[i]);
+        }
 
         // calc Transition Prob ----------------------------------------------------------------------
-        transitionProb = new double[STATES.length][STATES.length][lengthModel];
+        double[][][] transitionProb = new double[STATE_COUNT][STATE_COUNT][lengthModel];
+        double[] transCountVector = new double[STATE_COUNT];
+        double[] transProbVector = new double[STATE_COUNT];
         for (int i = 0; i < lengthModel; i++) {
+            for (int j = 0; j < STATE_COUNT; j++) {
+                for (int s = 0; s < STATE_COUNT; s++) {
+                    transCountVector[s] = transitionCount[j][s][i];
+                }
+                normalize(transCountVector, pseudoCountTransition, transProbVector);
+                for (int s = 0; s < STATE_COUNT; s++) {
+                    transitionProb[j][s][i] = transProbVector[s];
+                }
+            }
+        }
+
+        if (output) {
+            outputProbabilities(emissionProbMatch, emissionProbInsert, transitionProb);
+        }
+
+        // calc log for each element in all matrices (can be done before Viterbi-Algo is running)
+        HMMFunc.logspace(transitionProb);
+        HMMFunc.logspace(emissionProbMatch);
+        HMMFunc.logspace(emissionProbInsert);
+
+        setProbabilities(emissionProbMatch, emissionProbInsert, transitionProb);
+    }
+
+    /**
+     * Ersetzt die logarithmierten Wahrscheinlichkeiten des Modells und berechnet die Beobachtungswahrscheinlichkeiten
+     * der mehrdeutigen Zeichen des Alphabets. Diese ergeben sich als Mittelwert der Wahrscheinlichkeiten der Residuen,
+     * fuer die das Zeichen steht.
+     *
+     * @param emissionProbMatch  logarithmierte Beobachtungswahrscheinlichketen im Match-Zustand
+     * @param emissionProbInsert logarithmierte Beobachtungswahrscheinlichketen im Insert-Zustand
+     * @param transitionProb     logarithmierte Uebergangswahrscheinlichen
+     */
+    private void setProbabilities(final double[][] emissionProbMatch, final double[][] emissionProbInsert, final double[][][] transitionProb) {
+        this.emissionCodeMatch = extendEmissionProb(emissionProbMatch);
+        this.emissionCodeInsert = extendEmissionProb(emissionProbInsert);
+        this.emissionProbMatch = emissionProbMatch;
+        this.emissionProbInsert = emissionProbInsert;
+        this.transitionProb = transitionProb;
+        this.id = ID_COUNTER.incrementAndGet();
+        this.gumbel = null; // calibration is outdated
+    }
 
-            int[] sumTrans = new int[STATES.length]; // vergleichsgroessen
-            for (int j = 0; j < STATES.length; j++) {
-                for (int k = 0; k < STATES.length; k++) {
-                    sumTrans[j] += transitionCount[j][k][i] + pseudoCountTransition;
+    /**
+     * Erweitert uebergebene logarithmierte Beobachtungswahrscheinlichkeiten um die Codes der mehrdeutigen Zeichen des Alphabets
+     * (logarithmierter Mittelwert der Residuen). Liefert das uebergebene Feld zurueck, falls keine mehrdeutigen Zeichen vorhanden sind.
+     *
+     * @param emissionProb logarithmierte Beobachtungswahrscheinlichketen je Residuum
+     * @return logarithmierte Beobachtungswahrscheinlichketen je Code
+     */
+    private double[][] extendEmissionProb(final double[][] emissionProb) {
+        if (!alphabet.hasDegenerateSymbols())
+            return emissionProb;
+
+        int size = alphabet.size();
+        double[][] ret = new double[emissionProb.length][alphabet.codeCount()];
+        for (int i = 0; i < emissionProb.length; i++) {
+            System.arraycopy(emissionProb[i], 0, ret[i], 0, size);
+            for (int code = size; code < ret[i].length; code++) {
+                int[] components = alphabet.components(code);
+                double sum = Double.NEGATIVE_INFINITY;
+                for (int component : components) {
+                    sum = HMMFunc.logSum(sum, emissionProb[i][component]);
                 }
+                ret[i][code] = sum - Math.log(components.length);
             }
+        }
+        return ret;
+    }
 
-            for (int j = 0; j < STATES.length; j++) {
-                for (int s = 0; s < STATES.length; s++) {
-                    transitionProb[j][s][i] = ((double) transitionCount[j][s][i] + pseudoCountTransition) / sumTrans[j];
+    /**
+     * Gibt uebergebene (nicht logarithmierte) Wahrscheinlichkeiten aus.
+     * Die Emissions-Wahrscheinlichkeiten der Match-Zustaende als Info, alle weiteren als Debug-Ausgabe.
+     *
+     * @param emissionProbMatch  Beobachtungswahrscheinlichketen im Match-Zustand
+     * @param emissionProbInsert Beobachtungswahrscheinlichketen im Insert-Zustand
+     * @param transitionProb     Uebergangswahrscheinlichen
+     */
+    private void outputProbabilities(final double[][] emissionProbMatch, final double[][] emissionProbInsert, final double[][][] transitionProb) {
+        // output Emission-Prob
+        {
+            StringBuilder outEimissionProb = new StringBuilder("\n");
+            outEimissionProb.append("Emission Prob Match: (Pseudo-Count = " + pseudoCountEmission + ")\n");
+            for (int i = 0; i < emissionProbMatch[0].length; i++) {
+                outEimissionProb.append(String.format("%c:  ", alphabet.symbol(i)));
+                for (int j = 0; j < emissionProbMatch.length; j++) {
+                    outEimissionProb.append(String.format("%.2f ", emissionProbMatch[j][i]));
                 }
+                outEimissionProb.append('\n');
+            }
+            Log.iLine(outEimissionProb.toString());
+
+            if (Log.isPrintDebug()) {
+                outEimissionProb = new StringBuilder();
+                outEimissionProb.append("Emission Prob Insert: (Pseudo-Count = " + pseudoCountEmission + ")\n");
+                for (int i = 0; i < emissionProbInsert[0].length; i++) {
+                    outEimissionProb.append(String.format("%c:  ", alphabet.symbol(i)));
+                    for (int j = 0; j < emissionProbInsert.length; j++) {
+                        outEimissionProb.append(String.format("%.2f ", emissionProbInsert[j][i]));
+                    }
+                    outEimissionProb.append('\n');
+                }
+                Log.dLine(outEimissionProb.toString());
             }
         }
 
@@ -465,6 +947,28 @@ public abstract class ProfilHMM {
         }
     }
 
+    /**
+     * Berechnet aus uebergebenen Haeufigkeiten und Pseudo-Count die relativen Haeufigkeiten
+     * und speichert sie im uebergebenen Ziel-Vektor.
+     * Ist die Summe 0 (Pseudo-Count 0 und Zustand nie besucht), wird gleichverteilt.
+     *
+     * @param counts      Haeufigkeiten
+     * @param pseudoCount Pseudo-Count
+     * @param probs       Ziel-Vektor
+     */
+    private static void normalize(final double[] counts, final int pseudoCount, final double[] probs) {
+        double sum = 0d;
+        for (double count : counts) {
+            sum += count + pseudoCount;
+        }
+        if (sum == 0d) {
+            Arrays.fill(probs, 1d / probs.length);
+            return;
+        }
+        for (int k = 0; k < counts.length; k++) {
+            probs[k] = (counts[k] + pseudoCount) / sum;
+        }
+    }
 
     /**
      * Gibt den Zustand zurueck, in dem sich das HMM an uebergebenem index in uebergebener Sequenz befindet
@@ -505,18 +1009,31 @@ public abstract class ProfilHMM {
      * @throws IllegalArgumentException falls Beobachtung nicht im Feld gefunden wird
      */
     public int[] observationsToIndices(final char[] observations) throws IllegalArgumentException {
-        return HMMFunc.charsToIndices(bases, observations);
+        return alphabet.toIndices(observations);
     }
 
     /**
-     * Mappt Beaobachtung auf entsprechenden Index
+     * Mappt kodierte Nukleotid-Sequenz der uebergebenen Sequenz auf entsprechende Code-Folge des Alphabets
+     * (inklusive mehrdeutiger Zeichen, siehe {@link #getEmissionCodeMatch()})
+     *
+     * @param sequence Sequenz
+     * @return entsprechende Code-Folge
+     * @throws IllegalArgumentException falls Beobachtung nicht im Alphabet gefunden wird
+     */
+    public int[] observationsToCodes(final Sequence sequence) throws IllegalArgumentException {
+        return sequence.getEncodedSequence().toCodes(alphabet);
+    }
+
+    /**
+     * Mappt Beaobachtung auf entsprechenden Index. Kleinbuchstaben werden wie Grossbuchstaben behandelt,
+     * falls das Alphabet dies vorsieht, mehrdeutige Zeichen werden abgelehnt.
      *
      * @param observation Beobachtungs
      * @return entsprechender Index
-     * @throws IllegalArgumentException falls Beobachtung nicht im Feld gefunden wird
+     * @throws IllegalArgumentException falls Beobachtung nicht im Feld gefunden wird oder mehrdeutig ist
      */
     public int observationToIndex(final char observation) throws IllegalArgumentException {
-        return HMMFunc.charToIndex(bases, observation);
+        return alphabet.indexOf(observation);
     }
 
     public int getPseudoCountEmission() {
@@ -536,7 +1053,11 @@ public abstract class ProfilHMM {
     }
 
     public char[] getBases() {
-        return bases;
+        return alphabet.getSymbols();
+    }
+
+    public Alphabet getAlphabet() {
+        return alphabet;
     }
 
     public double[][] getEmissionProbMatch() {
@@ -547,14 +1068,94 @@ public abstract class ProfilHMM {
         return emissionProbInsert;
     }
 
+    /**
+     * Liefert logarithmierte Beobachtungswahrscheinlichketen im Match-Zustand je Code des Alphabets zurueck
+     * (Spalten ab {@link Alphabet#size()} fuer mehrdeutige Zeichen)
+     *
+     * @return logarithmierte Beobachtungswahrscheinlichketen je Code
+     */
+    public double[][] getEmissionCodeMatch() {
+        return emissionCodeMatch;
+    }
+
+    /**
+     * Liefert logarithmierte Beobachtungswahrscheinlichketen im Insert-Zustand je Code des Alphabets zurueck
+     * (Spalten ab {@link Alphabet#size()} fuer mehrdeutige Zeichen)
+     *
+     * @return logarithmierte Beobachtungswahrscheinlichketen je Code
+     */
+    public double[][] getEmissionCodeInsert() {
+        return emissionCodeInsert;
+    }
+
     public double[][][] getTransitionProb() {
         return transitionProb;
     }
 
+    /**
+     * Liefert Kennung der aktuellen Wahrscheinlichkeiten zurueck (eindeutig je Modell und Stand)
+     *
+     * @return Kennung
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Liefert Parameter der Score-Verteilung zufaelliger Sequenzen zurueck
+     *
+     * @return Parameter oder null, falls nicht kalibriert
+     */
+    public Gumbel getGumbel() {
+        return gumbel;
+    }
+
+    /**
+     * Setzt Parameter der Score-Verteilung zufaelliger Sequenzen (gueltig bis zur naechsten Aenderung der Wahrscheinlichkeiten)
+     *
+     * @param gumbel Parameter oder null
+     */
+    public void setGumbel(final Gumbel gumbel) {
+        this.gumbel = gumbel;
+    }
+
     public int getLengthModel() {
         return lengthModel;
     }
 
+    /**
+     * Liefert true zurueck, falls das Modell die Haeufigkeiten der Trainings-Sequenzen besitzt. Ansonsten false.
+     *
+     * @return true, falls Haeufigkeiten vorhanden. Ansonsten false.
+     */
+    public boolean hasCounts() {
+        return gapCounts != null;
+    }
+
+    public int getLengthAlignment() {
+        return lengthAlignment;
+    }
+
+    public int getSequenceCount() {
+        return sequenceCount;
+    }
+
+    public int[] getGapCounts() {
+        return gapCounts;
+    }
+
+    public int[][] getBaseCounts() {
+        return baseCounts;
+    }
+
+    public boolean[] getMatchState() {
+        return matchState;
+    }
+
+    public int[][][] getTransitionCount() {
+        return transitionCount;
+    }
+
     /**
      * Mappt Zustand auf entsprechenden Index
      *
@@ -563,6 +1164,6 @@ public abstract class ProfilHMM {
      * @throws IllegalArgumentException falls Beobachtung nicht im Feld gefunden wird
      */
     private static int stateToIndex(final char state) throws IllegalArgumentException {
-        return HMMFunc.charToIndex(STATES, state);
+        return STATE_ALPHABET.indexOf(state);
     }
 }
\ No newline at end of file
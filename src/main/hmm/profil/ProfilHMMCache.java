@@ -0,0 +1,204 @@
+package main.hmm.profil;
+
+import main.fastaparser.FastaParser;
+import main.fastaparser.FastaParserException;
+import main.fastaparser.Sequence;
+import main.logger.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cache fuer erstellte {@link RNAProfilHMM} auf der lokalen Festplatte.
+ * <p>
+ * Der Schluessel eines Modells ist der SHA-256-Hash ueber den Inhalt der Trainings-Datei, Gap, Nukleotide,
+ * Pseudo-Counts, Schwellwert Match-Zustand und Version des Dateiformats.
+ * Ist ein Modell bereits im Cache vorhanden, wird es mittels {@link ProfilHMMFile} geladen, ohne buildModel auszufuehren.
+ * Ansonsten wird es erstellt und im Cache gespeichert.
+ * </p>
+ * Uebersteigt die Groesse des Caches die maximale Groesse, werden die am laengsten nicht verwendeten Modelle geloescht (LRU).
+ *
+ * @author Soeren Metje
+ */
+public class ProfilHMMCache {
+
+    /**
+     * Dateiendung der Modelle im Cache
+     */
+    private static final String FILE_SUFFIX = ".phmm";
+
+    /**
+     * Verzeichnis des Caches
+     */
+    private final File directory;
+
+    /**
+     * maximale Groesse des Caches in Bytes
+     */
+    private final long maxBytes;
+
+    /**
+     * Konstruktor. Erstellt das Verzeichnis, falls es noch nicht existiert.
+     *
+     * @param directory Verzeichnis des Caches
+     * @param maxBytes  maximale Groesse des Caches in Bytes
+     * @throws IOException              falls das Verzeichnis nicht erstellt werden kann
+     * @throws IllegalArgumentException falls Verzeichnis == null oder maximale Groesse &lt; 0
+     */
+    public ProfilHMMCache(String directory, long maxBytes) throws IOException, IllegalArgumentException {
+        if (directory == null)
+            throw new IllegalArgumentException("directory is null");
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("maxBytes is negative");
+        this.directory = new File(directory);
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.directory.toPath());
+    }
+
+    /**
+     * Liefert das Modell zu den Trainings-Sequenzen der Datei am uebergebenen Dateipfad
+     * mit den Standard-Parametern von {@link RNAProfilHMM} zurueck.
+     *
+     * @param filePathTrain Dateipfad der Trainings-Sequenzen
+     * @return Modell
+     * @throws IOException              falls beim Lesen oder Schreiben ein Fehler auftritt
+     * @throws FastaParserException     falls die Trainings-Datei nicht dem fasta Format entspricht
+     * @throws IllegalArgumentException falls in buildModel ein Fehler auftritt
+     */
+    public RNAProfilHMM get(String filePathTrain) throws IOException, FastaParserException, IllegalArgumentException {
+        return get(filePathTrain, RNAProfilHMM.PSEUDO_COUNT_EMISSION, RNAProfilHMM.PSEUDO_COUNT_TRANSITION, RNAProfilHMM.THRESHOLD_MATCHSTATE);
+    }
+
+    /**
+     * Liefert das Modell zu den Trainings-Sequenzen der Datei am uebergebenen Dateipfad und uebergebenen Parametern zurueck.
+     * Ist es im Cache vorhanden, wird es geladen. Ansonsten wird es erstellt und im Cache gespeichert.
+     *
+     * @param filePathTrain         Dateipfad der Trainings-Sequenzen
+     * @param pseudoCountEmission   Pseudo-Count fuer Berechnung der Emissions-Wahrscheinlichkeiten
+     * @param pseudoCountTransition Pseudo-Count fuer Berechnung der Uebergangs-Wahrscheinlichkeiten
+     * @param thresholdMatchState   Anteil and Nukleotiden (also keine gaps), ab dem die Spalte als Match-State gezaehlt wird
+     * @return Modell
+     * @throws IOException              falls beim Lesen oder Schreiben ein Fehler auftritt
+     * @throws FastaParserException     falls die Trainings-Datei nicht dem fasta Format entspricht
+     * @throws IllegalArgumentException falls in buildModel ein Fehler auftritt
+     */
+    public RNAProfilHMM get(String filePathTrain, int pseudoCountEmission, int pseudoCountTransition, double thresholdMatchState)
+            throws IOException, FastaParserException, IllegalArgumentException {
+        if (filePathTrain == null)
+            throw new IllegalArgumentException("filePathTrain is null");
+
+        String key = key(filePathTrain, pseudoCountEmission, pseudoCountTransition, thresholdMatchState);
+        File file = new File(directory, key + FILE_SUFFIX);
+
+        if (file.isFile()) {
+            try {
+                RNAProfilHMM model = ProfilHMMFile.read(file.getPath());
+                Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(System.currentTimeMillis())); // LRU
+                Log.iLine("ProfilHMM cache hit " + key);
+                return model;
+            } catch (IOException e) {
+                Log.eLine("ERROR: cached ProfilHMM " + file + " is invalid, rebuilding: " + e.getMessage());
+            }
+        }
+
+        Log.iLine("ProfilHMM cache miss " + key);
+        List<Sequence> sequencesTrain = FastaParser.parseFile(filePathTrain);
+        RNAProfilHMM model = new RNAProfilHMM(sequencesTrain, pseudoCountEmission, pseudoCountTransition, thresholdMatchState);
+
+        // write to temporary file first, so concurrent runs never read partial files
+        File tmp = File.createTempFile(key, ".tmp", directory);
+        try {
+            ProfilHMMFile.write(model, tmp.getPath());
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+
+        evict();
+        return model;
+    }
+
+    /**
+     * Loescht die am laengsten nicht verwendeten Modelle, bis die maximale Groesse des Caches eingehalten wird.
+     */
+    private void evict() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null)
+            return;
+
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= maxBytes)
+            return;
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified)); // least recently used first
+        for (File file : files) {
+            if (size <= maxBytes)
+                break;
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+                Log.dLine("evicted " + file);
+            }
+        }
+    }
+
+    /**
+     * Berechnet den Schluessel (SHA-256 als Hex-String) aus dem Inhalt der Trainings-Datei und den Parametern.
+     *
+     * @param filePathTrain         Dateipfad der Trainings-Sequenzen
+     * @param pseudoCountEmission   Pseudo-Count fuer Berechnung der Emissions-Wahrscheinlichkeiten
+     * @param pseudoCountTransition Pseudo-Count fuer Berechnung der Uebergangs-Wahrscheinlichkeiten
+     * @param thresholdMatchState   Anteil and Nukleotiden (also keine gaps), ab dem die Spalte als Match-State gezaehlt wird
+     * @return Schluessel
+     * @throws IOException falls beim Lesen der Trainings-Datei ein Fehler auftritt
+     */
+    private static String key(String filePathTrain, int pseudoCountEmission, int pseudoCountTransition, double thresholdMatchState) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM has to support SHA-256
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(filePathTrain, "r"); FileChannel channel = file.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        ByteBuffer parameters = ByteBuffer.allocate(Character.BYTES * (1 + RNAProfilHMM.ALPHABET.size()) + 3 * Integer.BYTES + Double.BYTES);
+        parameters.putInt(ProfilHMMFile.VERSION);
+        parameters.putChar(RNAProfilHMM.GAP);
+        for (char base : RNAProfilHMM.ALPHABET.getSymbols()) {
+            parameters.putChar(base);
+        }
+        parameters.putInt(pseudoCountEmission);
+        parameters.putInt(pseudoCountTransition);
+        parameters.putDouble(thresholdMatchState);
+        parameters.flip();
+        digest.update(parameters);
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,200 @@
+package main.hmm.profil;
+
+import main.fastaparser.FastaParserException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Test-Klasse fuer {@link ProfilHMMCache}.
+ *
+ * @author Soeren Metje
+ */
+public class ProfilHMMCacheTest {
+
+    /**
+     * Trainings-Sequenzen (Alignment)
+     */
+    private static final String[] SEQ_TRAIN = {"UACAAUCAAGG", "UA-AAUCAAGG", "U--AAUCAAGG", "U-CAAUCAAGG", "U--AAUCAAGG",
+            "U--AAUCAAGG", "UACAAUCAAGG", "U--AAUCAAGG", "U--AAUCAAGG", "UACAAUCAAGG"};
+
+    /**
+     * Test von {@link ProfilHMMCache#get(String, int, int, double)}.
+     * Beim zweiten Aufruf muss dasselbe Modell aus dem Cache geladen werden (ohne Haeufigkeiten, da nicht erstellt),
+     * andere Parameter oder ein anderer Inhalt der Trainings-Datei muessen ein neues Modell erstellen.
+     */
+    @Test
+    public void testHit() throws IOException, FastaParserException {
+        File directory = createDirectory();
+        File train = createTrainFile(SEQ_TRAIN);
+        ProfilHMMCache cache = new ProfilHMMCache(directory.getPath(), Long.MAX_VALUE);
+
+        RNAProfilHMM built = cache.get(train.getPath(), 2, 1, .4d);
+        Assert.assertTrue(built.hasCounts());
+        Assert.assertEquals(1, modelFiles(directory).size());
+
+        RNAProfilHMM cached = cache.get(train.getPath(), 2, 1, .4d);
+        Assert.assertFalse(cached.hasCounts()); // loaded, not built
+        Assert.assertEquals(1, modelFiles(directory).size());
+        assertSameModel(built, cached);
+
+        // other parameters -> miss
+        Assert.assertTrue(cache.get(train.getPath(), 1, 1, .4d).hasCounts());
+        Assert.assertEquals(2, modelFiles(directory).size());
+
+        // other content at the same path -> miss
+        File other = createTrainFile(Arrays.copyOf(SEQ_TRAIN, SEQ_TRAIN.length - 1));
+        Files.copy(other.toPath(), train.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Assert.assertTrue(cache.get(train.getPath(), 2, 1, .4d).hasCounts());
+        Assert.assertEquals(3, modelFiles(directory).size());
+    }
+
+    /**
+     * Test von {@link ProfilHMMCache#get(String, int, int, double)} mit beschaedigter Datei im Cache.
+     * Das Modell muss neu erstellt und die Datei ersetzt werden.
+     */
+    @Test
+    public void testInvalidFileRebuilt() throws IOException, FastaParserException {
+        File directory = createDirectory();
+        File train = createTrainFile(SEQ_TRAIN);
+        ProfilHMMCache cache = new ProfilHMMCache(directory.getPath(), Long.MAX_VALUE);
+
+        RNAProfilHMM built = cache.get(train.getPath(), 2, 1, .4d);
+        File file = modelFiles(directory).iterator().next();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+
+        RNAProfilHMM rebuilt = cache.get(train.getPath(), 2, 1, .4d);
+        Assert.assertTrue(rebuilt.hasCounts());
+        assertSameModel(built, cache.get(train.getPath(), 2, 1, .4d));
+    }
+
+    /**
+     * Test der LRU-Verdraengung von {@link ProfilHMMCache}.
+     * Passen nur zwei Modelle in den Cache, muss beim dritten das am laengsten nicht verwendete Modell geloescht werden,
+     * ein Treffer zaehlt dabei als Verwendung.
+     */
+    @Test
+    public void testLruEviction() throws IOException, FastaParserException {
+        File directory = createDirectory();
+        File train = createTrainFile(SEQ_TRAIN);
+
+        // size of one model file (all models below have the same length)
+        new ProfilHMMCache(directory.getPath(), Long.MAX_VALUE).get(train.getPath(), 1, 1, .4d);
+        File probe = modelFiles(directory).iterator().next();
+        long fileBytes = probe.length();
+        Assert.assertTrue(probe.delete());
+
+        ProfilHMMCache cache = new ProfilHMMCache(directory.getPath(), 2 * fileBytes + fileBytes / 2);
+        long now = System.currentTimeMillis();
+
+        cache.get(train.getPath(), 2, 1, .4d);
+        File a = modelFiles(directory).iterator().next();
+        Assert.assertTrue(a.setLastModified(now - 20000));
+
+        cache.get(train.getPath(), 3, 1, .4d);
+        Set<File> files = modelFiles(directory);
+        files.remove(a);
+        File b = files.iterator().next();
+        Assert.assertTrue(b.setLastModified(now - 10000));
+
+        // hit on a -> b is least recently used
+        Assert.assertFalse(cache.get(train.getPath(), 2, 1, .4d).hasCounts());
+        Assert.assertTrue(a.lastModified() > b.lastModified());
+
+        cache.get(train.getPath(), 4, 1, .4d);
+        Set<File> remaining = modelFiles(directory);
+        Assert.assertEquals(2, remaining.size());
+        Assert.assertTrue(remaining.contains(a));
+        Assert.assertFalse(remaining.contains(b));
+        remaining.remove(a);
+        Assert.assertTrue(a.setLastModified(now - 5000));
+        Assert.assertTrue(remaining.iterator().next().setLastModified(now - 1000));
+
+        // b was evicted -> built again
+        Assert.assertTrue(cache.get(train.getPath(), 3, 1, .4d).hasCounts());
+        Assert.assertEquals(2, modelFiles(directory).size());
+        Assert.assertFalse(a.exists()); // a is least recently used now
+    }
+
+    /**
+     * Test von {@link ProfilHMMCache#ProfilHMMCache(String, long)} mit negativer maximaler Groesse
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMaxBytes() throws IOException {
+        new ProfilHMMCache(createDirectory().getPath(), -1);
+    }
+
+    /**
+     * Prueft, ob beide Modelle dieselben Parameter und Tabellen besitzen
+     *
+     * @param expected erwartetes Modell
+     * @param actual   tatsaechliches Modell
+     */
+    private static void assertSameModel(ProfilHMM expected, ProfilHMM actual) {
+        Assert.assertEquals(expected.getPseudoCountEmission(), actual.getPseudoCountEmission());
+        Assert.assertEquals(expected.getPseudoCountTransition(), actual.getPseudoCountTransition());
+        Assert.assertEquals(expected.getThresholdMatchState(), actual.getThresholdMatchState(), 0d);
+        Assert.assertEquals(expected.getLengthModel(), actual.getLengthModel());
+        Assert.assertTrue(Arrays.deepEquals(expected.getEmissionProbMatch(), actual.getEmissionProbMatch()));
+        Assert.assertTrue(Arrays.deepEquals(expected.getEmissionProbInsert(), actual.getEmissionProbInsert()));
+        Assert.assertTrue(Arrays.deepEquals(expected.getTransitionProb(), actual.getTransitionProb()));
+    }
+
+    /**
+     * Liefert die Modell-Dateien im Verzeichnis des Caches zurueck
+     *
+     * @param directory Verzeichnis des Caches
+     * @return Modell-Dateien
+     */
+    private static Set<File> modelFiles(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".phmm"));
+        Assert.assertNotNull(files);
+        for (File file : files) {
+            file.deleteOnExit();
+        }
+        return new HashSet<>(Arrays.asList(files));
+    }
+
+    /**
+     * Erstellt ein leeres temporaeres Verzeichnis fuer den Cache, das beim Beenden geloescht wird
+     *
+     * @return Verzeichnis
+     * @throws IOException falls das Verzeichnis nicht erstellt werden kann
+     */
+    private static File createDirectory() throws IOException {
+        File directory = Files.createTempDirectory("phmmcache").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    /**
+     * Erstellt eine temporaere fasta Datei mit den uebergebenen Trainings-Sequenzen
+     *
+     * @param sequences Nukleotid-Sequenzen
+     * @return Datei
+     * @throws IOException falls beim Schreiben ein Fehler auftritt
+     */
+    private static File createTrainFile(String[] sequences) throws IOException {
+        File file = File.createTempFile("train", ".fasta");
+        file.deleteOnExit();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < sequences.length; i++) {
+            content.append('>').append(i).append('\n').append(sequences[i]).append('\n');
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+        return file;
+    }
+}
@@ -0,0 +1,208 @@
+package main.hmm.profil;
+
+import main.hmm.profil.calibration.Gumbel;
+import main.logger.Log;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Binaeres Dateiformat fuer trainierte {@link ProfilHMM}.
+ * <p>
+ * Gespeichert werden die logarithmierten Wahrscheinlichkeiten sowie die Parameter des Modells (big-endian):
+ * </p>
+ * <pre>
+ * int      MAGIC ("PHMM")
+ * int      VERSION
+ * char     Gap
+ * int      Anzahl Nukleotide, gefolgt von den Zeichen der Nukleotide
+ * int      Pseudo-Count Emission
+ * int      Pseudo-Count Uebergang
+ * double   Schwellwert Match-Zustand
+ * int      Laenge des Modells
+ * double[] Emissions-Wahrscheinlichkeiten Match  [Laenge Modell][Anzahl Nukleotide]
+ * double[] Emissions-Wahrscheinlichkeiten Insert [Laenge Modell][Anzahl Nukleotide]
+ * double[] Uebergangs-Wahrscheinlichkeiten       [Zustand][Zustand][Laenge Modell]
+ * int      Anzahl Sequenzen der Kalibrierung (0, falls nicht kalibriert), falls &gt; 0 gefolgt von
+ * int      Laenge der Sequenzen der Kalibrierung
+ * double   mu
+ * double   lambda
+ * </pre>
+ * Dateien der Version 1 (ohne Kalibrierung) koennen weiterhin geladen werden.
+ * Beim Laden wird die Datei in den Speicher abgebildet und die Tabellen werden direkt in das Format kopiert,
+ * das der Viterbi-Algorithmus verwendet. Die Ladezeit ist also unabhaengig von der Anzahl der Trainings-Sequenzen.
+ *
+ * @author Soeren Metje
+ */
+public class ProfilHMMFile {
+
+    /**
+     * Kennung am Anfang der Datei
+     */
+    private static final int MAGIC = 0x50484D4D; // "PHMM"
+
+    /**
+     * Version des Dateiformats
+     */
+    static final int VERSION = 2;
+
+    /**
+     * Version des Dateiformats ohne Kalibrierung
+     */
+    private static final int VERSION_UNCALIBRATED = 1;
+
+    /**
+     * Schreibt uebergebenes Modell in die Datei am uebergebenen Dateipfad.
+     *
+     * @param model    Modell
+     * @param filePath Dateipfad
+     * @throws IOException              falls beim Schreiben ein Fehler auftritt
+     * @throws IllegalArgumentException falls Modell oder Dateipfad == null
+     */
+    public static void write(final ProfilHMM model, final String filePath) throws IOException, IllegalArgumentException {
+        if (model == null)
+            throw new IllegalArgumentException("model is null");
+        if (filePath == null)
+            throw new IllegalArgumentException("filePath is null");
+
+        char[] bases = model.getBases();
+        int lengthModel = model.getLengthModel();
+        int headerSize = 4 * Integer.BYTES + Character.BYTES * (1 + bases.length) + 2 * Integer.BYTES + Double.BYTES;
+        int tableSize = Double.BYTES * (2 * lengthModel * bases.length + ProfilHMM.STATE_COUNT * ProfilHMM.STATE_COUNT * lengthModel);
+        Gumbel gumbel = model.getGumbel();
+        int calibrationSize = Integer.BYTES + (gumbel == null ? 0 : Integer.BYTES + 2 * Double.BYTES);
+
+        ByteBuffer buffer = ByteBuffer.allocate(headerSize + tableSize + calibrationSize);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putChar(model.getGap());
+        buffer.putInt(bases.length);
+        for (char base : bases) {
+            buffer.putChar(base);
+        }
+        buffer.putInt(model.getPseudoCountEmission());
+        buffer.putInt(model.getPseudoCountTransition());
+        buffer.putDouble(model.getThresholdMatchState());
+        buffer.putInt(lengthModel);
+
+        DoubleBuffer doubles = buffer.asDoubleBuffer();
+        for (double[] row : model.getEmissionProbMatch()) {
+            doubles.put(row);
+        }
+        for (double[] row : model.getEmissionProbInsert()) {
+            doubles.put(row);
+        }
+        for (double[][] matrix : model.getTransitionProb()) {
+            for (double[] row : matrix) {
+                doubles.put(row);
+            }
+        }
+        buffer.position(headerSize + tableSize);
+        if (gumbel == null) {
+            buffer.putInt(0);
+        } else {
+            buffer.putInt(gumbel.getSampleCount());
+            buffer.putInt(gumbel.getSequenceLength());
+            buffer.putDouble(gumbel.getMu());
+            buffer.putDouble(gumbel.getLambda());
+        }
+        buffer.flip();
+
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "rw"); FileChannel channel = file.getChannel()) {
+            channel.truncate(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Log.iLine("wrote ProfilHMM to " + filePath);
+    }
+
+    /**
+     * Laedt ein Modell aus der Datei am uebergebenen Dateipfad.
+     * Die Anzahlen im Header werden vor dem Anlegen der Tabellen gegen die Dateigroesse geprueft,
+     * eine beschaedigte Datei fuehrt also zu einer {@link IOException}.
+     *
+     * @param filePath Dateipfad
+     * @return geladenes Modell
+     * @throws IOException              falls beim Lesen ein Fehler auftritt oder die Datei kein gueltiges Modell enthaelt
+     * @throws IllegalArgumentException falls Dateipfad == null
+     */
+    public static RNAProfilHMM read(final String filePath) throws IOException, IllegalArgumentException {
+        if (filePath == null)
+            throw new IllegalArgumentException("filePath is null");
+
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r"); FileChannel channel = file.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                if (buffer.getInt() != MAGIC)
+                    throw new IOException("not a ProfilHMM file");
+                int version = buffer.getInt();
+                if (version != VERSION && version != VERSION_UNCALIBRATED)
+                    throw new IOException("unsupported ProfilHMM file version " + version);
+
+                char gap = buffer.getChar();
+                int baseCount = buffer.getInt();
+                if (baseCount < 1 || (long) Character.BYTES * baseCount > buffer.remaining())
+                    throw new IOException("invalid nucleotide count " + baseCount);
+                char[] bases = new char[baseCount];
+                buffer.asCharBuffer().get(bases);
+                buffer.position(buffer.position() + Character.BYTES * baseCount);
+                if (!RNAProfilHMM.isAlphabet(gap, bases))
+                    throw new IOException("unsupported alphabet " + String.valueOf(bases) + " with gap " + gap);
+
+                int pseudoCountEmission = buffer.getInt();
+                int pseudoCountTransition = buffer.getInt();
+                double thresholdMatchState = buffer.getDouble();
+                int lengthModel = buffer.getInt();
+                long tableSize = (long) Double.BYTES * lengthModel * (2L * baseCount + ProfilHMM.STATE_COUNT * ProfilHMM.STATE_COUNT);
+                if (lengthModel < 1 || tableSize > buffer.remaining())
+                    throw new IOException("invalid model length " + lengthModel);
+
+                DoubleBuffer doubles = buffer.asDoubleBuffer();
+                double[][] emissionProbMatch = new double[lengthModel][baseCount];
+                for (double[] row : emissionProbMatch) {
+                    doubles.get(row);
+                }
+                double[][] emissionProbInsert = new double[lengthModel][baseCount];
+                for (double[] row : emissionProbInsert) {
+                    doubles.get(row);
+                }
+                double[][][] transitionProb = new double[ProfilHMM.STATE_COUNT][ProfilHMM.STATE_COUNT][lengthModel];
+                for (double[][] matrix : transitionProb) {
+                    for (double[] row : matrix) {
+                        doubles.get(row);
+                    }
+                }
+
+                Gumbel gumbel = null;
+                if (version != VERSION_UNCALIBRATED) {
+                    buffer.position(buffer.position() + Double.BYTES * doubles.position());
+                    int sampleCount = buffer.getInt();
+                    if (sampleCount > 0) {
+                        int sequenceLength = buffer.getInt();
+                        double mu = buffer.getDouble();
+                        double lambda = buffer.getDouble();
+                        try {
+                            gumbel = new Gumbel(mu, lambda, sampleCount, sequenceLength);
+                        } catch (IllegalArgumentException e) {
+                            throw new IOException("invalid calibration: " + e.getMessage());
+                        }
+                    }
+                }
+
+                Log.iLine("loaded ProfilHMM from " + filePath + " (Model length = " + lengthModel + ")");
+                RNAProfilHMM model = new RNAProfilHMM(pseudoCountEmission, pseudoCountTransition, thresholdMatchState,
+                        emissionProbMatch, emissionProbInsert, transitionProb);
+                model.setGumbel(gumbel);
+                return model;
+            } catch (BufferUnderflowException e) {
+                throw new IOException("ProfilHMM file " + filePath + " is truncated");
+            }
+        }
+    }
+}
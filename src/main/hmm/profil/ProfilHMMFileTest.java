@@ -0,0 +1,194 @@
+package main.hmm.profil;
+
+import main.fastaparser.Sequence;
+import main.hmm.profil.calibration.Gumbel;
+import main.hmm.profil.viterbi.Viterbi;
+import main.hmm.profil.viterbi.ViterbiPath;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test-Klasse fuer {@link ProfilHMMFile}.
+ *
+ * @author Soeren Metje
+ */
+public class ProfilHMMFileTest {
+
+    /**
+     * Trainings-Sequenzen (Alignment)
+     */
+    private static final String[] SEQ_TRAIN = {"UACAAUCAAGG", "UA-AAUCAAGG", "U--AAUCAAGG", "U-CAAUCAAGG", "U--AAUCAAGG",
+            "U--AAUCAAGG", "UACAAUCAAGG", "U--AAUCAAGG", "U--AAUCAAGG", "UACAAUCAAGG"};
+
+    /**
+     * Test-Sequenzen
+     */
+    private static final String[] SEQ_TEST = {"UACAAUCAAGG", "", "GAAUCAAG", "UAUCAAGGA", "CCCCCCCCCCCCCCCCCCCC", "U"};
+
+    /**
+     * Position der Anzahl Nukleotide im Header
+     */
+    private static final int OFFSET_BASE_COUNT = 10;
+
+    /**
+     * Test von {@link ProfilHMMFile#write(ProfilHMM, String)} und {@link ProfilHMMFile#read(String)}.
+     * Das geladene Modell muss dieselben Tabellen und Parameter haben und identische Viterbi-Ergebnisse liefern.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        RNAProfilHMM model = new RNAProfilHMM(toSequences(SEQ_TRAIN), 2, 1, .4d);
+        String filePath = createFile();
+
+        for (Gumbel gumbel : new Gumbel[]{null, new Gumbel(-3.5, 0.7, 200, 50)}) {
+            model.setGumbel(gumbel);
+            ProfilHMMFile.write(model, filePath);
+            RNAProfilHMM loaded = ProfilHMMFile.read(filePath);
+
+            Assert.assertEquals(model.getGap(), loaded.getGap());
+            Assert.assertArrayEquals(model.getBases(), loaded.getBases());
+            Assert.assertEquals(model.getPseudoCountEmission(), loaded.getPseudoCountEmission());
+            Assert.assertEquals(model.getPseudoCountTransition(), loaded.getPseudoCountTransition());
+            Assert.assertEquals(model.getThresholdMatchState(), loaded.getThresholdMatchState(), 0d);
+            Assert.assertEquals(model.getLengthModel(), loaded.getLengthModel());
+            assertTablesEqual(model.getEmissionProbMatch(), loaded.getEmissionProbMatch());
+            assertTablesEqual(model.getEmissionProbInsert(), loaded.getEmissionProbInsert());
+            for (int i = 0; i < ProfilHMM.STATE_COUNT; i++) {
+                assertTablesEqual(model.getTransitionProb()[i], loaded.getTransitionProb()[i]);
+            }
+
+            if (gumbel == null) {
+                Assert.assertNull(loaded.getGumbel());
+            } else {
+                Assert.assertEquals(gumbel.getMu(), loaded.getGumbel().getMu(), 0d);
+                Assert.assertEquals(gumbel.getLambda(), loaded.getGumbel().getLambda(), 0d);
+                Assert.assertEquals(gumbel.getSampleCount(), loaded.getGumbel().getSampleCount());
+                Assert.assertEquals(gumbel.getSequenceLength(), loaded.getGumbel().getSequenceLength());
+            }
+
+            for (Sequence sequence : toSequences(SEQ_TEST)) {
+                ViterbiPath expected = Viterbi.viterbi(model, sequence);
+                ViterbiPath actual = Viterbi.viterbi(loaded, sequence);
+                Assert.assertEquals(expected.getScore(), actual.getScore(), 0d);
+                Assert.assertArrayEquals(expected.getStatePath(), actual.getStatePath());
+                Assert.assertEquals(Viterbi.score(model, sequence), Viterbi.score(loaded, sequence), 0d);
+            }
+        }
+    }
+
+    /**
+     * Test von {@link ProfilHMMFile#read(String)} mit zu grosser Anzahl Nukleotide im Header
+     */
+    @Test(expected = IOException.class)
+    public void testInvalidBaseCount() throws IOException {
+        assertCorruptHeader(OFFSET_BASE_COUNT, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Test von {@link ProfilHMMFile#read(String)} mit negativer Anzahl Nukleotide im Header
+     */
+    @Test(expected = IOException.class)
+    public void testNegativeBaseCount() throws IOException {
+        assertCorruptHeader(OFFSET_BASE_COUNT, -1);
+    }
+
+    /**
+     * Test von {@link ProfilHMMFile#read(String)} mit zu grosser Laenge des Modells im Header
+     */
+    @Test(expected = IOException.class)
+    public void testInvalidLengthModel() throws IOException {
+        assertCorruptHeader(offsetLengthModel(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Test von {@link ProfilHMMFile#read(String)} mit um ein Byte zu grosser Laenge des Modells im Header
+     */
+    @Test(expected = IOException.class)
+    public void testLengthModelExceedsFile() throws IOException {
+        RNAProfilHMM model = new RNAProfilHMM(toSequences(SEQ_TRAIN));
+        assertCorruptHeader(offsetLengthModel(), model.getLengthModel() + 1);
+    }
+
+    /**
+     * Test von {@link ProfilHMMFile#read(String)} mit abgeschnittener Datei
+     */
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        String filePath = createFile();
+        ProfilHMMFile.write(new RNAProfilHMM(toSequences(SEQ_TRAIN)), filePath);
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        ProfilHMMFile.read(filePath);
+    }
+
+    /**
+     * Schreibt ein Modell, ueberschreibt einen int im Header und laedt die Datei
+     *
+     * @param offset Position des int
+     * @param value  neuer Wert
+     * @throws IOException falls die Datei kein gueltiges Modell enthaelt
+     */
+    private static void assertCorruptHeader(int offset, int value) throws IOException {
+        String filePath = createFile();
+        ProfilHMMFile.write(new RNAProfilHMM(toSequences(SEQ_TRAIN)), filePath);
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "rw")) {
+            file.seek(offset);
+            file.writeInt(value);
+        }
+        ProfilHMMFile.read(filePath);
+    }
+
+    /**
+     * Liefert die Position der Laenge des Modells im Header zurueck
+     *
+     * @return Position
+     */
+    private static int offsetLengthModel() {
+        int baseCount = new RNAProfilHMM(toSequences(SEQ_TRAIN)).getBases().length;
+        return OFFSET_BASE_COUNT + Integer.BYTES + Character.BYTES * baseCount + 2 * Integer.BYTES + Double.BYTES;
+    }
+
+    /**
+     * Prueft, ob die Tabellen exakt gleich sind
+     *
+     * @param expected erwartete Tabelle
+     * @param actual   Tabelle
+     */
+    private static void assertTablesEqual(double[][] expected, double[][] actual) {
+        Assert.assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertArrayEquals(expected[i], actual[i], 0d);
+        }
+    }
+
+    /**
+     * Erstellt Sequenzen aus uebergebenen Nukleotid-Sequenzen
+     *
+     * @param nucleotideSequences Nukleotid-Sequenzen
+     * @return Sequenzen
+     */
+    private static List<Sequence> toSequences(String[] nucleotideSequences) {
+        List<Sequence> sequences = new ArrayList<>(nucleotideSequences.length);
+        for (int i = 0; i < nucleotideSequences.length; i++) {
+            sequences.add(new Sequence(String.valueOf(i), null, nucleotideSequences[i]));
+        }
+        return sequences;
+    }
+
+    /**
+     * Erstellt eine temporaere Datei
+     *
+     * @return Dateipfad
+     */
+    private static String createFile() throws IOException {
+        File file = File.createTempFile("model", ".phmm");
+        file.deleteOnExit();
+        return file.getPath();
+    }
+}
@@ -0,0 +1,143 @@
+package main.hmm.profil;
+
+import main.fastaparser.Sequence;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test-Klasse fuer {@link ProfilHMM}.
+ *
+ * @author Soeren Metje
+ */
+public class ProfilHMMTest {
+
+    /**
+     * Trainings-Sequenzen (Alignment)
+     */
+    private static final String[] SEQ_TRAIN = {"UACAAUCAAGG", "UA-AAUCAAGG", "U--AAUCAAGG", "U-CAAUCAAGG", "U--AAUCAAGG",
+            "U--AAUCAAGG", "UACAAUCAAGG", "U--AAUCAAGG", "U--AAUCAAGG", "UACAAUCAAGG"};
+
+    /**
+     * Hinzuzufuegende Sequenzen (am Trainings-Alignment ausgerichtet)
+     */
+    private static final String[] SEQ_ADD = {"UACGAUCAAGC", "CU-AAU-AAGG", "UAC-AUCCAG-", "G--AAUCAAUU"};
+
+    /**
+     * zulaessiger Rundungsfehler
+     */
+    private static final double EPSILON = 1e-12;
+
+    /**
+     * Test von {@link ProfilHMM#addSequences(List)} und {@link ProfilHMM#removeSequences(List)}.
+     * Das Hinzufuegen muss die Wahrscheinlichkeiten veraendern, das anschliessende Entfernen derselben Sequenzen
+     * muss die urspruenglichen Haeufigkeiten und Wahrscheinlichkeiten wiederherstellen.
+     */
+    @Test
+    public void testAddRemoveRestoresProbabilities() {
+        ProfilHMM model = new RNAProfilHMM(toSequences(SEQ_TRAIN));
+        ProfilHMM reference = new RNAProfilHMM(toSequences(SEQ_TRAIN));
+        List<Sequence> added = toSequences(SEQ_ADD);
+
+        model.addSequences(added);
+        Assert.assertEquals(SEQ_TRAIN.length + SEQ_ADD.length, model.getSequenceCount());
+        Assert.assertFalse(Arrays.deepEquals(reference.getEmissionProbMatch(), model.getEmissionProbMatch()));
+        Assert.assertFalse(Arrays.deepEquals(reference.getTransitionProb(), model.getTransitionProb()));
+
+        model.removeSequences(added);
+        assertSameModel(reference, model);
+
+        // one at a time, in a different order
+        for (int i = 0; i < SEQ_ADD.length; i++) {
+            model.addSequences(added.subList(i, i + 1));
+        }
+        for (int i = SEQ_ADD.length - 1; i >= 0; i--) {
+            model.removeSequences(added.subList(i, i + 1));
+        }
+        assertSameModel(reference, model);
+    }
+
+    /**
+     * Test von {@link ProfilHMM#removeSequences(List)} mit Sequenzen, die nicht Teil des Modells sind.
+     * Die Ausnahme muss geworfen und die Haeufigkeiten muessen zurueckgesetzt werden.
+     */
+    @Test
+    public void testRemoveUnknownRollsBack() {
+        ProfilHMM model = new RNAProfilHMM(toSequences(SEQ_TRAIN));
+        ProfilHMM reference = new RNAProfilHMM(toSequences(SEQ_TRAIN));
+        try {
+            model.removeSequences(toSequences(new String[]{"GGGGGGGGGGG"}));
+            Assert.fail("unknown sequence removed");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertSameModel(reference, model);
+    }
+
+    /**
+     * Test von {@link ProfilHMM#removeSequences(List)} mit allen Trainings-Sequenzen
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveAll() {
+        new RNAProfilHMM(toSequences(SEQ_TRAIN)).removeSequences(toSequences(SEQ_TRAIN));
+    }
+
+    /**
+     * Test von {@link ProfilHMM#addSequences(List)} mit Sequenz anderer Laenge als das Trainings-Alignment
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddDifferentLength() {
+        new RNAProfilHMM(toSequences(SEQ_TRAIN)).addSequences(toSequences(new String[]{"UACAAUCAAG"}));
+    }
+
+    /**
+     * Prueft, ob beide Modelle dieselben Haeufigkeiten und Wahrscheinlichkeiten besitzen
+     *
+     * @param expected erwartetes Modell
+     * @param actual   tatsaechliches Modell
+     */
+    private static void assertSameModel(ProfilHMM expected, ProfilHMM actual) {
+        Assert.assertEquals(expected.getSequenceCount(), actual.getSequenceCount());
+        Assert.assertArrayEquals(expected.getGapCounts(), actual.getGapCounts());
+        Assert.assertTrue(Arrays.deepEquals(expected.getBaseCounts(), actual.getBaseCounts()));
+        Assert.assertTrue(Arrays.deepEquals(expected.getTransitionCount(), actual.getTransitionCount()));
+        assertArrayEquals(expected.getEmissionProbMatch(), actual.getEmissionProbMatch());
+        assertArrayEquals(expected.getEmissionProbInsert(), actual.getEmissionProbInsert());
+        double[][][] expectedTransition = expected.getTransitionProb();
+        double[][][] actualTransition = actual.getTransitionProb();
+        Assert.assertEquals(expectedTransition.length, actualTransition.length);
+        for (int i = 0; i < expectedTransition.length; i++) {
+            assertArrayEquals(expectedTransition[i], actualTransition[i]);
+        }
+    }
+
+    /**
+     * Prueft, ob beide Felder bis auf Rundungsfehler gleich sind (auch -Infinity)
+     *
+     * @param expected erwartetes Feld
+     * @param actual   tatsaechliches Feld
+     */
+    private static void assertArrayEquals(double[][] expected, double[][] actual) {
+        Assert.assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertArrayEquals(expected[i], actual[i], EPSILON);
+        }
+    }
+
+    /**
+     * Erstellt Sequenzen aus den Nukleotid-Sequenzen
+     *
+     * @param nucleotides Nukleotid-Sequenzen
+     * @return Sequenzen
+     */
+    private static List<Sequence> toSequences(String[] nucleotides) {
+        List<Sequence> ret = new ArrayList<>(nucleotides.length);
+        for (int i = 0; i < nucleotides.length; i++) {
+            ret.add(new Sequence(String.valueOf(i), null, nucleotides[i]));
+        }
+        return ret;
+    }
+}
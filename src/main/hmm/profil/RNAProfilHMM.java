@@ -1,7 +1,9 @@
 package main.hmm.profil;
 
+import main.alphabet.Alphabet;
 import main.fastaparser.Sequence;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -50,27 +52,27 @@ public class RNAProfilHMM extends ProfilHMM {
     /**
      * Pseudo-Count fuer Berechnung der Emissions-Wahrscheinlichkeiten
      */
-    private static final int PSEUDO_COUNT_EMISSION = 1;
+    static final int PSEUDO_COUNT_EMISSION = 1;
 
     /**
      * Pseudo-Count fuer Berechnung der Uebergangs-Wahrscheinlichkeiten
      */
-    private static final int PSEUDO_COUNT_TRANSITION = 1;
+    static final int PSEUDO_COUNT_TRANSITION = 1;
 
     /**
      * Anteil and Nukleotiden (also keine gaps), ab dem die Spalte als Match-State gezaehlt wird
      */
-    private static final double THRESHOLD_MATCHSTATE = .5d; // min amount of nucleotides (no gap) to count column as match-state
+    static final double THRESHOLD_MATCHSTATE = .5d; // min amount of nucleotides (no gap) to count column as match-state
 
     /**
      * Zeichen fuer Gap
      */
-    private static final char GAP = '-';
+    static final char GAP = '-';
 
     /**
-     * Zeichen fuer Nukleotide
+     * Alphabet der Nukleotide (A, C, G, U mit IUPAC-Codes, ohne Beachtung der Gross-/Kleinschreibung)
      */
-    private static final char[] BASES = {'A', 'C', 'G', 'U'};
+    static final Alphabet ALPHABET = Alphabet.RNA;
 
     /**
      * Konstruktor. Erstellt Modell und fuehrt die Methode buildModel aus.
@@ -80,6 +82,61 @@ public class RNAProfilHMM extends ProfilHMM {
      * @throws IllegalArgumentException falls in buildModel ein Fehler auftritt
      */
     public RNAProfilHMM(List<Sequence> sequencesTrain) throws IllegalArgumentException {
-        super(sequencesTrain, GAP, BASES, PSEUDO_COUNT_EMISSION, PSEUDO_COUNT_TRANSITION, THRESHOLD_MATCHSTATE);
+        super(sequencesTrain, GAP, ALPHABET, PSEUDO_COUNT_EMISSION, PSEUDO_COUNT_TRANSITION, THRESHOLD_MATCHSTATE);
     }
-}
\ No newline at end of file
+
+    /**
+     * Konstruktor. Erstellt Modell mit uebergebenen Parametern und fuehrt die Methode buildModel aus.
+     * Anschliessend werden die logarithmierten Wahrscheinlichkeiten berechnet.
+     *
+     * @param sequencesTrain        Trainings-Sequenzen
+     * @param pseudoCountEmission   Pseudo-Count fuer Berechnung der Emissions-Wahrscheinlichkeiten
+     * @param pseudoCountTransition Pseudo-Count fuer Berechnung der Uebergangs-Wahrscheinlichkeiten
+     * @param thresholdMatchState   Anteil and Nukleotiden (also keine gaps), ab dem die Spalte als Match-State gezaehlt wird
+     * @throws IllegalArgumentException falls in buildModel ein Fehler auftritt
+     */
+    public RNAProfilHMM(List<Sequence> sequencesTrain, int pseudoCountEmission, int pseudoCountTransition, double thresholdMatchState) throws IllegalArgumentException {
+        super(sequencesTrain, GAP, ALPHABET, pseudoCountEmission, pseudoCountTransition, thresholdMatchState);
+    }
+
+    /**
+     * Konstruktor. Leitet ein Modell mit uebergebenen Parametern aus den Haeufigkeiten des uebergebenen Modells ab.
+     *
+     * @param source                Modell, dessen Haeufigkeiten verwendet werden
+     * @param sequencesTrain        Trainings-Sequenzen des uebergebenen Modells
+     * @param pseudoCountEmission   Pseudo-Count fuer Berechnung der Emissions-Wahrscheinlichkeiten
+     * @param pseudoCountTransition Pseudo-Count fuer Berechnung der Uebergangs-Wahrscheinlichkeiten
+     * @param thresholdMatchState   Anteil and Nukleotiden (also keine gaps), ab dem die Spalte als Match-State gezaehlt wird
+     * @throws IllegalArgumentException falls die Trainings-Sequenzen nicht zum Modell passen
+     */
+    public RNAProfilHMM(RNAProfilHMM source, List<Sequence> sequencesTrain, int pseudoCountEmission, int pseudoCountTransition, double thresholdMatchState) throws IllegalArgumentException {
+        super(source, sequencesTrain, pseudoCountEmission, pseudoCountTransition, thresholdMatchState);
+    }
+
+    /**
+     * Konstruktor. Erstellt Modell aus bereits berechneten logarithmierten Wahrscheinlichkeiten.
+     *
+     * @param pseudoCountEmission   Pseudo-Count fuer Berechnung der Emissions-Wahrscheinlichkeiten
+     * @param pseudoCountTransition Pseudo-Count fuer Berechnung der Uebergangs-Wahrscheinlichkeiten
+     * @param thresholdMatchState   Anteil and Nukleotiden (also keine gaps), ab dem die Spalte als Match-State gezaehlt wird
+     * @param emissionProbMatch     logarithmierte Beobachtungswahrscheinlichketen im Match-Zustand
+     * @param emissionProbInsert    logarithmierte Beobachtungswahrscheinlichketen im Insert-Zustand
+     * @param transitionProb        logarithmierte Uebergangswahrscheinlichen
+     * @throws IllegalArgumentException falls die Dimensionen der Felder nicht zusammen passen
+     */
+    RNAProfilHMM(int pseudoCountEmission, int pseudoCountTransition, double thresholdMatchState,
+                 double[][] emissionProbMatch, double[][] emissionProbInsert, double[][][] transitionProb) throws IllegalArgumentException {
+        super(GAP, ALPHABET, pseudoCountEmission, pseudoCountTransition, thresholdMatchState, emissionProbMatch, emissionProbInsert, transitionProb);
+    }
+
+    /**
+     * Liefert true zurueck, falls uebergebene Zeichen fuer Gap und Nukleotide denen des RNAProfilHMM entsprechen. Ansonsten false.
+     *
+     * @param gap   Zeichen fuer Gap
+     * @param bases Zeichen fuer Nukleotide
+     * @return true, falls die Zeichen uebereinstimmen. Ansonsten false.
+     */
+    static boolean isAlphabet(char gap, char[] bases) {
+        return gap == GAP && Arrays.equals(bases, ALPHABET.getSymbols());
+    }
+}
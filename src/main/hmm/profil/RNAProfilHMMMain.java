@@ -1,34 +1,89 @@
 package main.hmm.profil;
 
 import main.argparser.*;
+import main.fastaparser.FastaIndex;
 import main.fastaparser.FastaParser;
 import main.fastaparser.FastaParserException;
 import main.fastaparser.Sequence;
+import main.fastaparser.UncheckedFastaParserException;
+import main.hmm.profil.baumwelch.BaumWelch;
+import main.hmm.profil.calibration.Calibration;
+import main.hmm.profil.calibration.Gumbel;
+import main.hmm.profil.viterbi.PrefixViterbi;
+import main.hmm.profil.viterbi.ViterbiCache;
 import main.hmm.profil.viterbi.ViterbiPath;
 import main.hmm.profil.viterbi.parallel.ParallelizationSupporter;
 import main.logger.Log;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Ausfuehrbare Klasse, die den Dateipfad der Traings-Sequencen als Parameter (-filetrain <Path>)
+ * oder eines gespeicherten Modells (-modelin &lt;Path&gt;)
  * sowie der Test-Sequencen als Parameter (-filetest <Path>) uebergeben bekommen muss.
  * <p>
- * Erstellt anhand der Trainings-Sequencen ein {@link RNAProfilHMM}.
+ * Erstellt anhand der Trainings-Sequencen ein {@link RNAProfilHMM} oder laedt es mittels {@link ProfilHMMFile}.
+ * Das Modell kann mittels {@link ProfilHMMFile} gespeichert werden (-modelout &lt;Path&gt;).
+ * Mit -modelcache &lt;Dir&gt; (und optional -modelcachesize &lt;MB&gt;) wird das Modell ueber {@link ProfilHMMCache} bezogen,
+ * sodass wiederholte Laeufe mit denselben Trainings-Sequenzen das Modell nicht erneut erstellen.
+ * Optional wird das Modell anschliessend mittels {@link BaumWelch} anhand nicht alignierter Sequenzen
+ * verfeinert (-filerefine &lt;Path&gt;, -iterations &lt;Anzahl&gt;, -epsilon &lt;Wert&gt;).
  * Anschliessend wird mittels des Viterbi-Algorithmus fuer jede Test-Sequenz ein Zustands-Pfad ermittelt.
+ * Mit -ids &lt;Path&gt; (Datei mit einem Namen pro Zeile) werden nur die entsprechenden Test-Sequenzen
+ * mittels {@link FastaIndex} gelesen.
+ * Mit --dedup wird fuer identische Test-Sequenzen der Zustands-Pfad nur einmal berechnet (siehe {@link ViterbiCache}).
+ * Mit --prefixshare werden Zeilen gemeinsamer Praefixe der Test-Sequenzen nur einmal berechnet (siehe {@link PrefixViterbi}).
  * Dabei wird zur Parallelisierung {@link ParallelizationSupporter} verwendet.
+ * Mit --logodds wird jeder Zustands-Pfad gegenueber dem {@link NullModel} als Log-Odds-Score in Bit bewertet und
+ * unabhaengig von den anderen Sequenzen anhand des Schwellwerts -bitthreshold &lt;Bit&gt; (Standard 0) klassifiziert.
+ * Ohne -ids, --dedup und --prefixshare werden die Test-Sequenzen dabei als Stream gelesen und sofort ausgegeben.
+ * Mit -calibrate &lt;Anzahl&gt; wird das Modell mittels {@link Calibration} anhand zufaelliger Sequenzen kalibriert
+ * (wird mit -modelout gespeichert). Fuer kalibrierte Modelle wird zusaetzlich der E-Wert bzgl. -dbsize &lt;Anzahl&gt; (Standard 1)
+ * ausgegeben und anhand des Schwellwerts -evalue &lt;Wert&gt; (Standard 0.01) klassifiziert.
+ * Mit --gated (impliziert --logodds) wird zunaechst nur der Score jeder Sequenz ohne Rueckverfolgung berechnet,
+ * der Zustands-Pfad nur fuer als rRNA klassifizierte Sequenzen (wird als weitere Spalte ausgegeben).
+ * --gated kann nicht mit --dedup oder --prefixshare kombiniert werden.
+ * Mit -topk &lt;Anzahl&gt; werden nur die Test-Sequenzen mit den hoechsten Bit-Scores ausgegeben,
+ * ohne Zustands-Pfade aller Sequenzen im Speicher zu halten.
  *
  * @author Soeren Metje
  */
 public class RNAProfilHMMMain {
 
+    /**
+     * Standardwert fuer die maximale Groesse des Modell-Caches in MB
+     */
+    private static final long DEFAULT_MODEL_CACHE_SIZE_MB = 256;
+
+    /**
+     * Standardwert fuer den Schwellwert des Bit-Scores
+     */
+    private static final double DEFAULT_BIT_THRESHOLD = 0d;
+
+    /**
+     * Standardwert fuer den Schwellwert des E-Werts
+     */
+    private static final double DEFAULT_MAX_EVALUE = 0.01;
+
+    /**
+     * Standardwert fuer die Anzahl durchsuchter Sequenzen bei der Berechnung der E-Werte
+     */
+    private static final long DEFAULT_DATABASE_SIZE = 1;
+
     /**
      * Ausfuehrbare Methode. Erstellt anhand der Traings-Sequnzen ein {@link RNAProfilHMM} und
      * berechnet mittels des Viterbi-Algorithmus den wahrscheinlichsten Zustands-Pfad.
@@ -38,12 +93,46 @@ public class RNAProfilHMMMain {
     public static void main(String[] args) {
         // set up Parameter
         ParameterSet parameterSet = new ParameterSet();
-        Setting paramFileTrain = new Setting("filetrain", true);
+        Setting paramFileTrain = new Setting("filetrain", false);
         Setting paramFileTest = new Setting("filetest", true);
+        Setting paramFileRefine = new Setting("filerefine", false);
+        Setting paramIterations = new Setting("iterations", false);
+        Setting paramEpsilon = new Setting("epsilon", false);
+        Setting paramModelIn = new Setting("modelin", false);
+        Setting paramModelOut = new Setting("modelout", false);
+        Setting paramModelCache = new Setting("modelcache", false);
+        Setting paramModelCacheSize = new Setting("modelcachesize", false);
+        Setting paramIds = new Setting("ids", false);
+        Setting paramBitThreshold = new Setting("bitthreshold", false);
+        Setting paramCalibrate = new Setting("calibrate", false);
+        Setting paramEValue = new Setting("evalue", false);
+        Setting paramDatabaseSize = new Setting("dbsize", false);
+        Setting paramTopK = new Setting("topk", false);
         Flag paramDebug = new Flag("debug", false);
+        Flag paramDedup = new Flag("dedup", false);
+        Flag paramPrefixShare = new Flag("prefixshare", false);
+        Flag paramLogOdds = new Flag("logodds", false);
+        Flag paramGated = new Flag("gated", false);
         parameterSet.addSetting(paramFileTrain);
         parameterSet.addSetting(paramFileTest);
+        parameterSet.addSetting(paramFileRefine);
+        parameterSet.addSetting(paramIterations);
+        parameterSet.addSetting(paramEpsilon);
+        parameterSet.addSetting(paramModelIn);
+        parameterSet.addSetting(paramModelOut);
+        parameterSet.addSetting(paramModelCache);
+        parameterSet.addSetting(paramModelCacheSize);
+        parameterSet.addSetting(paramIds);
+        parameterSet.addSetting(paramBitThreshold);
+        parameterSet.addSetting(paramCalibrate);
+        parameterSet.addSetting(paramEValue);
+        parameterSet.addSetting(paramDatabaseSize);
+        parameterSet.addSetting(paramTopK);
         parameterSet.addFlag(paramDebug);
+        parameterSet.addFlag(paramDedup);
+        parameterSet.addFlag(paramPrefixShare);
+        parameterSet.addFlag(paramLogOdds);
+        parameterSet.addFlag(paramGated);
 
         try {
             ArgumentParser parser = new ArgumentParser(parameterSet);
@@ -56,21 +145,150 @@ public class RNAProfilHMMMain {
         if (paramDebug.isSet())
             Log.setPrintDebug(true);
 
-        List<Sequence> sequencesTrain = readFile(paramFileTrain.getValue());
+        if (paramFileTrain.isSet() == paramModelIn.isSet()) {
+            Log.eLine("ERROR: either parameter filetrain or modelin has to be set");
+            System.exit(1);
+        }
 
         RNAProfilHMM model = null;
-        try {
-            model = new RNAProfilHMM(sequencesTrain);
-        } catch (IllegalArgumentException e) {
-            Log.eLine("ERROR: Building ProfilHMM failed! " + e.getMessage());
-            System.exit(1);
+        if (paramModelIn.isSet()) {
+            try {
+                model = ProfilHMMFile.read(paramModelIn.getValue());
+            } catch (IOException e) {
+                Log.eLine("ERROR: while loading model " + paramModelIn.getValue() + ": " + e.getMessage());
+                System.exit(1);
+            }
+        } else if (paramModelCache.isSet()) {
+            try {
+                long cacheSize = DEFAULT_MODEL_CACHE_SIZE_MB;
+                if (paramModelCacheSize.isSet())
+                    cacheSize = Long.parseLong(paramModelCacheSize.getValue());
+                ProfilHMMCache cache = new ProfilHMMCache(paramModelCache.getValue(), cacheSize * 1024 * 1024);
+                model = cache.get(paramFileTrain.getValue());
+            } catch (NumberFormatException e) {
+                Log.eLine("ERROR: invalid number " + e.getMessage());
+                System.exit(1);
+            } catch (IOException e) {
+                Log.eLine("ERROR: model cache failed! " + e.getMessage());
+                System.exit(1);
+            } catch (FastaParserException e) {
+                Log.eLine("ERROR: while parsing file " + paramFileTrain.getValue() + ": " + e.getMessage());
+                System.exit(1);
+            } catch (IllegalArgumentException e) {
+                Log.eLine("ERROR: Building ProfilHMM failed! " + e.getMessage());
+                System.exit(1);
+            }
+        } else {
+            List<Sequence> sequencesTrain = readFile(paramFileTrain.getValue());
+            try {
+                model = new RNAProfilHMM(sequencesTrain);
+            } catch (IllegalArgumentException e) {
+                Log.eLine("ERROR: Building ProfilHMM failed! " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        // Refine model with unaligned Sequences ---------------------------------
+        if (paramFileRefine.isSet()) {
+            int iterations = BaumWelch.DEFAULT_MAX_ITERATIONS;
+            double epsilon = BaumWelch.DEFAULT_EPSILON;
+            try {
+                if (paramIterations.isSet())
+                    iterations = Integer.parseInt(paramIterations.getValue());
+                if (paramEpsilon.isSet())
+                    epsilon = Double.parseDouble(paramEpsilon.getValue());
+            } catch (NumberFormatException e) {
+                Log.eLine("ERROR: invalid number " + e.getMessage());
+                System.exit(1);
+            }
+
+            List<Sequence> sequencesRefine = readFile(paramFileRefine.getValue());
+            try {
+                BaumWelch.train(model, sequencesRefine, iterations, epsilon);
+            } catch (IllegalArgumentException e) {
+                Log.eLine("ERROR: Baum-Welch training failed! " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        // Calibrate E-values with random Sequences -----------------------------
+        if (paramCalibrate.isSet()) {
+            int sampleCount = Calibration.DEFAULT_SAMPLE_COUNT;
+            try {
+                sampleCount = Integer.parseInt(paramCalibrate.getValue());
+            } catch (NumberFormatException e) {
+                Log.eLine("ERROR: invalid number " + e.getMessage());
+                System.exit(1);
+            }
+            try {
+                Calibration.calibrate(model, sampleCount);
+            } catch (IllegalArgumentException e) {
+                Log.eLine("ERROR: Calibration failed! " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        if (paramModelOut.isSet()) {
+            try {
+                ProfilHMMFile.write(model, paramModelOut.getValue());
+            } catch (IOException e) {
+                Log.eLine("ERROR: while writing model " + paramModelOut.getValue() + ": " + e.getMessage());
+                System.exit(1);
+            }
         }
 
         Log.iLine();
 
         // Test-Sequences --------------------------------------------------------
-        List<Sequence> sequencesTest = readFile(paramFileTest.getValue());
-        List<ViterbiPath> viterbiPaths = ParallelizationSupporter.viterbiParallelized(model, sequencesTest);
+        double bitThreshold = DEFAULT_BIT_THRESHOLD;
+        double maxEValue = DEFAULT_MAX_EVALUE;
+        long databaseSize = DEFAULT_DATABASE_SIZE;
+        int topK = 0;
+        try {
+            if (paramBitThreshold.isSet())
+                bitThreshold = Double.parseDouble(paramBitThreshold.getValue());
+            if (paramEValue.isSet())
+                maxEValue = Double.parseDouble(paramEValue.getValue());
+            if (paramDatabaseSize.isSet())
+                databaseSize = Long.parseLong(paramDatabaseSize.getValue());
+            if (paramTopK.isSet())
+                topK = Integer.parseInt(paramTopK.getValue());
+        } catch (NumberFormatException e) {
+            Log.eLine("ERROR: invalid number " + e.getMessage());
+            System.exit(1);
+        }
+
+        if (paramTopK.isSet()) {
+            if (topK < 1) {
+                Log.eLine("ERROR: parameter topk has to be at least 1");
+                System.exit(1);
+            }
+            searchTopK(model, paramFileTest.getValue(), paramIds.isSet() ? paramIds.getValue() : null, topK, databaseSize);
+            return;
+        }
+
+        if (paramGated.isSet() && (paramDedup.isSet() || paramPrefixShare.isSet())) {
+            Log.eLine("ERROR: flag gated can not be combined with dedup or prefixshare");
+            System.exit(1);
+        }
+        if (paramLogOdds.isSet() || paramGated.isSet() || model.getGumbel() != null) {
+            classifyLogOdds(model, paramFileTest.getValue(), paramIds.isSet() ? paramIds.getValue() : null, paramDedup.isSet(), paramPrefixShare.isSet(),
+                    bitThreshold, maxEValue, databaseSize, paramGated.isSet());
+            return;
+        }
+
+        List<Sequence> sequencesTest;
+        if (paramIds.isSet())
+            sequencesTest = readRecords(paramFileTest.getValue(), paramIds.getValue());
+        else
+            sequencesTest = readFile(paramFileTest.getValue());
+        List<ViterbiPath> viterbiPaths;
+        if (paramDedup.isSet())
+            viterbiPaths = ParallelizationSupporter.viterbiParallelizedDeduplicated(model, sequencesTest, new ViterbiCache(ViterbiCache.DEFAULT_CAPACITY));
+        else if (paramPrefixShare.isSet())
+            viterbiPaths = ParallelizationSupporter.viterbiParallelizedPrefixShared(model, sequencesTest);
+        else
+            viterbiPaths = ParallelizationSupporter.viterbiParallelized(model, sequencesTest);
 
         // calc Threshold
         double threshold = calcThreshold(viterbiPaths);
@@ -91,6 +309,148 @@ public class RNAProfilHMMMain {
         }
     }
 
+    /**
+     * Bewertet die Test-Sequenzen mittels {@link NullModel} und gibt je Sequenz Score, Bit-Score und rRNA-Entscheidung aus.
+     * Ist das Modell kalibriert, wird zusaetzlich der E-Wert ausgegeben und anhand dessen entschieden.
+     * Ohne Namens-Datei, Deduplizierung und gemeinsame Praefixe werden die Sequenzen als paralleler Stream gelesen,
+     * sodass nie alle Sequenzen oder Zustands-Pfade gleichzeitig im Speicher gehalten werden.
+     *
+     * @param model        Modell
+     * @param filePath     Pfad zur Datei mit den Test-Sequenzen
+     * @param idsPath      Pfad zur Datei mit Namen (null, falls alle Sequenzen)
+     * @param dedup        true, falls identische Sequenzen nur einmal berechnet werden sollen
+     * @param prefixShare  true, falls gemeinsame Praefixe nur einmal berechnet werden sollen
+     * @param bitThreshold Schwellwert des Bit-Scores (falls nicht kalibriert)
+     * @param maxEValue    Schwellwert des E-Werts (falls kalibriert)
+     * @param databaseSize Anzahl durchsuchter Sequenzen fuer E-Werte
+     * @param gated        true, falls zunaechst nur Scores und Zustands-Pfade nur fuer rRNA berechnet und ausgegeben werden sollen
+     *                     (siehe {@link ParallelizationSupporter#viterbiStreamGated(ProfilHMM, Stream, Predicate)}).
+     *                     Nicht mit dedup oder prefixShare kombinierbar.
+     */
+    private static void classifyLogOdds(final ProfilHMM model, final String filePath, final String idsPath,
+                                        final boolean dedup, final boolean prefixShare,
+                                        final double bitThreshold, final double maxEValue, final long databaseSize, final boolean gated) {
+        NullModel nullModel = NullModel.of(model);
+        Gumbel gumbel = model.getGumbel();
+
+        DecimalFormat format = new DecimalFormat("#0.000");
+        format.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.US));
+        Predicate<ViterbiPath> isHit;
+        if (gumbel == null) {
+            Log.iLine(String.format("Bit-Threshold = %s", format.format(bitThreshold)));
+            Log.iLine("Table log Score, bit Score and rRNA-Decision" + (gated ? " (and state path of rRNA):" : ":"));
+            isHit = path -> nullModel.bitScore(path) >= bitThreshold;
+        } else {
+            Log.iLine(String.format(Locale.US, "E-value-Threshold = %.3g (database size %d, %s)", maxEValue, databaseSize, gumbel));
+            Log.iLine("Table log Score, bit Score, E-value and rRNA-Decision" + (gated ? " (and state path of rRNA):" : ":"));
+            isHit = path -> gumbel.eValue(nullModel.bitScore(path), databaseSize) <= maxEValue;
+        }
+        Consumer<ViterbiPath> output = path -> {
+            double bits = nullModel.bitScore(path);
+            StringBuilder line = new StringBuilder();
+            line.append(format.format(path.getScore())).append(';').append(format.format(bits));
+            if (gumbel != null)
+                line.append(';').append(String.format(Locale.US, "%.3g", gumbel.eValue(bits, databaseSize)));
+            boolean hit = isHit.test(path);
+            line.append(';').append(hit ? '1' : '0');
+            if (gated && hit && path.hasStatePath())
+                line.append(';').append(path.getStatePath());
+            Log.iLine(line.toString());
+        };
+
+        if (gated && idsPath != null) {
+            List<Sequence> sequencesTest = readRecords(filePath, idsPath);
+            ParallelizationSupporter.viterbiStreamGated(model, sequencesTest.parallelStream(), isHit).forEachOrdered(output);
+            return;
+        }
+
+        if (idsPath != null || dedup || prefixShare) {
+            List<Sequence> sequencesTest;
+            if (idsPath != null)
+                sequencesTest = readRecords(filePath, idsPath);
+            else
+                sequencesTest = readFile(filePath);
+            List<ViterbiPath> viterbiPaths;
+            if (dedup)
+                viterbiPaths = ParallelizationSupporter.viterbiParallelizedDeduplicated(model, sequencesTest, new ViterbiCache(ViterbiCache.DEFAULT_CAPACITY));
+            else if (prefixShare)
+                viterbiPaths = ParallelizationSupporter.viterbiParallelizedPrefixShared(model, sequencesTest);
+            else
+                viterbiPaths = ParallelizationSupporter.viterbiParallelized(model, sequencesTest);
+            viterbiPaths.forEach(output);
+            return;
+        }
+
+        Log.iLine("streaming " + filePath);
+        long millis = System.currentTimeMillis(); // measure calc time
+        try (Stream<Sequence> sequences = FastaParser.stream(filePath)) {
+            if (gated)
+                ParallelizationSupporter.viterbiStreamGated(model, sequences.parallel(), isHit).forEachOrdered(output);
+            else
+                ParallelizationSupporter.viterbiStream(model, sequences.parallel()).forEachOrdered(output);
+        } catch (FileNotFoundException e) {
+            Log.eLine("ERROR: file " + filePath + " not found");
+            System.exit(1);
+        } catch (IOException | UncheckedIOException e) {
+            Log.eLine("ERROR: while reading file " + filePath + ": " + e.getMessage());
+            System.exit(1);
+        } catch (UncheckedFastaParserException e) {
+            Log.eLine("ERROR: while parsing file " + filePath + ": " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            Log.eLine("ERROR: Viterbi failed! " + e.getMessage());
+            System.exit(1);
+        }
+        millis = System.currentTimeMillis() - millis;
+        Log.iLine(String.format("(%.2fsec) successfully finished streaming file", (float) millis / 1000));
+    }
+
+    /**
+     * Sucht die k Test-Sequenzen mit den hoechsten Bit-Scores bzgl. des {@link NullModel}
+     * mittels {@link ParallelizationSupporter#viterbiParallelizedTopK(ProfilHMM, Stream, int)}
+     * und gibt je Treffer Beschreibung, Score, Bit-Score und (falls das Modell kalibriert ist) E-Wert aus.
+     *
+     * @param model        Modell
+     * @param filePath     Pfad zur Datei mit den Test-Sequenzen
+     * @param idsPath      Pfad zur Datei mit Namen (null, falls alle Sequenzen)
+     * @param k            Anzahl der besten Sequenzen
+     * @param databaseSize Anzahl durchsuchter Sequenzen fuer E-Werte
+     */
+    private static void searchTopK(final ProfilHMM model, final String filePath, final String idsPath, final int k, final long databaseSize) {
+        List<ViterbiPath> viterbiPaths = null;
+        if (idsPath != null) {
+            viterbiPaths = ParallelizationSupporter.viterbiParallelizedTopK(model, readRecords(filePath, idsPath).stream(), k);
+        } else {
+            Log.iLine("streaming " + filePath);
+            try (Stream<Sequence> sequences = FastaParser.stream(filePath)) {
+                viterbiPaths = ParallelizationSupporter.viterbiParallelizedTopK(model, sequences, k);
+            } catch (FileNotFoundException e) {
+                Log.eLine("ERROR: file " + filePath + " not found");
+                System.exit(1);
+            } catch (IOException | UncheckedIOException e) {
+                Log.eLine("ERROR: while reading file " + filePath + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        NullModel nullModel = NullModel.of(model);
+        Gumbel gumbel = model.getGumbel();
+        DecimalFormat format = new DecimalFormat("#0.000");
+        format.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.US));
+        Log.iLine(gumbel == null ? "Table of best hits: Description, log Score and bit Score:"
+                : "Table of best hits: Description, log Score, bit Score and E-value:");
+        StringBuilder out = new StringBuilder();
+        for (ViterbiPath path : viterbiPaths) {
+            double bits = nullModel.bitScore(path);
+            out.append(path.getSequence().getDescription()).append(';')
+                    .append(format.format(path.getScore())).append(';').append(format.format(bits));
+            if (gumbel != null)
+                out.append(';').append(String.format(Locale.US, "%.3g", gumbel.eValue(bits, databaseSize)));
+            out.append('\n');
+        }
+        Log.iLine(out.toString());
+    }
+
     /**
      * Berechnet den Score-Schwellwert der Sequenzen {@link Sequence} bzw. Zusatnds-Pfade {@link ViterbiPath}, mit dem zwischen rRNA und NonrRNA unterschieden werden soll.
      * Liefert diesen abschliessend zurueck.
@@ -98,7 +458,7 @@ public class RNAProfilHMMMain {
      * @param viterbiPaths zu betrachtende Sequenzen {@link Sequence} bzw. Zusatnds-Pfade {@link ViterbiPath}
      * @return Score-Schwellwert
      */
-    private static double calcThreshold(final List<ViterbiPath> viterbiPaths) { // TODO improve
+    public static double calcThreshold(final List<ViterbiPath> viterbiPaths) { // TODO improve
         int stateCount = 2;
         final ArrayList<List<ViterbiPath>> listrRNA = new ArrayList<>(stateCount);
         listrRNA.add(new LinkedList<>()); // 0 = rRNA
@@ -108,7 +468,7 @@ public class RNAProfilHMMMain {
             // average score of all statepaths
             double avgScorePerState = 0d;
             for (ViterbiPath path : viterbiPaths) {
-                avgScorePerState += path.getScore() / path.getStatePath().length;
+                avgScorePerState += path.getScore() / path.getStatePathLength();
             }
             avgScorePerState /= viterbiPaths.size();
 
@@ -152,10 +512,9 @@ public class RNAProfilHMMMain {
      * @return true, falls rRNA. Ansonsten false.
      */
     private static boolean isrRNA(final ViterbiPath path, double thresholdAvgScorePerState) { // TODO improve
-        final char[] statePath = path.getStatePath();
         final double score = path.getScore();
 
-        double scoreAveragePerState = score / statePath.length;
+        double scoreAveragePerState = score / path.getStatePathLength();
 
         if (scoreAveragePerState >= thresholdAvgScorePerState)
             return false;
@@ -168,7 +527,7 @@ public class RNAProfilHMMMain {
      * @param filePath Pfad zu Datei
      * @return Liste mit Sequenzen
      */
-    private static List<Sequence> readFile(final String filePath) {
+    public static List<Sequence> readFile(final String filePath) {
 
         List<Sequence> ret = null;
 
@@ -190,4 +549,42 @@ public class RNAProfilHMMMain {
 
         return ret;
     }
+
+    /**
+     * Liesst die Sequenzen, deren Namen in der Datei am uebergebenen Pfad stehen (ein Name pro Zeile),
+     * mittels {@link FastaIndex} aus der Datei am uebergebenen Pfad und liefert sie zurueck.
+     * Der Index wird dabei gegebenenfalls erstellt.
+     *
+     * @param filePath Pfad zu Datei
+     * @param idsPath  Pfad zu Datei mit Namen
+     * @return Liste mit Sequenzen
+     */
+    public static List<Sequence> readRecords(final String filePath, final String idsPath) {
+
+        List<Sequence> ret = null;
+
+        Log.iLine("reading " + filePath + " (records listed in " + idsPath + ")");
+        try {
+            List<String> names = new ArrayList<>();
+            for (String line : Files.readAllLines(Paths.get(idsPath))) {
+                line = line.trim();
+                if (!line.isEmpty())
+                    names.add(line);
+            }
+            ret = FastaParser.parseRecords(filePath, FastaIndex.load(filePath), names);
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            Log.eLine("ERROR: file " + e.getMessage() + " not found");
+            System.exit(1);
+        } catch (IOException e) {
+            Log.eLine("ERROR: while reading file " + filePath + ": " + e.getMessage());
+            System.exit(1);
+        } catch (FastaParserException e) {
+            Log.eLine("ERROR: while parsing file " + filePath + ": " + e.getMessage());
+            System.exit(1);
+        }
+
+        Log.iLine("successfully finished reading " + ret.size() + " records");
+
+        return ret;
+    }
 }
@@ -1,6 +1,7 @@
 package main.hmm.profil;
 
 import main.fastaparser.Sequence;
+import main.hmm.profil.viterbi.CompactStatePath;
 import main.hmm.profil.viterbi.Viterbi;
 import main.hmm.profil.viterbi.ViterbiPath;
 import org.junit.Assert;
@@ -69,5 +70,10 @@ public class RNAProfilHMMTest {
         ViterbiPath path = Viterbi.viterbi(model, new Sequence("test", null, seqTest));
         String stringPath = String.valueOf(path.getStatePath());
         Assert.assertEquals(result, stringPath);
+
+        // run-length encoded path
+        Assert.assertEquals(CompactStatePath.of(result.toCharArray()), path.getCompactStatePath());
+        Assert.assertEquals(result, String.valueOf(path.getCompactStatePath().toCharArray()));
+        Assert.assertEquals(result.length(), path.getStatePathLength());
     }
 }
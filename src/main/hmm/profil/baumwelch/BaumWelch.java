@@ -0,0 +1,169 @@
+package main.hmm.profil.baumwelch;
+
+import main.fastaparser.Sequence;
+import main.hmm.profil.ProfilHMM;
+import main.logger.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Enthaelt die Implementation des Baum-Welch-Algorithmus (Expectation-Maximization) fuer {@link ProfilHMM}.
+ * <p>
+ * Ausgehend von einem bereits erstellten Modell werden die Wahrscheinlichkeiten anhand nicht alignierter Sequenzen
+ * iterativ neu geschaetzt. Die Struktur des Modells (Anzahl der Match-Zustaende) bleibt dabei erhalten.
+ * Der E-Schritt wird parallelisiert ausgefuehrt. Jeder Thread summiert die erwarteten Haeufigkeiten
+ * in einem eigenen Akkumulator auf, die anschliessend zusammengefuehrt werden.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class BaumWelch {
+
+    /**
+     * Standardwert fuer die maximale Anzahl an Iterationen
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 20;
+
+    /**
+     * Standardwert fuer die relative Verbesserung des Log-Posteriors, ab der abgebrochen wird
+     */
+    public static final double DEFAULT_EPSILON = 1e-4;
+
+    /**
+     * Trainiert uebergebenes Modell mittels Baum-Welch-Algorithmus und Standardwerten fuer Abbruchkriterien.
+     *
+     * @param model     bereits erstelltes Modell, dessen Wahrscheinlichkeiten neu geschaetzt werden
+     * @param sequences nicht alignierte Trainings-Sequenzen (Gaps werden ignoriert)
+     * @return Log-Likelihood aller Sequenzen vor der letzten Neuschaetzung
+     * @throws IllegalArgumentException falls eine Beobachtung nicht im Modell gefunden wird
+     */
+    public static double train(final ProfilHMM model, final List<Sequence> sequences) throws IllegalArgumentException {
+        return train(model, sequences, DEFAULT_MAX_ITERATIONS, DEFAULT_EPSILON);
+    }
+
+    /**
+     * Trainiert uebergebenes Modell mittels Baum-Welch-Algorithmus.
+     * Bricht ab, falls die maximale Anzahl an Iterationen erreicht ist
+     * oder sich der Log-Posterior (Log-Likelihood plus {@link ProfilHMM#logPrior()}) relativ um weniger als epsilon verbessert.
+     * Nur dieser steigt mit jeder Iteration, die Log-Likelihood allein kann bei Pseudo-Counts &gt; 0 auch sinken.
+     *
+     * @param model         bereits erstelltes Modell, dessen Wahrscheinlichkeiten neu geschaetzt werden
+     * @param sequences     nicht alignierte Trainings-Sequenzen (Gaps werden ignoriert)
+     * @param maxIterations maximale Anzahl an Iterationen
+     * @param epsilon       relative Verbesserung des Log-Posteriors, ab der abgebrochen wird
+     * @return Log-Likelihood aller Sequenzen vor der letzten Neuschaetzung
+     * @throws IllegalArgumentException falls Modell oder Sequenzen == null, Sequenzen leer,
+     *                                  maxIterations &lt; 1 oder eine Beobachtung nicht im Modell gefunden wird
+     */
+    public static double train(final ProfilHMM model, final List<Sequence> sequences, final int maxIterations, final double epsilon) throws IllegalArgumentException {
+        if (model == null)
+            throw new IllegalArgumentException("model is null");
+        if (sequences == null)
+            throw new IllegalArgumentException("sequences is null");
+        if (sequences.isEmpty())
+            throw new IllegalArgumentException("sequences is empty");
+        if (maxIterations < 1)
+            throw new IllegalArgumentException("maxIterations has to be at least 1");
+
+        Log.iLine("Baum-Welch training ProfilHMM -----------------------------");
+        Log.iLine("Sequence count = " + sequences.size());
+
+        // map residues once, not in every iteration
+        List<int[]> observations = new ArrayList<>(sequences.size());
+        for (Sequence sequence : sequences) {
+            try {
+                observations.add(model.observationsToIndices(residues(sequence, model.getGap())));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Sequence '" + sequence.getDescription() + "': " + e.getMessage(), e);
+            }
+        }
+
+        double lastLogLikelihood = Double.NEGATIVE_INFINITY;
+        double lastLogPosterior = Double.NEGATIVE_INFINITY;
+        for (int iteration = 1; iteration <= maxIterations; iteration++) {
+            long millis = System.currentTimeMillis(); // measure calc time
+            ExpectedCounts counts = expectationParallelized(model, observations);
+            double logPosterior = counts.logLikelihood + model.logPrior(); // of the parameters used in the E-step
+            model.reestimate(counts.emissionMatch, counts.emissionInsert, counts.transition);
+            millis = System.currentTimeMillis() - millis;
+
+            double logLikelihood = counts.logLikelihood;
+            Log.iLine(String.format("(%.2fsec) Iteration %d: log-likelihood = %.4f, log-posterior = %.4f", (float) millis / 1000, iteration, logLikelihood, logPosterior));
+
+            double improvement = logPosterior - lastLogPosterior;
+            lastLogLikelihood = logLikelihood;
+            lastLogPosterior = logPosterior;
+            if (improvement < epsilon * Math.abs(logPosterior)) {
+                Log.iLine("converged after " + iteration + " iterations");
+                break;
+            }
+        }
+        return lastLogLikelihood;
+    }
+
+    /**
+     * Fuehrt den E-Schritt parallelisiert aus und liefert die zusammengefuehrten erwarteten Haeufigkeiten zurueck.
+     * <p>
+     * Es werden so viele Threads erstellt, wie logische Kerne der JVM zur verfuegung stehen.
+     *
+     * @param model        Modell
+     * @param observations Index-Folgen der Nukleotide (ohne Gaps) je Sequenz
+     * @return zusammengefuehrte erwartete Haeufigkeiten
+     * @throws IllegalArgumentException falls eine Beobachtung nicht im Modell gefunden wird
+     */
+    private static ExpectedCounts expectationParallelized(final ProfilHMM model, final List<int[]> observations) throws IllegalArgumentException {
+        Queue<int[]> sequenceQueue = new LinkedList<>(observations); // synchronisation in ThreadBaumWelch
+        int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), sequenceQueue.size());
+
+        List<ThreadBaumWelch> threads = new LinkedList<>();
+        for (int i = 0; i < threadCount; i++) {
+            ThreadBaumWelch thread = new ThreadBaumWelch(model, sequenceQueue);
+            threads.add(thread);
+            thread.start();
+        }
+
+        // Waiting for threads to finish and reduce counts
+        ExpectedCounts counts = new ExpectedCounts(model);
+        IllegalArgumentException failure = null;
+        for (ThreadBaumWelch thread : threads) {
+            try {
+                thread.join();
+                Log.dLine(thread.getName() + " finished");
+            } catch (InterruptedException e) {
+                Log.eLine("ERROR: " + thread.getName() + " got interrupted");
+            }
+            if (thread.getFailure() != null) {
+                failure = thread.getFailure();
+            }
+            counts.add(thread.getCounts());
+        }
+        if (failure != null)
+            throw failure;
+
+        return counts;
+    }
+
+    /**
+     * Liefert die Nukleotide der uebergebenen Sequenz ohne Gaps zurueck
+     *
+     * @param sequence Sequenz
+     * @param gap      Zeichen fuer Gap
+     * @return Nukleotide ohne Gaps
+     */
+    static char[] residues(final Sequence sequence, final char gap) {
+        String nucleotides = sequence.getNucleotideSequence();
+        char[] ret = new char[nucleotides.length()];
+        int length = 0;
+        for (int i = 0; i < nucleotides.length(); i++) {
+            char c = nucleotides.charAt(i);
+            if (c != gap) {
+                ret[length++] = c;
+            }
+        }
+        return length == ret.length ? ret : Arrays.copyOf(ret, length);
+    }
+}
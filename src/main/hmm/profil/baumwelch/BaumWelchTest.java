@@ -0,0 +1,174 @@
+package main.hmm.profil.baumwelch;
+
+import main.fastaparser.Sequence;
+import main.hmm.profil.ProfilHMM;
+import main.hmm.profil.RNAProfilHMM;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test-Klasse fuer {@link BaumWelch} und {@link ForwardBackward}.
+ *
+ * @author Soeren Metje
+ */
+public class BaumWelchTest {
+
+    /**
+     * Trainings-Sequenzen (Alignment)
+     */
+    private static final String[] SEQ_TRAIN = {"UACAAUCAAGG", "UA-AAUCAAGG", "U--AAUCAAGG", "U-CAAUCAAGG", "U--AAUCAAGG",
+            "U--AAUCAAGG", "UACAAUCAAGG", "U--AAUCAAGG", "U--AAUCAAGG", "UACAAUCAAGG"};
+
+    /**
+     * nicht alignierte Sequenzen, die nur Einfuegungen an den Insert-Spalten des Alignments enthalten
+     * (bei Pseudo-Count 0 mit dem Modell erzeugbar)
+     */
+    private static final String[] SEQ_REFINE_INSERTS = {"UAAUCAAGG", "UACAAUCAAGG", "UCAAUCAAGG", "UAAAUCAAGG", "UCCAAUCAAGG", "UACCAAUCAAGG"};
+
+    /**
+     * nicht alignierte Sequenzen mit Einfuegungen, Auslassungen und abweichenden Nukleotiden
+     */
+    private static final String[] SEQ_REFINE = {"UAAUCAAGG", "UACAAUCAAGG", "GAAUCAAG", "UAAUCGAAGG", "UAUCAAGGA", "CAAUCAAGGU", "UAC-AAUCAAGG"};
+
+    /**
+     * zulaessiger relativer Rundungsfehler
+     */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * min. Anteil an Nukleotiden (kein Gap) einer Spalte fuer Match-Zustand
+     */
+    private static final double THRESHOLD_MATCHSTATE = .5d;
+
+    /**
+     * Test von {@link ForwardBackward}.
+     * Forward- und Backward-Variablen muessen dieselbe Gesamt-Wahrscheinlichkeit jeder Sequenz liefern.
+     */
+    @Test
+    public void testForwardEqualsBackward() {
+        ProfilHMM model = new RNAProfilHMM(toSequences(SEQ_TRAIN));
+        for (int[] observations : toObservations(model, SEQ_REFINE)) {
+            double forward = ForwardBackward.logLikelihood(model, ForwardBackward.forward(model, observations));
+            double backward = ForwardBackward.backward(model, observations)[ProfilHMM.STATE_MATCH_INDEX][0][0];
+            Assert.assertTrue(forward > Double.NEGATIVE_INFINITY);
+            Assert.assertEquals(forward, backward, EPSILON * Math.abs(forward));
+        }
+    }
+
+    /**
+     * Test von {@link BaumWelch} ohne Pseudo-Counts (Maximum-Likelihood).
+     * Die Log-Likelihood darf in keiner Iteration sinken.
+     */
+    @Test
+    public void testLogLikelihoodNonDecreasing() {
+        ProfilHMM model = new RNAProfilHMM(toSequences(SEQ_TRAIN), 0, 0, THRESHOLD_MATCHSTATE);
+        List<int[]> observations = toObservations(model, SEQ_REFINE_INSERTS);
+
+        double lastLogLikelihood = Double.NEGATIVE_INFINITY;
+        for (int iteration = 0; iteration < 10; iteration++) {
+            ExpectedCounts counts = new ExpectedCounts(model);
+            for (int[] observation : observations) {
+                Assert.assertTrue(ForwardBackward.accumulate(model, observation, counts) > Double.NEGATIVE_INFINITY);
+            }
+            Assert.assertTrue("iteration " + iteration + ": " + counts.logLikelihood + " < " + lastLogLikelihood,
+                    counts.logLikelihood >= lastLogLikelihood - EPSILON * Math.abs(counts.logLikelihood));
+            lastLogLikelihood = counts.logLikelihood;
+            model.reestimate(counts.emissionMatch, counts.emissionInsert, counts.transition);
+        }
+    }
+
+    /**
+     * Test von {@link BaumWelch} mit Pseudo-Counts. Die Neuschaetzung maximiert dann die Log-Likelihood plus
+     * {@link ProfilHMM#logPrior()} (Log-Posterior), der in keiner Iteration sinken darf.
+     * Zusaetzlich muss {@link BaumWelch#train(ProfilHMM, List, int, double)} die Log-Likelihood der letzten Iteration liefern.
+     */
+    @Test
+    public void testLogPosteriorNonDecreasing() {
+        int pseudoCount = 1;
+        ProfilHMM model = new RNAProfilHMM(toSequences(SEQ_TRAIN), pseudoCount, pseudoCount, THRESHOLD_MATCHSTATE);
+        List<int[]> observations = toObservations(model, SEQ_REFINE);
+
+        double lastLogPosterior = Double.NEGATIVE_INFINITY;
+        double logLikelihood = Double.NEGATIVE_INFINITY;
+        for (int iteration = 0; iteration < 10; iteration++) {
+            ExpectedCounts counts = new ExpectedCounts(model);
+            for (int[] observation : observations) {
+                ForwardBackward.accumulate(model, observation, counts);
+            }
+            double logPosterior = counts.logLikelihood + model.logPrior();
+            Assert.assertTrue("iteration " + iteration + ": " + logPosterior + " < " + lastLogPosterior,
+                    logPosterior >= lastLogPosterior - EPSILON * Math.abs(logPosterior));
+            lastLogPosterior = logPosterior;
+            logLikelihood = counts.logLikelihood;
+            model.reestimate(counts.emissionMatch, counts.emissionInsert, counts.transition);
+        }
+
+        ProfilHMM trained = new RNAProfilHMM(toSequences(SEQ_TRAIN), pseudoCount, pseudoCount, THRESHOLD_MATCHSTATE);
+        Assert.assertEquals(logLikelihood, BaumWelch.train(trained, toSequences(SEQ_REFINE), 10, -1d), EPSILON * Math.abs(logLikelihood));
+    }
+
+    /**
+     * Test des Abbruchkriteriums von {@link BaumWelch#train(ProfilHMM, List, int, double)} mit Pseudo-Counts.
+     * Abgebrochen wird erst, wenn sich der Log-Posterior relativ um weniger als epsilon verbessert,
+     * auch wenn die Log-Likelihood zwischendurch sinkt.
+     */
+    @Test
+    public void testConvergenceOnLogPosterior() {
+        ProfilHMM model = new RNAProfilHMM(toSequences(SEQ_TRAIN));
+        List<int[]> observations = toObservations(model, SEQ_REFINE);
+
+        double lastLogPosterior = Double.NEGATIVE_INFINITY;
+        double logLikelihood = Double.NEGATIVE_INFINITY;
+        boolean decreased = false;
+        for (int iteration = 1; iteration <= BaumWelch.DEFAULT_MAX_ITERATIONS; iteration++) {
+            ExpectedCounts counts = new ExpectedCounts(model);
+            for (int[] observation : observations) {
+                ForwardBackward.accumulate(model, observation, counts);
+            }
+            double logPosterior = counts.logLikelihood + model.logPrior();
+            model.reestimate(counts.emissionMatch, counts.emissionInsert, counts.transition);
+            decreased |= counts.logLikelihood < logLikelihood;
+            logLikelihood = counts.logLikelihood;
+            double improvement = logPosterior - lastLogPosterior;
+            lastLogPosterior = logPosterior;
+            if (improvement < BaumWelch.DEFAULT_EPSILON * Math.abs(logPosterior))
+                break;
+        }
+        Assert.assertTrue("log-likelihood never decreases before convergence", decreased);
+
+        ProfilHMM trained = new RNAProfilHMM(toSequences(SEQ_TRAIN));
+        Assert.assertEquals(logLikelihood, BaumWelch.train(trained, toSequences(SEQ_REFINE)), EPSILON * Math.abs(logLikelihood));
+    }
+
+    /**
+     * Erstellt Sequenzen aus uebergebenen Nukleotid-Sequenzen
+     *
+     * @param nucleotideSequences Nukleotid-Sequenzen
+     * @return Sequenzen
+     */
+    private static List<Sequence> toSequences(String[] nucleotideSequences) {
+        List<Sequence> sequences = new ArrayList<>(nucleotideSequences.length);
+        for (int i = 0; i < nucleotideSequences.length; i++) {
+            sequences.add(new Sequence(String.valueOf(i), null, nucleotideSequences[i]));
+        }
+        return sequences;
+    }
+
+    /**
+     * Liefert die Index-Folgen der Nukleotide (ohne Gaps) der uebergebenen Nukleotid-Sequenzen zurueck
+     *
+     * @param model               Modell
+     * @param nucleotideSequences Nukleotid-Sequenzen
+     * @return Index-Folgen
+     */
+    private static List<int[]> toObservations(ProfilHMM model, String[] nucleotideSequences) {
+        List<int[]> observations = new ArrayList<>(nucleotideSequences.length);
+        for (Sequence sequence : toSequences(nucleotideSequences)) {
+            observations.add(model.observationsToIndices(BaumWelch.residues(sequence, model.getGap())));
+        }
+        return observations;
+    }
+}
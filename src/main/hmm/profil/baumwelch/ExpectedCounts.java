@@ -0,0 +1,73 @@
+package main.hmm.profil.baumwelch;
+
+import main.hmm.profil.ProfilHMM;
+
+/**
+ * Akkumulator fuer die erwarteten Haeufigkeiten des E-Schritts im Baum-Welch-Algorithmus.
+ * Jeder Thread besitzt einen eigenen Akkumulator, die abschliessend mittels {@link #add(ExpectedCounts)} zusammengefuehrt werden.
+ *
+ * @author Soeren Metje
+ */
+class ExpectedCounts {
+
+    /**
+     * erwartete Haeufigkeiten der Nukleotide im Match-Zustand an Position im Modell
+     */
+    final double[][] emissionMatch;
+
+    /**
+     * erwartete Haeufigkeiten der Nukleotide im Insert-Zustand an Position im Modell
+     */
+    final double[][] emissionInsert;
+
+    /**
+     * erwartete Haeufigkeiten der Uebergaenge zwischen den Zustaenden an Position im Modell
+     */
+    final double[][][] transition;
+
+    /**
+     * Summe der Log-Likelihoods aller bearbeiteten Sequenzen
+     */
+    double logLikelihood;
+
+    /**
+     * Anzahl der bearbeiteten Sequenzen
+     */
+    int sequenceCount;
+
+    /**
+     * Konstruktor. Erstellt leeren Akkumulator passend zu uebergebenem Modell.
+     *
+     * @param model Profil Hidden Markov Model
+     */
+    ExpectedCounts(ProfilHMM model) {
+        int lengthModel = model.getLengthModel();
+        int baseCount = model.getAlphabet().size();
+        emissionMatch = new double[lengthModel][baseCount];
+        emissionInsert = new double[lengthModel][baseCount];
+        transition = new double[ProfilHMM.STATE_COUNT][ProfilHMM.STATE_COUNT][lengthModel];
+    }
+
+    /**
+     * Addiert die Haeufigkeiten des uebergebenen Akkumulators (Reduktion).
+     *
+     * @param other zu addierender Akkumulator
+     */
+    void add(ExpectedCounts other) {
+        for (int i = 0; i < emissionMatch.length; i++) {
+            for (int k = 0; k < emissionMatch[i].length; k++) {
+                emissionMatch[i][k] += other.emissionMatch[i][k];
+                emissionInsert[i][k] += other.emissionInsert[i][k];
+            }
+        }
+        for (int j = 0; j < transition.length; j++) {
+            for (int s = 0; s < transition[j].length; s++) {
+                for (int i = 0; i < transition[j][s].length; i++) {
+                    transition[j][s][i] += other.transition[j][s][i];
+                }
+            }
+        }
+        logLikelihood += other.logLikelihood;
+        sequenceCount += other.sequenceCount;
+    }
+}
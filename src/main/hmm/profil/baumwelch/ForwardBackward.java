@@ -0,0 +1,224 @@
+package main.hmm.profil.baumwelch;
+
+import main.hmm.HMMFunc;
+import main.hmm.profil.ProfilHMM;
+
+import java.util.Arrays;
+
+/**
+ * Enthaelt die Implementation des Forward-Backward-Algorithmus fuer logarithmische Werte.
+ * Die Rekursion entspricht der des Viterbi-Algorithmus ({@link main.hmm.profil.viterbi.Viterbi}),
+ * wobei das Maximum durch die (logarithmierte) Summe ersetzt wird.
+ *
+ * @author Soeren Metje
+ */
+class ForwardBackward {
+
+    /**
+     * Berechnet Forward- und Backward-Variablen fuer uebergebene Beobachtungsfolge
+     * und addiert die erwarteten Haeufigkeiten der Emissionen und Uebergaenge zum uebergebenen Akkumulator.
+     *
+     * @param model              Profil Hidden Markov Model (logarithmierte Wahrscheinlichkeiten)
+     * @param observationIndices Beobachtungsfolge als Index-Folge
+     * @param counts             Akkumulator
+     * @return Log-Likelihood der Beobachtungsfolge
+     */
+    static double accumulate(final ProfilHMM model, final int[] observationIndices, final ExpectedCounts counts) {
+        final int n = observationIndices.length;
+        final int length = n + 1;
+        final int lengthModel = model.getLengthModel();
+        final double[][] emissionProbMatch = model.getEmissionProbMatch();
+        final double[][] emissionProbInsert = model.getEmissionProbInsert();
+        final double[][][] transitionProb = model.getTransitionProb();
+
+        final int m = ProfilHMM.STATE_MATCH_INDEX;
+        final int ins = ProfilHMM.STATE_INSERT_INDEX;
+        final int del = ProfilHMM.STATE_DELETE_INDEX;
+
+        double[][][] forward = forward(model, observationIndices);
+        double logLikelihood = logLikelihood(model, forward);
+        if (logLikelihood == Double.NEGATIVE_INFINITY)
+            return logLikelihood; // sequence can not be generated by model -> no contribution
+        double[][][] backward = backward(model, observationIndices);
+
+        // EXPECTED COUNTS --------------------------------------------------------------------------
+        for (int i = 0; i < length; i++) {
+            for (int j = 0; j < lengthModel; j++) {
+                for (int k = 0; k < ProfilHMM.STATE_COUNT; k++) {
+                    double f = forward[k][i][j];
+                    if (f == Double.NEGATIVE_INFINITY)
+                        continue;
+                    f -= logLikelihood;
+
+                    if (i < n && j < lengthModel - 1) {
+                        counts.transition[k][m][j] += Math.exp(f + transitionProb[k][m][j] + emissionProbMatch[j + 1][observationIndices[i]] + backward[m][i + 1][j + 1]);
+                    }
+                    if (i < n) {
+                        counts.transition[k][ins][j] += Math.exp(f + transitionProb[k][ins][j] + emissionProbInsert[j][observationIndices[i]] + backward[ins][i + 1][j]);
+                    }
+                    if (j < lengthModel - 1) {
+                        counts.transition[k][del][j] += Math.exp(f + transitionProb[k][del][j] + backward[del][i][j + 1]);
+                    }
+                    if (i == n && j == lengthModel - 1) {
+                        counts.transition[k][m][j] += Math.exp(f + transitionProb[k][m][j]); // end
+                    }
+
+                    // emissions
+                    if (i >= 1) {
+                        int observation = observationIndices[i - 1];
+                        double posterior = Math.exp(f + backward[k][i][j]);
+                        if (k == m && j >= 1) {
+                            counts.emissionMatch[j][observation] += posterior;
+                        } else if (k == ins) {
+                            counts.emissionInsert[j][observation] += posterior;
+                        }
+                    }
+                }
+            }
+        }
+
+        counts.logLikelihood += logLikelihood;
+        counts.sequenceCount++;
+        return logLikelihood;
+    }
+
+    /**
+     * Berechnet die Forward-Variablen [Zustand][Position Beobachtung][Position Modell] fuer uebergebene Beobachtungsfolge,
+     * also die logarithmierte Wahrscheinlichkeit der ersten i Beobachtungen mit Ende im Zustand an Position j im Modell.
+     *
+     * @param model              Profil Hidden Markov Model (logarithmierte Wahrscheinlichkeiten)
+     * @param observationIndices Beobachtungsfolge als Index-Folge
+     * @return Forward-Variablen
+     */
+    static double[][][] forward(final ProfilHMM model, final int[] observationIndices) {
+        final int length = observationIndices.length + 1;
+        final int lengthModel = model.getLengthModel();
+        final double[][] emissionProbMatch = model.getEmissionProbMatch();
+        final double[][] emissionProbInsert = model.getEmissionProbInsert();
+        final double[][][] transitionProb = model.getTransitionProb();
+
+        final int m = ProfilHMM.STATE_MATCH_INDEX;
+        final int ins = ProfilHMM.STATE_INSERT_INDEX;
+        final int del = ProfilHMM.STATE_DELETE_INDEX;
+
+        double[][][] forward = newMatrix(length, lengthModel);
+        forward[m][0][0] = 0d;
+        for (int i = 0; i < length; i++) {
+            for (int j = 0; j < lengthModel; j++) {
+                if (i >= 1 && j >= 1) {
+                    forward[m][i][j] = emissionProbMatch[j][observationIndices[i - 1]]
+                            + sumIncoming(forward, transitionProb, m, i - 1, j - 1);
+                }
+                if (i >= 1) {
+                    forward[ins][i][j] = emissionProbInsert[j][observationIndices[i - 1]]
+                            + sumIncoming(forward, transitionProb, ins, i - 1, j);
+                }
+                if (j >= 1) {
+                    forward[del][i][j] = sumIncoming(forward, transitionProb, del, i, j - 1);
+                }
+            }
+        }
+        return forward;
+    }
+
+    /**
+     * Liefert die Log-Likelihood der Beobachtungsfolge aus den Forward-Variablen zurueck
+     * (Uebergang aller Zustaende am Ende des Modells in den End-Zustand)
+     *
+     * @param model   Profil Hidden Markov Model (logarithmierte Wahrscheinlichkeiten)
+     * @param forward Forward-Variablen der Beobachtungsfolge
+     * @return Log-Likelihood
+     */
+    static double logLikelihood(final ProfilHMM model, final double[][][] forward) {
+        final int n = forward[0].length - 1;
+        final int lengthModel = model.getLengthModel();
+        final double[][][] transitionProb = model.getTransitionProb();
+
+        double logLikelihood = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < ProfilHMM.STATE_COUNT; k++) {
+            logLikelihood = HMMFunc.logSum(logLikelihood, forward[k][n][lengthModel - 1] + transitionProb[k][ProfilHMM.STATE_MATCH_INDEX][lengthModel - 1]);
+        }
+        return logLikelihood;
+    }
+
+    /**
+     * Berechnet die Backward-Variablen [Zustand][Position Beobachtung][Position Modell] fuer uebergebene Beobachtungsfolge,
+     * also die logarithmierte Wahrscheinlichkeit der Beobachtungen ab i+1 ausgehend vom Zustand an Position j im Modell.
+     * Die Backward-Variable des Start-Zustands (Match an Position 0 vor der ersten Beobachtung) ist damit die Log-Likelihood.
+     *
+     * @param model              Profil Hidden Markov Model (logarithmierte Wahrscheinlichkeiten)
+     * @param observationIndices Beobachtungsfolge als Index-Folge
+     * @return Backward-Variablen
+     */
+    static double[][][] backward(final ProfilHMM model, final int[] observationIndices) {
+        final int n = observationIndices.length;
+        final int length = n + 1;
+        final int lengthModel = model.getLengthModel();
+        final double[][] emissionProbMatch = model.getEmissionProbMatch();
+        final double[][] emissionProbInsert = model.getEmissionProbInsert();
+        final double[][][] transitionProb = model.getTransitionProb();
+
+        final int m = ProfilHMM.STATE_MATCH_INDEX;
+        final int ins = ProfilHMM.STATE_INSERT_INDEX;
+        final int del = ProfilHMM.STATE_DELETE_INDEX;
+
+        double[][][] backward = newMatrix(length, lengthModel);
+        for (int i = n; i >= 0; i--) {
+            for (int j = lengthModel - 1; j >= 0; j--) {
+                for (int k = 0; k < ProfilHMM.STATE_COUNT; k++) {
+                    double value = Double.NEGATIVE_INFINITY;
+                    if (i == n && j == lengthModel - 1) {
+                        value = transitionProb[k][m][j]; // end
+                    }
+                    if (i < n && j < lengthModel - 1) {
+                        value = HMMFunc.logSum(value, transitionProb[k][m][j] + emissionProbMatch[j + 1][observationIndices[i]] + backward[m][i + 1][j + 1]);
+                    }
+                    if (i < n) {
+                        value = HMMFunc.logSum(value, transitionProb[k][ins][j] + emissionProbInsert[j][observationIndices[i]] + backward[ins][i + 1][j]);
+                    }
+                    if (j < lengthModel - 1) {
+                        value = HMMFunc.logSum(value, transitionProb[k][del][j] + backward[del][i][j + 1]);
+                    }
+                    backward[k][i][j] = value;
+                }
+            }
+        }
+        return backward;
+    }
+
+    /**
+     * Liefert die logarithmierte Summe ueber alle Vorgaenger-Zustaende an uebergebener Position
+     * multipliziert mit der Uebergangswahrscheinlichkeit in den uebergebenen Zustand zurueck.
+     *
+     * @param matrix         Forward-Variablen
+     * @param transitionProb logarithmierte Uebergangswahrscheinlichkeiten
+     * @param state          Index des Ziel-Zustands
+     * @param i              Position in Beobachtungsfolge des Vorgaengers
+     * @param j              Position im Modell des Vorgaengers
+     * @return logarithmierte Summe
+     */
+    private static double sumIncoming(final double[][][] matrix, final double[][][] transitionProb, final int state, final int i, final int j) {
+        double sum = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < ProfilHMM.STATE_COUNT; k++) {
+            sum = HMMFunc.logSum(sum, matrix[k][i][j] + transitionProb[k][state][j]);
+        }
+        return sum;
+    }
+
+    /**
+     * Erstellt eine mit log(0) initialisierte Matrix [Zustand][Position Beobachtung][Position Modell].
+     *
+     * @param length      Laenge der Beobachtungsfolge + 1
+     * @param lengthModel Laenge des Modells
+     * @return Matrix
+     */
+    private static double[][][] newMatrix(final int length, final int lengthModel) {
+        double[][][] matrix = new double[ProfilHMM.STATE_COUNT][length][lengthModel];
+        for (double[][] stateMatrix : matrix) {
+            for (double[] row : stateMatrix) {
+                Arrays.fill(row, Double.NEGATIVE_INFINITY);
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,96 @@
+package main.hmm.profil.baumwelch;
+
+import main.fastaparser.Sequence;
+import main.hmm.profil.ProfilHMM;
+import main.logger.Log;
+
+import java.util.Queue;
+
+/**
+ * Thread {@link Thread}, der Sequnzen {@link Sequence} (als Index-Folgen der Nukleotide) aus uebergebener Schlange abarbeitet.
+ * Dabei werden fuer jede Sequenz mittels des Forward-Backward-Algorithmus die erwarteten Haeufigkeiten berechnet
+ * und im eigenen Akkumulator {@link ExpectedCounts} aufsummiert (E-Schritt des Baum-Welch-Algorithmus).
+ *
+ * @author Soeren Metje
+ */
+class ThreadBaumWelch extends Thread {
+
+    /**
+     * Monitor, um das Entnehmen der naechsten Sequenz zu synchronisieren
+     */
+    private static final Object pollMonitor = new Object();
+
+    /**
+     * Modell, welches zur Berechnung verwendet wird
+     */
+    private final ProfilHMM model;
+
+    /**
+     * Schlange abzuarbeitender Sequenzen
+     */
+    private final Queue<int[]> sequenceQueue;
+
+    /**
+     * Akkumulator dieses Threads
+     */
+    private final ExpectedCounts counts;
+
+    /**
+     * Fehler, der beim Abarbeiten aufgetreten ist oder null
+     */
+    private IllegalArgumentException failure;
+
+    /**
+     * Konstruktor
+     *
+     * @param model         zu verwendenes Modell
+     * @param sequenceQueue abzuarbeitende Sequenzen als Index-Folgen der Nukleotide (ohne Gaps)
+     */
+    ThreadBaumWelch(ProfilHMM model, Queue<int[]> sequenceQueue) {
+        this.model = model;
+        this.sequenceQueue = sequenceQueue;
+        this.counts = new ExpectedCounts(model);
+    }
+
+    /**
+     * Arbeitet Sequnzen {@link Sequence} aus uebergebener Schlange ab
+     * und summiert die erwarteten Haeufigkeiten im Akkumulator des Threads auf.
+     */
+    @Override
+    public void run() {
+        Log.dLine(getName() + " started");
+        while (true) {
+            int[] observationIndices;
+            synchronized (pollMonitor) {
+                observationIndices = sequenceQueue.poll();
+            }
+            if (observationIndices == null)
+                break;
+
+            try {
+                ForwardBackward.accumulate(model, observationIndices, counts);
+            } catch (IllegalArgumentException e) {
+                failure = e;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Liefert Akkumulator dieses Threads zurueck
+     *
+     * @return Akkumulator
+     */
+    ExpectedCounts getCounts() {
+        return counts;
+    }
+
+    /**
+     * Liefert den beim Abarbeiten aufgetretenen Fehler zurueck oder null, falls keiner aufgetreten ist
+     *
+     * @return Fehler oder null
+     */
+    IllegalArgumentException getFailure() {
+        return failure;
+    }
+}
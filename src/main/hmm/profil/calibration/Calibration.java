@@ -0,0 +1,118 @@
+package main.hmm.profil.calibration;
+
+import main.hmm.profil.NullModel;
+import main.hmm.profil.ProfilHMM;
+import main.hmm.sampler.ProfilHMMSampler;
+import main.logger.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Enthaelt Methode zur Kalibrierung der E-Werte eines {@link ProfilHMM} durch Simulation.
+ * <p>
+ * Es werden zufaellige Hintergrund-Sequenzen aus dem {@link NullModel} gezogen ({@link ProfilHMMSampler#sampleBackground})
+ * und parallelisiert mittels Viterbi-Algorithmus als Bit-Score bewertet. An diese Scores wird eine Extremwert-Verteilung
+ * ({@link Gumbel}) angepasst, die mit dem Modell gespeichert wird. Jeder Treffer erhaelt anschliessend ohne weiteren Aufwand einen E-Wert.
+ * Die Zufallszahlen-Generatoren der Sequenzen werden vorab der Reihe nach vom Startwert abgespalten,
+ * daher ist das Ergebnis unabhaengig von der Anzahl der Threads.
+ * </p>
+ * <p>
+ * Kalibriert werden bewusst nur Viterbi-Scores, denn nur diese werden fuer Treffer ausgegeben. Forward-Scores
+ * folgen einer anderen Verteilung (exponentielles Ende statt Gumbel) und wuerden eine eigene Anpassung benoetigen.
+ * Standardmaessig haben die Sequenzen die Laenge des Modells. Fuer deutlich laengere Sequenzen sind die E-Werte
+ * daher nur eine Naeherung, die Laenge der Kalibrierung wird mit den Parametern gespeichert (siehe {@link Gumbel#getSequenceLength()}).
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class Calibration {
+
+    /**
+     * Standardwert fuer die Anzahl zufaelliger Sequenzen
+     */
+    public static final int DEFAULT_SAMPLE_COUNT = 1000;
+
+    /**
+     * Standardwert fuer den Startwert
+     */
+    public static final long DEFAULT_SEED = 42L;
+
+    /**
+     * Kalibriert uebergebenes Modell mit Sequenzen der Laenge des Modells und Standard-Startwert.
+     *
+     * @param model       Modell
+     * @param sampleCount Anzahl zufaelliger Sequenzen
+     * @return geschaetzte Parameter (auch im Modell gespeichert)
+     * @throws IllegalArgumentException falls Modell == null oder sampleCount &lt; 2
+     */
+    public static Gumbel calibrate(final ProfilHMM model, final int sampleCount) throws IllegalArgumentException {
+        if (model == null)
+            throw new IllegalArgumentException("model is null");
+        return calibrate(model, sampleCount, model.getLengthModel(), DEFAULT_SEED);
+    }
+
+    /**
+     * Kalibriert uebergebenes Modell. Die geschaetzten Parameter werden im Modell gespeichert (siehe {@link ProfilHMM#getGumbel()}).
+     * <p>
+     * Es werden so viele Threads erstellt, wie logische Kerne der JVM zur verfuegung stehen.
+     *
+     * @param model          Modell
+     * @param sampleCount    Anzahl zufaelliger Sequenzen
+     * @param sequenceLength Laenge der zufaelligen Sequenzen
+     * @param seed           Startwert
+     * @return geschaetzte Parameter
+     * @throws IllegalArgumentException falls Modell == null, sampleCount &lt; 2 oder sequenceLength &lt; 1
+     */
+    public static Gumbel calibrate(final ProfilHMM model, final int sampleCount, final int sequenceLength, final long seed) throws IllegalArgumentException {
+        if (model == null)
+            throw new IllegalArgumentException("model is null");
+        if (sampleCount < 2)
+            throw new IllegalArgumentException("sampleCount has to be at least 2");
+        if (sequenceLength < 1)
+            throw new IllegalArgumentException("sequenceLength has to be at least 1");
+
+        NullModel nullModel = NullModel.of(model);
+        ProfilHMMSampler sampler = new ProfilHMMSampler(model, 1d);
+        SplittableRandom random = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[sampleCount];
+        for (int i = 0; i < sampleCount; i++) {
+            randoms[i] = random.split();
+        }
+        double[] scores = new double[sampleCount];
+        int[] nextIndex = new int[1];
+
+        long millis = System.currentTimeMillis(); // measure calc time
+        int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), sampleCount);
+        Log.iLine("Creating and starting " + threadCount + " Threads scoring " + sampleCount + " random sequences of length " + sequenceLength);
+        List<ThreadCalibration> threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            ThreadCalibration thread = new ThreadCalibration(model, nullModel, sampler, sequenceLength, randoms, nextIndex, scores);
+            threads.add(thread);
+            thread.start();
+        }
+
+        // Waiting for threads to finish
+        IllegalArgumentException failure = null;
+        for (ThreadCalibration thread : threads) {
+            try {
+                thread.join();
+                Log.dLine(thread.getName() + " finished");
+            } catch (InterruptedException e) {
+                Log.eLine("ERROR: " + thread.getName() + " got interrupted");
+            }
+            if (failure == null)
+                failure = thread.getFailure();
+        }
+        if (failure != null)
+            throw failure;
+
+        Gumbel gumbel = Gumbel.fit(scores, sequenceLength);
+        millis = System.currentTimeMillis() - millis;
+        Log.iLine(String.format("(%.2fsec) calibrated %s", (float) millis / 1000, gumbel));
+
+        model.setGumbel(gumbel);
+        return gumbel;
+    }
+}
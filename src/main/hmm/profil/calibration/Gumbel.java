@@ -0,0 +1,200 @@
+package main.hmm.profil.calibration;
+
+import java.util.Locale;
+
+/**
+ * <p>
+ * Parameter der Extremwert-Verteilung (Gumbel) der Bit-Scores zufaelliger Hintergrund-Sequenzen eines Modells.
+ * Daraus ergeben sich fuer jeden Bit-Score P-Wert und E-Wert:
+ * </p>
+ * <pre>
+ * P(S &gt;= x) = 1 - exp(-exp(-lambda * (x - mu)))
+ * E(x)       = Anzahl Sequenzen * P(S &gt;= x)
+ * </pre>
+ * <p>
+ * Die Parameter werden mittels {@link Calibration} einmalig je Modell bestimmt und koennen mit dem Modell gespeichert werden.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class Gumbel {
+
+    /**
+     * maximale Anzahl Newton-Schritte bei der Maximum-Likelihood-Schaetzung von lambda
+     */
+    private static final int MAX_NEWTON_STEPS = 100;
+
+    /**
+     * Genauigkeit der Maximum-Likelihood-Schaetzung von lambda
+     */
+    private static final double NEWTON_TOLERANCE = 1e-8;
+
+    /**
+     * Euler-Mascheroni-Konstante
+     */
+    private static final double EULER_GAMMA = 0.5772156649015329;
+
+    /**
+     * Lageparameter
+     */
+    private final double mu;
+
+    /**
+     * Skalenparameter (&gt; 0)
+     */
+    private final double lambda;
+
+    /**
+     * Anzahl zufaelliger Sequenzen, aus denen die Parameter geschaetzt wurden
+     */
+    private final int sampleCount;
+
+    /**
+     * Laenge der zufaelligen Sequenzen
+     */
+    private final int sequenceLength;
+
+    /**
+     * Konstruktor
+     *
+     * @param mu             Lageparameter
+     * @param lambda         Skalenparameter
+     * @param sampleCount    Anzahl zufaelliger Sequenzen, aus denen die Parameter geschaetzt wurden
+     * @param sequenceLength Laenge der zufaelligen Sequenzen
+     * @throws IllegalArgumentException falls mu nicht endlich, lambda nicht positiv und endlich
+     *                                  oder sampleCount bzw. sequenceLength &lt; 1 ist
+     */
+    public Gumbel(double mu, double lambda, int sampleCount, int sequenceLength) throws IllegalArgumentException {
+        if (Double.isNaN(mu) || Double.isInfinite(mu))
+            throw new IllegalArgumentException("mu " + mu + " is not finite");
+        if (!(lambda > 0d) || Double.isInfinite(lambda))
+            throw new IllegalArgumentException("lambda " + lambda + " is not positive");
+        if (sampleCount < 1)
+            throw new IllegalArgumentException("sampleCount has to be at least 1");
+        if (sequenceLength < 1)
+            throw new IllegalArgumentException("sequenceLength has to be at least 1");
+
+        this.mu = mu;
+        this.lambda = lambda;
+        this.sampleCount = sampleCount;
+        this.sequenceLength = sequenceLength;
+    }
+
+    /**
+     * Schaetzt die Parameter aus uebergebenen Scores mittels Maximum-Likelihood.
+     * lambda wird ausgehend von der Momenten-Schaetzung mittels Newton-Verfahren bestimmt, mu ergibt sich daraus direkt.
+     * Konvergiert das Verfahren nicht, wird die Momenten-Schaetzung verwendet.
+     *
+     * @param scores         Scores zufaelliger Sequenzen (mindestens 2 unterschiedliche, alle endlich)
+     * @param sequenceLength Laenge der zufaelligen Sequenzen
+     * @return geschaetzte Parameter
+     * @throws IllegalArgumentException falls weniger als 2 Scores uebergeben werden, ein Score nicht endlich ist oder alle gleich sind
+     */
+    public static Gumbel fit(final double[] scores, final int sequenceLength) throws IllegalArgumentException {
+        int n = scores.length;
+        if (n < 2)
+            throw new IllegalArgumentException("at least 2 scores are needed");
+
+        double mean = 0d;
+        for (double score : scores) {
+            if (Double.isNaN(score) || Double.isInfinite(score))
+                throw new IllegalArgumentException("score " + score + " is not finite");
+            mean += score;
+        }
+        mean /= n;
+        double variance = 0d;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        variance /= n - 1;
+        if (!(variance > 0d))
+            throw new IllegalArgumentException("all scores are equal");
+
+        // method of moments as start value
+        double lambdaMoments = Math.PI / Math.sqrt(6d * variance);
+        double muMoments = mean - EULER_GAMMA / lambdaMoments;
+
+        // maximum likelihood (scores centered by mean to avoid overflow)
+        double lambda = lambdaMoments;
+        boolean converged = false;
+        for (int step = 0; step < MAX_NEWTON_STEPS; step++) {
+            double sum = 0d, sumX = 0d, sumXX = 0d;
+            for (double score : scores) {
+                double x = score - mean;
+                double e = Math.exp(-lambda * x);
+                sum += e;
+                sumX += x * e;
+                sumXX += x * x * e;
+            }
+            double weightedMean = sumX / sum;
+            double f = 1d / lambda + weightedMean; // mean of centered scores is 0
+            double df = -1d / (lambda * lambda) - (sumXX / sum - weightedMean * weightedMean);
+            double next = lambda - f / df;
+            if (!(next > 0d) || Double.isInfinite(next))
+                break;
+            if (Math.abs(next - lambda) < NEWTON_TOLERANCE * lambda) {
+                lambda = next;
+                converged = true;
+                break;
+            }
+            lambda = next;
+        }
+        if (!converged)
+            return new Gumbel(muMoments, lambdaMoments, n, sequenceLength);
+
+        double sum = 0d;
+        for (double score : scores) {
+            sum += Math.exp(-lambda * (score - mean));
+        }
+        double mu = mean - Math.log(sum / n) / lambda;
+        return new Gumbel(mu, lambda, n, sequenceLength);
+    }
+
+    /**
+     * Liefert die Wahrscheinlichkeit zurueck, dass eine zufaellige Sequenz mindestens den uebergebenen Bit-Score erreicht
+     *
+     * @param bits Bit-Score
+     * @return P-Wert
+     */
+    public double pValue(final double bits) {
+        return -Math.expm1(-Math.exp(-lambda * (bits - mu)));
+    }
+
+    /**
+     * Liefert die erwartete Anzahl zufaelliger Sequenzen zurueck, die unter der uebergebenen Anzahl Sequenzen
+     * mindestens den uebergebenen Bit-Score erreichen
+     *
+     * @param bits         Bit-Score
+     * @param databaseSize Anzahl durchsuchter Sequenzen
+     * @return E-Wert
+     */
+    public double eValue(final double bits, final long databaseSize) {
+        return databaseSize * pValue(bits);
+    }
+
+    public double getMu() {
+        return mu;
+    }
+
+    public double getLambda() {
+        return lambda;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    public int getSequenceLength() {
+        return sequenceLength;
+    }
+
+    /**
+     * Liefert String mit den Parametern zurueck
+     *
+     * @return String mit den Parametern
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "Gumbel mu = %.4f, lambda = %.4f (%d sequences of length %d)", mu, lambda, sampleCount, sequenceLength);
+    }
+}
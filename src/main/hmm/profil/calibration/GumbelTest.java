@@ -0,0 +1,71 @@
+package main.hmm.profil.calibration;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Test-Klasse fuer {@link Gumbel}.
+ *
+ * @author Soeren Metje
+ */
+public class GumbelTest {
+
+    /**
+     * Anzahl gezogener Scores
+     */
+    private static final int SAMPLE_COUNT = 20000;
+
+    /**
+     * Test von {@link Gumbel#fit(double[], int)}.
+     * Aus Gumbel-verteilten Scores mit bekannten Parametern muessen mu und lambda zurueck gewonnen werden.
+     */
+    @Test
+    public void testFitRecoversParameters() {
+        double[][] parameters = {{0d, 1d}, {-5.3, 0.69}, {12d, 0.2}, {-20d, 3d}};
+        Random random = new Random(0);
+        for (double[] parameter : parameters) {
+            double mu = parameter[0], lambda = parameter[1];
+            double[] scores = new double[SAMPLE_COUNT];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = mu - Math.log(-Math.log(random.nextDouble())) / lambda; // inverse distribution function
+            }
+
+            Gumbel gumbel = Gumbel.fit(scores, 100);
+            // standard errors are about 1.1 / (lambda * sqrt(n)) and 0.8 * lambda / sqrt(n)
+            Assert.assertEquals("mu", mu, gumbel.getMu(), 0.05 / lambda);
+            Assert.assertEquals("lambda", lambda, gumbel.getLambda(), 0.03 * lambda);
+            Assert.assertEquals(SAMPLE_COUNT, gumbel.getSampleCount());
+            Assert.assertEquals(100, gumbel.getSequenceLength());
+        }
+    }
+
+    /**
+     * Test von {@link Gumbel#pValue(double)}.
+     * Am Lageparameter ist P = 1 - 1/e, der P-Wert faellt mit steigendem Score.
+     */
+    @Test
+    public void testPValue() {
+        Gumbel gumbel = new Gumbel(2d, 0.5, 10, 10);
+        Assert.assertEquals(1d - Math.exp(-1d), gumbel.pValue(2d), 1e-12);
+        Assert.assertTrue(gumbel.pValue(10d) < gumbel.pValue(5d));
+        Assert.assertEquals(1000 * gumbel.pValue(10d), gumbel.eValue(10d, 1000), 1e-12);
+    }
+
+    /**
+     * Test von {@link Gumbel#fit(double[], int)} mit gleichen Scores
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFitEqualScores() {
+        Gumbel.fit(new double[]{1d, 1d, 1d}, 10);
+    }
+
+    /**
+     * Test von {@link Gumbel#fit(double[], int)} mit nur einem Score
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFitSingleScore() {
+        Gumbel.fit(new double[]{1d}, 10);
+    }
+}
@@ -0,0 +1,129 @@
+package main.hmm.profil.calibration;
+
+import main.fastaparser.Sequence;
+import main.hmm.profil.NullModel;
+import main.hmm.profil.ProfilHMM;
+import main.hmm.profil.viterbi.Viterbi;
+import main.hmm.profil.viterbi.ViterbiPath;
+import main.hmm.sampler.ProfilHMMSampler;
+
+import java.util.SplittableRandom;
+
+/**
+ * Thread {@link Thread}, der Bloecke zufaelliger Hintergrund-Sequenzen mittels {@link ProfilHMMSampler#sampleBackground(SplittableRandom, int)}
+ * erzeugt und mittels {@link Viterbi#score(ProfilHMM, Sequence)} bewertet.
+ * Jede Sequenz wird mit eigenem Zufallszahlen-Generator gezogen, sodass die Scores unabhaengig von der Anzahl der Threads sind.
+ *
+ * @author Soeren Metje
+ */
+class ThreadCalibration extends Thread {
+
+    /**
+     * Anzahl Sequenzen, die je Entnahme reserviert werden
+     */
+    private static final int BLOCK_SIZE = 16;
+
+    /**
+     * Monitor, um die Bestimmung des naechsten Blocks zu synchronisieren
+     */
+    private static final Object indexPollMonitor = new Object();
+
+    /**
+     * zu verwendenes Modell
+     */
+    private final ProfilHMM model;
+
+    /**
+     * Null-Modell des Modells
+     */
+    private final NullModel nullModel;
+
+    /**
+     * Sampler fuer die Hintergrund-Sequenzen
+     */
+    private final ProfilHMMSampler sampler;
+
+    /**
+     * Laenge der zufaelligen Sequenzen
+     */
+    private final int sequenceLength;
+
+    /**
+     * Zufallszahlen-Generatoren je Sequenz
+     */
+    private final SplittableRandom[] randoms;
+
+    /**
+     * naechster freier Index (von allen Threads gemeinsam verwendet, Zugriff synchronisiert ueber indexPollMonitor)
+     */
+    private final int[] nextIndex;
+
+    /**
+     * Ergebnis-Feld mit Bit-Scores
+     */
+    private final double[] scores;
+
+    /**
+     * Fehler, der beim Abarbeiten aufgetreten ist oder null
+     */
+    private IllegalArgumentException failure;
+
+    /**
+     * Konstruktor
+     *
+     * @param model          zu verwendenes Modell
+     * @param nullModel      Null-Modell des Modells
+     * @param sampler        Sampler fuer die Hintergrund-Sequenzen (threadsicher)
+     * @param sequenceLength Laenge der zufaelligen Sequenzen
+     * @param randoms        Zufallszahlen-Generatoren je Sequenz
+     * @param nextIndex      gemeinsamer Zaehler des naechsten freien Index (zu Beginn 0)
+     * @param scores         Ergebnis-Feld (Laenge = Anzahl Sequenzen)
+     */
+    ThreadCalibration(ProfilHMM model, NullModel nullModel, ProfilHMMSampler sampler, int sequenceLength, SplittableRandom[] randoms,
+                      int[] nextIndex, double[] scores) {
+        this.model = model;
+        this.nullModel = nullModel;
+        this.sampler = sampler;
+        this.sequenceLength = sequenceLength;
+        this.randoms = randoms;
+        this.nextIndex = nextIndex;
+        this.scores = scores;
+    }
+
+    /**
+     * Arbeitet Bloecke zufaelliger Sequenzen ab
+     */
+    @Override
+    public void run() {
+        while (true) {
+            int from;
+            synchronized (indexPollMonitor) {
+                from = nextIndex[0];
+                nextIndex[0] = Math.min(from + BLOCK_SIZE, scores.length);
+            }
+            if (from >= scores.length)
+                break;
+
+            int to = Math.min(from + BLOCK_SIZE, scores.length);
+            for (int i = from; i < to; i++) {
+                char[] residues = sampler.sampleBackground(randoms[i], sequenceLength);
+                try {
+                    Sequence sequence = new Sequence("calibration_" + i, "", String.valueOf(residues));
+                    scores[i] = nullModel.bitScore(new ViterbiPath(sequence, Viterbi.score(model, sequence)));
+                } catch (IllegalArgumentException e) {
+                    failure = new IllegalArgumentException("Sequence " + i + ": " + e.getMessage(), e);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Liefert den beim Abarbeiten aufgetretenen Fehler zurueck oder null, falls keiner aufgetreten ist
+     *
+     * @return Fehler oder null
+     */
+    IllegalArgumentException getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,152 @@
+package main.hmm.profil.sweep;
+
+import main.fastaparser.Sequence;
+import main.hmm.profil.ProfilHMM;
+import main.hmm.profil.RNAProfilHMM;
+import main.hmm.profil.viterbi.ViterbiPath;
+import main.logger.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Enthaelt Methode zur Untersuchung verschiedener Kombinationen der Parameter
+ * Pseudo-Count Emission, Pseudo-Count Uebergang und Schwellwert Match-Zustand eines {@link RNAProfilHMM}.
+ * <p>
+ * Die Spalten der Trainings-Sequenzen werden nur einmal gezaehlt. Alle Kombinationen werden aus diesen Haeufigkeiten abgeleitet,
+ * wobei die Uebergaenge nur einmal je unterschiedlicher Modell-Struktur gezaehlt werden.
+ * Anschliessend werden die Modelle parallelisiert auf zurueckgehaltenen Sequenzen bewertet.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class ParameterSweep {
+
+    /**
+     * Leitet fuer jede Kombination der uebergebenen Parameter ein Modell ab und bewertet es parallelisiert
+     * auf den zurueckgehaltenen Sequenzen. Liefert die Ergebnisse in der Reihenfolge der Kombinationen zurueck.
+     * <p>
+     * Es werden so viele Threads erstellt, wie logische Kerne der JVM zur verfuegung stehen.
+     * Jeder Thread bewertet jeweils eine Kombination mit allen zurueckgehaltenen Sequenzen.
+     *
+     * @param sequencesTrain         Trainings-Sequenzen
+     * @param sequencesRRNA          zurueckgehaltene rRNA-Sequenzen
+     * @param sequencesNonRRNA       zurueckgehaltene Nicht-rRNA-Sequenzen
+     * @param pseudoCountsEmission   zu untersuchende Pseudo-Counts fuer Emissions-Wahrscheinlichkeiten
+     * @param pseudoCountsTransition zu untersuchende Pseudo-Counts fuer Uebergangs-Wahrscheinlichkeiten
+     * @param thresholdsMatchState   zu untersuchende Schwellwerte Match-Zustand
+     * @return Ergebnisse aller Kombinationen
+     * @throws IllegalArgumentException falls beim Erstellen der Modelle ein Fehler auftritt,
+     *                                  keine zurueckgehaltenen Sequenzen uebergeben wurden
+     *                                  oder die Bewertung einer Kombination fehlschlaegt (erster Fehler in Reihenfolge der Kombinationen)
+     */
+    public static List<SweepResult> sweep(List<Sequence> sequencesTrain, List<Sequence> sequencesRRNA, List<Sequence> sequencesNonRRNA,
+                                          int[] pseudoCountsEmission, int[] pseudoCountsTransition, double[] thresholdsMatchState) throws IllegalArgumentException {
+        if (sequencesRRNA.isEmpty() && sequencesNonRRNA.isEmpty())
+            throw new IllegalArgumentException("no held-out sequences");
+
+        // count columns once
+        RNAProfilHMM base = new RNAProfilHMM(sequencesTrain);
+
+        // derive all combinations; transitions are counted once per model structure
+        Log.iLine("Deriving " + pseudoCountsEmission.length * pseudoCountsTransition.length * thresholdsMatchState.length + " ProfilHMMs from counts");
+        Map<String, RNAProfilHMM> structures = new HashMap<>();
+        List<SweepResult> results = new ArrayList<>();
+        for (double threshold : thresholdsMatchState) {
+            String key = structureKey(ProfilHMM.findMatchStates(base.getGapCounts(), base.getSequenceCount(), threshold));
+            for (int pseudoCountEmission : pseudoCountsEmission) {
+                for (int pseudoCountTransition : pseudoCountsTransition) {
+                    // same structure -> transitions are copied instead of counted
+                    RNAProfilHMM source = structures.containsKey(key) ? structures.get(key) : base;
+                    RNAProfilHMM model = new RNAProfilHMM(source, sequencesTrain, pseudoCountEmission, pseudoCountTransition, threshold);
+                    if (!structures.containsKey(key))
+                        structures.put(key, model);
+                    results.add(new SweepResult(model));
+                }
+            }
+        }
+        Log.iLine(structures.size() + " different model structures");
+
+        // score in parallel
+        Queue<SweepResult> resultQueue = new LinkedList<>(results); // synchronisation in ThreadSweep
+        int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), resultQueue.size());
+        Log.iLine("Creating and starting " + threadCount + " Threads scoring " + results.size() + " parameter combinations");
+        List<Thread> threads = new LinkedList<>();
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new ThreadSweep(resultQueue, sequencesRRNA, sequencesNonRRNA);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+                Log.dLine(thread.getName() + " finished");
+            } catch (InterruptedException e) {
+                Log.eLine("ERROR: " + thread.getName() + " got interrupted");
+            }
+        }
+        for (SweepResult result : results) {
+            if (result.getFailure() != null)
+                throw result.getFailure();
+        }
+
+        return results;
+    }
+
+    /**
+     * Berechnet die Flaeche unter der ROC-Kurve (Mann-Whitney-U) der Scores.
+     * Die ersten positiveCount Pfade gehoeren zur positiven Klasse (rRNA). Gleiche Scores werden halb gezaehlt.
+     *
+     * @param paths         bewertete Pfade
+     * @param positiveCount Anzahl der Pfade der positiven Klasse
+     * @return Flaeche unter der ROC-Kurve oder NaN, falls eine Klasse leer ist
+     */
+    static double auc(final List<ViterbiPath> paths, final int positiveCount) {
+        int count = paths.size();
+        int negativeCount = count - positiveCount;
+        if (positiveCount == 0 || negativeCount == 0)
+            return Double.NaN;
+
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(paths.get(a).getScore(), paths.get(b).getScore()));
+
+        // sum of ranks of positives (ties get average rank)
+        double rankSum = 0d;
+        for (int i = 0; i < count; ) {
+            int j = i;
+            double score = paths.get(order[i]).getScore();
+            while (j < count && paths.get(order[j]).getScore() == score) {
+                j++;
+            }
+            double rank = (i + 1 + j) / 2d; // average of ranks i+1..j
+            for (int k = i; k < j; k++) {
+                if (order[k] < positiveCount)
+                    rankSum += rank;
+            }
+            i = j;
+        }
+        return (rankSum - positiveCount * (positiveCount + 1) / 2d) / ((double) positiveCount * negativeCount);
+    }
+
+    /**
+     * Liefert Schluessel fuer die Modell-Struktur (Zuordnung der Spalten zu Match-Zustaenden) zurueck
+     *
+     * @param matchState Zuordnung der Spalten zu Match-Zustaenden
+     * @return Schluessel
+     */
+    private static String structureKey(final boolean[] matchState) {
+        char[] key = new char[matchState.length];
+        for (int i = 0; i < matchState.length; i++) {
+            key[i] = matchState[i] ? 'm' : 'I';
+        }
+        return String.valueOf(key);
+    }
+}
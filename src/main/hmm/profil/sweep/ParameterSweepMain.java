@@ -0,0 +1,129 @@
+package main.hmm.profil.sweep;
+
+import main.argparser.*;
+import main.fastaparser.Sequence;
+import main.hmm.profil.RNAProfilHMMMain;
+import main.logger.Log;
+
+import java.util.List;
+
+/**
+ * Ausfuehrbare Klasse, die den Dateipfad der Traings-Sequencen als Parameter (-filetrain &lt;Path&gt;)
+ * sowie der zurueckgehaltenen rRNA- (-filerrna &lt;Path&gt;) und Nicht-rRNA-Sequenzen (-filenonrrna &lt;Path&gt;) uebergeben bekommen muss.
+ * <p>
+ * Die zu untersuchenden Parameter werden als durch Komma getrennte Listen uebergeben
+ * (-pseudoemission 1,2 -pseudotransition 1,2 -thresholdmatch .3,.5,.7).
+ * Fuer jede Kombination werden Klassifikationsguete und Durchsatz mittels {@link ParameterSweep} ermittelt und ausgegeben.
+ *
+ * @author Soeren Metje
+ */
+public class ParameterSweepMain {
+
+    /**
+     * Standardwerte der Pseudo-Counts
+     */
+    private static final String DEFAULT_PSEUDO_COUNTS = "1,2,5";
+
+    /**
+     * Standardwerte der Schwellwerte Match-Zustand
+     */
+    private static final String DEFAULT_THRESHOLDS = ".3,.5,.7";
+
+    /**
+     * Ausfuehrbare Methode.
+     *
+     * @param args Argumente
+     */
+    public static void main(String[] args) {
+        // set up Parameter
+        ParameterSet parameterSet = new ParameterSet();
+        Setting paramFileTrain = new Setting("filetrain", true);
+        Setting paramFileRRNA = new Setting("filerrna", true);
+        Setting paramFileNonRRNA = new Setting("filenonrrna", true);
+        Setting paramPseudoEmission = new Setting("pseudoemission", false);
+        Setting paramPseudoTransition = new Setting("pseudotransition", false);
+        Setting paramThreshold = new Setting("thresholdmatch", false);
+        Flag paramDebug = new Flag("debug", false);
+        parameterSet.addSetting(paramFileTrain);
+        parameterSet.addSetting(paramFileRRNA);
+        parameterSet.addSetting(paramFileNonRRNA);
+        parameterSet.addSetting(paramPseudoEmission);
+        parameterSet.addSetting(paramPseudoTransition);
+        parameterSet.addSetting(paramThreshold);
+        parameterSet.addFlag(paramDebug);
+
+        try {
+            ArgumentParser parser = new ArgumentParser(parameterSet);
+            parser.parseArgs(args);
+        } catch (ArgumentParserException e) { // if parameter is missing or not intended
+            Log.eLine(e.getMessage());
+            System.exit(1);
+        }
+
+        if (paramDebug.isSet())
+            Log.setPrintDebug(true);
+
+        int[] pseudoCountsEmission = null, pseudoCountsTransition = null;
+        double[] thresholds = null;
+        try {
+            pseudoCountsEmission = parseInts(paramPseudoEmission.isSet() ? paramPseudoEmission.getValue() : DEFAULT_PSEUDO_COUNTS);
+            pseudoCountsTransition = parseInts(paramPseudoTransition.isSet() ? paramPseudoTransition.getValue() : DEFAULT_PSEUDO_COUNTS);
+            thresholds = parseDoubles(paramThreshold.isSet() ? paramThreshold.getValue() : DEFAULT_THRESHOLDS);
+        } catch (NumberFormatException e) {
+            Log.eLine("ERROR: invalid number " + e.getMessage());
+            System.exit(1);
+        }
+
+        List<Sequence> sequencesTrain = RNAProfilHMMMain.readFile(paramFileTrain.getValue());
+        List<Sequence> sequencesRRNA = RNAProfilHMMMain.readFile(paramFileRRNA.getValue());
+        List<Sequence> sequencesNonRRNA = RNAProfilHMMMain.readFile(paramFileNonRRNA.getValue());
+
+        List<SweepResult> results = null;
+        try {
+            results = ParameterSweep.sweep(sequencesTrain, sequencesRRNA, sequencesNonRRNA, pseudoCountsEmission, pseudoCountsTransition, thresholds);
+        } catch (IllegalArgumentException e) {
+            Log.eLine("ERROR: Parameter sweep failed! " + e.getMessage());
+            System.exit(1);
+        }
+
+        Log.iLine();
+        Log.iLine("Table Parameters, Classification and Throughput:");
+        StringBuilder out = new StringBuilder("pseudoEmission;pseudoTransition;thresholdMatch;modelLength;accuracy;auc;sequences/s;nucleotides/s\n");
+        for (SweepResult result : results) {
+            out.append(result).append('\n');
+        }
+        Log.iLine(out.toString());
+    }
+
+    /**
+     * Parset durch Komma getrennte Ganzzahlen
+     *
+     * @param value durch Komma getrennte Ganzzahlen
+     * @return Ganzzahlen
+     * @throws NumberFormatException falls eine Zahl ungueltig ist
+     */
+    private static int[] parseInts(final String value) throws NumberFormatException {
+        String[] parts = value.split(",");
+        int[] ret = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            ret[i] = Integer.parseInt(parts[i].trim());
+        }
+        return ret;
+    }
+
+    /**
+     * Parset durch Komma getrennte Gleitkommazahlen
+     *
+     * @param value durch Komma getrennte Gleitkommazahlen
+     * @return Gleitkommazahlen
+     * @throws NumberFormatException falls eine Zahl ungueltig ist
+     */
+    private static double[] parseDoubles(final String value) throws NumberFormatException {
+        String[] parts = value.split(",");
+        double[] ret = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            ret[i] = Double.parseDouble(parts[i].trim());
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,92 @@
+package main.hmm.profil.sweep;
+
+import main.fastaparser.Sequence;
+import main.hmm.profil.viterbi.ViterbiPath;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test-Klasse fuer {@link ParameterSweep}.
+ *
+ * @author Soeren Metje
+ */
+public class ParameterSweepTest {
+
+    /**
+     * zulaessiger Rundungsfehler
+     */
+    private static final double EPSILON = 1e-12;
+
+    /**
+     * Test von {@link ParameterSweep#auc(List, int)} mit von Hand berechneten Faellen.
+     * Positive 3, 2, 2 und Negative 2, 1: 4 gewonnene und 2 unentschiedene von 6 Paaren ergeben 5/6.
+     */
+    @Test
+    public void testAucHandComputed() {
+        Assert.assertEquals(5d / 6d, ParameterSweep.auc(paths(3, 2, 2, 2, 1), 3), EPSILON);
+        // unsorted input, same pairs
+        Assert.assertEquals(5d / 6d, ParameterSweep.auc(paths(2, 3, 2, 1, 2), 3), EPSILON);
+
+        Assert.assertEquals(1d, ParameterSweep.auc(paths(5, 4, 3, 2), 2), EPSILON);
+        Assert.assertEquals(0d, ParameterSweep.auc(paths(1, 2, 3, 4), 2), EPSILON);
+        Assert.assertEquals(0.5, ParameterSweep.auc(paths(7, 7, 7, 7, 7), 2), EPSILON);
+        // positives 1, 3 against negatives 2, 2, -Infinity: 1 wins 1 pair, 3 wins 3 pairs
+        Assert.assertEquals(4d / 6d, ParameterSweep.auc(paths(1, 3, 2, 2, Double.NEGATIVE_INFINITY), 2), EPSILON);
+    }
+
+    /**
+     * Test von {@link ParameterSweep#auc(List, int)} mit leerer Klasse. Die Flaeche ist nicht definiert.
+     */
+    @Test
+    public void testAucEmptyClass() {
+        Assert.assertTrue(Double.isNaN(ParameterSweep.auc(paths(1, 2), 0)));
+        Assert.assertTrue(Double.isNaN(ParameterSweep.auc(paths(1, 2), 2)));
+    }
+
+    /**
+     * Test von {@link ParameterSweep#auc(List, int)} mit zufaelligen Scores und vielen Gleichstaenden.
+     * Das Ergebnis muss dem paarweisen Vergleich aller Positiven mit allen Negativen entsprechen.
+     */
+    @Test
+    public void testAucSameAsPairwise() {
+        Random random = new Random(0);
+        for (int i = 0; i < 200; i++) {
+            int count = 2 + random.nextInt(60);
+            int positiveCount = 1 + random.nextInt(count - 1);
+            double[] scores = new double[count];
+            for (int k = 0; k < count; k++) {
+                scores[k] = random.nextInt(8) - 20d;
+            }
+
+            double wins = 0d;
+            for (int p = 0; p < positiveCount; p++) {
+                for (int n = positiveCount; n < count; n++) {
+                    if (scores[p] > scores[n])
+                        wins += 1d;
+                    else if (scores[p] == scores[n])
+                        wins += 0.5;
+                }
+            }
+            double expected = wins / ((double) positiveCount * (count - positiveCount));
+            Assert.assertEquals(expected, ParameterSweep.auc(paths(scores), positiveCount), EPSILON);
+        }
+    }
+
+    /**
+     * Erstellt bewertete Pfade ohne Zustands-Pfad mit den uebergebenen Scores
+     *
+     * @param scores Scores
+     * @return Pfade
+     */
+    private static List<ViterbiPath> paths(double... scores) {
+        List<ViterbiPath> ret = new ArrayList<>(scores.length);
+        for (int i = 0; i < scores.length; i++) {
+            ret.add(new ViterbiPath(new Sequence("seq" + i, null, "A"), scores[i]));
+        }
+        return ret;
+    }
+}
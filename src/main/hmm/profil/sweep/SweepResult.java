@@ -0,0 +1,135 @@
+package main.hmm.profil.sweep;
+
+import main.hmm.profil.RNAProfilHMM;
+
+import java.util.Locale;
+
+/**
+ * Ergebnis einer Parameter-Kombination aus {@link ParameterSweep}.
+ * Haelt das abgeleitete Modell, die Klassifikationsguete auf den zurueckgehaltenen Sequenzen und den Durchsatz.
+ *
+ * @author Soeren Metje
+ */
+public class SweepResult {
+
+    /**
+     * mit den Parametern abgeleitetes Modell
+     */
+    private final RNAProfilHMM model;
+
+    /**
+     * Anteil korrekt klassifizierter Sequenzen
+     */
+    private double accuracy;
+
+    /**
+     * Flaeche unter der ROC-Kurve der Scores (1 = perfekte Trennung, 0.5 = zufaellig)
+     */
+    private double auc;
+
+    /**
+     * Anzahl bewerteter Sequenzen
+     */
+    private int sequenceCount;
+
+    /**
+     * Anzahl bewerteter Nukleotide
+     */
+    private long residueCount;
+
+    /**
+     * Rechenzeit der Bewertung in Millisekunden
+     */
+    private long millis;
+
+    /**
+     * Fehler, der bei der Bewertung aufgetreten ist, oder null
+     */
+    private IllegalArgumentException failure;
+
+    /**
+     * Konstruktor
+     *
+     * @param model mit den Parametern abgeleitetes Modell
+     */
+    SweepResult(RNAProfilHMM model) {
+        this.model = model;
+    }
+
+    /**
+     * Setzt die Ergebnisse der Bewertung
+     *
+     * @param accuracy      Anteil korrekt klassifizierter Sequenzen
+     * @param auc           Flaeche unter der ROC-Kurve
+     * @param sequenceCount Anzahl bewerteter Sequenzen
+     * @param residueCount  Anzahl bewerteter Nukleotide
+     * @param millis        Rechenzeit in Millisekunden
+     */
+    void setResult(double accuracy, double auc, int sequenceCount, long residueCount, long millis) {
+        this.accuracy = accuracy;
+        this.auc = auc;
+        this.sequenceCount = sequenceCount;
+        this.residueCount = residueCount;
+        this.millis = millis;
+    }
+
+    /**
+     * Setzt den bei der Bewertung aufgetretenen Fehler
+     *
+     * @param failure Fehler
+     */
+    void setFailure(IllegalArgumentException failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * Liefert den bei der Bewertung aufgetretenen Fehler zurueck oder null, falls keiner aufgetreten ist
+     *
+     * @return Fehler oder null
+     */
+    public IllegalArgumentException getFailure() {
+        return failure;
+    }
+
+    public RNAProfilHMM getModel() {
+        return model;
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    public double getAuc() {
+        return auc;
+    }
+
+    /**
+     * Liefert Durchsatz in Sequenzen pro Sekunde zurueck
+     *
+     * @return Sequenzen pro Sekunde
+     */
+    public double getSequencesPerSecond() {
+        return sequenceCount * 1000d / Math.max(millis, 1);
+    }
+
+    /**
+     * Liefert Durchsatz in Nukleotiden pro Sekunde zurueck
+     *
+     * @return Nukleotide pro Sekunde
+     */
+    public double getResiduesPerSecond() {
+        return residueCount * 1000d / Math.max(millis, 1);
+    }
+
+    /**
+     * Liefert String mit Parametern und Ergebnissen (durch ; getrennt) zurueck
+     *
+     * @return String mit Parametern und Ergebnissen
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d;%d;%.2f;%d;%.4f;%.4f;%.1f;%.0f",
+                model.getPseudoCountEmission(), model.getPseudoCountTransition(), model.getThresholdMatchState(),
+                model.getLengthModel(), accuracy, auc, getSequencesPerSecond(), getResiduesPerSecond());
+    }
+}
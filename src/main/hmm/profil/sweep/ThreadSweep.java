@@ -0,0 +1,108 @@
+package main.hmm.profil.sweep;
+
+import main.fastaparser.Sequence;
+import main.hmm.profil.RNAProfilHMM;
+import main.hmm.profil.RNAProfilHMMMain;
+import main.hmm.profil.viterbi.Viterbi;
+import main.hmm.profil.viterbi.ViterbiPath;
+import main.logger.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Thread {@link Thread}, der Parameter-Kombinationen {@link SweepResult} aus uebergebener Schlange abarbeitet.
+ * Dabei werden mit dem Modell der Kombination alle zurueckgehaltenen Sequenzen mittels Viterbi-Algorithmus bewertet
+ * und anschliessend Klassifikationsguete und Durchsatz gesetzt. Schlaegt die Bewertung fehl, wird der Fehler an der Kombination gesetzt.
+ *
+ * @author Soeren Metje
+ */
+class ThreadSweep extends Thread {
+
+    /**
+     * Monitor, um das Entnehmen der naechsten Kombination zu synchronisieren
+     */
+    private static final Object pollMonitor = new Object();
+
+    /**
+     * Schlange abzuarbeitender Kombinationen
+     */
+    private final Queue<SweepResult> resultQueue;
+
+    /**
+     * zurueckgehaltene rRNA-Sequenzen
+     */
+    private final List<Sequence> sequencesRRNA;
+
+    /**
+     * zurueckgehaltene Nicht-rRNA-Sequenzen
+     */
+    private final List<Sequence> sequencesNonRRNA;
+
+    /**
+     * Konstruktor
+     *
+     * @param resultQueue      abzuarbeitende Kombinationen
+     * @param sequencesRRNA    zurueckgehaltene rRNA-Sequenzen
+     * @param sequencesNonRRNA zurueckgehaltene Nicht-rRNA-Sequenzen
+     */
+    ThreadSweep(Queue<SweepResult> resultQueue, List<Sequence> sequencesRRNA, List<Sequence> sequencesNonRRNA) {
+        this.resultQueue = resultQueue;
+        this.sequencesRRNA = sequencesRRNA;
+        this.sequencesNonRRNA = sequencesNonRRNA;
+    }
+
+    /**
+     * Arbeitet Kombinationen aus uebergebener Schlange ab.
+     */
+    @Override
+    public void run() {
+        Log.dLine(getName() + " started");
+        while (true) {
+            SweepResult result;
+            synchronized (pollMonitor) {
+                result = resultQueue.poll();
+            }
+            if (result == null)
+                break;
+
+            int sequenceCount = sequencesRRNA.size() + sequencesNonRRNA.size();
+            List<ViterbiPath> paths = new ArrayList<>(sequenceCount);
+            long residueCount = 0;
+
+            long millis = System.currentTimeMillis(); // measure calc time
+            try {
+                for (Sequence sequence : sequencesRRNA) {
+                    paths.add(Viterbi.viterbi(result.getModel(), sequence));
+                    residueCount += sequence.getLength();
+                }
+                for (Sequence sequence : sequencesNonRRNA) {
+                    paths.add(Viterbi.viterbi(result.getModel(), sequence));
+                    residueCount += sequence.getLength();
+                }
+            } catch (IllegalArgumentException e) {
+                RNAProfilHMM model = result.getModel();
+                result.setFailure(new IllegalArgumentException("Viterbi failed for pseudoCountEmission " + model.getPseudoCountEmission()
+                        + ", pseudoCountTransition " + model.getPseudoCountTransition()
+                        + ", thresholdMatchState " + model.getThresholdMatchState() + ": " + e.getMessage(), e));
+                Log.dLine(getName() + " failed " + result.getFailure().getMessage());
+                continue;
+            }
+            millis = System.currentTimeMillis() - millis;
+
+            // classify like RNAProfilHMMMain (first sequencesRRNA.size() paths are rRNA)
+            double threshold = RNAProfilHMMMain.calcThreshold(paths);
+            int correct = 0;
+            for (int i = 0; i < sequenceCount; i++) {
+                boolean rRNA = i < sequencesRRNA.size();
+                if ((paths.get(i).getScore() >= threshold) == rRNA)
+                    correct++;
+            }
+
+            result.setResult((double) correct / sequenceCount, ParameterSweep.auc(paths, sequencesRRNA.size()),
+                    sequenceCount, residueCount, millis);
+            Log.dLine(getName() + " finished " + result);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package main.hmm.profil.viterbi;
+
+import main.hmm.profil.ProfilHMM;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Lauflaengen-kodierter Zustands-Pfad (aehnlich CIGAR), z.B. 20M1D31M1I7M.
+ * Jeder Lauf wird als ein int gespeichert (Laenge &lt;&lt; 2 | Zustands-Index),
+ * sodass ein Pfad aus wenigen Laeufen nur wenige Bytes statt einem char je Schritt belegt.
+ * </p>
+ * <p>
+ * Der Pfad wird waehrend der Rueckverfolgung mittels {@link Builder} von hinten nach vorne aufgebaut.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class CompactStatePath {
+
+    /**
+     * Anzahl Bits fuer den Zustands-Index je Lauf
+     */
+    private static final int STATE_BITS = 2;
+
+    /**
+     * Maske fuer den Zustands-Index je Lauf
+     */
+    private static final int STATE_MASK = (1 << STATE_BITS) - 1;
+
+    /**
+     * maximale Laenge eines Laufs (laengere Laeufe werden aufgeteilt)
+     */
+    private static final int MAX_RUN_LENGTH = Integer.MAX_VALUE >>> STATE_BITS;
+
+    /**
+     * Laeufe (Laenge &lt;&lt; 2 | Zustands-Index) in Reihenfolge des Pfads
+     */
+    private final int[] runs;
+
+    /**
+     * Anzahl Schritte
+     */
+    private final int length;
+
+    /**
+     * Konstruktor
+     *
+     * @param runs   Laeufe in Reihenfolge des Pfads (wird nicht kopiert)
+     * @param length Anzahl Schritte
+     */
+    private CompactStatePath(int[] runs, int length) {
+        this.runs = runs;
+        this.length = length;
+    }
+
+    /**
+     * Kodiert uebergebenen Zustands-Pfad
+     *
+     * @param statePath Zustands-Pfad aus {@link ProfilHMM#STATES}
+     * @return kodierter Zustands-Pfad
+     * @throws IllegalArgumentException falls uebergebener Pfad == null oder ein Zeichen kein Zustand ist
+     */
+    public static CompactStatePath of(final char[] statePath) throws IllegalArgumentException {
+        if (statePath == null)
+            throw new IllegalArgumentException("statePath is null");
+
+        Builder builder = new Builder();
+        for (int i = statePath.length - 1; i >= 0; i--) {
+            builder.prepend(stateIndex(statePath[i]));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Liefert Anzahl Schritte zurueck
+     *
+     * @return Anzahl Schritte
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Liefert Anzahl Laeufe zurueck
+     *
+     * @return Anzahl Laeufe
+     */
+    public int runCount() {
+        return runs.length;
+    }
+
+    /**
+     * Liefert Zustand des Laufs zurueck
+     *
+     * @param run Index des Laufs
+     * @return Zustand aus {@link ProfilHMM#STATES}
+     */
+    public char getState(final int run) {
+        return ProfilHMM.STATES[runs[run] & STATE_MASK];
+    }
+
+    /**
+     * Liefert Laenge des Laufs zurueck
+     *
+     * @param run Index des Laufs
+     * @return Laenge
+     */
+    public int getRunLength(final int run) {
+        return runs[run] >>> STATE_BITS;
+    }
+
+    /**
+     * Liefert den Zustands-Pfad als neues Feld zurueck (ein Zeichen je Schritt)
+     *
+     * @return Zustands-Pfad
+     */
+    public char[] toCharArray() {
+        char[] statePath = new char[length];
+        int i = 0;
+        for (int run : runs) {
+            int runLength = run >>> STATE_BITS;
+            Arrays.fill(statePath, i, i + runLength, ProfilHMM.STATES[run & STATE_MASK]);
+            i += runLength;
+        }
+        return statePath;
+    }
+
+    /**
+     * Liefert den Zustands-Pfad im CIGAR-aehnlichen Format zurueck, z.B. 20M1D31M
+     *
+     * @return Zustands-Pfad als Laeufe
+     */
+    public String toCigar() {
+        StringBuilder cigar = new StringBuilder(runs.length * 4);
+        for (int run : runs) {
+            cigar.append(run >>> STATE_BITS).append(ProfilHMM.STATES[run & STATE_MASK]);
+        }
+        return cigar.toString();
+    }
+
+    /**
+     * Liefert String mit dem Zustands-Pfad im CIGAR-aehnlichen Format zurueck
+     *
+     * @return Zustands-Pfad als Laeufe
+     */
+    @Override
+    public String toString() {
+        return toCigar();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof CompactStatePath))
+            return false;
+        CompactStatePath other = (CompactStatePath) o;
+        return length == other.length && Arrays.equals(runs, other.runs);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(runs);
+    }
+
+    /**
+     * Mappt Zustand auf entsprechenden Index in {@link ProfilHMM#STATES}
+     *
+     * @param state Zustand
+     * @return Index
+     * @throws IllegalArgumentException falls Zeichen kein Zustand ist
+     */
+    private static int stateIndex(final char state) throws IllegalArgumentException {
+        for (int s = 0; s < ProfilHMM.STATE_COUNT; s++) {
+            if (ProfilHMM.STATES[s] == state)
+                return s;
+        }
+        throw new IllegalArgumentException("state " + state + " not found");
+    }
+
+    /**
+     * Baut einen {@link CompactStatePath} von hinten nach vorne in einem wachsenden int-Puffer auf.
+     * Der Puffer wird vom Ende her gefuellt, sodass beim Voranstellen nichts verschoben werden muss.
+     */
+    static class Builder {
+
+        /**
+         * Puffer mit Laeufen, belegt ab Index first
+         */
+        private int[] buffer = new int[8];
+
+        /**
+         * Index des ersten belegten Laufs
+         */
+        private int first = buffer.length;
+
+        /**
+         * Anzahl Schritte
+         */
+        private int length;
+
+        /**
+         * Stellt einen Schritt mit uebergebenem Zustand voran
+         *
+         * @param stateIndex Index des Zustands in {@link ProfilHMM#STATES}
+         */
+        void prepend(final int stateIndex) {
+            if (first < buffer.length) {
+                int run = buffer[first];
+                if ((run & STATE_MASK) == stateIndex && (run >>> STATE_BITS) < MAX_RUN_LENGTH) {
+                    buffer[first] = run + (1 << STATE_BITS);
+                    length++;
+                    return;
+                }
+            }
+            if (first == 0) {
+                // grow at the front
+                int size = buffer.length;
+                int[] grown = new int[size * 2];
+                System.arraycopy(buffer, 0, grown, size, size);
+                buffer = grown;
+                first = size;
+            }
+            buffer[--first] = (1 << STATE_BITS) | stateIndex;
+            length++;
+        }
+
+        /**
+         * Liefert den aufgebauten Zustands-Pfad zurueck
+         *
+         * @return Zustands-Pfad
+         */
+        CompactStatePath build() {
+            return new CompactStatePath(Arrays.copyOfRange(buffer, first, buffer.length), length);
+        }
+    }
+}
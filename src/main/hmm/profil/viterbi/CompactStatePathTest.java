@@ -0,0 +1,74 @@
+package main.hmm.profil.viterbi;
+
+import main.hmm.profil.ProfilHMM;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test-Klasse fuer {@link CompactStatePath}.
+ *
+ * @author Soeren Metje
+ */
+public class CompactStatePathTest {
+
+    /**
+     * Test von {@link CompactStatePath#of(char[])} und {@link CompactStatePath#toCharArray()}
+     */
+    @Test
+    public void testOfToCharArray() {
+        String[] statePaths = {"", "M", "MIIMMMMMMMM", "DDDDDDDDD", "MMDDIIMMDIMDIMDIM", "IIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIII"};
+        for (String statePath : statePaths) {
+            CompactStatePath path = CompactStatePath.of(statePath.toCharArray());
+            Assert.assertEquals(statePath, String.valueOf(path.toCharArray()));
+            Assert.assertEquals(statePath.length(), path.length());
+        }
+    }
+
+    /**
+     * Test von {@link CompactStatePath#toCigar()}, {@link CompactStatePath#getState(int)}
+     * und {@link CompactStatePath#getRunLength(int)}
+     */
+    @Test
+    public void testToCigar() {
+        CompactStatePath path = CompactStatePath.of("MIIMMMMMMMM".toCharArray());
+        Assert.assertEquals("1M2I8M", path.toCigar());
+        Assert.assertEquals(3, path.runCount());
+        Assert.assertEquals('I', path.getState(1));
+        Assert.assertEquals(2, path.getRunLength(1));
+
+        Assert.assertEquals("9D", CompactStatePath.of("DDDDDDDDD".toCharArray()).toCigar());
+        Assert.assertEquals("", CompactStatePath.of(new char[0]).toCigar());
+    }
+
+    /**
+     * Test des {@link CompactStatePath.Builder} mit mehr Laeufen als die Anfangsgroesse des Puffers (8)
+     */
+    @Test
+    public void testBuilderGrowth() {
+        int runCount = 100;
+        StringBuilder expected = new StringBuilder();
+        CompactStatePath.Builder builder = new CompactStatePath.Builder();
+        for (int run = runCount - 1; run >= 0; run--) {
+            int stateIndex = run % ProfilHMM.STATE_COUNT;
+            for (int k = 0; k <= run % 4; k++) {
+                builder.prepend(stateIndex);
+                expected.insert(0, ProfilHMM.STATES[stateIndex]);
+            }
+        }
+        CompactStatePath path = builder.build();
+
+        Assert.assertEquals(runCount, path.runCount());
+        Assert.assertEquals(expected.length(), path.length());
+        Assert.assertEquals(expected.toString(), String.valueOf(path.toCharArray()));
+        Assert.assertEquals(CompactStatePath.of(expected.toString().toCharArray()), path);
+        Assert.assertEquals(CompactStatePath.of(expected.toString().toCharArray()).hashCode(), path.hashCode());
+    }
+
+    /**
+     * Test von {@link CompactStatePath#of(char[])} mit ungueltigem Zustand
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfInvalidState() {
+        CompactStatePath.of("MMX".toCharArray());
+    }
+}
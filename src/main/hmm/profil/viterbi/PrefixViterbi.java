@@ -0,0 +1,170 @@
+package main.hmm.profil.viterbi;
+
+import main.fastaparser.Sequence;
+import main.hmm.profil.ProfilHMM;
+import main.logger.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Viterbi-Algorithmus fuer viele Sequenzen mit gemeinsamen Praefixen (z.B. gleicher Primer oder Amplicon-Anfang).
+ * <p>
+ * Zeile i der Viterbi-Matrizen haengt nur von den ersten i Beobachtungen ab.
+ * Die Sequenzen werden daher lexikographisch nach ihren Codes sortiert, was einer Tiefensuche durch den Praefix-Baum entspricht.
+ * Fuer jede Sequenz werden nur die Zeilen nach dem gemeinsamen Praefix mit der vorherigen Sequenz neu berechnet,
+ * die uebrigen Zeilen werden aus dem Zeilen-Stapel uebernommen.
+ * Der Stapel haelt nur die Zeilen des aktuellen Pfads im Praefix-Baum und ist damit durch die laengste Sequenz beschraenkt.
+ * </p>
+ * Score und Zustands-Pfad sind identisch zu {@link Viterbi#viterbi(ProfilHMM, Sequence)}.
+ *
+ * @author Soeren Metje
+ */
+public class PrefixViterbi {
+
+    /**
+     * Fuehrt den Viterbi-Algorithmus fuer alle uebergebenen Sequenzen mit gemeinsam genutzten Praefix-Zeilen aus
+     * und liefert die Zustands-Pfade in der Reihenfolge der Sequenzen zurueck.
+     *
+     * @param model     Profil Hidden Markov Model
+     * @param sequences Beobachtungsfolgen
+     * @return Zustands-Pfade
+     * @throws IllegalArgumentException falls eine Sequenz == null ist
+     *                                  oder falls Beobachtung nicht im Alphabet des Modells gefunden wird
+     */
+    public static List<ViterbiPath> viterbi(final ProfilHMM model, final List<Sequence> sequences) throws IllegalArgumentException {
+        int[][] codes = toCodes(model, sequences);
+        int[] order = sortedOrder(codes);
+
+        ViterbiPath[] paths = new ViterbiPath[sequences.size()];
+        viterbi(model, sequences, codes, order, 0, order.length, paths);
+        return new ArrayList<>(Arrays.asList(paths));
+    }
+
+    /**
+     * Liefert die Codes der Beobachtungen aller Sequenzen zurueck
+     *
+     * @param model     Profil Hidden Markov Model
+     * @param sequences Beobachtungsfolgen
+     * @return Codes je Sequenz
+     * @throws IllegalArgumentException falls eine Sequenz == null ist
+     *                                  oder falls Beobachtung nicht im Alphabet des Modells gefunden wird
+     */
+    public static int[][] toCodes(final ProfilHMM model, final List<Sequence> sequences) throws IllegalArgumentException {
+        int[][] codes = new int[sequences.size()][];
+        for (int k = 0; k < codes.length; k++) {
+            Sequence sequence = sequences.get(k);
+            if (sequence == null)
+                throw new IllegalArgumentException("sequence is null");
+            codes[k] = model.observationsToCodes(sequence);
+        }
+        return codes;
+    }
+
+    /**
+     * Liefert die Indizes der Sequenzen lexikographisch nach ihren Codes sortiert zurueck.
+     * Kuerzere Praefixe stehen dabei vor ihren Verlaengerungen.
+     *
+     * @param codes Codes je Sequenz
+     * @return sortierte Indizes
+     */
+    public static int[] sortedOrder(final int[][] codes) {
+        Integer[] boxed = new Integer[codes.length];
+        for (int k = 0; k < boxed.length; k++) {
+            boxed[k] = k;
+        }
+        Arrays.sort(boxed, (a, b) -> compare(codes[a], codes[b]));
+
+        int[] order = new int[boxed.length];
+        for (int k = 0; k < order.length; k++) {
+            order[k] = boxed[k];
+        }
+        return order;
+    }
+
+    /**
+     * Fuehrt den Viterbi-Algorithmus fuer die Sequenzen order[from] bis order[to - 1] aus
+     * und speichert die Zustands-Pfade an der Position der jeweiligen Sequenz im uebergebenen Feld.
+     * Zeilen werden nur innerhalb dieses Bereichs gemeinsam genutzt.
+     *
+     * @param model     Profil Hidden Markov Model
+     * @param sequences Beobachtungsfolgen
+     * @param codes     Codes je Sequenz (siehe {@link #toCodes(ProfilHMM, List)})
+     * @param order     sortierte Indizes (siehe {@link #sortedOrder(int[][])})
+     * @param from      erste Position in order (inklusive)
+     * @param to        letzte Position in order (exklusive)
+     * @param paths     Feld fuer die Zustands-Pfade (Index wie sequences)
+     */
+    public static void viterbi(final ProfilHMM model, final List<Sequence> sequences, final int[][] codes, final int[] order,
+                               final int from, final int to, final ViterbiPath[] paths) {
+        int lengthModel = model.getLengthModel();
+
+        // row stack (grows up to the longest sequence)
+        double[][][] viterbiVar = new double[0][][];
+        int[][][] viterbiArg = new int[0][][];
+
+        int[] previous = null;
+        long rowsTotal = 0, rowsComputed = 0;
+        for (int k = from; k < to; k++) {
+            int index = order[k];
+            int[] observationIndices = codes[index];
+            int length = observationIndices.length + 1;
+
+            if (viterbiVar.length < length) {
+                int oldLength = viterbiVar.length;
+                viterbiVar = Arrays.copyOf(viterbiVar, length);
+                viterbiArg = Arrays.copyOf(viterbiArg, length);
+                for (int i = oldLength; i < length; i++) {
+                    viterbiVar[i] = new double[ProfilHMM.STATE_COUNT][lengthModel];
+                    viterbiArg[i] = new int[ProfilHMM.STATE_COUNT][lengthModel];
+                }
+            }
+
+            // rows 0..prefix depend only on the shared prefix and are still valid
+            int start = previous == null ? 0 : commonPrefixLength(previous, observationIndices) + 1;
+            for (int i = start; i < length; i++) {
+                Viterbi.computeRow(model, observationIndices, i, viterbiVar, viterbiArg);
+            }
+            rowsTotal += length;
+            rowsComputed += Math.max(length - start, 0);
+
+            paths[index] = Viterbi.backtrace(model, sequences.get(index), length, viterbiVar, viterbiArg);
+            previous = observationIndices;
+        }
+
+        Log.dLine("Prefix-Viterbi computed " + rowsComputed + " of " + rowsTotal + " rows for " + (to - from) + " sequences");
+    }
+
+    /**
+     * Vergleicht zwei Code-Folgen lexikographisch
+     *
+     * @param a erste Code-Folge
+     * @param b zweite Code-Folge
+     * @return negativ, 0 oder positiv, falls a kleiner, gleich oder groesser b ist
+     */
+    private static int compare(final int[] a, final int[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i])
+                return Integer.compare(a[i], b[i]);
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    /**
+     * Liefert die Laenge des gemeinsamen Praefixes zweier Code-Folgen zurueck
+     *
+     * @param a erste Code-Folge
+     * @param b zweite Code-Folge
+     * @return Laenge des gemeinsamen Praefixes
+     */
+    private static int commonPrefixLength(final int[] a, final int[] b) {
+        int length = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < length && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+}
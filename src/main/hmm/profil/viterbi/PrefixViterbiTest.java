@@ -0,0 +1,85 @@
+package main.hmm.profil.viterbi;
+
+import main.fastaparser.Sequence;
+import main.hmm.profil.ProfilHMM;
+import main.hmm.profil.RNAProfilHMM;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.runners.Parameterized.Parameter;
+import static org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Test-Klasse fuer {@link PrefixViterbi}.
+ *
+ * @author Soeren Metje
+ */
+@RunWith(Parameterized.class)
+public class PrefixViterbiTest {
+
+    /**
+     * Trainings-Sequenzen
+     */
+    private static final String[] SEQ_TRAIN = {"UACAAUCAAGG", "UA-AAUCAAGG", "U--AAUCAAGG", "U-CAAUCAAGG", "U--AAUCAAGG",
+            "U--AAUCAAGG", "UACAAUCAAGG", "U--AAUCAAGG", "U--AAUCAAGG", "UACAAUCAAGG"};
+
+    /**
+     * Test-Sequenzen
+     */
+    @Parameter(0)
+    public String[] seqTest;
+
+    /**
+     * Liefert List mit Parametern der Testfaelle zurueck
+     *
+     * @return List mit Parametern der Testfaelle
+     */
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][]{
+                // shared prefixes
+                {new String[]{"UACAAUCAAGG", "UACAAUGG", "UACAAUCC", "UACGGG", "GACAAUCAAGG"}},
+                // duplicates
+                {new String[]{"UACAAUCAAGG", "UAAUCAAGG", "UACAAUCAAGG", "UAAUCAAGG", "UACAAUCAAGG"}},
+                // prefix of another sequence (also empty sequence)
+                {new String[]{"UACAAUCAAGGAAA", "UACAAU", "UACAAUCAAGG", "", "U", "UACAAUCAAGGA"}},
+                // degenerate and lowercase residues
+                {new String[]{"UACNAUCAAGG", "uacaaucaagg", "UACNAUCAAGGN", "UACN"}}};
+        return Arrays.asList(data);
+    }
+
+    /**
+     * Test von {@link PrefixViterbi#viterbi(ProfilHMM, List)}.
+     * Score und Zustands-Pfad jeder Sequenz muessen identisch zu {@link Viterbi#viterbi(ProfilHMM, Sequence)} sein.
+     */
+    @Test
+    public void testSameAsViterbi() {
+        List<Sequence> sequencesTrain = new ArrayList<>(SEQ_TRAIN.length);
+        for (int i = 0; i < SEQ_TRAIN.length; i++) {
+            sequencesTrain.add(new Sequence(String.valueOf(i), null, SEQ_TRAIN[i]));
+        }
+        ProfilHMM model = new RNAProfilHMM(sequencesTrain);
+
+        List<Sequence> sequences = new ArrayList<>(seqTest.length);
+        for (int i = 0; i < seqTest.length; i++) {
+            sequences.add(new Sequence("test" + i, null, seqTest[i]));
+        }
+
+        List<ViterbiPath> paths = PrefixViterbi.viterbi(model, sequences);
+        Assert.assertEquals(sequences.size(), paths.size());
+        for (int i = 0; i < sequences.size(); i++) {
+            ViterbiPath expected = Viterbi.viterbi(model, sequences.get(i));
+            ViterbiPath path = paths.get(i);
+            Assert.assertSame(sequences.get(i), path.getSequence());
+            Assert.assertEquals(seqTest[i], expected.getScore(), path.getScore(), 0d);
+            Assert.assertEquals(seqTest[i], String.valueOf(expected.getStatePath()), String.valueOf(path.getStatePath()));
+        }
+    }
+}
@@ -4,8 +4,7 @@ import main.fastaparser.Sequence;
 import main.hmm.profil.ProfilHMM;
 import main.logger.Log;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Enthaelt die Implementation des Viterbi-Algorithmus fuer logarithmische Werte.
@@ -30,99 +29,28 @@ public class Viterbi {
             throw new IllegalArgumentException("sequence is null");
 
         // init
-        char[] observations = sequence.getNucleotideSequence().toCharArray();
-        int[] observationIndices = model.observationsToIndices(observations);
+        int[] observationIndices = model.observationsToCodes(sequence);
         int length = observationIndices.length + 1;
 
         // FILL MATRIX ----------------------------------------------------------------------------------
         int lengthModel = model.getLengthModel();
-        double[][][] viterbiVar = new double[ProfilHMM.STATE_COUNT][length][lengthModel];
-        int[][][] viterbiArg = new int[ProfilHMM.STATE_COUNT][length][lengthModel];
-
-        // init
-        {
-            double initValue = Double.NEGATIVE_INFINITY;
-
-            int stateIndex = ProfilHMM.STATE_MATCH_INDEX;
-            viterbiVar[stateIndex][0][0] = 0d;
-            viterbiArg[stateIndex][0][0] = -1;
-            for (int j = 1; j < lengthModel; j++) {
-                viterbiVar[stateIndex][0][j] = initValue;
-            }
-            for (int i = 1; i < length; i++) {
-                viterbiVar[stateIndex][i][0] = initValue;
-            }
-
-            stateIndex = ProfilHMM.STATE_INSERT_INDEX;
-            for (int j = 0; j < lengthModel; j++) {
-                viterbiVar[stateIndex][0][j] = initValue;
-            }
-
-            stateIndex = ProfilHMM.STATE_DELETE_INDEX;
-            for (int i = 0; i < length; i++) {
-                viterbiVar[stateIndex][i][0] = initValue;
-            }
-        }
+        double[][][] viterbiVar = new double[length][ProfilHMM.STATE_COUNT][lengthModel];
+        int[][][] viterbiArg = new int[length][ProfilHMM.STATE_COUNT][lengthModel];
 
         // iterate observations indices
         for (int i = 0; i < length; i++) {
-            // iterate model indices
-            for (int j = 0; j < lengthModel; j++) {
-                // iterate states indices
-                for (int s = 0; s < ProfilHMM.STATE_COUNT; s++) { // order of iteration-loops is relevant!
-                    char state = ProfilHMM.STATES[s];
-
-                    int iShift = i, jShift = j;
-                    double[][] emissionProbMatrix = null;
-                    if (state == ProfilHMM.STATE_MATCH) {
-                        iShift -= 1;
-                        jShift -= 1;
-                        emissionProbMatrix = model.getEmissionProbMatch();
-                    } else if (state == ProfilHMM.STATE_INSERT) {
-                        iShift -= 1;
-                        emissionProbMatrix = model.getEmissionProbInsert();
-                    } else if (state == ProfilHMM.STATE_DELETE) {
-                        jShift -= 1;
-                    } else
-                        throw new RuntimeException("no valid state");
-
-                    // calc must be possible for Delete-State in first column ans Insert-State in first row
-                    if (iShift >= 0 && jShift >= 0) {
-                        //find max
-                        double maxProb = Double.NEGATIVE_INFINITY;
-                        int maxArg = -1; // maximizing argument
-
-                        for (int stateIndex = 0; stateIndex < ProfilHMM.STATE_COUNT; stateIndex++) {
-
-                            double[][][] transitionProb = model.getTransitionProb();
-                            double prob = viterbiVar[stateIndex][iShift][jShift] + transitionProb[stateIndex][s][jShift]; // log-space
-                            if (prob > maxProb) {
-                                maxProb = prob;
-                                maxArg = stateIndex;
-                            }
-                        }
-
-                        double emissionProb = 0d; // 0 is neutral element of addition (log-space)
-
-                        if (emissionProbMatrix != null) {
-                            emissionProb = emissionProbMatrix[j][observationIndices[i - 1]];
-                        }
-                        viterbiVar[s][i][j] = emissionProb + maxProb;
-                        viterbiArg[s][i][j] = maxArg;
-                    }
-                }
-            }
+            computeRow(model, observationIndices, i, viterbiVar, viterbiArg);
         }
 
         if (Log.isPrintDebug()) {
             // Debug output viterbi 3d-matrix
             StringBuilder outViterbiVar = new StringBuilder("ViterbiVar: \n");
-            // [STATE_COUNT][length][lengthModel]
+            // [length][STATE_COUNT][lengthModel]
             for (int j = 0; j < lengthModel; j++) {
                 for (int k = 0; k < ProfilHMM.STATES.length; k++) {
                     outViterbiVar.append("\u001B[37m").append(k == 0 ? String.format("j%3d%s ", j, ProfilHMM.STATES[k]) : "    " + ProfilHMM.STATES[k] + " ").append("\u001B[0m");
                     for (int i = 0; i < length; i++) {
-                        outViterbiVar.append(String.format("%.5s ", String.format("%f", viterbiVar[k][i][j])));
+                        outViterbiVar.append(String.format("%.5s ", String.format("%f", viterbiVar[i][k][j])));
                     }
                     outViterbiVar.append('\n');
                 }
@@ -131,12 +59,12 @@ public class Viterbi {
             Log.dLine(outViterbiVar.toString());
 
             StringBuilder outViterbiArg = new StringBuilder("ViterbiArg: \n");
-            // [STATE_COUNT][length][lengthModel]
+            // [length][STATE_COUNT][lengthModel]
             for (int j = 0; j < lengthModel; j++) {
                 for (int k = 0; k < ProfilHMM.STATES.length; k++) {
                     outViterbiArg.append("\u001B[37m").append(k == 0 ? String.format("j%3d%s ", j, ProfilHMM.STATES[k]) : "    " + ProfilHMM.STATES[k] + " ").append("\u001B[0m");
                     for (int i = 0; i < length; i++) {
-                        int a = viterbiArg[k][i][j];
+                        int a = viterbiArg[i][k][j];
                         outViterbiArg.append(String.format("%5s ", (a >= 0 ? String.valueOf(ProfilHMM.STATES[a]) : a)));
                     }
                     outViterbiArg.append('\n');
@@ -146,8 +74,169 @@ public class Viterbi {
             Log.dLine(outViterbiArg.toString());
         }
 
-        // BACKTRACE -------------------------------------------------------------------------------------
-        List<Character> listStatePath = new LinkedList<>();
+        return backtrace(model, sequence, length, viterbiVar, viterbiArg);
+    }
+
+    /**
+     * Berechnet nur den Score des wahrscheinlichsten Zustands-Pfads bei uebergebenen Beobachtungen (wie {@link #viterbi(ProfilHMM, Sequence)}).
+     * Dabei werden nur zwei Zeilen der Viterbi-Variablen und keine Vorgaenger-Zustaende gehalten,
+     * der Speicherbedarf ist also unabhaengig von der Laenge der Sequenz.
+     *
+     * @param model    Profil Hidden Markov Model
+     * @param sequence Beobachtungsfolge
+     * @return Score
+     * @throws IllegalArgumentException falls uebergebene Sequenz {@link Sequence} == null
+     *                                  oder falls Beobachtung nicht im Feld entsprechenden gefunden wird
+     */
+    public static double score(final ProfilHMM model, final Sequence sequence) throws IllegalArgumentException {
+        if (sequence == null)
+            throw new IllegalArgumentException("sequence is null");
+
+        int[] observationIndices = model.observationsToCodes(sequence);
+        int length = observationIndices.length + 1;
+        int lengthModel = model.getLengthModel();
+
+        double[][] previousRow = new double[ProfilHMM.STATE_COUNT][lengthModel];
+        double[][] row = new double[ProfilHMM.STATE_COUNT][lengthModel];
+        for (int i = 0; i < length; i++) {
+            double[][] swap = previousRow;
+            previousRow = row;
+            row = swap;
+            computeRow(model, observationIndices, i, previousRow, row, null);
+        }
+
+        double[][][] transitionProb = model.getTransitionProb();
+        double score = Double.NEGATIVE_INFINITY;
+        int j = lengthModel - 1;
+        for (int stateIndex = 0; stateIndex < ProfilHMM.STATE_COUNT; stateIndex++) {
+            double prob = row[stateIndex][j] + transitionProb[stateIndex][ProfilHMM.STATE_MATCH_INDEX][j]; // log-space
+            if (prob > score)
+                score = prob;
+        }
+        return score;
+    }
+
+    /**
+     * Berechnet Zeile i (alle Zustaende an allen Positionen im Modell nach i Beobachtungen) der Viterbi-Matrizen
+     * aus Zeile i-1 und den Beobachtungen. Alle Felder der Zeile werden dabei ueberschrieben,
+     * sodass Zeilen-Felder wiederverwendet werden koennen (siehe {@link PrefixViterbi}).
+     * Zeile i haengt nur von den ersten i Beobachtungen ab.
+     *
+     * @param model              Profil Hidden Markov Model
+     * @param observationIndices Codes der Beobachtungen
+     * @param i                  Zeile (Anzahl Beobachtungen)
+     * @param viterbiVar         Viterbi-Variablen [Zeile][Zustand][Position im Modell]
+     * @param viterbiArg         maximierende Vorgaenger-Zustaende [Zeile][Zustand][Position im Modell]
+     */
+    static void computeRow(final ProfilHMM model, final int[] observationIndices, final int i,
+                           final double[][][] viterbiVar, final int[][][] viterbiArg) {
+        computeRow(model, observationIndices, i, i > 0 ? viterbiVar[i - 1] : null, viterbiVar[i], viterbiArg[i]);
+    }
+
+    /**
+     * Berechnet Zeile i der Viterbi-Variablen aus Zeile i-1. Alle Felder der Zeile werden dabei ueberschrieben.
+     *
+     * @param model              Profil Hidden Markov Model
+     * @param observationIndices Codes der Beobachtungen
+     * @param i                  Zeile (Anzahl Beobachtungen)
+     * @param previousRow        Viterbi-Variablen der Zeile i-1 [Zustand][Position im Modell] (fuer i == 0 ungenutzt)
+     * @param row                Viterbi-Variablen der Zeile i [Zustand][Position im Modell]
+     * @param rowArg             maximierende Vorgaenger-Zustaende der Zeile i oder null, falls nicht benoetigt
+     */
+    private static void computeRow(final ProfilHMM model, final int[] observationIndices, final int i,
+                                   final double[][] previousRow, final double[][] row, final int[][] rowArg) {
+        int lengthModel = model.getLengthModel();
+        double[][][] transitionProb = model.getTransitionProb();
+
+        // init
+        {
+            double initValue = Double.NEGATIVE_INFINITY;
+
+            if (i == 0) {
+                row[ProfilHMM.STATE_MATCH_INDEX][0] = 0d;
+                for (int j = 1; j < lengthModel; j++) {
+                    row[ProfilHMM.STATE_MATCH_INDEX][j] = initValue;
+                }
+                for (int j = 0; j < lengthModel; j++) {
+                    row[ProfilHMM.STATE_INSERT_INDEX][j] = initValue;
+                }
+                if (rowArg != null) {
+                    Arrays.fill(rowArg[ProfilHMM.STATE_MATCH_INDEX], 0);
+                    rowArg[ProfilHMM.STATE_MATCH_INDEX][0] = -1;
+                    Arrays.fill(rowArg[ProfilHMM.STATE_INSERT_INDEX], 0);
+                }
+            } else {
+                row[ProfilHMM.STATE_MATCH_INDEX][0] = initValue;
+                if (rowArg != null)
+                    rowArg[ProfilHMM.STATE_MATCH_INDEX][0] = 0;
+            }
+            row[ProfilHMM.STATE_DELETE_INDEX][0] = initValue;
+            if (rowArg != null)
+                rowArg[ProfilHMM.STATE_DELETE_INDEX][0] = 0;
+        }
+
+        // iterate model indices
+        for (int j = 0; j < lengthModel; j++) {
+            // iterate states indices
+            for (int s = 0; s < ProfilHMM.STATE_COUNT; s++) { // order of iteration-loops is relevant!
+                char state = ProfilHMM.STATES[s];
+
+                int iShift = i, jShift = j;
+                double[][] emissionProbMatrix = null;
+                if (state == ProfilHMM.STATE_MATCH) {
+                    iShift -= 1;
+                    jShift -= 1;
+                    emissionProbMatrix = model.getEmissionCodeMatch();
+                } else if (state == ProfilHMM.STATE_INSERT) {
+                    iShift -= 1;
+                    emissionProbMatrix = model.getEmissionCodeInsert();
+                } else if (state == ProfilHMM.STATE_DELETE) {
+                    jShift -= 1;
+                } else
+                    throw new RuntimeException("no valid state");
+
+                // calc must be possible for Delete-State in first column ans Insert-State in first row
+                if (iShift >= 0 && jShift >= 0) {
+                    //find max
+                    double maxProb = Double.NEGATIVE_INFINITY;
+                    int maxArg = -1; // maximizing argument
+
+                    double[][] rowShift = iShift == i ? row : previousRow;
+                    for (int stateIndex = 0; stateIndex < ProfilHMM.STATE_COUNT; stateIndex++) {
+                        double prob = rowShift[stateIndex][jShift] + transitionProb[stateIndex][s][jShift]; // log-space
+                        if (prob > maxProb) {
+                            maxProb = prob;
+                            maxArg = stateIndex;
+                        }
+                    }
+
+                    double emissionProb = 0d; // 0 is neutral element of addition (log-space)
+
+                    if (emissionProbMatrix != null) {
+                        emissionProb = emissionProbMatrix[j][observationIndices[i - 1]];
+                    }
+                    row[s][j] = emissionProb + maxProb;
+                    if (rowArg != null)
+                        rowArg[s][j] = maxArg;
+                }
+            }
+        }
+    }
+
+    /**
+     * Ermittelt anhand der gefuellten Viterbi-Matrizen den wahrscheinlichsten Zustands-Pfad mit Score.
+     *
+     * @param model      Profil Hidden Markov Model
+     * @param sequence   Beobachtungsfolge
+     * @param length     Anzahl Zeilen (Anzahl Beobachtungen + 1)
+     * @param viterbiVar Viterbi-Variablen [Zeile][Zustand][Position im Modell]
+     * @param viterbiArg maximierende Vorgaenger-Zustaende [Zeile][Zustand][Position im Modell]
+     * @return Zustands-Pfad
+     */
+    static ViterbiPath backtrace(final ProfilHMM model, final Sequence sequence, final int length,
+                                 final double[][][] viterbiVar, final int[][][] viterbiArg) {
+        int lengthModel = model.getLengthModel();
+        CompactStatePath.Builder statePath = new CompactStatePath.Builder(); // built backward
         double score = Double.NEGATIVE_INFINITY;
         {
             // backtrace init / Find path with max prob
@@ -157,24 +246,23 @@ public class Viterbi {
                 for (int stateIndex = 0; stateIndex < ProfilHMM.STATE_COUNT; stateIndex++) {
 
                     double[][][] transitionProb = model.getTransitionProb();
-                    double prob = viterbiVar[stateIndex][i][j] + transitionProb[stateIndex][ProfilHMM.STATE_MATCH_INDEX][j]; // log-space
+                    double prob = viterbiVar[i][stateIndex][j] + transitionProb[stateIndex][ProfilHMM.STATE_MATCH_INDEX][j]; // log-space
                     if (prob > score) {
                         stateIndexEnd = stateIndex;
                         score = prob;
                     }
                 }
             }
-            viterbiVar = null; // no reference left -> allow GC to trash
 
-            listStatePath.add(ProfilHMM.STATES[stateIndexEnd]);
+            statePath.prepend(stateIndexEnd);
 
             // backtrace iterate
             try {
                 while (i >= 0 && j >= 0 && (i > 1 || j > 1)) { // FIXME correct?!
-                    int stateIndex = viterbiArg[stateIndexEnd][i][j];
+                    int stateIndex = viterbiArg[i][stateIndexEnd][j];
                     char state = ProfilHMM.STATES[stateIndex];
 
-                    listStatePath.add(0, state);
+                    statePath.prepend(stateIndex);
 
                     if (state == ProfilHMM.STATE_MATCH) {
                         i--;
@@ -191,16 +279,6 @@ public class Viterbi {
             }
         }
 
-        // copy into char array
-        char[] statePath = new char[listStatePath.size()];
-        {
-            int i = 0;
-            for (Character c : listStatePath) {
-                statePath[i] = c;
-                i++;
-            }
-        }
-
-        return new ViterbiPath(sequence, score, statePath);
+        return new ViterbiPath(sequence, score, statePath.build());
     }
 }
@@ -0,0 +1,186 @@
+package main.hmm.profil.viterbi;
+
+import main.fastaparser.EncodedSequence;
+import main.fastaparser.Sequence;
+import main.hmm.profil.ProfilHMM;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Threadsicherer, in der Groesse beschraenkter Cache fuer Zustands-Pfade {@link ViterbiPath}.
+ * <p>
+ * Schluessel ist die Kennung des Modells ({@link ProfilHMM#getId()}) zusammen mit der kodierten Nukleotid-Sequenz
+ * ({@link EncodedSequence}). Gleiche Sequenzen werden ueber Hash und anschliessenden Vergleich der kodierten Felder erkannt,
+ * sodass Kollisionen des Hashes keine falschen Ergebnisse liefern.
+ * Ist die Kapazitaet erreicht, wird der am laengsten nicht verwendete Eintrag entfernt (LRU).
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class ViterbiCache {
+
+    /**
+     * Standardwert fuer die maximale Anzahl Eintraege
+     */
+    public static final int DEFAULT_CAPACITY = 100000;
+
+    /**
+     * Monitor, um Zugriffe zu synchronisieren
+     */
+    private final Object monitor = new Object();
+
+    /**
+     * Eintraege in Reihenfolge des letzten Zugriffs
+     */
+    private final LinkedHashMap<Key, ViterbiPath> entries;
+
+    /**
+     * Anzahl Treffer
+     */
+    private long hits = 0;
+
+    /**
+     * Anzahl Fehlschlaege
+     */
+    private long misses = 0;
+
+    /**
+     * Konstruktor
+     *
+     * @param capacity maximale Anzahl Eintraege
+     * @throws IllegalArgumentException falls capacity &lt; 1
+     */
+    public ViterbiCache(final int capacity) throws IllegalArgumentException {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity has to be at least 1");
+
+        entries = new LinkedHashMap<Key, ViterbiPath>(16, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ViterbiPath> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Liefert den gespeicherten Zustands-Pfad fuer uebergebenes Modell und die Nukleotid-Sequenz der uebergebenen Sequenz zurueck
+     * (mit uebergebener Sequenz als Bezug) oder null, falls nicht vorhanden.
+     *
+     * @param model    Modell
+     * @param sequence Sequenz
+     * @return Zustands-Pfad oder null
+     */
+    public ViterbiPath get(final ProfilHMM model, final Sequence sequence) {
+        ViterbiPath path;
+        synchronized (monitor) {
+            path = entries.get(new Key(model.getId(), sequence.getEncodedSequence()));
+            if (path == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+        }
+        return path.getSequence() == sequence ? path : new ViterbiPath(sequence, path.getScore(), path.getCompactStatePath());
+    }
+
+    /**
+     * Speichert uebergebenen Zustands-Pfad fuer uebergebenes Modell
+     *
+     * @param model Modell
+     * @param path  Zustands-Pfad
+     */
+    public void put(final ProfilHMM model, final ViterbiPath path) {
+        synchronized (monitor) {
+            entries.put(new Key(model.getId(), path.getSequence().getEncodedSequence()), path);
+        }
+    }
+
+    /**
+     * Liefert den gespeicherten Zustands-Pfad zurueck oder berechnet ihn mittels {@link Viterbi#viterbi(ProfilHMM, Sequence)} und speichert ihn.
+     *
+     * @param model    Modell
+     * @param sequence Sequenz
+     * @return Zustands-Pfad
+     * @throws IllegalArgumentException falls Viterbi fehlschlaegt
+     */
+    public ViterbiPath viterbi(final ProfilHMM model, final Sequence sequence) throws IllegalArgumentException {
+        ViterbiPath path = get(model, sequence);
+        if (path == null) {
+            path = Viterbi.viterbi(model, sequence);
+            put(model, path);
+        }
+        return path;
+    }
+
+    /**
+     * Liefert Anzahl Eintraege zurueck
+     *
+     * @return Anzahl Eintraege
+     */
+    public int size() {
+        synchronized (monitor) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        synchronized (monitor) {
+            return hits;
+        }
+    }
+
+    public long getMisses() {
+        synchronized (monitor) {
+            return misses;
+        }
+    }
+
+    /**
+     * Schluessel aus Kennung des Modells und kodierter Nukleotid-Sequenz
+     */
+    private static class Key {
+
+        /**
+         * Kennung des Modells
+         */
+        private final long modelId;
+
+        /**
+         * kodierte Nukleotid-Sequenz
+         */
+        private final EncodedSequence residues;
+
+        /**
+         * Hash (vorberechnet)
+         */
+        private final int hash;
+
+        /**
+         * Konstruktor
+         *
+         * @param modelId  Kennung des Modells
+         * @param residues kodierte Nukleotid-Sequenz
+         */
+        Key(long modelId, EncodedSequence residues) {
+            this.modelId = modelId;
+            this.residues = residues;
+            this.hash = 31 * Long.hashCode(modelId) + residues.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return modelId == other.modelId && hash == other.hash && residues.equals(other.residues);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import main.hmm.profil.RNAProfilHMM;
 
 /**
  * Wrapper fuer Sequenz {@link Sequence}, die zusaetzlich das Ergebnis des Viterbi-Algo aus {@link RNAProfilHMM} haelt.
+ * Der Zustands-Pfad wird lauflaengen-kodiert als {@link CompactStatePath} gehalten
+ * und erst bei Aufruf von {@link #getStatePath()} zu einem Feld expandiert.
  *
  * @author Soeren Metje
  */
@@ -18,21 +20,42 @@ public class ViterbiPath {
      */
     private final double score;
     /**
-     * Zustands-Pfad
+     * lauflaengen-kodierter Zustands-Pfad oder null, falls nur der Score berechnet wurde
      */
-    private final char[] statePath;
+    private final CompactStatePath compactStatePath;
+
+    /**
+     * Konstruktor ohne Zustands-Pfad, falls nur der Score berechnet wurde (siehe {@link Viterbi#score(main.hmm.profil.ProfilHMM, Sequence)})
+     *
+     * @param sequence Sequenz
+     * @param score    Bewertung
+     */
+    public ViterbiPath(Sequence sequence, double score) {
+        this(sequence, score, (CompactStatePath) null);
+    }
 
     /**
      * Konstruktor
      *
      * @param sequence  Sequenz
      * @param score     Bewertung
-     * @param statePath Zustands-Pfad
+     * @param statePath Zustands-Pfad oder null, falls nur der Score berechnet wurde
      */
     public ViterbiPath(Sequence sequence, double score, char[] statePath) {
+        this(sequence, score, statePath == null ? null : CompactStatePath.of(statePath));
+    }
+
+    /**
+     * Konstruktor
+     *
+     * @param sequence         Sequenz
+     * @param score            Bewertung
+     * @param compactStatePath lauflaengen-kodierter Zustands-Pfad oder null, falls nur der Score berechnet wurde
+     */
+    public ViterbiPath(Sequence sequence, double score, CompactStatePath compactStatePath) {
         this.sequence = sequence;
         this.score = score;
-        this.statePath = statePath;
+        this.compactStatePath = compactStatePath;
     }
 
     /**
@@ -54,12 +77,39 @@ public class ViterbiPath {
     }
 
     /**
-     * Liefert Zustands-Pfad zurueck
+     * Liefert Zustands-Pfad zurueck. Dieser wird bei jedem Aufruf neu expandiert (ein Zeichen je Schritt).
      *
-     * @return Zustands-Pfad
+     * @return Zustands-Pfad oder null, falls nur der Score berechnet wurde
      */
     public char[] getStatePath() {
-        return statePath;
+        return compactStatePath == null ? null : compactStatePath.toCharArray();
+    }
+
+    /**
+     * Liefert lauflaengen-kodierten Zustands-Pfad zurueck
+     *
+     * @return Zustands-Pfad oder null, falls nur der Score berechnet wurde
+     */
+    public CompactStatePath getCompactStatePath() {
+        return compactStatePath;
+    }
+
+    /**
+     * Liefert Anzahl Schritte des Zustands-Pfads zurueck, ohne ihn zu expandieren
+     *
+     * @return Anzahl Schritte oder 0, falls nur der Score berechnet wurde
+     */
+    public int getStatePathLength() {
+        return compactStatePath == null ? 0 : compactStatePath.length();
+    }
+
+    /**
+     * Liefert true zurueck, falls der Zustands-Pfad berechnet wurde
+     *
+     * @return true, falls Zustands-Pfad vorhanden
+     */
+    public boolean hasStatePath() {
+        return compactStatePath != null;
     }
 
     /**
@@ -1,15 +1,19 @@
 package main.hmm.profil.viterbi.parallel;
 
+import main.fastaparser.EncodedSequence;
 import main.fastaparser.Sequence;
+import main.hmm.profil.NullModel;
 import main.hmm.profil.ProfilHMM;
 import main.hmm.profil.RNAProfilHMM;
+import main.hmm.profil.viterbi.PrefixViterbi;
+import main.hmm.profil.viterbi.Viterbi;
+import main.hmm.profil.viterbi.ViterbiCache;
 import main.hmm.profil.viterbi.ViterbiPath;
 import main.logger.Log;
 
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Enthaelt Methode zur parallelisierten Ausfuehrung des Viterbi-Algorithmus fuer mehrere Sequenzen.
@@ -30,20 +34,257 @@ public class ParallelizationSupporter {
      * @return Liste mit den Zustands-Pfaden {@link ViterbiPath}
      */
     public static List<ViterbiPath> viterbiParallelized(ProfilHMM model, List<Sequence> sequences) {
+        return viterbiParallelized(model, sequences.iterator(), sequences.size());
+    }
+
+    /**
+     * Fuehrt Viterbi-Algorithmus parallelisiert fuer die Sequenzen des uebergebenen Streams aus
+     * und liefert die berechneten Zustands-Pfade {@link ViterbiPath} in der Reihenfolge des Streams zurueck.
+     * Die Sequenzen werden dabei erst von den Threads aus dem Stream gelesen, z.B. aus {@link main.fastaparser.FastaParser#stream(String)}.
+     *
+     * @param model     {@link RNAProfilHMM} Modell
+     * @param sequences {@link Sequence} Stream
+     * @return Liste mit den Zustands-Pfaden {@link ViterbiPath}
+     */
+    public static List<ViterbiPath> viterbiParallelized(ProfilHMM model, Stream<Sequence> sequences) {
+        return viterbiParallelized(model, sequences.sequential().iterator(), -1);
+    }
+
+    /**
+     * Liefert einen Stream zurueck, der die Sequenzen des uebergebenen Streams erst beim Durchlaufen auf ihre Zustands-Pfade abbildet.
+     * Ist der uebergebene Stream parallel, wird auch der Viterbi-Algorithmus parallel ausgefuehrt,
+     * ohne alle Sequenzen oder Zustands-Pfade gleichzeitig im Speicher zu halten.
+     *
+     * @param model     {@link RNAProfilHMM} Modell
+     * @param sequences {@link Sequence} Stream
+     * @return Stream mit den Zustands-Pfaden {@link ViterbiPath}
+     */
+    public static Stream<ViterbiPath> viterbiStream(ProfilHMM model, Stream<Sequence> sequences) {
+        return sequences.map(sequence -> Viterbi.viterbi(model, sequence));
+    }
+
+    /**
+     * Liefert einen Stream zurueck, der die Sequenzen des uebergebenen Streams erst beim Durchlaufen in zwei Phasen bewertet.
+     * Zunaechst wird fuer jede Sequenz nur der Score mittels {@link Viterbi#score(ProfilHMM, Sequence)} berechnet
+     * (ohne Rueckverfolgung, Zustands-Pfad null). Nur fuer Sequenzen, die das uebergebene Kriterium erfuellen,
+     * wird anschliessend der Zustands-Pfad mittels {@link Viterbi#viterbi(ProfilHMM, Sequence)} berechnet.
+     * Ist der uebergebene Stream parallel, werden beide Phasen parallel ausgefuehrt.
+     *
+     * @param model     {@link RNAProfilHMM} Modell
+     * @param sequences {@link Sequence} Stream
+     * @param isHit     Kriterium anhand Sequenz und Score (Zustands-Pfad noch nicht vorhanden)
+     * @return Stream mit den Zustands-Pfaden {@link ViterbiPath} (Zustands-Pfad nur fuer Treffer)
+     */
+    public static Stream<ViterbiPath> viterbiStreamGated(ProfilHMM model, Stream<Sequence> sequences, Predicate<ViterbiPath> isHit) {
+        return sequences.map(sequence -> {
+            ViterbiPath scored = new ViterbiPath(sequence, Viterbi.score(model, sequence));
+            return isHit.test(scored) ? Viterbi.viterbi(model, sequence) : scored;
+        });
+    }
+
+    /**
+     * Fuehrt Viterbi-Algorithmus parallelisiert nur fuer unterschiedliche Nukleotid-Sequenzen aus
+     * und liefert die Zustands-Pfade {@link ViterbiPath} fuer alle uebergebenen Sequenzen in deren Reihenfolge zurueck.
+     * <p>
+     * Identische Nukleotid-Sequenzen (gleiche {@link main.fastaparser.EncodedSequence}) werden nur einmal berechnet.
+     * Bereits im uebergebenen Cache vorhandene Ergebnisse werden nicht erneut berechnet, neue Ergebnisse werden dort gespeichert.
+     * Jede doppelte Sequenz erhaelt einen eigenen Zustands-Pfad mit sich selbst als Bezug (Score und Pfad werden geteilt).
+     *
+     * @param model     {@link RNAProfilHMM} Modell
+     * @param sequences {@link Sequence} Sequenzen
+     * @param cache     Cache fuer Zustands-Pfade
+     * @return Liste mit den Zustands-Pfaden {@link ViterbiPath}
+     */
+    public static List<ViterbiPath> viterbiParallelizedDeduplicated(ProfilHMM model, List<Sequence> sequences, ViterbiCache cache) {
         int sequenceCount = sequences.size();
+
+        // find unique sequences and cached results
+        Map<EncodedSequence, Integer> uniqueIndices = new HashMap<>();
+        int[] uniqueIndex = new int[sequenceCount]; // index of unique sequence for each sequence
+        List<ViterbiPath> uniquePaths = new ArrayList<>();
+        List<Integer> computeIndices = new ArrayList<>(); // unique indices to compute
+        List<Sequence> computeSequences = new ArrayList<>();
+        int cachedCount = 0;
+        for (int i = 0; i < sequenceCount; i++) {
+            Sequence sequence = sequences.get(i);
+            Integer index = uniqueIndices.get(sequence.getEncodedSequence());
+            if (index == null) {
+                index = uniquePaths.size();
+                uniqueIndices.put(sequence.getEncodedSequence(), index);
+                ViterbiPath cached = cache.get(model, sequence);
+                uniquePaths.add(cached);
+                if (cached == null) {
+                    computeIndices.add(index);
+                    computeSequences.add(sequence);
+                } else {
+                    cachedCount++;
+                }
+            }
+            uniqueIndex[i] = index;
+        }
+        Log.iLine(sequenceCount + " Test-Sequences, " + uniquePaths.size() + " unique, " + cachedCount + " cached");
+
+        // compute
+        if (!computeSequences.isEmpty()) {
+            List<ViterbiPath> computed = viterbiParallelized(model, computeSequences);
+            for (int k = 0; k < computed.size(); k++) {
+                uniquePaths.set(computeIndices.get(k), computed.get(k));
+                cache.put(model, computed.get(k));
+            }
+        }
+
+        // fan out
+        List<ViterbiPath> ret = new ArrayList<>(sequenceCount);
+        for (int i = 0; i < sequenceCount; i++) {
+            Sequence sequence = sequences.get(i);
+            ViterbiPath path = uniquePaths.get(uniqueIndex[i]);
+            ret.add(path.getSequence() == sequence ? path : new ViterbiPath(sequence, path.getScore(), path.getCompactStatePath()));
+        }
+        return ret;
+    }
+
+    /**
+     * Fuehrt Viterbi-Algorithmus parallelisiert mit gemeinsam genutzten Praefix-Zeilen aus (siehe {@link PrefixViterbi})
+     * und liefert die Zustands-Pfade {@link ViterbiPath} in der Reihenfolge der uebergebenen Sequenzen zurueck.
+     * <p>
+     * Die Sequenzen werden nach ihren Codes sortiert und in so viele zusammenhaengende Bereiche aufgeteilt,
+     * wie logische Kerne der JVM zur verfuegung stehen. Jeder Bereich wird von einem Thread abgearbeitet.
+     *
+     * @param model     {@link RNAProfilHMM} Modell
+     * @param sequences {@link Sequence} Sequenzen
+     * @return Liste mit den Zustands-Pfaden {@link ViterbiPath}
+     */
+    public static List<ViterbiPath> viterbiParallelizedPrefixShared(ProfilHMM model, List<Sequence> sequences) {
+        int sequenceCount = sequences.size();
+        int[][] codes = null;
+        try {
+            codes = PrefixViterbi.toCodes(model, sequences);
+        } catch (IllegalArgumentException e) {
+            Log.eLine("ERROR: Viterbi RNAProfilHMM failed! " + e.getMessage());
+            System.exit(1);
+        }
+        int[] order = PrefixViterbi.sortedOrder(codes);
+
+        int coreCount = Runtime.getRuntime().availableProcessors(); // returns count of logical cores available to JVM
+        Log.dLine("available Cores = " + coreCount);
+
+        // Create and Start Threads
+        int threadCount = Math.max(Math.min(coreCount, sequenceCount), 1);
+        Log.iLine("Creating and starting " + threadCount + " Threads running Prefix-Viterbi-Algo for " + sequenceCount + " Test-Sequences");
+        ViterbiPath[] viterbiPaths = new ViterbiPath[sequenceCount];
+        Queue<Thread> threads = new LinkedList<>();
+        for (int i = 0; i < threadCount; i++) {
+            int from = (int) ((long) sequenceCount * i / threadCount);
+            int to = (int) ((long) sequenceCount * (i + 1) / threadCount);
+            Thread thread = new ThreadPrefixViterbi(model, sequences, codes, order, from, to, viterbiPaths);
+            threads.add(thread);
+            thread.start();
+        }
+
+        // Waiting for threads to finish
+        while (!threads.isEmpty()) {
+            Thread thread = threads.poll();
+            try {
+                thread.join();
+                Log.dLine(thread.getName() + " finished");
+            } catch (InterruptedException e) {
+                Log.eLine("ERROR: " + thread.getName() + " got interrupted");
+            }
+        }
+        // all Threads finished
+
+        return new ArrayList<>(Arrays.asList(viterbiPaths));
+    }
+
+    /**
+     * Liefert die Zustands-Pfade {@link ViterbiPath} der k Sequenzen mit dem hoechsten Bit-Score bzgl. des {@link NullModel}
+     * absteigend sortiert zurueck (bei gleichem Bit-Score die fruehere Sequenz zuerst).
+     * <p>
+     * Es werden so viele Threads erstellt, wie logische Kerne der JVM zur verfuegung stehen.
+     * Jeder Thread haelt nur Score und Sequenz seiner k besten Treffer in einem beschraenkten Heap,
+     * diese werden abschliessend zusammengefuehrt. Nur fuer die verbleibenden k Sequenzen werden die Zustands-Pfade erneut berechnet.
+     * Der Speicherbedarf ist damit unabhaengig von der Anzahl der Sequenzen, sofern diese z.B. mittels
+     * {@link main.fastaparser.FastaParser#stream(String)} erst beim Durchlaufen gelesen werden.
+     *
+     * @param model     {@link RNAProfilHMM} Modell
+     * @param sequences {@link Sequence} Stream
+     * @param k         Anzahl der besten Sequenzen
+     * @return Liste mit den Zustands-Pfaden {@link ViterbiPath} der besten Sequenzen
+     * @throws IllegalArgumentException falls k &lt; 1
+     */
+    public static List<ViterbiPath> viterbiParallelizedTopK(ProfilHMM model, Stream<Sequence> sequences, int k) throws IllegalArgumentException {
+        if (k < 1)
+            throw new IllegalArgumentException("k has to be at least 1");
+
+        NullModel nullModel = NullModel.of(model);
+        Iterator<Sequence> iterator = sequences.sequential().iterator();
+        long[] nextIndex = new long[1];
+
+        int coreCount = Runtime.getRuntime().availableProcessors(); // returns count of logical cores available to JVM
+        Log.dLine("available Cores = " + coreCount);
+
+        // Create and Start Threads
+        Log.iLine("Creating and starting " + coreCount + " Threads scoring Test-Sequences for the best " + k);
+        long millis = System.currentTimeMillis(); // measure calc time
+        Queue<ThreadTopK> threads = new LinkedList<>();
+        for (int i = 0; i < coreCount; i++) {
+            ThreadTopK thread = new ThreadTopK(model, nullModel, iterator, nextIndex, k);
+            threads.add(thread);
+            thread.start();
+        }
+
+        // Waiting for threads to finish and merge their heaps
+        PriorityQueue<ScoredSequence> best = new PriorityQueue<>(k + 1, ScoredSequence.WORST_FIRST);
+        while (!threads.isEmpty()) {
+            ThreadTopK thread = threads.poll();
+            try {
+                thread.join();
+                Log.dLine(thread.getName() + " finished");
+            } catch (InterruptedException e) {
+                Log.eLine("ERROR: " + thread.getName() + " got interrupted");
+            }
+            for (ScoredSequence scored : thread.getBest()) {
+                best.add(scored);
+                if (best.size() > k)
+                    best.poll();
+            }
+        }
+        // all Threads finished
+        millis = System.currentTimeMillis() - millis;
+        Log.iLine(String.format("(%.2fsec) scored %d Test-Sequences, keeping the best %d", (float) millis / 1000, nextIndex[0], best.size()));
+
+        // best first
+        List<Sequence> survivors = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            survivors.add(best.poll().sequence);
+        }
+        Collections.reverse(survivors);
+
+        // recompute state paths of survivors only
+        return viterbiParallelized(model, survivors);
+    }
+
+    /**
+     * Fuehrt Viterbi-Algorithmus parallelisiert fuer die Sequenzen des uebergebenen Iterators aus.
+     *
+     * @param model         {@link RNAProfilHMM} Modell
+     * @param sequences     Iterator der Sequenzen
+     * @param sequenceCount Anzahl der Sequenzen oder -1, falls unbekannt
+     * @return Liste mit den Zustands-Pfaden {@link ViterbiPath}
+     */
+    private static List<ViterbiPath> viterbiParallelized(ProfilHMM model, Iterator<Sequence> sequences, int sequenceCount) {
         int coreCount = Runtime.getRuntime().availableProcessors(); // returns count of logical cores available to JVM
         Log.dLine("available Cores = " + coreCount);
-        // Init sequenceQueue
-        Queue<Sequence> sequenceQueue = new LinkedList<>(sequences); // synchronisation in ThreadViterbi
 
         // Create and Start Threads
-        int threadCount = Math.min(coreCount, sequenceQueue.size());
-        Log.iLine("Creating and starting " + threadCount + " Threads running Viterbi-Algo for " + sequenceCount + " Test-Sequences");
+        int threadCount = sequenceCount < 0 ? coreCount : Math.min(coreCount, sequenceCount);
+        Log.iLine("Creating and starting " + threadCount + " Threads running Viterbi-Algo for "
+                + (sequenceCount < 0 ? "streamed" : String.valueOf(sequenceCount)) + " Test-Sequences");
         Log.iLine("Waiting for async Output...");
-        ViterbiPath[] viterbiPaths = new ViterbiPath[sequenceCount];// list to hold results created in Threads
+        List<ViterbiPath> viterbiPaths = new ArrayList<>(Math.max(sequenceCount, 0)); // list to hold results created in Threads
         Queue<Thread> threads = new LinkedList<>();
         for (int i = 0; i < threadCount; i++) {
-            Thread thread = new ThreadViterbi(model, sequenceQueue, sequenceCount, viterbiPaths);
+            Thread thread = new ThreadViterbi(model, sequences, viterbiPaths);
             threads.add(thread);
             thread.start();
         }
@@ -60,6 +301,6 @@ public class ParallelizationSupporter {
         }
         // all Threads finished
 
-        return Arrays.asList(viterbiPaths);
+        return viterbiPaths;
     }
 }
@@ -0,0 +1,271 @@
+package main.hmm.profil.viterbi.parallel;
+
+import main.fastaparser.Sequence;
+import main.hmm.profil.NullModel;
+import main.hmm.profil.ProfilHMM;
+import main.hmm.profil.RNAProfilHMM;
+import main.hmm.profil.viterbi.Viterbi;
+import main.hmm.profil.viterbi.ViterbiCache;
+import main.hmm.profil.viterbi.ViterbiPath;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test-Klasse fuer {@link ParallelizationSupporter} und {@link ThreadTopK}.
+ *
+ * @author Soeren Metje
+ */
+public class ParallelizationSupporterTest {
+
+    /**
+     * Trainings-Sequenzen (Alignment)
+     */
+    private static final String[] SEQ_TRAIN = {"UACAAUCAAGG", "UA-AAUCAAGG", "U--AAUCAAGG", "U-CAAUCAAGG", "U--AAUCAAGG",
+            "U--AAUCAAGG", "UACAAUCAAGG", "U--AAUCAAGG", "U--AAUCAAGG", "UACAAUCAAGG"};
+
+    /**
+     * Nukleotide der Test-Sequenzen
+     */
+    private static final char[] BASES = {'A', 'C', 'G', 'U'};
+
+    /**
+     * Test von {@link ParallelizationSupporter#viterbiParallelizedTopK(ProfilHMM, Stream, int)}.
+     * Das Ergebnis muss den ersten k Eintraegen der vollstaendig nach Bit-Score sortierten Zustands-Pfade entsprechen
+     * (bei gleichem Bit-Score die fruehere Sequenz zuerst), fuer jedes k bis ueber die Anzahl Sequenzen hinaus.
+     */
+    @Test
+    public void testTopKSameAsFullSort() {
+        ProfilHMM model = createModel();
+        List<Sequence> sequences = createSequences(new Random(0), 200);
+        List<ViterbiPath> expected = sortedPaths(model, sequences);
+
+        for (int k = 1; k <= sequences.size() + 5; k++) {
+            List<ViterbiPath> actual = ParallelizationSupporter.viterbiParallelizedTopK(model, sequences.stream(), k);
+            Assert.assertEquals(Math.min(k, sequences.size()), actual.size());
+            for (int i = 0; i < actual.size(); i++) {
+                Assert.assertSame(expected.get(i).getSequence(), actual.get(i).getSequence());
+                Assert.assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 0d);
+                Assert.assertArrayEquals(expected.get(i).getStatePath(), actual.get(i).getStatePath());
+            }
+        }
+    }
+
+    /**
+     * Test von {@link ThreadTopK} mit mehreren Threads auf demselben Iterator.
+     * Zusammengefuehrt muessen die beschraenkten Heaps dieselben k besten Sequenzen enthalten wie die vollstaendige Sortierung,
+     * auch bei vielen gleichen Scores an der Grenze.
+     */
+    @Test
+    public void testThreadTopKSameAsFullSort() throws InterruptedException {
+        ProfilHMM model = createModel();
+        NullModel nullModel = NullModel.of(model);
+        List<Sequence> sequences = createSequences(new Random(1), 150);
+        List<ViterbiPath> expected = sortedPaths(model, sequences);
+
+        for (int k = 1; k <= sequences.size() + 5; k++) {
+            Iterator<Sequence> iterator = sequences.iterator();
+            long[] nextIndex = new long[1];
+            List<ThreadTopK> threads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                ThreadTopK thread = new ThreadTopK(model, nullModel, iterator, nextIndex, k);
+                threads.add(thread);
+                thread.start();
+            }
+            List<ScoredSequence> merged = new ArrayList<>();
+            for (ThreadTopK thread : threads) {
+                thread.join();
+                Assert.assertTrue(thread.getBest().size() <= k);
+                merged.addAll(thread.getBest());
+            }
+            Assert.assertEquals(sequences.size(), nextIndex[0]);
+            merged.sort(ScoredSequence.WORST_FIRST.reversed());
+
+            for (int i = 0; i < Math.min(k, sequences.size()); i++) {
+                ScoredSequence scored = merged.get(i);
+                Assert.assertSame(expected.get(i).getSequence(), scored.sequence);
+                Assert.assertSame(sequences.get((int) scored.index), scored.sequence);
+            }
+        }
+    }
+
+    /**
+     * Test von {@link ParallelizationSupporter#viterbiParallelizedTopK(ProfilHMM, Stream, int)} mit k &lt; 1
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTopKInvalidK() {
+        ParallelizationSupporter.viterbiParallelizedTopK(createModel(), Stream.empty(), 0);
+    }
+
+    /**
+     * Test von {@link ParallelizationSupporter#viterbiStreamGated(ProfilHMM, Stream, java.util.function.Predicate)}.
+     * Die Scores muessen identisch zum vollstaendigen Viterbi-Algorithmus sein, ein Zustands-Pfad darf nur fuer
+     * Treffer oberhalb des Schwellwerts berechnet werden (sequentiell und parallel).
+     */
+    @Test
+    public void testGatedSameAsViterbi() {
+        ProfilHMM model = createModel();
+        NullModel nullModel = NullModel.of(model);
+        List<Sequence> sequences = createSequences(new Random(2), 300);
+
+        List<ViterbiPath> expected = new ArrayList<>(sequences.size());
+        for (Sequence sequence : sequences) {
+            expected.add(Viterbi.viterbi(model, sequence));
+        }
+        double threshold = nullModel.bitScore(sortedPaths(model, sequences).get(sequences.size() / 3));
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            Stream<Sequence> stream = parallel ? sequences.parallelStream() : sequences.stream();
+            List<ViterbiPath> actual = ParallelizationSupporter.viterbiStreamGated(model, stream,
+                    path -> nullModel.bitScore(path) > threshold).collect(Collectors.toList());
+
+            Assert.assertEquals(expected.size(), actual.size());
+            int hits = 0;
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertSame(sequences.get(i), actual.get(i).getSequence());
+                Assert.assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 0d);
+                boolean hit = nullModel.bitScore(expected.get(i)) > threshold;
+                Assert.assertEquals("sequence " + i, hit, actual.get(i).hasStatePath());
+                if (hit) {
+                    Assert.assertArrayEquals(expected.get(i).getStatePath(), actual.get(i).getStatePath());
+                    hits++;
+                }
+            }
+            Assert.assertTrue(hits > 0 && hits < expected.size());
+        }
+    }
+
+    /**
+     * Test von {@link ParallelizationSupporter#viterbiParallelizedDeduplicated(ProfilHMM, List, ViterbiCache)}.
+     * Die Zustands-Pfade muessen denen des nicht deduplizierten Viterbi-Algorithmus entsprechen (mit jeweils eigener Sequenz als Bezug),
+     * beim zweiten Aufruf muessen alle Ergebnisse aus dem Cache kommen. Ein anderes Modell darf keine Ergebnisse des ersten erhalten.
+     */
+    @Test
+    public void testDeduplicatedSameAsViterbi() {
+        ProfilHMM model = createModel();
+        List<Sequence> sequences = createSequences(new Random(3), 300);
+        List<ViterbiPath> expected = new ArrayList<>(sequences.size());
+        for (Sequence sequence : sequences) {
+            expected.add(Viterbi.viterbi(model, sequence));
+        }
+        long uniqueCount = sequences.stream().map(Sequence::getNucleotideSequence).distinct().count();
+        Assert.assertTrue(uniqueCount < sequences.size());
+
+        ViterbiCache cache = new ViterbiCache(ViterbiCache.DEFAULT_CAPACITY);
+        assertSamePaths(sequences, expected, ParallelizationSupporter.viterbiParallelizedDeduplicated(model, sequences, cache));
+        Assert.assertEquals(uniqueCount, cache.size());
+        Assert.assertEquals(uniqueCount, cache.getMisses());
+        Assert.assertEquals(0, cache.getHits());
+
+        assertSamePaths(sequences, expected, ParallelizationSupporter.viterbiParallelizedDeduplicated(model, sequences, cache));
+        Assert.assertEquals(uniqueCount, cache.getMisses());
+        Assert.assertEquals(uniqueCount, cache.getHits());
+
+        // capacity below the number of unique sequences -> evicted entries are computed again
+        ViterbiCache small = new ViterbiCache(7);
+        for (int i = 0; i < 2; i++) {
+            assertSamePaths(sequences, expected, ParallelizationSupporter.viterbiParallelizedDeduplicated(model, sequences, small));
+            Assert.assertEquals(7, small.size());
+        }
+
+        // other model with the same cache
+        ProfilHMM other = new RNAProfilHMM(createTrainSequences(), 2, 3, .3d);
+        List<ViterbiPath> expectedOther = new ArrayList<>(sequences.size());
+        for (Sequence sequence : sequences) {
+            expectedOther.add(Viterbi.viterbi(other, sequence));
+        }
+        assertSamePaths(sequences, expectedOther, ParallelizationSupporter.viterbiParallelizedDeduplicated(other, sequences, cache));
+        Assert.assertEquals(2 * uniqueCount, cache.getMisses());
+    }
+
+    /**
+     * Prueft, ob die Zustands-Pfade in Score und Pfad uebereinstimmen und die jeweilige Sequenz als Bezug haben
+     *
+     * @param sequences Sequenzen
+     * @param expected  erwartete Zustands-Pfade
+     * @param actual    Zustands-Pfade
+     */
+    private static void assertSamePaths(List<Sequence> sequences, List<ViterbiPath> expected, List<ViterbiPath> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertSame(sequences.get(i), actual.get(i).getSequence());
+            Assert.assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 0d);
+            Assert.assertArrayEquals(expected.get(i).getStatePath(), actual.get(i).getStatePath());
+        }
+    }
+
+    /**
+     * Liefert die Zustands-Pfade der Sequenzen absteigend nach Bit-Score sortiert zurueck
+     * (bei gleichem Bit-Score die fruehere Sequenz zuerst)
+     *
+     * @param model     Modell
+     * @param sequences Sequenzen
+     * @return sortierte Zustands-Pfade
+     */
+    private static List<ViterbiPath> sortedPaths(ProfilHMM model, List<Sequence> sequences) {
+        NullModel nullModel = NullModel.of(model);
+        List<ScoredSequence> scored = new ArrayList<>(sequences.size());
+        List<ViterbiPath> paths = new ArrayList<>(sequences.size());
+        for (int i = 0; i < sequences.size(); i++) {
+            ViterbiPath path = Viterbi.viterbi(model, sequences.get(i));
+            paths.add(path);
+            scored.add(new ScoredSequence(i, sequences.get(i), nullModel.bitScore(path)));
+        }
+        scored.sort(ScoredSequence.WORST_FIRST.reversed());
+        return scored.stream().map(s -> paths.get((int) s.index)).collect(Collectors.toList());
+    }
+
+    /**
+     * Erstellt das Modell aus den Trainings-Sequenzen
+     *
+     * @return Modell
+     */
+    private static ProfilHMM createModel() {
+        return new RNAProfilHMM(createTrainSequences());
+    }
+
+    /**
+     * Erstellt die Trainings-Sequenzen
+     *
+     * @return Trainings-Sequenzen
+     */
+    private static List<Sequence> createTrainSequences() {
+        List<Sequence> sequences = new ArrayList<>(SEQ_TRAIN.length);
+        for (int i = 0; i < SEQ_TRAIN.length; i++) {
+            sequences.add(new Sequence(String.valueOf(i), null, SEQ_TRAIN[i]));
+        }
+        return sequences;
+    }
+
+    /**
+     * Erstellt zufaellige Sequenzen, von denen etwa die Haelfte eine fruehere Nukleotid-Sequenz wiederholt (gleiche Scores)
+     *
+     * @param random Zufallszahlen-Generator
+     * @param count  Anzahl Sequenzen
+     * @return Sequenzen
+     */
+    private static List<Sequence> createSequences(Random random, int count) {
+        List<Sequence> ret = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String nucleotides;
+            if (i > 0 && random.nextBoolean()) {
+                nucleotides = ret.get(random.nextInt(i)).getNucleotideSequence();
+            } else {
+                StringBuilder builder = new StringBuilder();
+                int length = random.nextInt(16);
+                for (int k = 0; k < length; k++) {
+                    builder.append(BASES[random.nextInt(BASES.length)]);
+                }
+                nucleotides = builder.toString();
+            }
+            ret.add(new Sequence("seq" + i, null, nucleotides));
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,52 @@
+package main.hmm.profil.viterbi.parallel;
+
+import main.fastaparser.Sequence;
+
+import java.util.Comparator;
+
+/**
+ * Sequenz mit ihrer Position in der Eingabe und ihrem Bit-Score, ohne Zustands-Pfad.
+ * Wird von {@link ThreadTopK} verwendet, um nur die besten Sequenzen zu behalten.
+ *
+ * @author Soeren Metje
+ */
+class ScoredSequence {
+
+    /**
+     * Ordnung vom schlechtesten zum besten Treffer: niedrigerer Bit-Score zuerst, bei gleichem Bit-Score spaetere Position zuerst
+     */
+    static final Comparator<ScoredSequence> WORST_FIRST = (a, b) -> {
+        int compare = Double.compare(a.bits, b.bits);
+        if (compare != 0)
+            return compare;
+        return Long.compare(b.index, a.index);
+    };
+
+    /**
+     * Position in der Eingabe
+     */
+    final long index;
+
+    /**
+     * Sequenz
+     */
+    final Sequence sequence;
+
+    /**
+     * Bit-Score
+     */
+    final double bits;
+
+    /**
+     * Konstruktor
+     *
+     * @param index    Position in der Eingabe
+     * @param sequence Sequenz
+     * @param bits     Bit-Score
+     */
+    ScoredSequence(long index, Sequence sequence, double bits) {
+        this.index = index;
+        this.sequence = sequence;
+        this.bits = bits;
+    }
+}
@@ -0,0 +1,89 @@
+package main.hmm.profil.viterbi.parallel;
+
+import main.fastaparser.Sequence;
+import main.hmm.profil.ProfilHMM;
+import main.hmm.profil.viterbi.PrefixViterbi;
+import main.hmm.profil.viterbi.ViterbiPath;
+import main.logger.Log;
+
+import java.util.List;
+
+/**
+ * Thread {@link Thread}, der einen zusammenhaengenden Bereich der nach Codes sortierten Sequenzen {@link Sequence}
+ * mittels {@link PrefixViterbi} abarbeitet. Gemeinsame Praefixe werden dabei innerhalb des Bereichs nur einmal berechnet.
+ *
+ * @author Soeren Metje
+ */
+class ThreadPrefixViterbi extends Thread {
+
+    /**
+     * RNAProfilHMM, welches zur Berechnung verwendet wird
+     */
+    private final ProfilHMM model;
+
+    /**
+     * alle Sequenzen
+     */
+    private final List<Sequence> sequences;
+
+    /**
+     * Codes je Sequenz
+     */
+    private final int[][] codes;
+
+    /**
+     * sortierte Indizes der Sequenzen
+     */
+    private final int[] order;
+
+    /**
+     * erste Position in order (inklusive)
+     */
+    private final int from;
+
+    /**
+     * letzte Position in order (exklusive)
+     */
+    private final int to;
+
+    /**
+     * Feld fuer die Ergebnisse (jeder Thread schreibt nur die Positionen seines Bereichs)
+     */
+    private final ViterbiPath[] finishedPaths;
+
+    /**
+     * Konstruktor
+     *
+     * @param model         zu verwendenes RNAProfilHMM
+     * @param sequences     alle Sequenzen
+     * @param codes         Codes je Sequenz
+     * @param order         sortierte Indizes der Sequenzen
+     * @param from          erste Position in order (inklusive)
+     * @param to            letzte Position in order (exklusive)
+     * @param finishedPaths Feld fuer Ergebnisse
+     */
+    public ThreadPrefixViterbi(ProfilHMM model, List<Sequence> sequences, int[][] codes, int[] order, int from, int to,
+                               ViterbiPath[] finishedPaths) {
+        this.model = model;
+        this.sequences = sequences;
+        this.codes = codes;
+        this.order = order;
+        this.from = from;
+        this.to = to;
+        this.finishedPaths = finishedPaths;
+    }
+
+    /**
+     * Berechnet die Zustands-Pfade der Sequenzen des Bereichs
+     */
+    @Override
+    public void run() {
+        Log.dLine(getName() + " started");
+        try {
+            PrefixViterbi.viterbi(model, sequences, codes, order, from, to, finishedPaths);
+        } catch (OutOfMemoryError e) {
+            Log.eLine("ERROR: Out of Memory " + e.getMessage() + ". Start with more Memory. (Argument -Xmx<Size>)");
+            System.exit(1);
+        }
+    }
+}
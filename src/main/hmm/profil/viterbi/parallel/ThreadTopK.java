@@ -0,0 +1,124 @@
+package main.hmm.profil.viterbi.parallel;
+
+import main.fastaparser.Sequence;
+import main.fastaparser.UncheckedFastaParserException;
+import main.hmm.profil.NullModel;
+import main.hmm.profil.ProfilHMM;
+import main.hmm.profil.viterbi.Viterbi;
+import main.hmm.profil.viterbi.ViterbiPath;
+import main.logger.Log;
+
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Thread {@link Thread}, der Sequnzen {@link Sequence} aus uebergebenem Iterator abarbeitet und dabei nur die k besten behaelt.
+ * Fuer jede Sequenz wird mittels {@link Viterbi#score(ProfilHMM, Sequence)} ohne Rueckverfolgung der Bit-Score
+ * bzgl. des {@link NullModel} berechnet. In einem beschraenkten Heap werden nur Score, Position und Sequenz gehalten.
+ *
+ * @author Soeren Metje
+ */
+class ThreadTopK extends Thread {
+
+    /**
+     * Monitor, um die Entnahme der naechsten Sequenz zu synchronisieren
+     */
+    private static final Object indexPollMonitor = new Object();
+
+    /**
+     * Modell, welches zur Berechnung verwendet wird
+     */
+    private final ProfilHMM model;
+
+    /**
+     * Null-Modell des Modells
+     */
+    private final NullModel nullModel;
+
+    /**
+     * Iterator abzuarbeitender Sequenzen (von allen Threads gemeinsam verwendet)
+     */
+    private final Iterator<Sequence> sequences;
+
+    /**
+     * naechste Position in der Eingabe (von allen Threads gemeinsam verwendet, Zugriff synchronisiert ueber indexPollMonitor)
+     */
+    private final long[] nextIndex;
+
+    /**
+     * maximale Anzahl behaltener Sequenzen
+     */
+    private final int k;
+
+    /**
+     * beste Sequenzen dieses Threads, schlechteste zuerst
+     */
+    private final PriorityQueue<ScoredSequence> best;
+
+    /**
+     * Konstruktor
+     *
+     * @param model     zu verwendenes Modell
+     * @param nullModel Null-Modell des Modells
+     * @param sequences Iterator abzuarbeitender Sequenzen
+     * @param nextIndex gemeinsamer Zaehler der naechsten Position (zu Beginn 0)
+     * @param k         maximale Anzahl behaltener Sequenzen
+     */
+    ThreadTopK(ProfilHMM model, NullModel nullModel, Iterator<Sequence> sequences, long[] nextIndex, int k) {
+        this.model = model;
+        this.nullModel = nullModel;
+        this.sequences = sequences;
+        this.nextIndex = nextIndex;
+        this.k = k;
+        this.best = new PriorityQueue<>(k + 1, ScoredSequence.WORST_FIRST);
+    }
+
+    /**
+     * Arbeitet Sequnzen {@link Sequence} aus uebergebenem Iterator ab und behaelt die k besten
+     */
+    @Override
+    public void run() {
+        Log.dLine(getName() + " started");
+        while (true) {
+            Sequence sequence;
+            long index;
+            synchronized (indexPollMonitor) {
+                try {
+                    if (!sequences.hasNext())
+                        break;
+                    sequence = sequences.next();
+                } catch (UncheckedFastaParserException e) {
+                    Log.eLine("ERROR: while parsing sequences: " + e.getMessage());
+                    System.exit(1);
+                    return;
+                }
+                index = nextIndex[0]++;
+            }
+
+            double bits = 0d;
+            try {
+                bits = nullModel.bitScore(new ViterbiPath(sequence, Viterbi.score(model, sequence)));
+            } catch (IllegalArgumentException e) {
+                Log.eLine("ERROR: Viterbi RNAProfilHMM failed! " + e.getMessage());
+                System.exit(1);
+            }
+
+            ScoredSequence scored = new ScoredSequence(index, sequence, bits);
+            if (best.size() < k) {
+                best.add(scored);
+            } else if (ScoredSequence.WORST_FIRST.compare(scored, best.peek()) > 0) {
+                best.poll();
+                best.add(scored);
+            }
+        }
+    }
+
+    /**
+     * Liefert die besten Sequenzen dieses Threads zurueck (erst nach Ende des Threads verwenden)
+     *
+     * @return beste Sequenzen, schlechteste zuerst
+     */
+    PriorityQueue<ScoredSequence> getBest() {
+        return best;
+    }
+}
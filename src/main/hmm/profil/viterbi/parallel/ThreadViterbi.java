@@ -1,18 +1,20 @@
 package main.hmm.profil.viterbi.parallel;
 
 import main.fastaparser.Sequence;
+import main.fastaparser.UncheckedFastaParserException;
 import main.hmm.profil.ProfilHMM;
 import main.hmm.profil.viterbi.Viterbi;
 import main.hmm.profil.viterbi.ViterbiPath;
 import main.logger.Log;
 
-import java.util.Queue;
+import java.util.Iterator;
+import java.util.List;
 
 /**
- * Thread {@link Thread}, der Sequnzen {@link Sequence} aus uebergebener Schlange abarbeitet.
+ * Thread {@link Thread}, der Sequnzen {@link Sequence} aus uebergebenem Iterator abarbeitet.
  * Dabei wird fuer jede Sequenz anhand des uebergebenen Modells mittels des Viterbi-Algorithmus der maximierende Zustands-Pfad berechnet.
  * Der Score und der Zustands-Pfad der Sequenz wird dann mittles der Wrapper-Klasse {@link ViterbiPath}
- * zum uebergebenen Array an entsprechender Position hinzugefuegt.
+ * zur uebergebenen Liste an entsprechender Position hinzugefuegt.
  *
  * @author Soeren Metje
  */
@@ -33,39 +35,33 @@ class ThreadViterbi extends Thread {
     private final ProfilHMM model;
 
     /**
-     * Schlange abzuarbeitender Sequenzen
+     * Iterator abzuarbeitender Sequenzen (von allen Threads gemeinsam verwendet)
      */
-    private final Queue<Sequence> sequenceQueue;
+    private final Iterator<Sequence> sequences;
 
     /**
-     * Initiale Anzahl der Sequnzen in Schlange
+     * Liste zu der Ergebnisse hinzugefuegt werden (Zugriff synchronisiert ueber indexPollMonitor)
      */
-    private final int sequenzeQueueInitSize;
-
-    /**
-     * Threadsichere Liste zu der Ergebnisse hinzugefuegt werden
-     */
-    private final ViterbiPath[] finishedPaths;
+    private final List<ViterbiPath> finishedPaths;
 
     /**
      * Konstruktor
      *
      * @param model         zu verwendenes RNAProfilHMM
-     * @param sequenceQueue abzuarbeitende Sequenzen
-     * @param finishedPaths threadsichere Liste fuer Ergebnisse
+     * @param sequences     Iterator abzuarbeitender Sequenzen
+     * @param finishedPaths Liste fuer Ergebnisse (zu Beginn leer)
      */
-    public ThreadViterbi(ProfilHMM model, Queue<Sequence> sequenceQueue, int sequenzeCount, ViterbiPath[] finishedPaths) {
+    public ThreadViterbi(ProfilHMM model, Iterator<Sequence> sequences, List<ViterbiPath> finishedPaths) {
         this.model = model;
-        this.sequenceQueue = sequenceQueue;
+        this.sequences = sequences;
         this.finishedPaths = finishedPaths;
-        this.sequenzeQueueInitSize = sequenzeCount;
     }
 
     /**
-     * Arbeitet Sequnzen {@link Sequence} aus uebergebener Schlange ab.
+     * Arbeitet Sequnzen {@link Sequence} aus uebergebenem Iterator ab.
      * Dabei wird fuer jede Sequenz anhand des uebergebenen Modells mittels des Viterbi-Algorithmus der maximierende Zustands-Pfad berechnet.
      * Der Score und der Zustands-Pfad der Sequenz wird dann mittles der Wrapper-Klasse {@link ViterbiPath}
-     * zum uebergebenen Array an entsprechender Position hinzugefuegt.
+     * zur uebergebenen Liste an entsprechender Position hinzugefuegt.
      */
     @Override
     public void run() {
@@ -76,10 +72,16 @@ class ThreadViterbi extends Thread {
             Sequence sequence = null;
             int index = 0;
             synchronized (indexPollMonitor) {
-                running = !sequenceQueue.isEmpty();
-                if (running) {
-                    index = sequenzeQueueInitSize - sequenceQueue.size();
-                    sequence = sequenceQueue.poll();
+                try {
+                    running = sequences.hasNext();
+                    if (running) {
+                        sequence = sequences.next();
+                        index = finishedPaths.size();
+                        finishedPaths.add(null); // reserve position
+                    }
+                } catch (UncheckedFastaParserException e) {
+                    Log.eLine("ERROR: while parsing sequences: " + e.getMessage());
+                    System.exit(1);
                 }
             }
 
@@ -106,7 +108,9 @@ class ThreadViterbi extends Thread {
                     Log.iLine();
                 }
 
-                finishedPaths[index] = viterbiPath;
+                synchronized (indexPollMonitor) {
+                    finishedPaths.set(index, viterbiPath);
+                }
             }
         }
     }
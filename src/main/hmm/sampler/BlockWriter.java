@@ -0,0 +1,171 @@
+package main.hmm.sampler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Schreibt von {@link ThreadSampler} erzeugte Bloecke in der Reihenfolge ihrer Nummern,
+ * bis die Zielgroesse erreicht ist. Die Ausgabe ist damit unabhaengig von der Anzahl der Threads.
+ * Threads, die zu weit vorauseilen, warten, sodass nur begrenzt viele Bloecke gleichzeitig im Speicher liegen.
+ *
+ * @author Soeren Metje
+ */
+class BlockWriter {
+
+    /**
+     * Ausgabe
+     */
+    private final OutputStream out;
+
+    /**
+     * Zielgroesse in Bytes
+     */
+    private final long targetBytes;
+
+    /**
+     * maximale Anzahl erzeugter, noch nicht geschriebener Bloecke
+     */
+    private final int maxPending;
+
+    /**
+     * erzeugte, noch nicht geschriebene Bloecke
+     */
+    private final Map<Long, byte[]> ready = new HashMap<>();
+
+    /**
+     * Nummer des naechsten zu vergebenden Blocks
+     */
+    private long nextToClaim = 0;
+
+    /**
+     * Nummer des naechsten zu schreibenden Blocks
+     */
+    private long nextToWrite = 0;
+
+    /**
+     * geschriebene Bytes
+     */
+    private long written = 0;
+
+    /**
+     * true, falls die Zielgroesse erreicht oder ein Fehler aufgetreten ist
+     */
+    private boolean done = false;
+
+    /**
+     * aufgetretener Fehler oder null
+     */
+    private IOException failure;
+
+    /**
+     * beim Erzeugen eines Blocks aufgetretener Fehler oder null
+     */
+    private Throwable samplingFailure;
+
+    /**
+     * Konstruktor
+     *
+     * @param out         Ausgabe
+     * @param targetBytes Zielgroesse in Bytes
+     * @param maxPending  maximale Anzahl erzeugter, noch nicht geschriebener Bloecke
+     */
+    BlockWriter(OutputStream out, long targetBytes, int maxPending) {
+        this.out = out;
+        this.targetBytes = targetBytes;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Vergibt die Nummer des naechsten zu erzeugenden Blocks
+     *
+     * @return Nummer oder -1, falls keine Bloecke mehr benoetigt werden
+     */
+    synchronized long claim() {
+        return done ? -1 : nextToClaim++;
+    }
+
+    /**
+     * Uebergibt einen erzeugten Block. Wartet, solange der Block zu weit vor dem naechsten zu schreibenden liegt.
+     * Alle direkt folgenden Bloecke werden geschrieben.
+     *
+     * @param index Nummer des Blocks
+     * @param data  Inhalt des Blocks
+     * @throws InterruptedException falls der Thread beim Warten unterbrochen wird
+     */
+    synchronized void put(final long index, final byte[] data) throws InterruptedException {
+        while (!done && index >= nextToWrite + maxPending) {
+            wait();
+        }
+        if (done)
+            return;
+
+        ready.put(index, data);
+        byte[] next;
+        while (!done && (next = ready.remove(nextToWrite)) != null) {
+            try {
+                out.write(next);
+            } catch (IOException e) {
+                failure = e;
+                done = true;
+                break;
+            }
+            written += next.length;
+            nextToWrite++;
+            if (written >= targetBytes)
+                done = true;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Meldet einen beim Erzeugen eines Blocks aufgetretenen Fehler. Da dieser Block nie uebergeben wird,
+     * werden alle wartenden Threads geweckt und keine weiteren Bloecke vergeben oder geschrieben.
+     * Nur der erste gemeldete Fehler wird gehalten.
+     *
+     * @param e Fehler
+     */
+    synchronized void fail(final Throwable e) {
+        if (samplingFailure == null)
+            samplingFailure = e;
+        done = true;
+        notifyAll();
+    }
+
+    /**
+     * Liefert geschriebene Bytes zurueck
+     *
+     * @return geschriebene Bytes
+     */
+    synchronized long getWritten() {
+        return written;
+    }
+
+    /**
+     * Liefert Anzahl geschriebener Bloecke zurueck
+     *
+     * @return Anzahl geschriebener Bloecke
+     */
+    synchronized long getBlocksWritten() {
+        return nextToWrite;
+    }
+
+    /**
+     * Liefert aufgetretenen Fehler zurueck
+     *
+     * @return Fehler oder null
+     */
+    synchronized IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Liefert beim Erzeugen eines Blocks aufgetretenen Fehler zurueck
+     *
+     * @return Fehler oder null
+     */
+    synchronized Throwable getSamplingFailure() {
+        return samplingFailure;
+    }
+}
@@ -0,0 +1,119 @@
+package main.hmm.sampler;
+
+import main.logger.Log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Erzeugt synthetische Daten mittels {@link Sampler} parallelisiert, bis eine Zielgroesse erreicht ist.
+ * <p>
+ * Die Eintraege werden in Bloecken zu {@link #RECORDS_PER_BLOCK} erzeugt. Jeder Block hat einen eigenen,
+ * aus Startwert und Blocknummer abgeleiteten Zufallszahlen-Generator, und die Bloecke werden in Reihenfolge geschrieben.
+ * Gleicher Startwert liefert daher unabhaengig von der Anzahl der Threads dieselbe Ausgabe.
+ * Geschrieben wird bis einschliesslich des Blocks, mit dem die Zielgroesse erreicht wird.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class Generator {
+
+    /**
+     * Anzahl Eintraege je Block
+     */
+    public static final int RECORDS_PER_BLOCK = 256;
+
+    /**
+     * maximale Anzahl erzeugter, noch nicht geschriebener Bloecke je Thread
+     */
+    private static final int PENDING_BLOCKS_PER_THREAD = 2;
+
+    /**
+     * Erzeugt Eintraege mit so vielen Threads, wie logische Kerne der JVM zur Verfuegung stehen
+     *
+     * @param sampler     Sampler
+     * @param out         Ausgabe
+     * @param targetBytes Zielgroesse in Bytes
+     * @param seed        Startwert
+     * @return geschriebene Bytes
+     * @throws IOException              falls beim Schreiben ein Fehler auftritt
+     * @throws IllegalArgumentException falls targetBytes &lt; 1 oder beim Erzeugen eines Eintrags ein Fehler auftritt
+     */
+    public static long generate(final Sampler sampler, final OutputStream out, final long targetBytes, final long seed)
+            throws IOException, IllegalArgumentException {
+        int threadCount = Runtime.getRuntime().availableProcessors(); // returns count of logical cores available to JVM
+        return generate(sampler, out, targetBytes, seed, threadCount);
+    }
+
+    /**
+     * Erzeugt Eintraege mit uebergebener Anzahl Threads. Die Ausgabe haengt nicht von der Anzahl Threads ab.
+     *
+     * @param sampler     Sampler
+     * @param out         Ausgabe
+     * @param targetBytes Zielgroesse in Bytes
+     * @param seed        Startwert
+     * @param threadCount Anzahl Threads
+     * @return geschriebene Bytes
+     * @throws IOException              falls beim Schreiben ein Fehler auftritt
+     * @throws IllegalArgumentException falls targetBytes bzw. threadCount &lt; 1 oder beim Erzeugen eines Eintrags ein Fehler auftritt
+     */
+    public static long generate(final Sampler sampler, final OutputStream out, final long targetBytes, final long seed, final int threadCount)
+            throws IOException, IllegalArgumentException {
+        if (targetBytes < 1)
+            throw new IllegalArgumentException("targetBytes has to be at least 1");
+        if (threadCount < 1)
+            throw new IllegalArgumentException("threadCount has to be at least 1");
+
+        BlockWriter writer = new BlockWriter(out, targetBytes, threadCount * PENDING_BLOCKS_PER_THREAD);
+
+        long millis = System.currentTimeMillis(); // measure calc time
+        List<Thread> threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new ThreadSampler(sampler, writer, seed);
+            threads.add(thread);
+            thread.start();
+        }
+
+        // Waiting for threads to finish
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+                Log.dLine(thread.getName() + " finished");
+            } catch (InterruptedException e) {
+                Log.eLine("ERROR: " + thread.getName() + " got interrupted");
+            }
+        }
+        Throwable samplingFailure = writer.getSamplingFailure();
+        if (samplingFailure instanceof Error)
+            throw (Error) samplingFailure;
+        if (samplingFailure instanceof IllegalArgumentException)
+            throw (IllegalArgumentException) samplingFailure;
+        if (samplingFailure != null)
+            throw new IllegalArgumentException("sampling failed: " + samplingFailure.getMessage(), samplingFailure);
+        if (writer.getFailure() != null)
+            throw writer.getFailure();
+        millis = System.currentTimeMillis() - millis;
+
+        float time = (float) millis / 1000; // in sec
+        long written = writer.getWritten();
+        Log.iLine(String.format("(%.2fsec) generated %d records with %d bytes (%.1f MB/sec)", time,
+                writer.getBlocksWritten() * RECORDS_PER_BLOCK, written, written / 1048576d / Math.max(time, 1e-3f)));
+        return written;
+    }
+
+    /**
+     * Leitet den Startwert eines Blocks aus Startwert und Blocknummer ab (SplitMix64)
+     *
+     * @param seed       Startwert
+     * @param blockIndex Nummer des Blocks
+     * @return Startwert des Blocks
+     */
+    public static long blockSeed(final long seed, final long blockIndex) {
+        long z = seed + (blockIndex + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,167 @@
+package main.hmm.sampler;
+
+import main.argparser.ArgumentParser;
+import main.argparser.ArgumentParserException;
+import main.argparser.ParameterSet;
+import main.argparser.Setting;
+import main.hmm.casino.CasinoHMM;
+import main.hmm.profil.ProfilHMMFile;
+import main.hmm.profil.RNAProfilHMM;
+import main.hmm.profil.RNAProfilHMMMain;
+import main.logger.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Ausfuehrbare Klasse, die synthetische Daten erzeugt (-type casino|profil, -out &lt;Path&gt;, -size &lt;Groesse&gt;).
+ * <p>
+ * Die Groesse wird in Bytes angegeben, optional mit Suffix K, M, G oder T (Basis 1024). Mit -seed &lt;Wert&gt;
+ * wird der Startwert gesetzt (Standard 0), gleicher Startwert liefert dieselbe Ausgabe.
+ * </p>
+ * <p>
+ * casino: Eintraege im Wurf-Format anhand von {@link CasinoHMM} (Laenge -minlength bis -maxlength).
+ * profil: FASTA-Eintraege anhand eines {@link RNAProfilHMM}, das anhand von Trainings-Sequenzen (-filetrain &lt;Path&gt;)
+ * erstellt oder mittels {@link ProfilHMMFile} geladen wird (-modelin &lt;Path&gt;). Der Anteil der Koeder wird mit
+ * -decoys &lt;Anteil&gt; gesetzt.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class GeneratorMain {
+
+    /**
+     * Standardwert fuer die minimale Laenge eines Wurf-Eintrags
+     */
+    private static final int DEFAULT_MIN_LENGTH = 100;
+
+    /**
+     * Standardwert fuer die maximale Laenge eines Wurf-Eintrags
+     */
+    private static final int DEFAULT_MAX_LENGTH = 1000;
+
+    /**
+     * Standardwert fuer den Anteil der Koeder
+     */
+    private static final double DEFAULT_DECOY_FRACTION = .5d;
+
+    /**
+     * ausfuehrbare Methode
+     *
+     * @param args Argumente
+     */
+    public static void main(String[] args) {
+
+        // set up Parameter
+        ParameterSet parameterSet = new ParameterSet();
+        Setting paramType = new Setting("type", true);
+        Setting paramOut = new Setting("out", true);
+        Setting paramSize = new Setting("size", true);
+        Setting paramSeed = new Setting("seed", false);
+        Setting paramMinLength = new Setting("minlength", false);
+        Setting paramMaxLength = new Setting("maxlength", false);
+        Setting paramDecoys = new Setting("decoys", false);
+        Setting paramFileTrain = new Setting("filetrain", false);
+        Setting paramModelIn = new Setting("modelin", false);
+        parameterSet.addSetting(paramType);
+        parameterSet.addSetting(paramOut);
+        parameterSet.addSetting(paramSize);
+        parameterSet.addSetting(paramSeed);
+        parameterSet.addSetting(paramMinLength);
+        parameterSet.addSetting(paramMaxLength);
+        parameterSet.addSetting(paramDecoys);
+        parameterSet.addSetting(paramFileTrain);
+        parameterSet.addSetting(paramModelIn);
+
+        try {
+            ArgumentParser parser = new ArgumentParser(parameterSet);
+            parser.parseArgs(args);
+        } catch (ArgumentParserException e) { // if parameter is missing or not intended
+            Log.eLine(e.getMessage());
+            System.exit(1);
+        }
+
+        Sampler sampler = null;
+        long targetBytes = 0, seed = 0;
+        try {
+            targetBytes = parseSize(paramSize.getValue());
+            if (paramSeed.isSet())
+                seed = Long.parseLong(paramSeed.getValue());
+
+            if (paramType.getValue().equals("casino")) {
+                int minLength = paramMinLength.isSet() ? Integer.parseInt(paramMinLength.getValue()) : DEFAULT_MIN_LENGTH;
+                int maxLength = paramMaxLength.isSet() ? Integer.parseInt(paramMaxLength.getValue()) : Math.max(DEFAULT_MAX_LENGTH, minLength);
+                sampler = new HMMSampler(new CasinoHMM(), minLength, maxLength);
+            } else if (paramType.getValue().equals("profil")) {
+                double decoys = paramDecoys.isSet() ? Double.parseDouble(paramDecoys.getValue()) : DEFAULT_DECOY_FRACTION;
+                sampler = new ProfilHMMSampler(loadModel(paramFileTrain, paramModelIn), decoys);
+            } else {
+                Log.eLine("ERROR: unknown type " + paramType.getValue() + " (casino or profil)");
+                System.exit(1);
+            }
+        } catch (NumberFormatException e) {
+            Log.eLine("ERROR: invalid number " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            Log.eLine("ERROR: " + e.getMessage());
+            System.exit(1);
+        }
+
+        Log.iLine("generating " + paramOut.getValue());
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(paramOut.getValue()), 1 << 20)) {
+            Generator.generate(sampler, out, targetBytes, seed);
+        } catch (IOException e) {
+            Log.eLine("ERROR: while writing file " + paramOut.getValue() + ": " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            Log.eLine("ERROR: Generating records failed! " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Erstellt oder laedt das Profil-Modell
+     *
+     * @param paramFileTrain Parameter fuer Trainings-Sequenzen
+     * @param paramModelIn   Parameter fuer gespeichertes Modell
+     * @return Modell
+     */
+    private static RNAProfilHMM loadModel(final Setting paramFileTrain, final Setting paramModelIn) {
+        if (paramFileTrain.isSet() == paramModelIn.isSet()) {
+            Log.eLine("ERROR: either parameter filetrain or modelin has to be set");
+            System.exit(1);
+        }
+
+        if (paramModelIn.isSet()) {
+            try {
+                return ProfilHMMFile.read(paramModelIn.getValue());
+            } catch (IOException e) {
+                Log.eLine("ERROR: while loading model " + paramModelIn.getValue() + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        return new RNAProfilHMM(RNAProfilHMMMain.readFile(paramFileTrain.getValue()));
+    }
+
+    /**
+     * Wandelt Groessenangabe in Bytes um (optional mit Suffix K, M, G oder T, Basis 1024)
+     *
+     * @param size Groessenangabe
+     * @return Bytes
+     * @throws NumberFormatException falls die Angabe keine Zahl ist
+     */
+    static long parseSize(final String size) throws NumberFormatException {
+        String value = size.trim().toUpperCase();
+        long factor = 1;
+        if (!value.isEmpty()) {
+            int shift = "KMGT".indexOf(value.charAt(value.length() - 1));
+            if (shift >= 0) {
+                factor = 1L << (10 * (shift + 1));
+                value = value.substring(0, value.length() - 1);
+            }
+        }
+        return Long.parseLong(value) * factor;
+    }
+}
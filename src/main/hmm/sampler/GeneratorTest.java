@@ -0,0 +1,116 @@
+package main.hmm.sampler;
+
+import main.fastaparser.Sequence;
+import main.hmm.casino.CasinoHMM;
+import main.hmm.profil.RNAProfilHMM;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test-Klasse fuer {@link Generator}.
+ *
+ * @author Soeren Metje
+ */
+public class GeneratorTest {
+
+    /**
+     * Trainings-Sequenzen (Alignment)
+     */
+    private static final String[] SEQ_TRAIN = {"UACAAUCAAGG", "UA-AAUCAAGG", "U--AAUCAAGG", "U-CAAUCAAGG", "U--AAUCAAGG",
+            "U--AAUCAAGG", "UACAAUCAAGG", "U--AAUCAAGG", "U--AAUCAAGG", "UACAAUCAAGG"};
+
+    /**
+     * Zielgroesse in Bytes
+     */
+    private static final long TARGET_BYTES = 200000;
+
+    /**
+     * Test von {@link Generator#generate(Sampler, java.io.OutputStream, long, long, int)}.
+     * Gleicher Startwert muss unabhaengig von der Anzahl der Threads dieselbe Ausgabe liefern.
+     */
+    @Test
+    public void testSameOutputForAnyThreadCount() throws IOException {
+        List<Sequence> sequences = new ArrayList<>();
+        for (int i = 0; i < SEQ_TRAIN.length; i++) {
+            sequences.add(new Sequence(String.valueOf(i), null, SEQ_TRAIN[i]));
+        }
+        Sampler[] samplers = {new HMMSampler(new CasinoHMM(), 10, 300), new ProfilHMMSampler(new RNAProfilHMM(sequences), 0.3)};
+
+        for (Sampler sampler : samplers) {
+            byte[] expected = generate(sampler, 42L, 1);
+            Assert.assertTrue(expected.length >= TARGET_BYTES);
+            for (int threadCount : new int[]{2, 3, 8}) {
+                Assert.assertArrayEquals("threads " + threadCount, expected, generate(sampler, 42L, threadCount));
+            }
+            Assert.assertFalse(Arrays.equals(expected, generate(sampler, 43L, 2)));
+        }
+    }
+
+    /**
+     * Test von {@link Generator#generate(Sampler, java.io.OutputStream, long, long, int)} mit Eintraegen fester Groesse.
+     * Geschrieben wird bis einschliesslich des Blocks, mit dem die Zielgroesse erreicht wird, in Reihenfolge der Eintraege.
+     */
+    @Test
+    public void testStopsAfterTargetBlock() throws IOException {
+        int recordBytes = 16;
+        Sampler fixed = (random, recordIndex, out) -> out.append(String.format("%015d", recordIndex)).append('\n');
+        long blockBytes = (long) recordBytes * Generator.RECORDS_PER_BLOCK;
+
+        for (int threadCount : new int[]{1, 4}) {
+            for (long target : new long[]{1, blockBytes - 1, blockBytes, blockBytes + 1, 10 * blockBytes + 5}) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                long written = Generator.generate(fixed, out, target, 0L, threadCount);
+                Assert.assertEquals((target + blockBytes - 1) / blockBytes * blockBytes, written);
+
+                String[] lines = new String(out.toByteArray(), StandardCharsets.ISO_8859_1).split("\n");
+                for (int r = 0; r < lines.length; r++) {
+                    Assert.assertEquals(r, Long.parseLong(lines[r]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test von {@link Generator#generate(Sampler, java.io.OutputStream, long, long, int)} mit fehlschlagendem Sampler.
+     * Der Fehler muss geworfen werden, ohne dass die Threads haengen bleiben.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSamplingFailure() throws IOException {
+        Sampler failing = (random, recordIndex, out) -> {
+            if (recordIndex == 3 * Generator.RECORDS_PER_BLOCK + 7)
+                throw new IllegalArgumentException("record " + recordIndex);
+            out.append(">r").append(recordIndex).append('\n').append(random.nextInt(1000)).append('\n');
+        };
+        Generator.generate(failing, new ByteArrayOutputStream(), Long.MAX_VALUE, 1L, 4);
+    }
+
+    /**
+     * Test von {@link Generator#generate(Sampler, java.io.OutputStream, long, long, int)} mit ungueltiger Anzahl Threads
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreadCount() throws IOException {
+        Generator.generate(new HMMSampler(new CasinoHMM(), 1, 1), new ByteArrayOutputStream(), 1, 1L, 0);
+    }
+
+    /**
+     * Erzeugt Eintraege bis zur Zielgroesse
+     *
+     * @param sampler     Sampler
+     * @param seed        Startwert
+     * @param threadCount Anzahl Threads
+     * @return Ausgabe
+     */
+    private static byte[] generate(Sampler sampler, long seed, int threadCount) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = Generator.generate(sampler, out, TARGET_BYTES, seed, threadCount);
+        Assert.assertEquals(out.size(), written);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,93 @@
+package main.hmm.sampler;
+
+import main.hmm.casino.HMM;
+
+import java.util.SplittableRandom;
+
+/**
+ * Erzeugt Eintraege im Wurf-Format anhand eines {@link HMM} (z.B. {@link main.hmm.casino.CasinoHMM}).
+ * Jeder Eintrag besteht aus einer Zeile mit Beobachtungen und einer Zeile mit den tatsaechlichen Zustaenden
+ * (lesbar mittels {@link main.hmm.casino.StreamViterbi}).
+ *
+ * @author Soeren Metje
+ */
+public class HMMSampler implements Sampler {
+
+    /**
+     * Beobachtungen
+     */
+    private final char[] symbols;
+
+    /**
+     * Zustaende
+     */
+    private final char[] states;
+
+    /**
+     * kumulierte Startwahrscheinlichkeiten
+     */
+    private final double[] init;
+
+    /**
+     * kumulierte Uebergangswahrscheinlichkeiten je Zustand
+     */
+    private final double[][] transition;
+
+    /**
+     * kumulierte Beobachtungswahrscheinlichkeiten je Zustand
+     */
+    private final double[][] emission;
+
+    /**
+     * minimale Laenge eines Eintrags
+     */
+    private final int minLength;
+
+    /**
+     * maximale Laenge eines Eintrags
+     */
+    private final int maxLength;
+
+    /**
+     * Konstruktor
+     *
+     * @param model     Modell
+     * @param minLength minimale Laenge eines Eintrags
+     * @param maxLength maximale Laenge eines Eintrags
+     * @throws IllegalArgumentException falls minLength &lt; 1 oder maxLength &lt; minLength
+     */
+    public HMMSampler(HMM model, int minLength, int maxLength) throws IllegalArgumentException {
+        if (minLength < 1 || maxLength < minLength)
+            throw new IllegalArgumentException("invalid length range " + minLength + ".." + maxLength);
+
+        this.symbols = model.getObservationSpace().getSymbols();
+        this.states = model.getStateChar();
+        this.init = Sampler.cumulative(model.getInitProbabilities());
+        double[][] transitionMatrix = model.getTransitionMatrix();
+        double[][] emissionMatrix = model.getEmissionMatrix();
+        this.transition = new double[states.length][];
+        this.emission = new double[states.length][];
+        for (int s = 0; s < states.length; s++) {
+            transition[s] = Sampler.cumulative(transitionMatrix[s]);
+            emission[s] = Sampler.cumulative(emissionMatrix[s]);
+        }
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public void sample(final SplittableRandom random, final long recordIndex, final StringBuilder out) {
+        int length = minLength == maxLength ? minLength : minLength + random.nextInt(maxLength - minLength + 1);
+        char[] rolls = new char[length];
+        char[] path = new char[length];
+
+        int state = Sampler.pick(init, random.nextDouble());
+        for (int i = 0; i < length; i++) {
+            if (i > 0)
+                state = Sampler.pick(transition[state], random.nextDouble());
+            path[i] = states[state];
+            rolls[i] = symbols[Sampler.pick(emission[state], random.nextDouble())];
+        }
+        out.append(rolls).append('\n').append(path).append('\n');
+    }
+}
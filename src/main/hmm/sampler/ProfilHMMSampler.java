@@ -0,0 +1,194 @@
+package main.hmm.sampler;
+
+import main.hmm.profil.ProfilHMM;
+
+import java.util.SplittableRandom;
+
+/**
+ * Erzeugt Eintraege im FASTA-Format anhand eines {@link ProfilHMM}.
+ * <p>
+ * Der Zustands-Pfad beginnt im Start-Zustand (Match-Zustand an Position 0) und endet mit dem Uebergang in den End-Zustand
+ * an der letzten Position im Modell. Match- und Insert-Zustaende emittieren je ein Nukleotid.
+ * Der tatsaechliche Zustands-Pfad (ohne Start- und End-Zustand) wird als Kommentar-Zeile ausgegeben.
+ * Ein einstellbarer Anteil der Eintraege sind Koeder (decoys), deren Nukleotide unabhaengig anhand
+ * der mittleren Insert-Emissionen (Hintergrund) gezogen werden. Deren Laenge entspricht der eines Modell-Eintrags.
+ * </p>
+ *
+ * @author Soeren Metje
+ */
+public class ProfilHMMSampler implements Sampler {
+
+    /**
+     * maximale Anzahl Zustaende eines Pfads je Position im Modell, bevor neu gezogen wird
+     */
+    private static final int MAX_STEPS_PER_POSITION = 20;
+
+    /**
+     * Nukleotide
+     */
+    private final char[] bases;
+
+    /**
+     * Anzahl Positionen im Modell
+     */
+    private final int lengthModel;
+
+    /**
+     * kumulierte Uebergangswahrscheinlichkeiten [Zustand][Position im Modell][Ziel-Zustand]
+     */
+    private final double[][][] transition;
+
+    /**
+     * kumulierte Emissionswahrscheinlichkeiten der Match-Zustaende [Position im Modell]
+     */
+    private final double[][] emissionMatch;
+
+    /**
+     * kumulierte Emissionswahrscheinlichkeiten der Insert-Zustaende [Position im Modell]
+     */
+    private final double[][] emissionInsert;
+
+    /**
+     * kumulierte Hintergrund-Wahrscheinlichkeiten fuer Koeder
+     */
+    private final double[] background;
+
+    /**
+     * Anteil der Koeder in [0, 1]
+     */
+    private final double decoyFraction;
+
+    /**
+     * Konstruktor
+     *
+     * @param model         Modell
+     * @param decoyFraction Anteil der Koeder in [0, 1]
+     * @throws IllegalArgumentException falls decoyFraction nicht in [0, 1] liegt
+     */
+    public ProfilHMMSampler(ProfilHMM model, double decoyFraction) throws IllegalArgumentException {
+        if (!(decoyFraction >= 0d && decoyFraction <= 1d))
+            throw new IllegalArgumentException("decoyFraction has to be in [0, 1]");
+
+        this.bases = model.getBases();
+        this.lengthModel = model.getLengthModel();
+        this.decoyFraction = decoyFraction;
+
+        double[][] emissionProbMatch = model.getEmissionProbMatch();
+        double[][] emissionProbInsert = model.getEmissionProbInsert();
+        double[][][] transitionProb = model.getTransitionProb();
+
+        emissionMatch = new double[lengthModel][];
+        emissionInsert = new double[lengthModel][];
+        double[] backgroundSum = new double[bases.length];
+        for (int j = 0; j < lengthModel; j++) {
+            if (j > 0) // start-state does not emit
+                emissionMatch[j] = Sampler.cumulative(exp(emissionProbMatch[j]));
+            double[] insert = exp(emissionProbInsert[j]);
+            emissionInsert[j] = Sampler.cumulative(insert);
+            for (int k = 0; k < bases.length; k++) {
+                backgroundSum[k] += insert[k];
+            }
+        }
+        background = Sampler.cumulative(backgroundSum);
+
+        transition = new double[ProfilHMM.STATE_COUNT][lengthModel][];
+        for (int s = 0; s < ProfilHMM.STATE_COUNT; s++) {
+            for (int j = 0; j < lengthModel; j++) {
+                double[] probabilities = new double[ProfilHMM.STATE_COUNT];
+                for (int to = 0; to < ProfilHMM.STATE_COUNT; to++) {
+                    boolean last = j == lengthModel - 1;
+                    if (to == ProfilHMM.STATE_DELETE_INDEX && last)
+                        continue; // no position left to delete
+                    probabilities[to] = Math.exp(transitionProb[s][to][j]);
+                }
+                double sum = 0d;
+                for (double probability : probabilities) {
+                    sum += probability;
+                }
+                if (sum <= 0d)
+                    probabilities[ProfilHMM.STATE_MATCH_INDEX] = 1d; // unreachable state -> move on
+                transition[s][j] = Sampler.cumulative(probabilities);
+            }
+        }
+    }
+
+    @Override
+    public void sample(final SplittableRandom random, final long recordIndex, final StringBuilder out) {
+        StringBuilder residues = new StringBuilder();
+        StringBuilder path = new StringBuilder();
+        samplePath(random, residues, path);
+
+        if (random.nextDouble() < decoyFraction) {
+            int length = residues.length();
+            residues.setLength(0);
+            residues.append(sampleBackground(random, length));
+            out.append(">synthetic_").append(recordIndex).append(" decoy\n");
+        } else {
+            out.append(">synthetic_").append(recordIndex).append(" model\n");
+            out.append(';').append(path).append('\n');
+        }
+        out.append(residues).append('\n');
+    }
+
+    /**
+     * Zieht eine Hintergrund-Sequenz (wie die der Koeder) der uebergebenen Laenge.
+     * Die Nukleotide werden unabhaengig anhand der mittleren Insert-Emissionen gezogen,
+     * also nach den Wahrscheinlichkeiten von {@link main.hmm.profil.NullModel#of(ProfilHMM)}.
+     *
+     * @param random Zufallszahlen-Generator
+     * @param length Laenge
+     * @return Nukleotide
+     */
+    public char[] sampleBackground(final SplittableRandom random, final int length) {
+        char[] ret = new char[length];
+        for (int i = 0; i < length; i++) {
+            ret[i] = bases[Sampler.pick(background, random.nextDouble())];
+        }
+        return ret;
+    }
+
+    /**
+     * Zieht einen Zustands-Pfad mit Nukleotiden. Wird der Pfad zu lang (Insert-Schleifen), wird neu gezogen.
+     *
+     * @param random   Zufallszahlen-Generator
+     * @param residues Ausgabe der Nukleotide
+     * @param path     Ausgabe des Zustands-Pfads
+     */
+    private void samplePath(final SplittableRandom random, final StringBuilder residues, final StringBuilder path) {
+        int maxSteps = MAX_STEPS_PER_POSITION * lengthModel;
+        while (true) {
+            residues.setLength(0);
+            path.setLength(0);
+
+            int state = ProfilHMM.STATE_MATCH_INDEX, j = 0; // start
+            while (path.length() <= maxSteps) {
+                int next = Sampler.pick(transition[state][j], random.nextDouble());
+                if (next == ProfilHMM.STATE_MATCH_INDEX && j == lengthModel - 1)
+                    return; // end
+
+                if (next != ProfilHMM.STATE_INSERT_INDEX)
+                    j++;
+                state = next;
+                path.append(ProfilHMM.STATES[state]);
+                if (state == ProfilHMM.STATE_MATCH_INDEX)
+                    residues.append(bases[Sampler.pick(emissionMatch[j], random.nextDouble())]);
+                else if (state == ProfilHMM.STATE_INSERT_INDEX)
+                    residues.append(bases[Sampler.pick(emissionInsert[j], random.nextDouble())]);
+            }
+        }
+    }
+
+    /**
+     * Liefert die nicht logarithmierten Werte des uebergebenen Vektors zurueck
+     *
+     * @param vector logarithmierter Vektor
+     * @return neuer Vektor
+     */
+    private static double[] exp(final double[] vector) {
+        double[] ret = new double[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            ret[i] = Math.exp(vector[i]);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,60 @@
+package main.hmm.sampler;
+
+import java.util.SplittableRandom;
+
+/**
+ * Erzeugt einzelne Eintraege synthetischer Daten anhand eines Modells fuer {@link Generator}.
+ * Implementationen muessen threadsicher sein, d.h. nach der Erstellung keinen veraenderlichen Zustand haben.
+ *
+ * @author Soeren Metje
+ */
+public interface Sampler {
+
+    /**
+     * Erzeugt einen Eintrag und haengt ihn im Ausgabeformat an
+     *
+     * @param random      Zufallszahlen-Generator des Eintrags
+     * @param recordIndex fortlaufende Nummer des Eintrags
+     * @param out         Ausgabe
+     */
+    void sample(SplittableRandom random, long recordIndex, StringBuilder out);
+
+    /**
+     * Liefert den Index der uebergebenen Wahrscheinlichkeitsverteilung zurueck, der zur Zufallszahl gehoert
+     *
+     * @param cumulative kumulierte Wahrscheinlichkeiten (letztes Element 1)
+     * @param u          Zufallszahl in [0, 1)
+     * @return Index
+     */
+    static int pick(final double[] cumulative, final double u) {
+        for (int i = 0; i < cumulative.length - 1; i++) {
+            if (u < cumulative[i])
+                return i;
+        }
+        return cumulative.length - 1;
+    }
+
+    /**
+     * Liefert die kumulierten, auf 1 normierten Wahrscheinlichkeiten zurueck
+     *
+     * @param probabilities Wahrscheinlichkeiten (nicht logarithmiert)
+     * @return kumulierte Wahrscheinlichkeiten
+     * @throws IllegalArgumentException falls die Summe nicht positiv ist
+     */
+    static double[] cumulative(final double[] probabilities) throws IllegalArgumentException {
+        double sum = 0d;
+        for (double probability : probabilities) {
+            sum += probability;
+        }
+        if (!(sum > 0d))
+            throw new IllegalArgumentException("probabilities do not sum up to a positive value");
+
+        double[] ret = new double[probabilities.length];
+        double running = 0d;
+        for (int i = 0; i < probabilities.length; i++) {
+            running += probabilities[i];
+            ret[i] = running / sum;
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,74 @@
+package main.hmm.sampler;
+
+import main.logger.Log;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * Thread {@link Thread}, der Bloecke von Eintraegen mittels {@link Sampler} erzeugt und an den {@link BlockWriter} uebergibt.
+ * Jeder Block erhaelt einen eigenen, aus Startwert und Blocknummer abgeleiteten Zufallszahlen-Generator,
+ * sodass die Ausgabe nur vom Startwert abhaengt.
+ *
+ * @author Soeren Metje
+ */
+class ThreadSampler extends Thread {
+
+    /**
+     * Sampler
+     */
+    private final Sampler sampler;
+
+    /**
+     * Ausgabe
+     */
+    private final BlockWriter writer;
+
+    /**
+     * Startwert
+     */
+    private final long seed;
+
+    /**
+     * Konstruktor
+     *
+     * @param sampler Sampler
+     * @param writer  Ausgabe
+     * @param seed    Startwert
+     */
+    ThreadSampler(Sampler sampler, BlockWriter writer, long seed) {
+        this.sampler = sampler;
+        this.writer = writer;
+        this.seed = seed;
+    }
+
+    /**
+     * Erzeugt Bloecke, bis keine mehr benoetigt werden. Schlaegt das Erzeugen fehl, wird der Fehler an den {@link BlockWriter} uebergeben.
+     */
+    @Override
+    public void run() {
+        Log.dLine(getName() + " started");
+        StringBuilder out = new StringBuilder();
+        long blockIndex;
+        while ((blockIndex = writer.claim()) >= 0) {
+            SplittableRandom random = new SplittableRandom(Generator.blockSeed(seed, blockIndex));
+            out.setLength(0);
+            long firstRecord = blockIndex * Generator.RECORDS_PER_BLOCK;
+            try {
+                for (int r = 0; r < Generator.RECORDS_PER_BLOCK; r++) {
+                    sampler.sample(random, firstRecord + r, out);
+                }
+            } catch (RuntimeException | Error e) { // block would never be put, so stop all threads
+                Log.dLine(getName() + " failed in block " + blockIndex);
+                writer.fail(e);
+                return;
+            }
+            try {
+                writer.put(blockIndex, out.toString().getBytes(StandardCharsets.ISO_8859_1));
+            } catch (InterruptedException e) {
+                Log.eLine("ERROR: " + getName() + " got interrupted");
+                return;
+            }
+        }
+    }
+}